@@ -3,22 +3,33 @@ package g61258.dev3.oxono;
 
 
 import g61258.dev3.oxono.controller.GameController;
-import g61258.dev3.oxono.model.Board;
-import g61258.dev3.oxono.model.Game;
+import g61258.dev3.oxono.persistence.GameJournal;
 import g61258.dev3.oxono.view.GameStartView;
+import g61258.dev3.oxono.view.ImageAtlas;
 import javafx.application.Application;
 import javafx.scene.Scene;
 import javafx.stage.Stage;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
 public class Main extends Application {
+
+    private GameJournal journal;
+
     @Override
     public void start(Stage primaryStage) {
+        // Décodage des images du plateau en arrière-plan pendant le choix de la partie
+        ImageAtlas.preload();
+
         // Initialisation de la vue
         GameStartView view = new GameStartView();
 
         // Initialisation du contrôleur
         GameController controller = new GameController(view);
         controller.setPrimaryStage(primaryStage);
+        controller.setJournal(openJournal());
 
         view.setController(controller);
 
@@ -27,6 +38,38 @@ public class Main extends Application {
         primaryStage.setTitle("Oxono");
         primaryStage.setScene(scene);
         primaryStage.show();
+
+        // Reprise de la partie interrompue par le dernier arrêt
+        int boardSize = controller.resumeGame();
+        if (boardSize > 0) {
+            view.showGame(boardSize);
+        }
+    }
+
+    /**
+     * Opens the journal of the games in the home directory of the user.
+     * @return the journal, or null if it cannot be opened
+     */
+    private GameJournal openJournal() {
+        try {
+            Path directory = Path.of(System.getProperty("user.home"), ".oxono");
+            Files.createDirectories(directory);
+            journal = new GameJournal(directory.resolve("journal.oxj"));
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Journal des parties indisponible : " + e.getMessage());
+        }
+        return journal;
+    }
+
+    /**
+     * Commits the journal to the disk when the application stops.
+     * @throws IOException if the journal cannot be written
+     */
+    @Override
+    public void stop() throws IOException {
+        if (journal != null) {
+            journal.close();
+        }
     }
 
     public static void main(String[] args) {
@@ -0,0 +1,289 @@
+package g61258.dev3.oxono.analysis;
+
+import g61258.dev3.oxono.model.Position;
+import g61258.dev3.oxono.record.GameRecord;
+
+import java.util.Arrays;
+
+/**
+ * The {@code VariationTree} class keeps every position reached while analysing a game as a node
+ * of a tree, so that playing an alternative never discards the line it leaves.
+ * <p>A node only stores the {@link g61258.dev3.oxono.model.Move} leading to it from its parent:
+ * nodes live in parallel primitive arrays (parent, move, first child, next sibling, depth), about
+ * twenty bytes per position whatever the size of the board. A single {@link Position} follows the
+ * current node; {@link #goTo(int)} undoes the turns up to the common ancestor of the current node
+ * and the target, then plays the turns down to the target.</p>
+ * <p>Playing a move that already has a node under the current one moves to that node, so that
+ * exploring a line again never duplicates it. Node 0 is the root. The tree is not
+ * thread-safe.</p>
+ */
+public class VariationTree {
+
+    /**
+     * Index of the root node.
+     */
+    public static final int ROOT = 0;
+
+    private static final int NONE = -1;
+
+    private final Position position;
+    private int[] parents = new int[64];
+    private int[] moves = new int[64];
+    private int[] firstChildren = new int[64];
+    private int[] nextSiblings = new int[64];
+    private short[] depths = new short[64];
+    private int[] path = new int[64];
+    private int size;
+    private int current;
+
+    /**
+     * Constructs a tree whose root is the given position.
+     * @param root the position to analyse, copied
+     */
+    public VariationTree(Position root) {
+        this.position = root.copy();
+        parents[ROOT] = NONE;
+        firstChildren[ROOT] = NONE;
+        nextSiblings[ROOT] = NONE;
+        size = 1;
+    }
+
+    /**
+     * Creates a tree holding a recorded game as its main line, the current node being its last position.
+     * @param record the game to analyse
+     * @return the tree of the game
+     */
+    public static VariationTree of(GameRecord record) {
+        VariationTree tree = new VariationTree(Position.initial(record.getBoardSize(), record.isCrossTotemFirst()));
+        for (int i = 0; i < record.getMoveCount(); i++) {
+            tree.play(record.getMove(i));
+        }
+        return tree;
+    }
+
+    /**
+     * Plays a move from the current node and moves to the node of the resulting position, which is
+     * created unless the move was already explored from this node.
+     * @param move the packed move, legal in the current position
+     * @return the node reached
+     * @throws IllegalArgumentException if the move is not legal
+     */
+    public int play(int move) {
+        int child = findChild(current, move);
+        if (child == NONE) {
+            if (!position.isLegal(move)) {
+                throw new IllegalArgumentException("Coup illégal dans cette position : " + move);
+            }
+            child = addNode(current, move);
+        }
+        position.play(move);
+        current = child;
+        return child;
+    }
+
+    /**
+     * Moves to any node of the tree, through the common ancestor of the current node and the target.
+     * @param node the node to reach
+     * @return the position of the node, owned by the tree
+     */
+    public Position goTo(int node) {
+        checkNode(node);
+        // Remonte jusqu'à l'ancêtre commun en empilant le chemin de la cible
+        int length = 0;
+        int target = node;
+        while (depths[current] > depths[target]) {
+            up();
+        }
+        while (depths[target] > depths[current]) {
+            path = push(path, length++, target);
+            target = parents[target];
+        }
+        while (current != target) {
+            up();
+            path = push(path, length++, target);
+            target = parents[target];
+        }
+        while (length > 0) {
+            int next = path[--length];
+            position.play(moves[next]);
+            current = next;
+        }
+        return position;
+    }
+
+    /**
+     * Moves to the parent of the current node.
+     * @return the position of the parent, owned by the tree
+     * @throws IllegalStateException if the current node is the root
+     */
+    public Position back() {
+        if (current == ROOT) {
+            throw new IllegalStateException("Début de l'analyse atteint");
+        }
+        up();
+        return position;
+    }
+
+    /**
+     * Undoes the move of the current node.
+     */
+    private void up() {
+        position.undo();
+        current = parents[current];
+    }
+
+    /**
+     * Finds the child of a node reached by a move.
+     * @return the child, or {@link #NONE}
+     */
+    private int findChild(int node, int move) {
+        for (int child = firstChildren[node]; child != NONE; child = nextSiblings[child]) {
+            if (moves[child] == move) {
+                return child;
+            }
+        }
+        return NONE;
+    }
+
+    /**
+     * Appends a node as the last child of its parent.
+     */
+    private int addNode(int parent, int move) {
+        if (size == parents.length) {
+            int capacity = size * 2;
+            parents = Arrays.copyOf(parents, capacity);
+            moves = Arrays.copyOf(moves, capacity);
+            firstChildren = Arrays.copyOf(firstChildren, capacity);
+            nextSiblings = Arrays.copyOf(nextSiblings, capacity);
+            depths = Arrays.copyOf(depths, capacity);
+        }
+        int node = size++;
+        parents[node] = parent;
+        moves[node] = move;
+        firstChildren[node] = NONE;
+        nextSiblings[node] = NONE;
+        depths[node] = (short) (depths[parent] + 1);
+
+        // Ajout en fin de liste : la première variante jouée reste la ligne principale
+        if (firstChildren[parent] == NONE) {
+            firstChildren[parent] = node;
+        } else {
+            int last = firstChildren[parent];
+            while (nextSiblings[last] != NONE) {
+                last = nextSiblings[last];
+            }
+            nextSiblings[last] = node;
+        }
+        return node;
+    }
+
+    /**
+     * Pushes a node on a stack, growing it if needed.
+     */
+    private static int[] push(int[] stack, int index, int node) {
+        if (index == stack.length) {
+            stack = Arrays.copyOf(stack, index * 2);
+        }
+        stack[index] = node;
+        return stack;
+    }
+
+    /**
+     * Checks that a node exists.
+     */
+    private void checkNode(int node) {
+        if (node < 0 || node >= size) {
+            throw new IndexOutOfBoundsException("Noeud inconnu : " + node);
+        }
+    }
+
+    /**
+     * Returns the moves leading from the root to a node.
+     * @param node the node
+     * @return the packed moves of the line, in playing order
+     */
+    public int[] line(int node) {
+        checkNode(node);
+        int[] line = new int[depths[node]];
+        for (int n = node; n != ROOT; n = parents[n]) {
+            line[depths[n] - 1] = moves[n];
+        }
+        return line;
+    }
+
+    // GETTERS
+
+    /**
+     * Returns the current node.
+     * @return the node of the current position
+     */
+    public int getCurrent() {
+        return current;
+    }
+
+    /**
+     * Returns the position of the current node. It changes with the tree and must not be modified.
+     * @return the current position
+     */
+    public Position getPosition() {
+        return position;
+    }
+
+    /**
+     * Returns the number of nodes.
+     * @return the number of positions of the tree, root included
+     */
+    public int getSize() {
+        return size;
+    }
+
+    /**
+     * Returns the parent of a node.
+     * @param node the node
+     * @return the parent, or -1 for the root
+     */
+    public int getParent(int node) {
+        checkNode(node);
+        return parents[node];
+    }
+
+    /**
+     * Returns the move leading to a node from its parent.
+     * @param node a node other than the root
+     * @return the packed move
+     */
+    public int getMove(int node) {
+        checkNode(node);
+        return moves[node];
+    }
+
+    /**
+     * Returns the first child of a node, the start of its main line.
+     * @param node the node
+     * @return the first child, or -1 if the node is a leaf
+     */
+    public int getFirstChild(int node) {
+        checkNode(node);
+        return firstChildren[node];
+    }
+
+    /**
+     * Returns the next alternative to a node under the same parent.
+     * @param node the node
+     * @return the next sibling, or -1 if the node is the last alternative
+     */
+    public int getNextSibling(int node) {
+        checkNode(node);
+        return nextSiblings[node];
+    }
+
+    /**
+     * Returns the number of turns from the root to a node.
+     * @param node the node
+     * @return the depth of the node
+     */
+    public int getDepth(int node) {
+        checkNode(node);
+        return depths[node];
+    }
+}
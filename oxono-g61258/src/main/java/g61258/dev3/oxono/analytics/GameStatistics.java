@@ -0,0 +1,426 @@
+package g61258.dev3.oxono.analytics;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import g61258.dev3.oxono.model.Board;
+import g61258.dev3.oxono.model.Game;
+import g61258.dev3.oxono.model.Move;
+import g61258.dev3.oxono.model.OpponentStrategy;
+import g61258.dev3.oxono.model.Position;
+import g61258.dev3.oxono.record.GameRecord;
+import g61258.dev3.oxono.record.GameRecordReader;
+import g61258.dev3.oxono.tournament.GameRunner;
+import g61258.dev3.oxono.tournament.LatencyHistogram;
+import g61258.dev3.oxono.tournament.StrategyRegistry;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * The {@code GameStatistics} class aggregates balance metrics over finished games without keeping
+ * them, so that billions of moves can be analysed in constant memory.
+ * <p>For every board size, it counts:</p>
+ * <ul>
+ *     <li>the results, pink being the first player;</li>
+ *     <li>the tokens placed on every cell by every color, and the totem moves to every cell by shape;</li>
+ *     <li>the number of games of every length, in turns;</li>
+ *     <li>the winning lines by winner and by kind: line of the same color or of the same shape.</li>
+ * </ul>
+ * <p>Every counter is a {@link LongAdder}, whose striped cells absorb the contention of many
+ * simulation threads: any number of threads may call {@link #accept(Position)} concurrently.
+ * The counters are dumped as JSON by {@link #writeJson(OutputStream)}.</p>
+ *
+ * <pre>
+ * GameStatistics [-g games] [-s boardSize] [-t threads] [-o stats.json] [pinkStrategy [blackStrategy]]
+ * GameStatistics [-o stats.json] -i records.oxr [...]
+ * </pre>
+ */
+public class GameStatistics {
+
+    private static final String[] COLORS = {"pink", "black"};
+    private static final String[] SHAPES = {"cross", "circle"};
+    private static final String[] RESULTS = {"pinkWins", "blackWins", "draws"};
+
+    private final ConcurrentHashMap<Integer, SizeCounters> sizes = new ConcurrentHashMap<>();
+
+    /**
+     * Adds a finished game.
+     * @param finished the final position of the game, with its whole history from the initial position
+     */
+    public void accept(Position finished) {
+        SizeCounters counters = counters(finished.getSize());
+        int plies = finished.getPly();
+        for (int ply = 0; ply < plies; ply++) {
+            int move = finished.getMove(ply);
+            counters.placements[ply & 1][Move.placement(move)].increment();
+            counters.totemMoves[Move.shape(move)][Move.destination(move)].increment();
+        }
+        counters.lengths[plies].increment();
+        int winner = finished.getWinner();
+        if (winner == Position.NONE) {
+            counters.results[GameRunner.DRAW].increment();
+        } else {
+            counters.results[winner == 0 ? GameRunner.PINK_WINS : GameRunner.BLACK_WINS].increment();
+            counters.winningLines[winner][finished.getWinKind() == Position.COLOR_LINE ? 0 : 1].increment();
+        }
+    }
+
+    /**
+     * Adds a recorded game.
+     * @param record the game to add
+     */
+    public void accept(GameRecord record) {
+        accept(record.toPosition());
+    }
+
+    /**
+     * Returns the counters of a board size, creating them at the first game of this size.
+     */
+    private SizeCounters counters(int size) {
+        SizeCounters counters = sizes.get(size);
+        return counters != null ? counters : sizes.computeIfAbsent(size, SizeCounters::new);
+    }
+
+    /**
+     * Writes all the counters as a JSON document.
+     * @param out the stream receiving the document, left open
+     * @throws IOException if the stream cannot be written
+     */
+    public void writeJson(OutputStream out) throws IOException {
+        try (JsonGenerator json = new JsonFactory().createGenerator(out, JsonEncoding.UTF8)) {
+            json.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            json.useDefaultPrettyPrinter();
+            json.writeStartObject();
+            json.writeNumberField("games", getGames());
+            json.writeNumberField("moves", getMoves());
+            json.writeArrayFieldStart("boards");
+            for (int size : sizes.keySet().stream().sorted().toList()) {
+                sizes.get(size).writeJson(json);
+            }
+            json.writeEndArray();
+            json.writeEndObject();
+        }
+    }
+
+    /**
+     * Writes all the counters to a JSON file.
+     * @param path the file to create or replace
+     * @throws IOException if the file cannot be written
+     */
+    public void save(Path path) throws IOException {
+        try (OutputStream out = Files.newOutputStream(path)) {
+            writeJson(out);
+        }
+    }
+
+    // GETTERS
+
+    /**
+     * Returns the number of games added, all sizes together.
+     * @return the number of games
+     */
+    public long getGames() {
+        long games = 0;
+        for (SizeCounters counters : sizes.values()) {
+            games += counters.games();
+        }
+        return games;
+    }
+
+    /**
+     * Returns the number of turns of the games added, all sizes together.
+     * @return the number of moves
+     */
+    public long getMoves() {
+        long moves = 0;
+        for (SizeCounters counters : sizes.values()) {
+            moves += counters.moves();
+        }
+        return moves;
+    }
+
+    /**
+     * Returns the number of games with a given result.
+     * @param size the size of the board
+     * @param result {@link GameRunner#PINK_WINS}, {@link GameRunner#BLACK_WINS} or {@link GameRunner#DRAW}
+     * @return the number of games of this size with this result
+     */
+    public long getResults(int size, int result) {
+        SizeCounters counters = sizes.get(size);
+        return counters == null ? 0 : counters.results[result].sum();
+    }
+
+    /**
+     * Returns the number of tokens placed on a cell.
+     * @param size the size of the board
+     * @param color the color index of the tokens, 0 for pink
+     * @param cell the index of the cell
+     * @return the number of tokens of this color placed on this cell
+     */
+    public long getPlacements(int size, int color, int cell) {
+        SizeCounters counters = sizes.get(size);
+        return counters == null ? 0 : counters.placements[color][cell].sum();
+    }
+
+    /**
+     * Returns the number of games of a given length.
+     * @param size the size of the board
+     * @param plies the number of turns
+     * @return the number of games of this size with this number of turns
+     */
+    public long getLengths(int size, int plies) {
+        SizeCounters counters = sizes.get(size);
+        return counters == null ? 0 : counters.lengths[plies].sum();
+    }
+
+    /**
+     * Returns the number of games won by a kind of line.
+     * @param size the size of the board
+     * @param color the color index of the winner, 0 for pink
+     * @param kind {@link Position#COLOR_LINE} or {@link Position#SHAPE_LINE}
+     * @return the number of games of this size won this way by this player
+     */
+    public long getWinningLines(int size, int color, int kind) {
+        SizeCounters counters = sizes.get(size);
+        return counters == null ? 0 : counters.winningLines[color][kind == Position.COLOR_LINE ? 0 : 1].sum();
+    }
+
+    /**
+     * Counters of a board size. Their number depends only on the size.
+     */
+    private static class SizeCounters {
+        final int size;
+        final LongAdder[] results = adders(3);
+        final LongAdder[][] placements;
+        final LongAdder[][] totemMoves;
+        final LongAdder[] lengths;
+        final LongAdder[][] winningLines = {adders(2), adders(2)};
+
+        SizeCounters(int size) {
+            this.size = size;
+            int cells = size * size;
+            this.placements = new LongAdder[][] {adders(cells), adders(cells)};
+            this.totemMoves = new LongAdder[][] {adders(cells), adders(cells)};
+            this.lengths = adders(cells + 1);
+        }
+
+        /**
+         * Creates an array of counters.
+         */
+        private static LongAdder[] adders(int count) {
+            LongAdder[] adders = new LongAdder[count];
+            for (int i = 0; i < count; i++) {
+                adders[i] = new LongAdder();
+            }
+            return adders;
+        }
+
+        /**
+         * Sums the results.
+         */
+        long games() {
+            return results[0].sum() + results[1].sum() + results[2].sum();
+        }
+
+        /**
+         * Sums the placements of both colors.
+         */
+        long moves() {
+            long moves = 0;
+            for (LongAdder[] color : placements) {
+                for (LongAdder adder : color) {
+                    moves += adder.sum();
+                }
+            }
+            return moves;
+        }
+
+        /**
+         * Writes the counters of this size as a JSON object.
+         */
+        void writeJson(JsonGenerator json) throws IOException {
+            long[] outcome = {results[0].sum(), results[1].sum(), results[2].sum()};
+            long games = outcome[0] + outcome[1] + outcome[2];
+            json.writeStartObject();
+            json.writeNumberField("size", size);
+            json.writeNumberField("games", games);
+            json.writeObjectFieldStart("results");
+            for (int i = 0; i < RESULTS.length; i++) {
+                json.writeNumberField(RESULTS[i], outcome[i]);
+            }
+            // Taux de victoire du premier joueur (rose), parties nulles comptées pour moitié
+            json.writeNumberField("firstPlayerScore", games == 0 ? 0.5 : (outcome[0] + outcome[2] / 2.0) / games);
+            json.writeEndObject();
+
+            json.writeObjectFieldStart("winningLines");
+            for (int color = 0; color < 2; color++) {
+                json.writeObjectFieldStart(COLORS[color]);
+                json.writeNumberField("color", winningLines[color][0].sum());
+                json.writeNumberField("shape", winningLines[color][1].sum());
+                json.writeEndObject();
+            }
+            json.writeEndObject();
+
+            json.writeArrayFieldStart("lengths");
+            for (LongAdder length : lengths) {
+                json.writeNumber(length.sum());
+            }
+            json.writeEndArray();
+
+            json.writeObjectFieldStart("placements");
+            for (int color = 0; color < 2; color++) {
+                writeHeatmap(json, COLORS[color], placements[color]);
+            }
+            json.writeEndObject();
+            json.writeObjectFieldStart("totemMoves");
+            for (int shape = 0; shape < 2; shape++) {
+                writeHeatmap(json, SHAPES[shape], totemMoves[shape]);
+            }
+            json.writeEndObject();
+            json.writeEndObject();
+        }
+
+        /**
+         * Writes per-cell counters as an array of rows.
+         */
+        private void writeHeatmap(JsonGenerator json, String name, LongAdder[] cells) throws IOException {
+            json.writeArrayFieldStart(name);
+            for (int x = 0; x < size; x++) {
+                json.writeStartArray();
+                for (int y = 0; y < size; y++) {
+                    json.writeNumber(cells[x * size + y].sum());
+                }
+                json.writeEndArray();
+            }
+            json.writeEndArray();
+        }
+    }
+
+    /**
+     * Plays headless games on several threads, every finished game being added to the statistics.
+     * Each game follows its turns on a compact position through the move listener of {@link GameRunner}.
+     * @param statistics the statistics receiving the games
+     * @param pink the factory of the pink strategy
+     * @param black the factory of the black strategy
+     * @param boardSize the size of the board
+     * @param games the number of games
+     * @param threads the number of games played in parallel
+     * @param seed the seed deciding the initial totem layouts
+     * @throws InterruptedException if the thread is interrupted while waiting for the games
+     * @throws RuntimeException the first exception thrown by a game, the statistics being incomplete
+     */
+    public static void simulate(GameStatistics statistics, Supplier<OpponentStrategy> pink,
+                                Supplier<OpponentStrategy> black, int boardSize, int games, int threads,
+                                long seed) throws InterruptedException {
+        ExecutorService pool = Executors.newFixedThreadPool(Math.max(1, threads));
+        AtomicLong next = new AtomicLong();
+        try {
+            List<Future<?>> workers = new ArrayList<>();
+            for (int t = 0; t < Math.max(1, threads); t++) {
+                workers.add(pool.submit(() -> {
+                    GameRunner runner = new GameRunner(boardSize);
+                    LatencyHistogram latency = new LatencyHistogram();
+                    long index;
+                    while ((index = next.getAndIncrement()) < games) {
+                        boolean crossTotemFirst = new SplittableRandom(seed + index).nextBoolean();
+                        Game game = new Game(new Board(boardSize, crossTotemFirst), null);
+                        game.start();
+                        Position position = Position.initial(boardSize, crossTotemFirst);
+                        runner.play(game, pink.get(), black.get(), latency, latency, position::play);
+                        statistics.accept(position);
+                    }
+                }));
+            }
+            for (Future<?> worker : workers) {
+                worker.get();
+            }
+        } catch (ExecutionException e) {
+            next.set(games); // Les autres travailleurs s'arrêtent après leur partie en cours
+            if (e.getCause() instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            if (e.getCause() instanceof Error error) {
+                throw error;
+            }
+            throw new IllegalStateException("Une partie a échoué", e.getCause());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    /**
+     * Computes statistics from the command line, on simulated games or on record files.
+     * @param args the options
+     * @throws IOException if a file cannot be read or written
+     * @throws InterruptedException if the simulation is interrupted
+     */
+    public static void main(String[] args) throws IOException, InterruptedException {
+        int games = 10_000;
+        int boardSize = 6;
+        int threads = Runtime.getRuntime().availableProcessors();
+        Path output = null;
+        List<Path> inputs = new ArrayList<>();
+        List<String> names = new ArrayList<>();
+
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "-g" -> games = Integer.parseInt(args[++i]);
+                case "-s" -> boardSize = Integer.parseInt(args[++i]);
+                case "-t" -> threads = Integer.parseInt(args[++i]);
+                case "-o" -> output = Path.of(args[++i]);
+                case "-i" -> {
+                    while (i + 1 < args.length && !args[i + 1].startsWith("-")) {
+                        inputs.add(Path.of(args[++i]));
+                    }
+                }
+                default -> names.add(args[i]);
+            }
+        }
+        if (names.size() > 2 || (!inputs.isEmpty() && !names.isEmpty())) {
+            System.err.println("Usage : GameStatistics [-g parties] [-s taille] [-t threads] [-o stats.json] [strategieRose [strategieNoire]]");
+            System.err.println("        GameStatistics [-o stats.json] -i parties.oxr [...]");
+            System.err.println("Stratégies disponibles : " + StrategyRegistry.names());
+            System.exit(1);
+        }
+
+        GameStatistics statistics = new GameStatistics();
+        long start = System.nanoTime();
+        if (inputs.isEmpty()) {
+            String pink = names.isEmpty() ? "random" : names.get(0);
+            String black = names.isEmpty() ? pink : names.get(names.size() - 1);
+            simulate(statistics, StrategyRegistry.get(pink), StrategyRegistry.get(black), boardSize, games, threads,
+                    System.nanoTime());
+        } else {
+            for (Path input : inputs) {
+                try (GameRecordReader reader = new GameRecordReader(input)) {
+                    GameRecord record;
+                    while ((record = reader.read()) != null) {
+                        statistics.accept(record);
+                    }
+                }
+            }
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.err.printf("%d parties, %d coups en %.1f s%n", statistics.getGames(), statistics.getMoves(), seconds);
+        if (output == null) {
+            statistics.writeJson(System.out);
+            System.out.println();
+        } else {
+            statistics.save(output);
+        }
+    }
+}
@@ -58,14 +58,14 @@ public class ConsoleController {
                     chosenTotem = getTotemChoice();
                 }
 
-                do {
-                    moveTotem(chosenTotem);
-                    view.displayBoard(game,boardSize,totemX,totemO);
-                } while (askUndoRedo());
-
-
+                // Annuler le placement annule le tour entier : on recommence par le déplacement du totem
                 int[] coords;
                 do {
+                    do {
+                        moveTotem(chosenTotem);
+                        view.displayBoard(game,boardSize,totemX,totemO);
+                    } while (askUndoRedo());
+
                     coords = placeToken(chosenTotem);
                     view.displayBoard(game,boardSize,totemX,totemO);
                 } while (askUndoRedo());
@@ -262,8 +262,8 @@ public class ConsoleController {
                 // Après avoir annulé, demande si l'on souhaite refaire l'action
                 System.out.println("Souhaitez-vous refaire l'action ? (r) pour refaire, ou appuyez sur Entrée pour continuer.");
                 input = scanner.nextLine();
-                if (input.equals("r")) {
-                    // Refait la dernière action annulée
+                if (input.equals("r") && game.canRedo()) {
+                    // Refait la dernière action annulée, sinon l'action est redemandée
 
                     // Dans Game
                     //  commandManager.redo();
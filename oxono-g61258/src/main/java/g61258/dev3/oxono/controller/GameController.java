@@ -1,6 +1,7 @@
 package g61258.dev3.oxono.controller;
 
 import g61258.dev3.oxono.model.*;
+import g61258.dev3.oxono.persistence.GameJournal;
 import g61258.dev3.oxono.utils.Observer;
 import g61258.dev3.oxono.view.*;
 
@@ -14,6 +15,7 @@ public class GameController {
     private  Game game;
     private final GameStartView gameStartView;
     private Stage primaryStage; // Référence au Stage principal
+    private GameJournal journal;
 
     /**
      * Constructs a GameController.
@@ -89,71 +91,90 @@ public class GameController {
             boolean enclavedTotem = game.isTotemEnclaved(lastMovedTotem);
             if (enclavedTotem) {
                 if (game.canPlaceTokenAnywhere(rowIndex, colIndex, lastMovedTotem)) {
-                    game.placeToken(rowIndex, colIndex, lastMovedTotem);
-                    handlePressAction();
+                    handlePressAction(rowIndex, colIndex, lastMovedTotem);
                 }
             } else {
                 if (game.canPlaceToken(rowIndex, colIndex, lastMovedTotem)) {
-                    game.placeToken(rowIndex, colIndex, lastMovedTotem);
-                    handlePressAction();
+                    handlePressAction(rowIndex, colIndex, lastMovedTotem);
                 }
             }
         }
     }
 
     /**
-     * Handles the pressing action, checking for victory conditions or switching turns.
-     * @return True if the game is over, false otherwise.
+     * Handles the pressing action: places the token, then checks victory conditions or lets the opponent play.
+     * The views are updated once, when the whole action is done.
+     * @param rowIndex the row index of the token
+     * @param colIndex the column index of the token
+     * @param lastMovedTotem the totem moved during the turn
      */
-    public void handlePressAction() {
+    public void handlePressAction(int rowIndex, int colIndex, Totem lastMovedTotem) {
+        boolean gameOver;
+        game.beginUpdate();
+        try {
+            game.placeToken(rowIndex, colIndex, lastMovedTotem);
+            gameOver = finishTurns();
+            if (gameOver) {
+                game.setGameStat(GameStat.CHOICE);
+            } else {
+                game.setGameStat(GameStat.MOVE);
+                gameStartView.getBoardView().clearSelectedTotem();
+            }
+        } finally {
+            game.endUpdate();
+        }
+        if (gameOver) {
+            handleEndGame();
+        }
+    }
+
+    /**
+     * Ends the turn of the human player and plays the turn of the computer.
+     * @return true if the game is over, false otherwise
+     */
+    private boolean finishTurns() {
         int[] coords = game.getLastPlacedTokenCoords();
         if (coords != null) {
             game.setGameOver(game.checkVictory(coords[0], coords[1]));
             if (game.isGameOver()) {
                 game.setWinner();
-                handleEndGame();
-                return;
-            } else {
-                game.switchPlayer();
-                game.playOpponentTurn();
-
-                if (game.stillHasTokens()) {
-                    coords = game.getLastPlacedTokenCoords();
-                    if (coords != null) {
-                        game.setGameOver(game.checkVictory(coords[0], coords[1]));
-                        if (game.isGameOver()) {
-                            game.setWinner();
-                            handleEndGame();
-                            return;
-                        } else {
-                            // Après le tour de l'adversaire, on passe au joueur humain
-                            game.switchPlayer();
-                        }
-                    }
-                } else {
-                    handleEndGame();
-                    return;
+                return true;
+            }
+            game.switchPlayer();
+            game.playOpponentTurn();
+
+            coords = game.getLastPlacedTokenCoords();
+            if (coords != null) {
+                game.setGameOver(game.checkVictory(coords[0], coords[1]));
+                if (game.isGameOver()) {
+                    game.setWinner();
+                    return true;
                 }
-
+            }
+            if (!game.stillHasTokens()) {
+                // Partie nulle : terminée dans le journal pour ne pas être reprise au lancement suivant
+                game.declareDraw();
+                return true;
+            }
+            if (coords != null) {
+                // Après le tour de l'adversaire, on passe au joueur humain
+                game.switchPlayer();
             }
         }
-        game.setGameStat(GameStat.MOVE);
-        gameStartView.getBoardView().update();
-        gameStartView.getBoardView().clearSelectedTotem();
+        return false;
     }
 
     /**
-     * Handles the end-of-game process.
-     * This method performs all necessary actions to transition the game into its end state,
-     * including displaying the winner, updating the game status, and disabling further actions.
+     * Handles the end-of-game process, once the model is in its final state.
+     * This method performs all necessary actions on the views: displaying the winner, graying out the board
+     * and disabling further actions. It is called after the last update of the views, which would otherwise
+     * redraw the board in color.
      */
     private void handleEndGame() {
         String winnerName = getWinnerName(); // Obtenez le nom du gagnant
-        game.setGameStat(GameStat.CHOICE);
         gameStartView.getGameInfoView().getEndGameView().display(winnerName); // Affichez la vue de fin de jeu avec le nom du gagnant
         gameStartView.getBoardView().grayOutBoard(); // Grise le plateau pour indiquer que le jeu est terminé
         gameStartView.getGameInfoView().disableActionButtons(); // Désactive les boutons d’action pour empêcher d’autres interactions
-        gameStartView.getGameInfoView().update(); // Mettez à jour la vue pour refléter l'état final du jeu
     }
 
 
@@ -166,25 +187,62 @@ public class GameController {
     }
 
     /**
-     * Handles the event of a game abandonment.
+     * Adds a listener receiving the typed changes of the game model.
+     * @param listener The listener to add.
+     */
+    public void addListener(GameListener listener) {
+        game.addListener(listener);
+    }
+
+    /**
+     * Handles the event of a game abandonment. The views are updated once.
      */
     public void abandonGame() {
-        game.setGameStat(GameStat.CHOICE);
-        game.abandonGame();
+        game.batch(() -> {
+            game.setGameStat(GameStat.CHOICE);
+            game.abandonGame();
+        });
     }
 
     /**
-     * Executes the undo action for the last command.
+     * Undoes the totem move in progress, or else the last whole turn.
+     * The turn of the computer is undone together with the turn before it, so that the human player plays again.
+     * The views are updated once.
      */
     public void undo() {
-        game.undo();
+        game.batch(() -> {
+            game.undo();
+            if (game.getCurrentPlayerColor() == Color.BLACK && game.canUndo()) {
+                game.undo();
+            }
+        });
     }
 
     /**
-     * Executes the redo action for the last undone command.
+     * Redoes the last undone turn and ends it, then the answer of the computer if it was undone too.
+     * The views are updated once.
      */
     public void redo() {
-        game.redo();
+        boolean gameOver = false;
+        game.beginUpdate();
+        try {
+            for (int turn = 0; turn < 2 && game.canRedo(); turn++) {
+                game.redo();
+                if (game.endTurn()) {
+                    game.setGameStat(GameStat.CHOICE);
+                    gameOver = true;
+                    break;
+                }
+                if (game.getCurrentPlayerColor() != Color.BLACK) {
+                    break;
+                }
+            }
+        } finally {
+            game.endUpdate();
+        }
+        if (gameOver) {
+            handleEndGame();
+        }
     }
 
     /**
@@ -202,8 +260,32 @@ public class GameController {
      * @param aiLevel the level of the AI opponent
      */
     public void configureGame(int boardSize, int aiLevel) {
-        this.game = new Game(boardSize, aiLevel);
-        game.start();
+        if (game != null && !game.isGameOver()) {
+            game.abandonGame(); // La partie remplacée ne doit pas rester en cours dans le journal
+        }
+        if (journal != null) {
+            this.game = journal.newGame(boardSize, aiLevel);
+        } else {
+            this.game = new Game(boardSize, aiLevel);
+            game.start();
+        }
+    }
+
+    /**
+     * Resumes the last game left in progress in the journal, if any, abandoning the others.
+     * @return the size of the board of the resumed game, or 0 if there is no game to resume
+     */
+    public int resumeGame() {
+        if (journal == null || journal.getRecoveredGames().isEmpty()) {
+            return 0;
+        }
+        for (Game recovered : journal.getRecoveredGames().values()) {
+            if (game != null) {
+                game.abandonGame(); // Seule la dernière partie commencée est reprise
+            }
+            this.game = recovered;
+        }
+        return game.getBoardSize();
     }
 
     // GETTERS
@@ -302,6 +384,14 @@ public class GameController {
         }
     }
 
+    /**
+     * Sets the journal recording the games, so that they survive a restart of the application.
+     * @param journal the journal of the games, or null to play without journal
+     */
+    public void setJournal(GameJournal journal) {
+        this.journal = journal;
+    }
+
     /**
      * Associates the main Stage with the controller.
      * This method should be called during application initialization.
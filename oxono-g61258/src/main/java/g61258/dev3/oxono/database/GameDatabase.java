@@ -0,0 +1,439 @@
+package g61258.dev3.oxono.database;
+
+import g61258.dev3.oxono.model.Position;
+import g61258.dev3.oxono.record.GameRecord;
+import g61258.dev3.oxono.record.GameRecordReader;
+import g61258.dev3.oxono.record.GameRecordWriter;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+/**
+ * The {@code GameDatabase} class stores game records in a directory and answers, through a sorted
+ * memory-mapped index, which games reached a given position and how they ended.
+ * <p>The directory holds:</p>
+ * <ul>
+ *     <li>segment files {@code segment-NNNNN.oxr} of {@link g61258.dev3.oxono.record.RecordFormat},
+ *     a new one being started once a segment exceeds {@value #SEGMENT_BYTES} bytes;</li>
+ *     <li>the game table {@code games.tbl}, one {@value #TABLE_ENTRY}-byte entry per game id
+ *     (offset in its segment, segment number, number of turns, result), memory-mapped;</li>
+ *     <li>the {@link PositionIndex} {@code positions-NNNNN.idx}, one entry per position reached after each
+ *     turn of each game, sorted by {@link g61258.dev3.oxono.model.PositionHash}, after a header holding
+ *     the number of games it covers.</li>
+ * </ul>
+ * <p>Each commit writes a new index file with the next number. The previous file stays mapped while
+ * the new one is written and is deleted afterwards. The index and the count of its games therefore change
+ * together, and the current index is the one with the highest number. Windows cannot delete a file that is
+ * still mapped; such a file is deleted the next time the database is opened.</p>
+ * <p>{@link #add(GameRecord)} appends a game and buffers its index entries, {@link #commit()} merges
+ * them into the index by external sorting and makes the games visible to queries. Games added but
+ * not committed when the database was last closed are indexed again when it is opened.
+ * Positions are identified by their 64-bit hash only, collisions are ignored.
+ * The database is not thread-safe.</p>
+ *
+ * <pre>
+ * GameDatabase directory import records.oxr [...]
+ * GameDatabase directory bench [queries]
+ * </pre>
+ */
+public class GameDatabase implements Closeable {
+
+    /**
+     * Result of a game won by the pink player.
+     */
+    public static final int PINK_WINS = 0;
+
+    /**
+     * Result of a game won by the black player.
+     */
+    public static final int BLACK_WINS = 1;
+
+    /**
+     * Result of a game without winner.
+     */
+    public static final int DRAW = 2;
+
+    /**
+     * Size above which a new segment file is started.
+     */
+    public static final long SEGMENT_BYTES = 1L << 30;
+
+    /**
+     * Size of an entry of the game table.
+     */
+    public static final int TABLE_ENTRY = 16;
+
+    private static final int TABLE_CHUNK_SHIFT = 26;
+    private static final long TABLE_CHUNK_MASK = (1L << TABLE_CHUNK_SHIFT) - 1;
+    private static final int RUN_ENTRIES = 1 << 20;
+
+    private final Path directory;
+    private final FileChannel table;
+    private final ByteBuffer tableBuffer = ByteBuffer.allocateDirect(1 << 16).order(ByteOrder.LITTLE_ENDIAN);
+    private final IndexBuilder builder;
+    private final Map<Integer, GameRecordReader> readers = new HashMap<>();
+
+    private MappedByteBuffer[] tableChunks = new MappedByteBuffer[0];
+    private PositionIndex index;
+    private GameRecordWriter segmentWriter;
+    private int segment;
+    private int generation;
+    private long games;
+    private long committedGames;
+
+    /**
+     * Opens or creates a database, indexing the games added after the last commit.
+     * @param directory the directory of the database, created if missing
+     * @throws IOException if the files cannot be opened
+     */
+    public GameDatabase(Path directory) throws IOException {
+        this.directory = Files.createDirectories(directory);
+        this.builder = new IndexBuilder(directory, RUN_ENTRIES);
+        this.table = FileChannel.open(directory.resolve("games.tbl"), StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        this.games = table.size() / TABLE_ENTRY;
+        table.position(games * TABLE_ENTRY);
+
+        while (Files.exists(segmentPath(segment + 1))) {
+            segment++;
+        }
+        this.segmentWriter = new GameRecordWriter(segmentPath(segment));
+
+        this.generation = findIndex();
+        this.committedGames = games;
+        remap();
+        long indexed = index.getGames();
+        if (indexed < games) {
+            // Parties ajoutées après le dernier commit : on les indexe à nouveau
+            for (long id = indexed; id < games; id++) {
+                indexGame(buildRecord(id), (int) id);
+            }
+            commit();
+        }
+    }
+
+    /**
+     * Appends a game. It becomes visible to queries at the next {@link #commit()}.
+     * @param record the game to add
+     * @return the id of the game
+     * @throws IOException if the game cannot be written
+     */
+    public int add(GameRecord record) throws IOException {
+        if (games >= Integer.MAX_VALUE) {
+            throw new IllegalStateException("Base de parties pleine");
+        }
+        int id = (int) games;
+        long offset = segmentWriter.write(record);
+        int result = indexGame(record, id);
+
+        if (tableBuffer.remaining() < TABLE_ENTRY) {
+            flushTable();
+        }
+        tableBuffer.putLong(offset).putInt(segment).putShort((short) record.getMoveCount())
+                .put((byte) result).put((byte) 0);
+        games++;
+
+        if (segmentWriter.getPosition() >= SEGMENT_BYTES) {
+            segmentWriter.close();
+            segment++;
+            segmentWriter = new GameRecordWriter(segmentPath(segment));
+        }
+        return id;
+    }
+
+    /**
+     * Replays a game on a compact position and adds the position reached after every turn to the index.
+     * @param record the game
+     * @param id the id of the game
+     * @return the result of the game
+     * @throws IOException if a run of the index cannot be spilled
+     */
+    private int indexGame(GameRecord record, int id) throws IOException {
+        Position position = Position.initial(record.getBoardSize(), record.isCrossTotemFirst());
+        for (int ply = 0; ply < record.getMoveCount(); ply++) {
+            position.play(record.getMove(ply));
+            builder.add(position.getHash(), id, ply + 1);
+        }
+        int winner = position.getWinner();
+        return winner == Position.NONE ? DRAW : winner == 0 ? PINK_WINS : BLACK_WINS;
+    }
+
+    /**
+     * Writes the added games, merges their positions into the index and makes them visible to queries.
+     * @throws IOException if a file cannot be written
+     */
+    public void commit() throws IOException {
+        segmentWriter.force(); // Les parties sur le disque avant la table qui y renvoie
+        flushTable();
+        table.force(false);
+        int previous = generation;
+        if (games > index.getGames()) {
+            builder.mergeInto(generation > 0 ? indexPath(generation) : null, indexPath(generation + 1), games);
+            generation++;
+        }
+        committedGames = games;
+        remap();
+        if (generation != previous && previous > 0) {
+            deleteIndex(indexPath(previous));
+        }
+    }
+
+    /**
+     * Finds the current index, the one with the highest number, and deletes the older ones and the
+     * temporary files left by an interrupted merge.
+     * @return the number of the current index, 0 if there is none yet
+     * @throws IOException if the directory cannot be listed
+     */
+    private int findIndex() throws IOException {
+        int current = 0;
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "positions-*.idx")) {
+            for (Path file : files) {
+                current = Math.max(current, indexNumber(file));
+            }
+        }
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "{positions-*.idx,*.tmp}")) {
+            for (Path file : files) {
+                if (file.getFileName().toString().endsWith(".tmp") || indexNumber(file) != current) {
+                    deleteIndex(file);
+                }
+            }
+        }
+        return current;
+    }
+
+    /**
+     * Returns the number of an index file.
+     */
+    private static int indexNumber(Path file) {
+        String name = file.getFileName().toString();
+        return Integer.parseInt(name.substring("positions-".length(), name.length() - ".idx".length()));
+    }
+
+    /**
+     * Deletes an old index file, or leaves it for the next opening if it is still mapped on Windows.
+     */
+    private static void deleteIndex(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            // Encore projeté en mémoire : supprimé à la prochaine ouverture
+        }
+    }
+
+    /**
+     * Finds the committed games that reached a position.
+     * @param hash the hash of the position, see {@link Position#getHash()}
+     * @return the games, plies and results of the position
+     */
+    public PositionSummary find(long hash) {
+        PositionSummary summary = new PositionSummary(hash);
+        for (long entry = index.lowerBound(hash); entry < index.size() && index.hashAt(entry) == hash; entry++) {
+            int game = index.gameAt(entry);
+            summary.add(game, index.plyAt(entry), tableEntry(game).get(tableOffset(game) + 14));
+        }
+        return summary;
+    }
+
+    /**
+     * Reads a committed game.
+     * @param id the id of the game
+     * @return the record of the game
+     * @throws IOException if the segment cannot be read
+     */
+    public GameRecord game(long id) throws IOException {
+        if (id < 0 || id >= committedGames) {
+            throw new IllegalArgumentException("Partie inconnue ou non validée : " + id);
+        }
+        return buildRecord(id);
+    }
+
+    /**
+     * Returns the result of a committed game.
+     * @param id the id of the game
+     * @return {@link #PINK_WINS}, {@link #BLACK_WINS} or {@link #DRAW}
+     */
+    public int result(long id) {
+        return tableEntry(id).get(tableOffset(id) + 14);
+    }
+
+    /**
+     * Reads a game from its segment, through the mapped table.
+     */
+    private GameRecord buildRecord(long id) throws IOException {
+        ByteBuffer entry = tableEntry(id);
+        int offset = tableOffset(id);
+        int gameSegment = entry.getInt(offset + 8);
+        GameRecordReader reader = readers.get(gameSegment);
+        if (reader == null) {
+            reader = new GameRecordReader(segmentPath(gameSegment));
+            readers.put(gameSegment, reader);
+        }
+        reader.seek(entry.getLong(offset));
+        return reader.read();
+    }
+
+    /**
+     * Returns the mapped chunk of the table holding a game.
+     */
+    private ByteBuffer tableEntry(long id) {
+        return tableChunks[(int) (id >> TABLE_CHUNK_SHIFT)];
+    }
+
+    /**
+     * Returns the offset of a game in its chunk of the table.
+     */
+    private static int tableOffset(long id) {
+        return (int) (id & TABLE_CHUNK_MASK) * TABLE_ENTRY;
+    }
+
+    /**
+     * Writes the buffered table entries.
+     */
+    private void flushTable() throws IOException {
+        tableBuffer.flip();
+        while (tableBuffer.hasRemaining()) {
+            table.write(tableBuffer);
+        }
+        tableBuffer.clear();
+    }
+
+    /**
+     * Maps the committed part of the table and the index again, closing the readers of segments
+     * that may have grown.
+     */
+    private void remap() throws IOException {
+        int chunkCount = (int) ((committedGames + TABLE_CHUNK_MASK) >> TABLE_CHUNK_SHIFT);
+        tableChunks = new MappedByteBuffer[chunkCount];
+        for (int i = 0; i < chunkCount; i++) {
+            long first = (long) i << TABLE_CHUNK_SHIFT;
+            long count = Math.min(1L << TABLE_CHUNK_SHIFT, committedGames - first);
+            tableChunks[i] = table.map(FileChannel.MapMode.READ_ONLY, first * TABLE_ENTRY, count * TABLE_ENTRY);
+            tableChunks[i].order(ByteOrder.LITTLE_ENDIAN);
+        }
+        if (index != null) {
+            index.close();
+        }
+        index = new PositionIndex(generation > 0 ? indexPath(generation) : null);
+        for (GameRecordReader reader : readers.values()) {
+            reader.close();
+        }
+        readers.clear();
+    }
+
+    /**
+     * Returns the path of an index file.
+     */
+    private Path indexPath(int number) {
+        return directory.resolve(String.format("positions-%05d.idx", number));
+    }
+
+    /**
+     * Returns the path of a segment file.
+     */
+    private Path segmentPath(int number) {
+        return directory.resolve(String.format("segment-%05d.oxr", number));
+    }
+
+    /**
+     * Commits the added games and closes the files.
+     * @throws IOException if a file cannot be written
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            commit();
+        } finally {
+            segmentWriter.close();
+            table.close();
+            index.close();
+            for (GameRecordReader reader : readers.values()) {
+                reader.close();
+            }
+        }
+    }
+
+    // GETTERS
+
+    /**
+     * Returns the number of games added, committed or not.
+     * @return the number of games
+     */
+    public long getGames() {
+        return games;
+    }
+
+    /**
+     * Returns the number of committed games, visible to queries.
+     * @return the number of committed games
+     */
+    public long getCommittedGames() {
+        return committedGames;
+    }
+
+    /**
+     * Returns the number of indexed positions.
+     * @return the number of (position, game) entries of the index
+     */
+    public long getIndexedPositions() {
+        return index.size();
+    }
+
+    /**
+     * Imports record files or measures the query time from the command line.
+     * @param args the directory, the command and its arguments
+     * @throws IOException if a file cannot be read or written
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2 || !(args[1].equals("import") || args[1].equals("bench"))) {
+            System.err.println("Usage : GameDatabase repertoire import parties.oxr [...] | GameDatabase repertoire bench [requetes]");
+            System.exit(1);
+        }
+        try (GameDatabase database = new GameDatabase(Path.of(args[0]))) {
+            if (args[1].equals("import")) {
+                long start = System.nanoTime();
+                for (int i = 2; i < args.length; i++) {
+                    try (GameRecordReader reader = new GameRecordReader(Path.of(args[i]))) {
+                        GameRecord record;
+                        while ((record = reader.read()) != null) {
+                            database.add(record);
+                        }
+                    }
+                }
+                database.commit();
+                System.out.printf("%d parties, %d positions indexées en %.1f s%n", database.getGames(),
+                        database.getIndexedPositions(), (System.nanoTime() - start) / 1e9);
+            } else {
+                int queries = args.length > 2 ? Integer.parseInt(args[2]) : 100_000;
+                if (database.getCommittedGames() == 0) {
+                    System.err.println("Base vide");
+                    return;
+                }
+                // Requêtes sur des positions réellement atteintes, tirées au hasard dans l'index
+                SplittableRandom random = new SplittableRandom(1);
+                long[] hashes = new long[queries];
+                for (int i = 0; i < queries; i++) {
+                    hashes[i] = database.index.hashAt(random.nextLong(database.index.size()));
+                }
+                long occurrences = 0;
+                long start = System.nanoTime();
+                for (long hash : hashes) {
+                    occurrences += database.find(hash).getOccurrences();
+                }
+                double micros = (System.nanoTime() - start) / 1e3 / queries;
+                System.out.printf("%d requêtes, %.2f µs par requête, %.1f parties par position%n",
+                        queries, micros, (double) occurrences / queries);
+            }
+        }
+    }
+}
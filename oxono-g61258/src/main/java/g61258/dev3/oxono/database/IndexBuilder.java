@@ -0,0 +1,245 @@
+package g61258.dev3.oxono.database;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * The {@code IndexBuilder} class builds a {@link PositionIndex} file by external sorting, so that
+ * the memory it uses does not depend on the number of indexed positions.
+ * <p>Entries are collected in primitive arrays of a fixed capacity. A full buffer is sorted by hash
+ * with a stable radix sort, which keeps the game and ply order of the insertions, and spilled to a
+ * run file. {@link #mergeInto(Path, Path, long)} merges all the runs with the existing index into a
+ * new index file, whose header records the number of games it covers. The new file is written under a
+ * temporary name and then moved atomically to a new name, so the old index is never overwritten.
+ * The old index can stay mapped while the merge runs, which Windows requires.</p>
+ */
+class IndexBuilder {
+
+    private static final int IO_BUFFER = 1 << 16;
+
+    private final Path directory;
+    private final long[] hashes;
+    private final long[] values;
+    private final long[] sortedHashes;
+    private final long[] sortedValues;
+    private final List<Path> runs = new ArrayList<>();
+    private int count;
+
+    /**
+     * Constructs a builder spilling its runs in the given directory.
+     * @param directory the directory of the temporary run files
+     * @param runEntries the number of entries sorted in memory before a spill
+     */
+    IndexBuilder(Path directory, int runEntries) {
+        this.directory = directory;
+        this.hashes = new long[runEntries];
+        this.values = new long[runEntries];
+        this.sortedHashes = new long[runEntries];
+        this.sortedValues = new long[runEntries];
+    }
+
+    /**
+     * Adds an entry to the index being built.
+     * @param hash the hash of the position
+     * @param game the id of the game
+     * @param ply the ply after which the game reached the position
+     * @throws IOException if a run cannot be spilled
+     */
+    void add(long hash, int game, int ply) throws IOException {
+        if (count == hashes.length) {
+            spill();
+        }
+        hashes[count] = hash;
+        values[count] = (long) game << 32 | ply;
+        count++;
+    }
+
+    /**
+     * Sorts the buffered entries and writes them to a new run file.
+     * @throws IOException if the run cannot be written
+     */
+    private void spill() throws IOException {
+        if (count == 0) {
+            return;
+        }
+        radixSort();
+        Path run = directory.resolve("run-" + runs.size() + ".tmp");
+        try (FileChannel channel = FileChannel.open(run, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer buffer = ByteBuffer.allocateDirect(IO_BUFFER).order(ByteOrder.LITTLE_ENDIAN);
+            for (int i = 0; i < count; i++) {
+                if (buffer.remaining() < PositionIndex.ENTRY_SIZE) {
+                    drain(channel, buffer);
+                }
+                buffer.putLong(hashes[i]).putInt((int) (values[i] >>> 32)).putInt((int) values[i]);
+            }
+            drain(channel, buffer);
+        }
+        runs.add(run);
+        count = 0;
+    }
+
+    /**
+     * Sorts the buffered entries by unsigned hash, one byte per pass from the lowest,
+     * keeping the insertion order of equal hashes.
+     */
+    private void radixSort() {
+        long[] sourceHashes = hashes;
+        long[] sourceValues = values;
+        long[] targetHashes = sortedHashes;
+        long[] targetValues = sortedValues;
+        int[] offsets = new int[257];
+        for (int shift = 0; shift < 64; shift += 8) {
+            Arrays.fill(offsets, 0);
+            for (int i = 0; i < count; i++) {
+                offsets[(int) (sourceHashes[i] >>> shift & 0xFF) + 1]++;
+            }
+            for (int b = 0; b < 256; b++) {
+                offsets[b + 1] += offsets[b];
+            }
+            for (int i = 0; i < count; i++) {
+                int target = offsets[(int) (sourceHashes[i] >>> shift & 0xFF)]++;
+                targetHashes[target] = sourceHashes[i];
+                targetValues[target] = sourceValues[i];
+            }
+            long[] swap = sourceHashes;
+            sourceHashes = targetHashes;
+            targetHashes = swap;
+            swap = sourceValues;
+            sourceValues = targetValues;
+            targetValues = swap;
+        }
+        // Huit passes : le résultat est revenu dans les tableaux d'origine
+    }
+
+    /**
+     * Merges the pending entries and the runs with an existing index into a new index file.
+     * The new file appears atomically, complete and on the disk, with the number of games it covers.
+     * @param index the current index file, left untouched, or null if the index is empty
+     * @param target the new index file, which must not exist
+     * @param games the number of games covered by the new index
+     * @throws IOException if a file cannot be read or written
+     */
+    void mergeInto(Path index, Path target, long games) throws IOException {
+        spill();
+        Path merged = target.resolveSibling(target.getFileName() + ".tmp");
+        PriorityQueue<RunCursor> queue = new PriorityQueue<>();
+        try (FileChannel output = FileChannel.open(merged, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            for (Path run : runs) {
+                addCursor(queue, new RunCursor(run, 0));
+            }
+            if (index != null) {
+                addCursor(queue, new RunCursor(index, PositionIndex.HEADER_SIZE));
+            }
+            ByteBuffer buffer = ByteBuffer.allocateDirect(IO_BUFFER).order(ByteOrder.LITTLE_ENDIAN);
+            PositionIndex.putHeader(buffer, games);
+            while (!queue.isEmpty()) {
+                RunCursor cursor = queue.poll();
+                if (buffer.remaining() < PositionIndex.ENTRY_SIZE) {
+                    drain(output, buffer);
+                }
+                buffer.putLong(cursor.hash).putInt(cursor.game).putInt(cursor.ply);
+                if (cursor.next()) {
+                    queue.add(cursor);
+                } else {
+                    cursor.close();
+                }
+            }
+            drain(output, buffer);
+            output.force(true);
+        } finally {
+            for (RunCursor cursor : queue) {
+                cursor.close();
+            }
+        }
+        Files.move(merged, target, StandardCopyOption.ATOMIC_MOVE);
+        for (Path run : runs) {
+            Files.deleteIfExists(run);
+        }
+        runs.clear();
+    }
+
+    /**
+     * Adds a cursor positioned on its first entry to the merge, or closes it if its file is empty.
+     */
+    private static void addCursor(PriorityQueue<RunCursor> queue, RunCursor cursor) throws IOException {
+        if (cursor.next()) {
+            queue.add(cursor);
+        } else {
+            cursor.close();
+        }
+    }
+
+    /**
+     * Writes the content of a buffer to a channel and clears it.
+     */
+    private static void drain(FileChannel channel, ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    /**
+     * Sequential reader of a sorted run or index file during the merge.
+     */
+    private static class RunCursor implements Comparable<RunCursor>, Closeable {
+        private final FileChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocateDirect(IO_BUFFER).order(ByteOrder.LITTLE_ENDIAN);
+        long hash;
+        int game;
+        int ply;
+
+        RunCursor(Path path, long start) throws IOException {
+            channel = FileChannel.open(path, StandardOpenOption.READ);
+            channel.position(start);
+            buffer.flip();
+        }
+
+        /**
+         * Reads the next entry.
+         * @return false at the end of the file
+         */
+        boolean next() throws IOException {
+            if (buffer.remaining() < PositionIndex.ENTRY_SIZE) {
+                buffer.compact();
+                channel.read(buffer);
+                buffer.flip();
+                if (buffer.remaining() < PositionIndex.ENTRY_SIZE) {
+                    return false;
+                }
+            }
+            hash = buffer.getLong();
+            game = buffer.getInt();
+            ply = buffer.getInt();
+            return true;
+        }
+
+        @Override
+        public int compareTo(RunCursor other) {
+            int byHash = Long.compareUnsigned(hash, other.hash);
+            if (byHash != 0) {
+                return byHash;
+            }
+            return game != other.game ? Integer.compare(game, other.game) : Integer.compare(ply, other.ply);
+        }
+
+        @Override
+        public void close() throws IOException {
+            channel.close();
+        }
+    }
+}
@@ -0,0 +1,163 @@
+package g61258.dev3.oxono.database;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * The {@code PositionIndex} class is a read-only, memory-mapped view of a sorted index file.
+ * <p>The file starts with a {@value #HEADER_SIZE}-byte header (magic number, version, number of games
+ * covered by the index), so that the entries and the count of the games they cover are always replaced
+ * together. It goes on with a sequence of {@value #ENTRY_SIZE}-byte little-endian entries sorted by position
+ * hash then by value: the 64-bit hash of a position, then the id of a game (int) and the ply
+ * (int) after which the game reached the position. A lookup is a binary search over the mapped
+ * entries, with no read other than the pages it touches. The file is mapped in chunks of
+ * {@code 2^26} entries, so it may exceed 2 GiB.</p>
+ */
+public class PositionIndex implements Closeable {
+
+    /**
+     * Size of an entry in bytes.
+     */
+    public static final int ENTRY_SIZE = 16;
+
+    /**
+     * Size of the header in bytes.
+     */
+    public static final int HEADER_SIZE = 16;
+
+    private static final int MAGIC = 0x5849584F; // "OXIX"
+    private static final int VERSION = 1;
+
+    private static final int CHUNK_SHIFT = 26;
+    private static final long CHUNK_MASK = (1L << CHUNK_SHIFT) - 1;
+
+    private final FileChannel channel;
+    private final long size;
+    private final long games;
+    private final MappedByteBuffer[] chunks;
+
+    /**
+     * Maps an index file. A missing file is an empty index.
+     * @param path the index file, or null for an empty index
+     * @throws IOException if the file cannot be mapped or is not an index
+     */
+    public PositionIndex(Path path) throws IOException {
+        if (path == null || !Files.exists(path)) {
+            channel = null;
+            size = 0;
+            games = 0;
+            chunks = new MappedByteBuffer[0];
+            return;
+        }
+        channel = FileChannel.open(path, StandardOpenOption.READ);
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        while (header.hasRemaining()) {
+            if (channel.read(header, header.position()) < 0) {
+                break; // Fichier plus court que l'en-tête
+            }
+        }
+        if (header.hasRemaining() || header.getInt(0) != MAGIC || header.getInt(4) != VERSION) {
+            channel.close();
+            throw new IOException("Fichier d'index invalide : " + path);
+        }
+        games = header.getLong(8);
+        size = (channel.size() - HEADER_SIZE) / ENTRY_SIZE;
+        int chunkCount = (int) ((size + CHUNK_MASK) >> CHUNK_SHIFT);
+        chunks = new MappedByteBuffer[chunkCount];
+        for (int i = 0; i < chunkCount; i++) {
+            long first = (long) i << CHUNK_SHIFT;
+            long count = Math.min(1L << CHUNK_SHIFT, size - first);
+            chunks[i] = channel.map(FileChannel.MapMode.READ_ONLY, HEADER_SIZE + first * ENTRY_SIZE, count * ENTRY_SIZE);
+            chunks[i].order(ByteOrder.LITTLE_ENDIAN);
+        }
+    }
+
+    /**
+     * Writes the header of an index file.
+     * @param buffer the buffer receiving the header, little-endian
+     * @param games the number of games covered by the index
+     */
+    static void putHeader(ByteBuffer buffer, long games) {
+        buffer.putInt(MAGIC).putInt(VERSION).putLong(games);
+    }
+
+    /**
+     * Returns the hash of an entry.
+     * @param entry the index of the entry
+     * @return the hash of the position
+     */
+    public long hashAt(long entry) {
+        return chunks[(int) (entry >> CHUNK_SHIFT)].getLong((int) (entry & CHUNK_MASK) * ENTRY_SIZE);
+    }
+
+    /**
+     * Returns the game id of an entry.
+     * @param entry the index of the entry
+     * @return the id of the game
+     */
+    public int gameAt(long entry) {
+        return chunks[(int) (entry >> CHUNK_SHIFT)].getInt((int) (entry & CHUNK_MASK) * ENTRY_SIZE + 8);
+    }
+
+    /**
+     * Returns the ply of an entry.
+     * @param entry the index of the entry
+     * @return the number of turns played when the game reached the position
+     */
+    public int plyAt(long entry) {
+        return chunks[(int) (entry >> CHUNK_SHIFT)].getInt((int) (entry & CHUNK_MASK) * ENTRY_SIZE + 12);
+    }
+
+    /**
+     * Finds the first entry whose hash is not lower than the given one, in unsigned order.
+     * @param hash the hash to look for
+     * @return the index of the first entry with this hash or a greater one, {@link #size()} if none
+     */
+    public long lowerBound(long hash) {
+        long low = 0;
+        long high = size;
+        while (low < high) {
+            long middle = (low + high) >>> 1;
+            if (Long.compareUnsigned(hashAt(middle), hash) < 0) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Returns the number of entries.
+     * @return the number of indexed (position, game) pairs
+     */
+    public long size() {
+        return size;
+    }
+
+    /**
+     * Returns the number of games covered by the index: the games of ids below it are all indexed.
+     * @return the number of indexed games
+     */
+    public long getGames() {
+        return games;
+    }
+
+    /**
+     * Closes the file. The mappings stay valid until they are garbage collected.
+     * @throws IOException if the file cannot be closed
+     */
+    @Override
+    public void close() throws IOException {
+        if (channel != null) {
+            channel.close();
+        }
+    }
+}
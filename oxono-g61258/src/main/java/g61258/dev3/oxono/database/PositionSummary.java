@@ -0,0 +1,107 @@
+package g61258.dev3.oxono.database;
+
+import java.util.Arrays;
+
+/**
+ * The {@code PositionSummary} class answers a query of the {@link GameDatabase}: the games that
+ * reached a position, the ply at which they reached it, and how these games ended.
+ */
+public class PositionSummary {
+
+    private final long hash;
+    private int[] games = new int[8];
+    private int[] plies = new int[8];
+    private int occurrences;
+    private final int[] results = new int[3];
+
+    /**
+     * Constructs an empty summary.
+     * @param hash the hash of the position
+     */
+    PositionSummary(long hash) {
+        this.hash = hash;
+    }
+
+    /**
+     * Adds a game reaching the position.
+     * @param game the id of the game
+     * @param ply the ply after which the game reached the position
+     * @param result the result of the game, see {@link GameDatabase}
+     */
+    void add(int game, int ply, int result) {
+        if (occurrences == games.length) {
+            games = Arrays.copyOf(games, occurrences * 2);
+            plies = Arrays.copyOf(plies, occurrences * 2);
+        }
+        games[occurrences] = game;
+        plies[occurrences] = ply;
+        occurrences++;
+        results[result]++;
+    }
+
+    // GETTERS
+
+    /**
+     * Returns the hash of the position.
+     * @return the queried hash
+     */
+    public long getHash() {
+        return hash;
+    }
+
+    /**
+     * Returns the number of games that reached the position.
+     * @return the number of occurrences
+     */
+    public int getOccurrences() {
+        return occurrences;
+    }
+
+    /**
+     * Returns the id of a game that reached the position, by increasing id.
+     * @param index the index of the occurrence
+     * @return the id of the game
+     */
+    public int getGame(int index) {
+        return games[index];
+    }
+
+    /**
+     * Returns the ply after which a game reached the position.
+     * @param index the index of the occurrence
+     * @return the number of turns played at that moment
+     */
+    public int getPly(int index) {
+        return plies[index];
+    }
+
+    /**
+     * Returns the number of these games won by the pink player.
+     * @return the pink wins
+     */
+    public int getPinkWins() {
+        return results[GameDatabase.PINK_WINS];
+    }
+
+    /**
+     * Returns the number of these games won by the black player.
+     * @return the black wins
+     */
+    public int getBlackWins() {
+        return results[GameDatabase.BLACK_WINS];
+    }
+
+    /**
+     * Returns the number of these games without winner.
+     * @return the draws
+     */
+    public int getDraws() {
+        return results[GameDatabase.DRAW];
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%016x : %d parties, rose %d, noir %d, nulles %d",
+                hash, occurrences, getPinkWins(), getBlackWins(), getDraws());
+    }
+}
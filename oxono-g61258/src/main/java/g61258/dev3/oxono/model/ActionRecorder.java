@@ -0,0 +1,61 @@
+package g61258.dev3.oxono.model;
+
+/**
+ * The {@code ActionRecorder} interface receives every action applied to a {@link Game}, after it has been
+ * executed, so that the game can be rebuilt by applying the same actions again.
+ * It is attached with {@link Game#setActionRecorder(ActionRecorder)}.
+ */
+public interface ActionRecorder {
+
+    /**
+     * Called after a totem has been moved.
+     * @param shape the shape of the moved totem
+     * @param x the x-coordinate reached by the totem
+     * @param y the y-coordinate reached by the totem
+     */
+    void totemMoved(Shape shape, int x, int y);
+
+    /**
+     * Called after a token has been placed.
+     * @param shape the shape of the placed token
+     * @param x the x-coordinate of the token
+     * @param y the y-coordinate of the token
+     */
+    void tokenPlaced(Shape shape, int x, int y);
+
+    /**
+     * Called after the turn has been given to the other player.
+     */
+    void playerSwitched();
+
+    /**
+     * Called after a totem move or a turn has been undone.
+     */
+    void undone();
+
+    /**
+     * Called after a turn has been redone.
+     */
+    void redone();
+
+    /**
+     * Called after a jump in the history of the game.
+     * @param ply the ply reached
+     */
+    void jumped(long ply);
+
+    /**
+     * Called after the game has been abandoned.
+     */
+    void abandoned();
+
+    /**
+     * Called after the current player has been declared the winner.
+     */
+    void won();
+
+    /**
+     * Called after the game has ended in a draw, no player having tokens left.
+     */
+    void drawn();
+}
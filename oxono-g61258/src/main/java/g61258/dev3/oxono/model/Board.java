@@ -17,27 +17,39 @@ public class Board {
 
     /**
      * Constructor for the Board class.
-     * Initializes an empty 6x6 game grid.
+     * Initializes an empty game grid with the totems randomly placed at the center.
+     * @param size the size of the board
      */
     public Board(int size) {
+        this(size, new Random().nextBoolean());
+    }
+
+    /**
+     * Constructor for the Board class with a fixed totem layout.
+     * Used by headless matches so that both layouts can be played.
+     * @param size the size of the board
+     * @param crossTotemFirst true to place the X totem at (size/2-1, size/2-1) and the O totem at (size/2, size/2),
+     *                        false for the opposite
+     */
+    public Board(int size, boolean crossTotemFirst) {
         grid = new Token[size][size];
-        initialize();
+        initialize(crossTotemFirst);
     }
 
     /**
      * Initializes the game board.
-     * Clears the grid and randomly places the totems at positions (2,2) and (3,3).
+     * Clears the grid and places the totems at positions (size/2-1, size/2-1) and (size/2, size/2).
+     * @param crossTotemFirst true if the X totem takes the first position
      */
-    private void initialize() {
+    private void initialize(boolean crossTotemFirst) {
         for (int i = 0; i < grid.length; i++) {
             for (int j = 0; j < grid.length; j++) {
                 grid[i][j] = null;
             }
         }
-        Random random = new Random();
 
         int half = grid.length/2;
-        if (random.nextBoolean()) {
+        if (crossTotemFirst) {
             totemX = new Totem(Color.BLUE, Shape.CROSS, half-1, half-1);
             totemO = new Totem(Color.BLUE, Shape.CIRCLE, half, half);
         } else {
@@ -0,0 +1,130 @@
+package g61258.dev3.oxono.model;
+
+/**
+ * The {@code CellCode} class defines the compact integer encoding of the content of a board cell.
+ * Tokens are encoded from their color and shape, totems from their shape only,
+ * so that a whole board can be stored in a primitive array.
+ */
+public final class CellCode {
+    public static final int EMPTY = 0;
+    public static final int PINK_CROSS = 1;
+    public static final int PINK_CIRCLE = 2;
+    public static final int BLACK_CROSS = 3;
+    public static final int BLACK_CIRCLE = 4;
+    public static final int TOTEM_CROSS = 5;
+    public static final int TOTEM_CIRCLE = 6;
+
+    /**
+     * Number of distinct cell codes.
+     */
+    public static final int COUNT = 7;
+
+    private CellCode() {
+    }
+
+    /**
+     * Returns the code of the given cell content.
+     * @param token the token or totem occupying the cell, or null for an empty cell
+     * @return the code of the cell content
+     */
+    public static int of(Token token) {
+        if (token == null) {
+            return EMPTY;
+        }
+        if (token instanceof Totem) {
+            return totem(shapeIndex(token.getShape()));
+        }
+        return token(colorIndex(token.getColor()), shapeIndex(token.getShape()));
+    }
+
+    /**
+     * Returns the code of a player token.
+     * @param color the color index of the token (0 for pink, 1 for black)
+     * @param shape the shape index of the token (0 for cross, 1 for circle)
+     * @return the code of the token
+     */
+    public static int token(int color, int shape) {
+        return 1 + (color << 1) + shape;
+    }
+
+    /**
+     * Returns the code of a totem.
+     * @param shape the shape index of the totem (0 for cross, 1 for circle)
+     * @return the code of the totem
+     */
+    public static int totem(int shape) {
+        return TOTEM_CROSS + shape;
+    }
+
+    /**
+     * Checks if the code represents a player token.
+     * @param code the cell code
+     * @return true if the code is a pink or black token, false for an empty cell or a totem
+     */
+    public static boolean isToken(int code) {
+        return code >= PINK_CROSS && code <= BLACK_CIRCLE;
+    }
+
+    /**
+     * Checks if the code represents a totem.
+     * @param code the cell code
+     * @return true if the code is one of the two totems
+     */
+    public static boolean isTotem(int code) {
+        return code == TOTEM_CROSS || code == TOTEM_CIRCLE;
+    }
+
+    /**
+     * Returns the color index of a token code.
+     * @param code a token code
+     * @return 0 for pink, 1 for black
+     */
+    public static int colorOf(int code) {
+        return (code - 1) >> 1;
+    }
+
+    /**
+     * Returns the shape index of a token or totem code.
+     * @param code a token or totem code
+     * @return 0 for cross, 1 for circle
+     */
+    public static int shapeOf(int code) {
+        return isTotem(code) ? code - TOTEM_CROSS : (code - 1) & 1;
+    }
+
+    /**
+     * Returns the index used for a color in the compact encodings.
+     * @param color the color of a player
+     * @return 0 for pink, 1 for black
+     */
+    public static int colorIndex(Color color) {
+        return color == Color.BLACK ? 1 : 0;
+    }
+
+    /**
+     * Returns the index used for a shape in the compact encodings.
+     * @param shape the shape of a token or totem
+     * @return 0 for cross, 1 for circle
+     */
+    public static int shapeIndex(Shape shape) {
+        return shape == Shape.CIRCLE ? 1 : 0;
+    }
+
+    /**
+     * Returns the color of a color index.
+     * @param index 0 for pink, 1 for black
+     * @return the matching player color
+     */
+    public static Color color(int index) {
+        return index == 0 ? Color.PINK : Color.BLACK;
+    }
+
+    /**
+     * Returns the shape of a shape index.
+     * @param index 0 for cross, 1 for circle
+     * @return the matching shape
+     */
+    public static Shape shape(int index) {
+        return index == 0 ? Shape.CROSS : Shape.CIRCLE;
+    }
+}
@@ -1,83 +1,608 @@
 package g61258.dev3.oxono.model;
 
-import java.util.Stack;
+import java.util.Arrays;
 
 /**
  * The {@code CommandManager} class is responsible for managing the execution,
- * undo, and redo of commands in the Oxono game. It uses stacks to maintain
- * the history of commands for undo and redo functionality.
+ * undo, and redo of commands in the Oxono game.
+ * <p>The history holds whole turns: the totem move of a turn is {@linkplain #beginTurn pending} until
+ * its token is placed, then both are kept as one {@link TurnCommand}, undone and redone as a unit.
+ * The history is kept in primitive form: every turn is {@linkplain TurnCommand#pack() packed} into a
+ * {@code long} and rebuilt when it is undone or redone, and the turns after the current ply are the
+ * redo history. Every {@code checkpointInterval} plies, the state before the turn (content of every
+ * cell, remaining tokens, last moved totem) is saved as a checkpoint, so that {@link #jumpTo(long)}
+ * reaches any ply of the history by undoing or replaying at most {@code checkpointInterval} turns.
+ * A ply is one turn.</p>
+ * <p>When the history exceeds its memory cap, its oldest plies are forgotten by whole checkpoint
+ * intervals; they can no longer be undone.</p>
+ * <p>A packed turn gives twenty bits to each of its three cells, enough for boards up to
+ * {@value #MAX_BOARD_SIZE} by {@value #MAX_BOARD_SIZE}, far beyond what a board of objects can hold.</p>
  */
 public class CommandManager {
-    private Stack<Command> undoStack;
-    private Stack<Command> redoStack;
+
+    /**
+     * Default number of plies between two checkpoints.
+     */
+    public static final int DEFAULT_CHECKPOINT_INTERVAL = 16;
+
+    /**
+     * Default memory cap of the history, in bytes.
+     */
+    public static final long DEFAULT_MEMORY_CAP = 64 * 1024;
+
+    // Format d'un tour : bit 0 = couleur, bit 1 = forme, bits 2-21 = case de départ du totem,
+    // bits 22-41 = case d'arrivée du totem, bits 42-61 = case du jeton
+    private static final int CELL_BITS = 20;
+    private static final long CELL_MASK = (1L << CELL_BITS) - 1;
+
+    /**
+     * Largest size of a board whose turns fit in the packed format of the history.
+     */
+    public static final int MAX_BOARD_SIZE = 1 << CELL_BITS / 2;
+
+    private static final int FROM_SHIFT = 2;
+    private static final int TO_SHIFT = FROM_SHIFT + CELL_BITS;
+    private static final int PLACE_SHIFT = TO_SHIFT + CELL_BITS;
+    private static final int COUNTS = 4;
+
+    private final Game game;
+    private final Board board;
+    private final Player[] players;
+    private final int size;
+    private final int interval;
+    private final int checkpointSize;
+    private long memoryCap;
+
+    private long[] actions = new long[64];
+    private int count;
+    private int cursor;
+    // Ply du premier coup conservé, toujours multiple de l'intervalle
+    private long base;
+    private byte[] checkpoints;
+    private int checkpointCount;
+    private MoveTotemCommand pending;
+
+    /**
+     * Constructs a new {@code CommandManager} with the default checkpoint interval and memory cap.
+     * @param game the game whose commands are managed
+     * @param board the board of the game
+     * @param pink the pink player
+     * @param black the black player
+     */
+    public CommandManager(Game game, Board board, Player pink, Player black) {
+        this(game, board, pink, black, DEFAULT_CHECKPOINT_INTERVAL, DEFAULT_MEMORY_CAP);
+    }
 
     /**
      * Constructs a new {@code CommandManager}.
-     * Initializes the undo and redo stacks.
+     * @param game the game whose commands are managed
+     * @param board the board of the game
+     * @param pink the pink player
+     * @param black the black player
+     * @param checkpointInterval the number of plies between two checkpoints
+     * @param memoryCap the approximate number of bytes above which the oldest plies are forgotten
+     * @throws IllegalArgumentException if the board is larger than {@value #MAX_BOARD_SIZE} by {@value #MAX_BOARD_SIZE}
      */
-    public CommandManager() {
-        undoStack = new Stack<>();
-        redoStack = new Stack<>();
+    public CommandManager(Game game, Board board, Player pink, Player black, int checkpointInterval, long memoryCap) {
+        if (checkpointInterval < 1) {
+            throw new IllegalArgumentException("Intervalle de sauvegarde invalide : " + checkpointInterval);
+        }
+        if (board.getSize() > MAX_BOARD_SIZE) {
+            throw new IllegalArgumentException("Plateau trop grand pour l'historique : " + board.getSize());
+        }
+        this.game = game;
+        this.board = board;
+        this.players = new Player[] {pink, black};
+        this.size = board.getSize();
+        this.interval = checkpointInterval;
+        this.checkpointSize = size * size + COUNTS + 1;
+        this.checkpoints = new byte[4 * checkpointSize];
+        this.memoryCap = memoryCap;
     }
 
     /**
-     * Executes a command and adds it to the undo stack.
-     * Clears the redo stack when a new command is executed.
-     * @param command the command to execute
+     * Executes a whole turn and adds it to the history.
+     * Clears the redo history when a new turn is executed.
+     * @param turn the turn to execute
      */
-    public void executeCommand(Command command) {
-        command.execute();  // Exécute la commande
-        undoStack.push(command);  // Ajoute à la pile d'annulation
-        redoStack.clear();  // Vide la pile de réexécution
+    public void executeCommand(TurnCommand turn) {
+        cancelTurn();
+        startTurn();
+        turn.execute();  // Exécute la commande
+        record(turn);
+    }
+
+    /**
+     * Executes the totem move starting a turn. The move stays pending, outside of the history,
+     * until {@link #completeTurn} places the token; it can be undone alone meanwhile.
+     * Clears the redo history.
+     * @param move the totem move of the turn
+     */
+    public void beginTurn(MoveTotemCommand move) {
+        cancelTurn();
+        startTurn();
+        move.execute();
+        pending = move;
+    }
+
+    /**
+     * Places the token ending the turn and adds the whole turn to the history.
+     * Without a pending move, the turn is recorded with a totem staying on its cell.
+     * @param player the player of the turn
+     * @param placement the token placement of the turn
+     * @param totem the totem of the turn, used when no move is pending
+     */
+    public void completeTurn(Player player, PlaceTokenCommand placement, Totem totem) {
+        if (pending == null) {
+            startTurn();
+            pending = new MoveTotemCommand(game, board, totem, totem.getX(), totem.getY(), totem.getX(), totem.getY(),
+                    board.getLastMovedTotem());
+        }
+        TurnCommand turn = new TurnCommand(pending, placement, player);
+        pending = null;
+        turn.place();
+        record(turn);
+    }
+
+    /**
+     * Undoes the pending totem move, if any.
+     */
+    private void cancelTurn() {
+        if (pending != null) {
+            pending.unexecute();
+            pending = null;
+        }
+    }
+
+    /**
+     * Clears the redo history and saves a checkpoint if the turn starts a new interval.
+     */
+    private void startTurn() {
+        count = cursor; // Vide l'historique de réexécution
+        checkpointCount = Math.min(checkpointCount, cursor / interval + 1);
+        if (cursor % interval == 0 && checkpointCount == cursor / interval) {
+            saveCheckpoint();
+        }
+    }
+
+    /**
+     * Adds an executed turn to the history.
+     */
+    private void record(TurnCommand turn) {
+        if (count == actions.length) {
+            actions = Arrays.copyOf(actions, count * 2);
+        }
+        actions[count++] = turn.pack();
+        cursor = count;
+        enforceMemoryCap();
     }
 
     /**
-     * Undoes the last executed command by calling its {@code unexecute()} method.
-     * Moves the undone command to the redo stack.
+     * Undoes the pending totem move, or else the last turn by calling its {@code unexecute()} method.
+     * The turn stays in the history to be redone.
      */
     public void undo() {
-        if (!undoStack.isEmpty()) {
-            Command command = undoStack.pop();  // Récupère la dernière commande
-            command.unexecute();  // Annule la commande
-            redoStack.push(command);  // Ajoute à la pile de réexécution
+        if (pending != null) {
+            cancelTurn();
+        } else if (canUndo()) {
+            cursor--;
+            decode(cursor, true).unexecute();  // Annule la commande
         } else {
             System.out.println("Aucune commande à annuler.");
         }
     }
 
     /**
-     * Redoes the last undone command by calling its {@code execute()} method.
-     * Moves the redone command back to the undo stack.
+     * Redoes the last undone turn by calling its {@code execute()} method.
      */
     public void redo() {
-        if (!redoStack.isEmpty()) {
-            Command command = redoStack.pop();// Récupère la dernière commande annulée
-            command.execute();  // Refait la commande
-            undoStack.push(command);  // Réajoute à la pile d'annulation
+        if (canRedo()) {
+            decode(cursor, false).execute();  // Refait la commande
+            cursor++;
         } else {
             System.out.println("Aucune commande à refaire.");
         }
     }
 
+    /**
+     * Moves the board and the players' tokens to the state after the given ply of the history,
+     * restoring the closest checkpoint when it is cheaper than undoing or redoing turns one by one.
+     * A pending totem move is undone first. The game phase and the current player are left to the caller.
+     * @param ply a ply between {@link #getFirstPly()} and {@link #getLastPly()}
+     */
+    public void jumpTo(long ply) {
+        if (ply < base || ply > base + count) {
+            throw new IndexOutOfBoundsException("Coup hors de l'historique : " + ply);
+        }
+        cancelTurn();
+        int target = (int) (ply - base);
+        int checkpoint = Math.min(target / interval, checkpointCount - 1);
+        int fromCheckpoint = checkpoint < 0 ? Integer.MAX_VALUE : target - checkpoint * interval;
+        if (Math.abs(target - cursor) > fromCheckpoint) {
+            restoreCheckpoint(checkpoint);
+            cursor = checkpoint * interval;
+        }
+        while (cursor > target) {
+            cursor--;
+            decode(cursor, true).unexecute();
+        }
+        while (cursor < target) {
+            decode(cursor++, false).execute();
+        }
+    }
+
+    /**
+     * Rebuilds a turn of the history from its packed form, on the current objects of the board.
+     * The last moved totem before the turn comes from the previous turn, or from the first checkpoint.
+     * @param index the index of the turn in the history
+     * @param undo true to rebuild the turn for an undo, false for a redo
+     * @return the turn
+     */
+    private TurnCommand decode(int index, boolean undo) {
+        long action = actions[index];
+        int from = originOf(action);
+        int to = destinationOf(action);
+        int place = placementOf(action);
+        Player player = players[colorOf(action)];
+        Totem totem = (Totem) (undo ? board.getToken(to / size, to % size) : board.getToken(from / size, from % size));
+        int previous = previousTotem(index);
+        MoveTotemCommand move = new MoveTotemCommand(game, board, totem, from / size, from % size, to / size, to % size,
+                previous == 0 ? null : findTotem(previous - 1));
+        Token token = undo ? null : player.getToken(CellCode.shape(shapeOf(action)));
+        return new TurnCommand(move, new PlaceTokenCommand(game, player, board, place / size, place % size, token), player);
+    }
+
+    /**
+     * Returns the last moved totem before a turn of the history.
+     * @param index the index of the turn in the history
+     * @return 0 if no totem was moved, else 1 plus the shape index of the totem
+     */
+    private int previousTotem(int index) {
+        return index > 0 ? 1 + shapeOf(actions[index - 1]) : checkpoints[checkpointSize - 1];
+    }
+
+    /**
+     * Finds the totem of a shape on the board.
+     * @param shape the shape index of the totem
+     * @return the totem object on the board
+     */
+    private Totem findTotem(int shape) {
+        for (int x = 0; x < size; x++) {
+            for (int y = 0; y < size; y++) {
+                if (board.getToken(x, y) instanceof Totem totem && CellCode.shapeIndex(totem.getShape()) == shape) {
+                    return totem;
+                }
+            }
+        }
+        return shape == 0 ? board.getTotemX() : board.getTotemO();
+    }
+
+    /**
+     * Saves the current state as the next checkpoint.
+     */
+    private void saveCheckpoint() {
+        int offset = checkpointCount * checkpointSize;
+        if (offset + checkpointSize > checkpoints.length) {
+            checkpoints = Arrays.copyOf(checkpoints, checkpoints.length * 2);
+        }
+        writeState(checkpoints, offset);
+        checkpointCount++;
+    }
+
+    /**
+     * Restores the board and the players' tokens from a checkpoint.
+     * @param index the number of the checkpoint
+     */
+    private void restoreCheckpoint(int index) {
+        readState(checkpoints, index * checkpointSize);
+    }
+
+    /**
+     * Writes the content of every cell, the remaining tokens and the last moved totem.
+     * @param target the array receiving the state
+     * @param offset the index of the first byte of the state
+     */
+    private void writeState(byte[] target, int offset) {
+        for (int x = 0; x < size; x++) {
+            for (int y = 0; y < size; y++) {
+                target[offset++] = (byte) CellCode.of(board.getToken(x, y));
+            }
+        }
+        for (Player player : players) {
+            target[offset++] = (byte) player.getNbTokens(Shape.CROSS);
+            target[offset++] = (byte) player.getNbTokens(Shape.CIRCLE);
+        }
+        Totem last = board.getLastMovedTotem();
+        target[offset] = (byte) (last == null ? 0 : 1 + CellCode.shapeIndex(last.getShape()));
+    }
+
+    /**
+     * Restores the board and the players' tokens from a state written by {@link #writeState}.
+     * Unlike the commands, the state replaces the whole board: the changed cells are found by comparing
+     * it with the board, and reported to the game with the totems that moved.
+     * @param source the array holding the state
+     * @param offset the index of the first byte of the state
+     */
+    private void readState(byte[] source, int offset) {
+        Totem[] totems = {board.getTotemX(), board.getTotemO()};
+        int[] totemCells = {totems[0].getX() * size + totems[0].getY(), totems[1].getX() * size + totems[1].getY()};
+        for (int x = 0; x < size; x++) {
+            for (int y = 0; y < size; y++) {
+                game.cellChanged(x, y, CellCode.of(board.getToken(x, y)), source[offset + x * size + y]);
+                board.removeToken(x, y);
+            }
+        }
+        for (int x = 0; x < size; x++) {
+            for (int y = 0; y < size; y++) {
+                int code = source[offset++];
+                if (CellCode.isTotem(code)) {
+                    Totem totem = CellCode.shapeOf(code) == 0 ? board.getTotemX() : board.getTotemO();
+                    totem.setX(x);
+                    totem.setY(y);
+                    board.placeToken(x, y, totem);
+                } else if (CellCode.isToken(code)) {
+                    board.placeToken(x, y, new Token(CellCode.color(CellCode.colorOf(code)), CellCode.shape(CellCode.shapeOf(code))));
+                }
+            }
+        }
+        for (Player player : players) {
+            for (int shape = 0; shape < 2; shape++) {
+                Shape tokenShape = CellCode.shape(shape);
+                int target = source[offset++];
+                while (player.getNbTokens(tokenShape) > target) {
+                    player.removeToken(tokenShape);
+                }
+                while (player.getNbTokens(tokenShape) < target) {
+                    player.addToken(new Token(player.getColor(), tokenShape));
+                }
+            }
+        }
+        int last = source[offset];
+        board.setLastMovedTotem(last == 0 ? null : last == 1 ? board.getTotemX() : board.getTotemO());
+        for (int shape = 0; shape < totems.length; shape++) {
+            game.totemMoved(totems[shape].getShape(), totemCells[shape] / size, totemCells[shape] % size,
+                    totems[shape].getX(), totems[shape].getY());
+        }
+    }
+
+    /**
+     * Returns the current state of the board and the players, in the format of a checkpoint.
+     * @return the cell codes, the four token counts and the last moved totem plus one
+     */
+    byte[] saveState() {
+        byte[] state = new byte[checkpointSize];
+        writeState(state, 0);
+        return state;
+    }
+
+    /**
+     * Replaces the board, the players' tokens and the whole history by saved ones, as given by
+     * {@link #saveState()}, {@link #getHistory()}, {@link #getCheckpoints()} and {@link #getPendingMove()}.
+     * The player of a pending move must be the current player of the game.
+     * @param state the state of the board and the players at the current ply
+     * @param first the first ply of the history
+     * @param ply the current ply, relative to the first one
+     * @param history the packed turns of the history
+     * @param saved the checkpoints of the history
+     * @param pendingMove the packed totem move waiting for its placement, or -1
+     * @throws IllegalArgumentException if the history does not match this board
+     */
+    void restore(byte[] state, long first, int ply, long[] history, byte[] saved, long pendingMove) {
+        int savedCount = saved.length / checkpointSize;
+        boolean started = history.length > 0 || pendingMove >= 0;
+        if (state.length != checkpointSize || saved.length % checkpointSize != 0
+                || savedCount > history.length / interval + 1 || savedCount < (history.length + interval - 1) / interval
+                || (started && savedCount == 0)) {
+            throw new IllegalArgumentException("Historique incompatible avec le plateau : " + savedCount + " sauvegardes pour "
+                    + history.length + " coups");
+        }
+        int cells = size * size;
+        for (long action : history) {
+            if (destinationOf(action) >= cells || placementOf(action) >= cells || originOf(action) >= cells) {
+                throw new IllegalArgumentException("Coup hors du plateau dans l'historique : " + action);
+            }
+        }
+        readState(state, 0);
+        actions = Arrays.copyOf(history, Math.max(64, history.length));
+        count = history.length;
+        cursor = ply;
+        base = first;
+        checkpoints = Arrays.copyOf(saved, Math.max(saved.length, 4 * checkpointSize));
+        checkpointCount = savedCount;
+        pending = null;
+        if (pendingMove >= 0) {
+            int from = originOf(pendingMove);
+            int to = destinationOf(pendingMove);
+            if (from >= cells || to >= cells || !(board.getToken(to / size, to % size) instanceof Totem totem)
+                    || CellCode.shapeIndex(totem.getShape()) != shapeOf(pendingMove)) {
+                throw new IllegalArgumentException("Déplacement en cours invalide : " + pendingMove);
+            }
+            int previous = previousTotem(cursor);
+            pending = new MoveTotemCommand(game, board, totem, from / size, from % size, to / size, to % size,
+                    previous == 0 ? null : findTotem(previous - 1));
+        }
+    }
+    /**
+     * Forgets the oldest checkpoint intervals while the history exceeds its memory cap.
+     * The interval holding the current ply is always kept.
+     */
+    private void enforceMemoryCap() {
+        while (getMemoryUsage() > memoryCap && cursor >= interval && checkpointCount >= 2) {
+            System.arraycopy(actions, interval, actions, 0, count - interval);
+            count -= interval;
+            cursor -= interval;
+            base += interval;
+            System.arraycopy(checkpoints, checkpointSize, checkpoints, 0, (checkpointCount - 1) * checkpointSize);
+            checkpointCount--;
+        }
+    }
+
+    // FORMAT
+
+    /**
+     * Packs the totem move of a turn, to be combined with {@link #packPlacement}.
+     * @param color the color index of the player
+     * @param shape the shape index of the totem, which is also the shape of the placed token
+     * @param from the cell the totem leaves
+     * @param to the cell the totem reaches
+     * @return the packed move
+     */
+    static long packMove(int color, int shape, int from, int to) {
+        return (long) to << TO_SHIFT | (long) from << FROM_SHIFT | shape << 1 | color;
+    }
+
+    /**
+     * Packs the token placement of a turn, to be combined with {@link #packMove}.
+     * @param cell the cell of the token
+     * @return the packed placement
+     */
+    static long packPlacement(int cell) {
+        return (long) cell << PLACE_SHIFT;
+    }
+
+    /**
+     * Returns the color index of the player of a packed turn.
+     * @param action the packed turn
+     * @return 0 for pink, 1 for black
+     */
+    static int colorOf(long action) {
+        return (int) action & 1;
+    }
+
+    /**
+     * Returns the shape index of the totem and the token of a packed turn.
+     * @param action the packed turn
+     * @return 0 for cross, 1 for circle
+     */
+    static int shapeOf(long action) {
+        return (int) (action >>> 1) & 1;
+    }
+
+    /**
+     * Returns the cell left by the totem of a packed turn.
+     * @param action the packed turn
+     * @return the index of the cell, {@code x * size + y}
+     */
+    static int originOf(long action) {
+        return (int) (action >>> FROM_SHIFT & CELL_MASK);
+    }
+
+    /**
+     * Returns the cell reached by the totem of a packed turn.
+     * @param action the packed turn
+     * @return the index of the cell, {@code x * size + y}
+     */
+    static int destinationOf(long action) {
+        return (int) (action >>> TO_SHIFT & CELL_MASK);
+    }
+
+    /**
+     * Returns the cell receiving the token of a packed turn.
+     * @param action the packed turn
+     * @return the index of the cell, {@code x * size + y}
+     */
+    static int placementOf(long action) {
+        return (int) (action >>> PLACE_SHIFT & CELL_MASK);
+    }
+
+    // GETTERS
 
     /**
      * Checks if there are any actions that can be undone.
-     * @return  true if the undo stack is not empty and an undo action is available,
+     * @return  true if the undo history is not empty and an undo action is available,
      *         otherwise false.
      */
     public boolean canUndo() {
-        return !undoStack.isEmpty();
+        return pending != null || cursor > 0;
     }
 
     /**
      * Checks if there are any actions that can be redone.
-     * @return true if the redo stack is not empty and a redo action is available,
+     * @return true if the redo history is not empty and a redo action is available,
      *         otherwise false.
      */
     public boolean canRedo() {
-        return !redoStack.isEmpty();
+        return cursor < count;
     }
 
+    /**
+     * Checks if a totem move waits for the placement ending its turn.
+     * @return true if a move is pending
+     */
+    public boolean hasPendingMove() {
+        return pending != null;
+    }
 
-}
+    /**
+     * Returns the number of turns played since the start of the game, undone ones excepted.
+     * @return the current ply
+     */
+    public long getPly() {
+        return base + cursor;
+    }
+
+    /**
+     * Returns the oldest ply still reachable, after the forgotten part of the history.
+     * @return the first ply of the history
+     */
+    public long getFirstPly() {
+        return base;
+    }
+
+    /**
+     * Returns the ply reached by redoing every undone turn.
+     * @return the last ply of the history
+     */
+    public long getLastPly() {
+        return base + count;
+    }
+
+    /**
+     * Returns the packed turn of a ply.
+     * @param ply the ply of the turn, between {@link #getFirstPly()} included and {@link #getLastPly()} excluded
+     * @return the packed turn
+     */
+    long getAction(long ply) {
+        return actions[(int) (ply - base)];
+    }
+
+    /**
+     * Returns the turns of the history, undone ones included.
+     * @return a copy of the packed turns, from the first ply of the history
+     */
+    long[] getHistory() {
+        return Arrays.copyOf(actions, count);
+    }
 
+    /**
+     * Returns the checkpoints of the history.
+     * @return a copy of the checkpoints, one after another
+     */
+    byte[] getCheckpoints() {
+        return Arrays.copyOf(checkpoints, checkpointCount * checkpointSize);
+    }
+
+    /**
+     * Returns the totem move waiting for the placement of the current turn.
+     * @return the packed move, or -1 if no move is pending
+     */
+    long getPendingMove() {
+        return pending == null ? -1 : pending.pack();
+    }
+
+    /**
+     * Returns the approximate memory used by the turns and the checkpoints.
+     * @return the number of bytes of the history
+     */
+    public long getMemoryUsage() {
+        return (long) count * Long.BYTES + (long) checkpointCount * checkpointSize;
+    }
+
+    /**
+     * Sets the memory cap of the history. The oldest plies are forgotten at the next turn if needed.
+     * @param memoryCap the approximate number of bytes above which the oldest plies are forgotten
+     */
+    public void setMemoryCap(long memoryCap) {
+        this.memoryCap = memoryCap;
+    }
+}
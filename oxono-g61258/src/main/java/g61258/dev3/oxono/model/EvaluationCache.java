@@ -0,0 +1,256 @@
+package g61258.dev3.oxono.model;
+
+import java.util.Arrays;
+
+/**
+ * The {@code EvaluationCache} class is a fixed-memory cache of static position evaluations,
+ * keyed by the 64-bit hash of the position (see {@link PositionHash}).
+ * <p>Entries live in primitive arrays allocated once. When the cache is full, the victim is
+ * chosen by the clock algorithm (an approximation of LRU): every hit sets the reference bit
+ * of an entry, and the clock hand clears reference bits until it finds an entry that was not
+ * used since its last pass. Lookups go through an open-addressing index with linear probing.</p>
+ * <p>The cache is not thread-safe, each search thread should own its cache.</p>
+ */
+public class EvaluationCache {
+
+    /**
+     * Value returned by {@link #get(long)} when the position is not cached.
+     */
+    public static final int MISS = Integer.MIN_VALUE;
+
+    private final int capacity;
+    private final long[] keys;
+    private final int[] values;
+    private final boolean[] referenced;
+
+    // Index des entrées : 0 = case libre, sinon numéro d'entrée + 1
+    private final int[] slots;
+    private final int slotMask;
+
+    private int size;
+    private int hand;
+
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    /**
+     * Constructs a cache holding at most {@code capacity} evaluations.
+     * @param capacity the maximum number of cached positions, must be positive
+     */
+    public EvaluationCache(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("La capacité du cache doit être positive : " + capacity);
+        }
+        this.capacity = capacity;
+        this.keys = new long[capacity];
+        this.values = new int[capacity];
+        this.referenced = new boolean[capacity];
+        int tableSize = Integer.highestOneBit(Math.max(2, capacity) * 2 - 1) << 1;
+        this.slots = new int[tableSize];
+        this.slotMask = tableSize - 1;
+    }
+
+    /**
+     * Returns the cached evaluation of a position and marks the entry as recently used.
+     * @param key the hash of the position
+     * @return the cached evaluation, or {@link #MISS} if the position is not cached
+     */
+    public int get(long key) {
+        int slot = findSlot(key);
+        if (slot < 0) {
+            misses++;
+            return MISS;
+        }
+        int entry = slots[slot] - 1;
+        referenced[entry] = true;
+        hits++;
+        return values[entry];
+    }
+
+    /**
+     * Stores the evaluation of a position, evicting an entry chosen by the clock if the cache is full.
+     * @param key the hash of the position
+     * @param value the evaluation of the position, must not be {@link #MISS}
+     */
+    public void put(long key, int value) {
+        int slot = findSlot(key);
+        if (slot >= 0) {
+            int entry = slots[slot] - 1;
+            values[entry] = value;
+            referenced[entry] = true;
+            return;
+        }
+
+        int entry;
+        if (size < capacity) {
+            entry = size++;
+        } else {
+            entry = nextVictim();
+            removeSlot(findSlot(keys[entry]));
+            evictions++;
+        }
+        keys[entry] = key;
+        values[entry] = value;
+        referenced[entry] = false; // Une nouvelle entrée doit être relue pour survivre au prochain tour
+        insertSlot(key, entry);
+    }
+
+    /**
+     * Removes every entry from the cache. The hit and miss counters are kept.
+     */
+    public void clear() {
+        Arrays.fill(slots, 0);
+        Arrays.fill(referenced, false);
+        size = 0;
+        hand = 0;
+    }
+
+    /**
+     * Resets the hit, miss and eviction counters.
+     */
+    public void resetStatistics() {
+        hits = 0;
+        misses = 0;
+        evictions = 0;
+    }
+
+    /**
+     * Advances the clock hand to the next entry whose reference bit is cleared.
+     * @return the index of the entry to evict
+     */
+    private int nextVictim() {
+        while (referenced[hand]) {
+            referenced[hand] = false;
+            hand = (hand + 1) % capacity;
+        }
+        int victim = hand;
+        hand = (hand + 1) % capacity;
+        return victim;
+    }
+
+    /**
+     * Finds the index slot referencing the given key.
+     * @param key the hash of the position
+     * @return the slot index, or -1 if the key is not cached
+     */
+    private int findSlot(long key) {
+        int i = home(key);
+        while (slots[i] != 0) {
+            if (keys[slots[i] - 1] == key) {
+                return i;
+            }
+            i = (i + 1) & slotMask;
+        }
+        return -1;
+    }
+
+    /**
+     * Inserts an entry in the index at the first free slot after the home slot of its key.
+     * @param key the hash of the position
+     * @param entry the entry index
+     */
+    private void insertSlot(long key, int entry) {
+        int i = home(key);
+        while (slots[i] != 0) {
+            i = (i + 1) & slotMask;
+        }
+        slots[i] = entry + 1;
+    }
+
+    /**
+     * Removes a slot from the index and shifts back the following slots of the probe
+     * sequence so that lookups never stop on a hole.
+     * @param slot the slot index to free
+     */
+    private void removeSlot(int slot) {
+        int hole = slot;
+        int i = slot;
+        while (true) {
+            i = (i + 1) & slotMask;
+            if (slots[i] == 0) {
+                break;
+            }
+            int home = home(keys[slots[i] - 1]);
+            // L'élément peut combler le trou si sa case d'origine n'est pas entre le trou et lui
+            boolean movable = hole <= i ? (home <= hole || home > i) : (home <= hole && home > i);
+            if (movable) {
+                slots[hole] = slots[i];
+                hole = i;
+            }
+        }
+        slots[hole] = 0;
+    }
+
+    /**
+     * Returns the home slot of a key in the index.
+     * @param key the hash of the position
+     * @return the first slot of the probe sequence of the key
+     */
+    private int home(long key) {
+        return (int) (key ^ (key >>> 32)) & slotMask;
+    }
+
+    // GETTERS
+
+    /**
+     * Returns the maximum number of entries of the cache.
+     * @return the capacity of the cache
+     */
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * Returns the number of cached evaluations.
+     * @return the number of entries in use
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the number of lookups that found the position.
+     * @return the hit counter
+     */
+    public long getHits() {
+        return hits;
+    }
+
+    /**
+     * Returns the number of lookups that did not find the position.
+     * @return the miss counter
+     */
+    public long getMisses() {
+        return misses;
+    }
+
+    /**
+     * Returns the number of entries replaced because the cache was full.
+     * @return the eviction counter
+     */
+    public long getEvictions() {
+        return evictions;
+    }
+
+    /**
+     * Returns the proportion of lookups that found the position.
+     * @return the hit rate between 0 and 1, or 0 if no lookup was made
+     */
+    public double getHitRate() {
+        long lookups = hits + misses;
+        return lookups == 0 ? 0.0 : (double) hits / lookups;
+    }
+
+    /**
+     * Returns a summary of the cache usage, useful to size it per deployment.
+     * @return a string with the size, capacity and counters of the cache
+     */
+    @Override
+    public String toString() {
+        return "EvaluationCache{size=" + size + "/" + capacity
+                + ", hits=" + hits + ", misses=" + misses
+                + ", evictions=" + evictions
+                + String.format(", hitRate=%.3f}", getHitRate());
+    }
+}
@@ -0,0 +1,170 @@
+package g61258.dev3.oxono.model;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * The {@code EvaluationWeights} class holds the weights of the {@link PatternFeatures}, in hundredths
+ * of a logit per unit of feature (see {@link Evaluator}).
+ * <p>Weights are saved as a text file with one {@code name = value} line per feature, lines
+ * starting with {@code #} being comments. The weights used by strategies created without explicit
+ * weights are read once from the file named by the system property {@value #FILE_PROPERTY}, or are
+ * the built-in defaults when the property is not set.</p>
+ */
+public class EvaluationWeights {
+
+    /**
+     * System property naming the weight file loaded by {@link #loadDefault()}.
+     */
+    public static final String FILE_PROPERTY = "oxono.weights";
+
+    // Valeurs obtenues par WeightTuner sur des parties 6x6 de la stratégie "eval" ; leur gain de force
+    // n'est pas mesuré : comparer deux fichiers de poids avec Tournament -sprt avant de les remplacer
+    private static final double[] DEFAULTS = {
+            3.2, 40.1, 88.6,
+            15.5, -18.9, -47.6,
+            4.3, -69.6, 70.4,
+            10.9, -300.5, -57.9
+    };
+
+    private static volatile EvaluationWeights loaded;
+
+    private final double[] values;
+
+    /**
+     * Constructs weights from their values.
+     * @param values the weight of every feature, indexed as in {@link PatternFeatures}
+     */
+    public EvaluationWeights(double[] values) {
+        if (values.length != PatternFeatures.COUNT) {
+            throw new IllegalArgumentException("Nombre de poids invalide : " + values.length);
+        }
+        this.values = values.clone();
+    }
+
+    /**
+     * Returns the built-in weights.
+     * @return new weights with the default values
+     */
+    public static EvaluationWeights defaults() {
+        return new EvaluationWeights(DEFAULTS);
+    }
+
+    /**
+     * Returns the weights shared by strategies created without explicit weights: those of the file
+     * named by {@value #FILE_PROPERTY}, read at the first call, or the defaults.
+     * @return the startup weights
+     * @throws UncheckedIOException if the file of the property cannot be read
+     */
+    public static EvaluationWeights loadDefault() {
+        EvaluationWeights weights = loaded;
+        if (weights == null) {
+            synchronized (EvaluationWeights.class) {
+                weights = loaded;
+                if (weights == null) {
+                    String file = System.getProperty(FILE_PROPERTY);
+                    try {
+                        weights = file == null ? defaults() : load(Path.of(file));
+                    } catch (IOException e) {
+                        throw new UncheckedIOException("Impossible de lire les poids " + file, e);
+                    }
+                    loaded = weights;
+                }
+            }
+        }
+        return weights;
+    }
+
+    /**
+     * Reads weights from a text file. Features missing from the file keep their default weight.
+     * @param path the file to read
+     * @return the weights of the file
+     * @throws IOException if the file cannot be read or contains an unknown feature
+     */
+    public static EvaluationWeights load(Path path) throws IOException {
+        double[] values = DEFAULTS.clone();
+        List<String> lines = Files.readAllLines(path, StandardCharsets.UTF_8);
+        for (String line : lines) {
+            line = line.strip();
+            if (line.isEmpty() || line.startsWith("#")) {
+                continue;
+            }
+            int equals = line.indexOf('=');
+            if (equals < 0) {
+                throw new IOException("Ligne de poids invalide : " + line);
+            }
+            int feature = indexOf(line.substring(0, equals).strip());
+            try {
+                values[feature] = Double.parseDouble(line.substring(equals + 1).strip());
+            } catch (NumberFormatException e) {
+                throw new IOException("Poids invalide : " + line, e);
+            }
+        }
+        return new EvaluationWeights(values);
+    }
+
+    /**
+     * Writes the weights to a text file.
+     * @param path the file to create or replace
+     * @param comment a comment written at the top of the file, may be null
+     * @throws IOException if the file cannot be written
+     */
+    public void save(Path path, String comment) throws IOException {
+        try (BufferedWriter writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8)) {
+            if (comment != null) {
+                writer.write("# " + comment);
+                writer.newLine();
+            }
+            for (int i = 0; i < values.length; i++) {
+                writer.write(String.format(Locale.ROOT, "%s = %.4f", PatternFeatures.NAMES[i], values[i]));
+                writer.newLine();
+            }
+        }
+    }
+
+    /**
+     * Returns the index of a feature from its name.
+     * @param name the name of the feature
+     * @return the index of the feature
+     * @throws IOException if no feature has this name
+     */
+    private static int indexOf(String name) throws IOException {
+        for (int i = 0; i < PatternFeatures.NAMES.length; i++) {
+            if (PatternFeatures.NAMES[i].equals(name)) {
+                return i;
+            }
+        }
+        throw new IOException("Caractéristique inconnue : " + name);
+    }
+
+    // GETTERS
+
+    /**
+     * Returns the weight of a feature.
+     * @param feature the index of the feature
+     * @return the weight in hundredths of a logit
+     */
+    public double get(int feature) {
+        return values[feature];
+    }
+
+    /**
+     * Returns a copy of all the weights.
+     * @return the weights indexed as in {@link PatternFeatures}
+     */
+    public double[] toArray() {
+        return values.clone();
+    }
+
+    @Override
+    public String toString() {
+        return Arrays.toString(values);
+    }
+}
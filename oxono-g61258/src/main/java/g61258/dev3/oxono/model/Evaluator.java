@@ -0,0 +1,18 @@
+package g61258.dev3.oxono.model;
+
+/**
+ * The {@code Evaluator} interface gives a static score to a {@link Position}, used at the leaves
+ * of a search such as {@link SearchStrategy}.
+ * <p>Scores are seen from the player to move and expressed in hundredths of a logit: a score
+ * {@code s} predicts that the player to move wins with the probability {@code 1 / (1 + exp(-s / 100))}.
+ * Evaluators are not required to be thread-safe, each strategy owns its instance.</p>
+ */
+public interface Evaluator {
+
+    /**
+     * Evaluates a position that is not over.
+     * @param position the position to evaluate, left unchanged
+     * @return the score of the position for the player to move
+     */
+    int evaluate(Position position);
+}
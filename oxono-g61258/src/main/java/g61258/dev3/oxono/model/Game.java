@@ -3,8 +3,11 @@ package g61258.dev3.oxono.model;
 import g61258.dev3.oxono.utils.Observable;
 import g61258.dev3.oxono.utils.Observer;
 
+import java.util.Arrays;
 import java.util.List;
+import java.util.Objects;
 import java.util.ArrayList;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 public class Game implements Observable {
     private  Board board;
@@ -18,27 +21,129 @@ public class Game implements Observable {
     private int[] lastPlacedTokenCoords;
 
     private OpponentStrategy opponentStrategy;
-
-    private List<Observer> observers = new ArrayList<>();
+    private final int aiLevel;
+    private ActionRecorder recorder;
+
+    // Listes copiées à l'écriture : un observateur peut s'ajouter ou se retirer pendant une notification
+    private final List<Observer> observers = new CopyOnWriteArrayList<>();
+    private final List<GameListener> listeners = new CopyOnWriteArrayList<>();
+    private int updateDepth;
+    private boolean updateHeld;
+
+    // Changements du plateau émis par les commandes depuis la dernière mise à jour, null sans écouteur,
+    // et état hors du plateau vu par les écouteurs lors de cette mise à jour
+    private List<GameEvent> changes;
+    private final int[] seenTokens = new int[4];
+    private GameStat seenPhase;
+    private Color seenPlayer;
+    private boolean seenOver;
+    private String seenWinner;
 
     /**
      * Constructs a new Game instance, initializes the board and players, and sets the starting player.
+     * @param boardSize the size of the board
+     * @param aiLevel the level of the opponent, 0 for random moves, 1 for the level 2 strategy
+     * @throws IllegalArgumentException if the board is larger than {@link CommandManager#MAX_BOARD_SIZE}
+     *         by {@link CommandManager#MAX_BOARD_SIZE}
      */
-
     public Game(int boardSize, int aiLevel) {
-        this.board = new Board(boardSize);
+        this(new Board(boardSize), aiLevel);
+    }
+
+    /**
+     * Constructs a new Game instance on the given board, against the opponent of the given level.
+     * @param board the board to play on
+     * @param aiLevel the level of the opponent, 0 for random moves, 1 for the level 2 strategy
+     */
+    public Game(Board board, int aiLevel) {
+        this(board, aiLevel == 0 ? new RandomOpponentStrategy() : new OpponentStrategyLevel2(), aiLevel);
+    }
+
+    /**
+     * Constructs a new Game instance on the given board with the given opponent strategy.
+     * @param board the board to play on
+     * @param opponentStrategy the strategy playing the black player in {@link #playOpponentTurn()}, may be null
+     */
+    public Game(Board board, OpponentStrategy opponentStrategy) {
+        this(board, opponentStrategy, -1);
+    }
+
+    /**
+     * Constructs a new Game instance, remembering the level of its opponent for {@link #snapshot()}.
+     */
+    private Game(Board board, OpponentStrategy opponentStrategy, int aiLevel) {
+        this.board = board;
         this.playerRose = new Player(Color.PINK);
         this.playerNoir = new Player(Color.BLACK);
         this.currentPlayer = playerRose;
         this.gameOver = false;
         this.winner = null;
-        this.commandManager = new CommandManager();
+        this.commandManager = new CommandManager(this, board, playerRose, playerNoir);
         this.gameStat = GameStat.MOVE;
-        if (aiLevel == 0) {
-            this.opponentStrategy = new RandomOpponentStrategy();
-        } else {
-            this.opponentStrategy = new OpponentStrategyLevel2();
+        this.opponentStrategy = opponentStrategy;
+        this.aiLevel = aiLevel;
+    }
+
+    /**
+     * Rebuilds a saved game, with its whole undo and redo history.
+     * The opponent is the one of the saved level; a game saved without opponent has none.
+     * @param snapshot the saved game
+     * @return the game, ready to be played on
+     * @throws IllegalArgumentException if the history of the snapshot does not match its board
+     */
+    public static Game restore(GameSnapshot snapshot) {
+        Board board = new Board(snapshot.getBoardSize(), true);
+        int level = snapshot.getAiLevel();
+        Game game = level < 0 ? new Game(board, (OpponentStrategy) null) : new Game(board, level);
+        // Le joueur courant d'abord : un déplacement en cours lui est attribué
+        game.currentPlayer = snapshot.getCurrentColor() == 0 ? game.playerRose : game.playerNoir;
+        game.commandManager.restore(snapshot.state(), snapshot.getHistoryStart(), snapshot.getHistoryPly(),
+                snapshot.getHistory(), snapshot.getCheckpoints(), snapshot.getPendingMove());
+        game.gameStat = snapshot.getPhase();
+        game.gameOver = snapshot.isGameOver();
+        game.winner = snapshot.isWon() ? game.currentPlayer.toString() : null;
+        long ply = game.getPly();
+        game.lastPlacedTokenCoords = ply > game.getHistoryStart() ? game.coordsOf(game.commandManager.getAction(ply - 1)) : null;
+        return game;
+    }
+
+    /**
+     * Takes the complete state of the game, history included, to be saved.
+     * @return the snapshot of the game
+     */
+    public GameSnapshot snapshot() {
+        return snapshot(true);
+    }
+
+    /**
+     * Takes the state of the board and the players without the history, for readers of the position.
+     * It costs a copy of the board only, whatever the length of the game, but cannot be
+     * {@linkplain #restore(GameSnapshot) restored} into a game that undoes or redoes.
+     * @return the snapshot of the position, with an empty history starting at the current ply
+     */
+    public GameSnapshot boardSnapshot() {
+        return snapshot(false);
+    }
+
+    /**
+     * Takes a snapshot of the game.
+     * @param withHistory true to copy the history and its checkpoints, false for the position only
+     * @return the snapshot of the game
+     */
+    private GameSnapshot snapshot(boolean withHistory) {
+        byte[] state = commandManager.saveState();
+        int cells = board.getSize() * board.getSize();
+        int[] tokens = new int[4];
+        for (int i = 0; i < tokens.length; i++) {
+            tokens[i] = state[cells + i];
         }
+        long historyStart = withHistory ? getHistoryStart() : getPly();
+        return new GameSnapshot(board.getSize(), aiLevel, Arrays.copyOf(state, cells), tokens,
+                state[state.length - 1] - 1, CellCode.colorIndex(currentPlayer.getColor()), gameStat, gameOver,
+                winner != null, historyStart, (int) (getPly() - historyStart),
+                withHistory ? commandManager.getHistory() : new long[0],
+                withHistory ? commandManager.getCheckpoints() : new byte[0],
+                withHistory ? commandManager.getPendingMove() : -1);
     }
 
     // GETTERS
@@ -51,6 +156,14 @@ public class Game implements Observable {
         return board;
     }
 
+    /**
+     * Return the size of the board.
+     * @return the number of cells of a row of the board
+     */
+    public int getBoardSize() {
+        return board.getSize();
+    }
+
     /**
      * Return the name of the current player.
      * @return The current player's name as a string.
@@ -207,37 +320,74 @@ public class Game implements Observable {
     }
 
     /**
-     * Sets the last placed token coordinates.
-     * @param x the X-coordinate of the last placed token
-     * @param y the Y-coordinate of the last placed token
+     * Sets the winner of the game.
      */
-    private void setLastPlacedTokenCoords(int x, int y) {
-        this.lastPlacedTokenCoords = new int[]{x, y};
+    public void setWinner() {
+        this.winner = currentPlayer.toString();
+        if (recorder != null) {
+            recorder.won();
+        }
         notifyObservers();
     }
 
     /**
-     * Sets the winner of the game.
+     * Sets the recorder receiving every action applied to the game, for instance a journal.
+     * @param recorder the recorder, or null to stop recording
      */
-    public void setWinner() {
-        this.winner = currentPlayer.toString();
-        notifyObservers();
+    public void setActionRecorder(ActionRecorder recorder) {
+        this.recorder = recorder;
     }
 
 
     /**
      * Executes the opponent's move if it's their turn.
+     * The whole turn of the opponent notifies the observers once.
      */
     public void playOpponentTurn() {
-        if (this.currentPlayer.getColor() == Color.BLACK) {
-            if (opponentStrategy != null) {
-                opponentStrategy.play(this,this.board);
+        batch(() -> {
+            if (this.currentPlayer.getColor() == Color.BLACK) {
+                if (opponentStrategy != null) {
+                    opponentStrategy.play(this,this.board);
+                }
             }
-        }
-        notifyObservers();
+            notifyObservers();
+        });
     }
 
 
+    /**
+     * Lets the given strategy play the turn of the current player, whatever its color.
+     * Used when both players are driven by a strategy, for instance in headless matches.
+     * The observers are notified once.
+     * @param strategy the strategy choosing the totem move and the token placement
+     */
+    public void playTurn(OpponentStrategy strategy) {
+        batch(() -> strategy.play(this, this.board));
+    }
+
+    /**
+     * Ends the turn of the current player: checks the victory on the last placed token,
+     * sets the winner if the game is over and otherwise gives the turn to the other player.
+     * The observers are notified once.
+     * @return true if the game is over, false otherwise
+     */
+    public boolean endTurn() {
+        beginUpdate();
+        try {
+            if (lastPlacedTokenCoords != null) {
+                setGameOver(checkVictory(lastPlacedTokenCoords[0], lastPlacedTokenCoords[1]));
+            }
+            if (gameOver) {
+                setWinner();
+            } else {
+                switchPlayer();
+            }
+            return gameOver;
+        } finally {
+            endUpdate();
+        }
+    }
+
     /**
      * Starts a new game by resetting the board and setting the current player.
      */
@@ -248,11 +398,30 @@ public class Game implements Observable {
         notifyObservers();
     }
 
+    /**
+     * Ends the game in a draw, without winner, when no player has tokens left.
+     * Nothing happens if the game is already over.
+     */
+    public void declareDraw() {
+        if (gameOver) {
+            return;
+        }
+        gameOver = true;
+        winner = null;
+        if (recorder != null) {
+            recorder.drawn();
+        }
+        notifyObservers();
+    }
+
     /**
      * Ends the game immediately by setting the game state to over.
      */
     public void abandonGame() {
         gameOver = true;
+        if (recorder != null) {
+            recorder.abandoned();
+        }
         notifyObservers();
     }
 
@@ -274,19 +443,21 @@ public class Game implements Observable {
 
     /**
      * Places a token on the board at the specified coordinates.
-     * This method executes the command to place the token and notifies observers of the change.
+     * This method completes the turn started by {@link #moveTotem}, which is added to the history as a single
+     * command, and notifies observers of the change once.
      * @param x the x-coordinate where the token should be placed
      * @param y the y-coordinate where the token should be placed
      * @param totem the totem associated with the token to be placed
      */
     public void placeToken(int x, int y, Totem totem) {
         Token token = getCurrentPlayerToken(totem.getShape());
-        Command placeAnywhereCommand = new PlaceTokenCommand(this,currentPlayer,this.board,x,y,token);
-        commandManager.executeCommand(placeAnywhereCommand);
-        removeTokenFromCurrentPlayer(totem.getShape());
-        setGameStat(GameStat.MOVE);
-        setLastPlacedTokenCoords(x,y);
-
+        PlaceTokenCommand placement = new PlaceTokenCommand(this,currentPlayer,this.board,x,y,token);
+        commandManager.completeTurn(currentPlayer, placement, totem);
+        gameStat = GameStat.MOVE;
+        lastPlacedTokenCoords = new int[]{x, y};
+        if (recorder != null) {
+            recorder.tokenPlaced(totem.getShape(), x, y);
+        }
         notifyObservers();
     }
 
@@ -324,16 +495,18 @@ public class Game implements Observable {
 
     /**
      * Moves a totem to a new position on the board.
-     * Executes the move command, updates the game state, and notifies observers.
+     * Starts the turn with the move command, updates the game state, and notifies observers once.
      * @param newX the new x-coordinate for the totem
      * @param newY the new y-coordinate for the totem
      * @param totem the totem to be moved
      */
     public void moveTotem(int newX, int newY, Totem totem) {
-        Command moveAnywhere = new MoveTotemCommand(this,board,totem,totem.getX(),totem.getY(),newX,newY, /*lastMovedTotem*/ getLastMovedTotem());
-        commandManager.executeCommand(moveAnywhere);
-        setGameStat(GameStat.INSERT);
-        setLastMovedTotem(totem);
+        MoveTotemCommand moveAnywhere = new MoveTotemCommand(this,board,totem,totem.getX(),totem.getY(),newX,newY, /*lastMovedTotem*/ getLastMovedTotem());
+        commandManager.beginTurn(moveAnywhere);
+        gameStat = GameStat.INSERT;
+        if (recorder != null) {
+            recorder.totemMoved(totem.getShape(), newX, newY);
+        }
         notifyObservers();
     }
 
@@ -408,7 +581,6 @@ public class Game implements Observable {
         }
 
         // Si aucune case adjacente n'est libre, vérifier les mouvements en ligne droite
-        System.out.println("Aucune case libre adjacente. Vérification des conditions pour un mouvement valide.");
 
        return isNoAdjacentCellsMoveValid(currentX,currentY,newX,newY);
     }
@@ -570,6 +742,9 @@ public class Game implements Observable {
      */
     public void switchPlayer() {
         currentPlayer = (currentPlayer == playerRose) ? playerNoir : playerRose;
+        if (recorder != null) {
+            recorder.playerSwitched();
+        }
         notifyObservers();
     }
 
@@ -634,6 +809,7 @@ public class Game implements Observable {
 
     /**
      * Checks if the current player or the opponent still has tokens to play.
+     * When neither has, the game is declared a draw with {@link #declareDraw()}.
      * @return  true if the current player has tokens remaining to play, false otherwise
      */
     public boolean stillHasTokens() {
@@ -652,8 +828,8 @@ public class Game implements Observable {
         if (nbCurrentCrossTokens == 0 && nbCurrentCircleTokens == 0) {
             // Check if the opponent also has no tokens left
             if (nbOtherCrossTokens == 0 && nbOtherCircleTokens == 0) {
-                // Neither player has tokens, abandon the game
-                abandonGame();
+                // Aucun joueur n'a de jeton : la partie est nulle
+                declareDraw();
                 // Return false because the current player has no tokens left
                 return false;
             }
@@ -684,39 +860,151 @@ public class Game implements Observable {
     }
 
     /**
-     * Undoes the last executed command, reverting the game state to its previous configuration.
-     * This method invokes the undo functionality of the command manager and notifies observers of the change.
+     * Undoes the totem move of the turn in progress, or else the last played turn as a whole.
+     * After a whole turn is undone, its player is to play again. Observers are notified once.
      */
     public void undo(){
-        if (commandManager.canUndo()) {
+        if (commandManager.hasPendingMove()) {
             commandManager.undo();
-            if (gameStat.equals(GameStat.INSERT)) {
-                this.setGameStat(GameStat.MOVE);
-            } else {
-                this.setGameStat(GameStat.INSERT);
-            }
-            notifyObservers();
+            gameStat = GameStat.MOVE;
+        } else if (commandManager.canUndo()) {
+            commandManager.undo();
+            restoreTurn(commandManager.getPly());
+        } else {
+            return;
         }
+        if (recorder != null) {
+            recorder.undone();
+        }
+        notifyObservers();
     }
 
     /**
-     * Redoes the last undone command, reapplying the previous change to the game state.
-     * This method invokes the redo functionality of the command manager and notifies observers of the change.
+     * Redoes the last undone turn as a whole. As after {@link #placeToken}, the turn is left
+     * to be ended by {@link #endTurn()}. Observers are notified once.
      */
     public void redo(){
         if (commandManager.canRedo()){
             commandManager.redo();
-            if(gameStat.equals(GameStat.MOVE)){
-                this.setGameStat(GameStat.INSERT);
-            } else {
-               removeTokenFromCurrentPlayer(getLastMovedTotem().getShape());
-                setGameStat(GameStat.MOVE);
-                setLastPlacedTokenCoords(getLastMovedTotem().getX(),getLastMovedTotem().getY());
-
+            restoreTurn(commandManager.getPly() - 1);
+            lastPlacedTokenCoords = coordsOf(commandManager.getAction(commandManager.getPly() - 1));
+            if (recorder != null) {
+                recorder.redone();
             }
             notifyObservers();
         }
+    }
 
+    /**
+     * Jumps to a ply of the history, undoing or redoing as many turns as needed at once.
+     * A ply is one whole turn. The current player, the last placed token and the victory are restored for
+     * this ply, the turn being ended, and the observers are notified once.
+     * @param ply a ply between {@link #getHistoryStart()} and {@link #getHistoryEnd()}
+     */
+    public void jumpToPly(long ply) {
+        commandManager.jumpTo(ply);
+        if (ply == commandManager.getFirstPly()) {
+            // Début de l'historique : le joueur est celui du tour suivant
+            restoreTurn(ply);
+        } else {
+            long last = commandManager.getAction(ply - 1);
+            restoreTurn(ply - 1);
+            lastPlacedTokenCoords = coordsOf(last);
+            currentPlayer = playerOf(last);
+            if (checkVictory(lastPlacedTokenCoords[0], lastPlacedTokenCoords[1])) {
+                gameOver = true;
+                winner = currentPlayer.toString();
+            } else {
+                currentPlayer = currentPlayer == playerRose ? playerNoir : playerRose;
+            }
+        }
+        if (recorder != null) {
+            recorder.jumped(ply);
+        }
+        notifyObservers();
+    }
+
+    /**
+     * Restores the state of the game at the start of a turn of the history: no victory, totem move phase,
+     * the current player and the last placed token being those of the turn before it.
+     * @param ply the ply of the turn
+     */
+    private void restoreTurn(long ply) {
+        gameOver = false;
+        winner = null;
+        gameStat = GameStat.MOVE;
+        if (ply > commandManager.getFirstPly()) {
+            long previous = commandManager.getAction(ply - 1);
+            lastPlacedTokenCoords = coordsOf(previous);
+        } else {
+            lastPlacedTokenCoords = null;
+        }
+        if (ply < commandManager.getLastPly()) {
+            currentPlayer = playerOf(commandManager.getAction(ply));
+        }
+    }
+
+    /**
+     * Returns the player of a packed turn of the history.
+     */
+    private Player playerOf(long action) {
+        return CommandManager.colorOf(action) == 0 ? playerRose : playerNoir;
+    }
+
+    /**
+     * Returns the coordinates of the token placed by a packed turn of the history.
+     */
+    private int[] coordsOf(long action) {
+        int cell = CommandManager.placementOf(action);
+        return new int[] {cell / board.getSize(), cell % board.getSize()};
+    }
+
+    /**
+     * Checks if a totem move or a turn can be undone.
+     * @return true if the history has something to undo
+     */
+    public boolean canUndo() {
+        return commandManager.canUndo();
+    }
+
+    /**
+     * Checks if an undone turn can be redone.
+     * @return true if the history has a turn to redo
+     */
+    public boolean canRedo() {
+        return commandManager.canRedo();
+    }
+
+    /**
+     * Returns the number of turns played, undone ones excepted.
+     * @return the current ply of the history
+     */
+    public long getPly() {
+        return commandManager.getPly();
+    }
+
+    /**
+     * Returns the oldest ply that can still be reached by undoing.
+     * @return the first ply kept by the history
+     */
+    public long getHistoryStart() {
+        return commandManager.getFirstPly();
+    }
+
+    /**
+     * Returns the ply reached by redoing every undone turn.
+     * @return the last ply of the history
+     */
+    public long getHistoryEnd() {
+        return commandManager.getLastPly();
+    }
+
+    /**
+     * Sets the memory cap of the undo history; the oldest turns are forgotten beyond it.
+     * @param bytes the approximate number of bytes kept by the history
+     */
+    public void setHistoryMemoryCap(long bytes) {
+        commandManager.setMemoryCap(bytes);
     }
 
     /**
@@ -745,8 +1033,140 @@ public class Game implements Observable {
      */
     @Override
     public void notifyObservers() {
+        if (updateDepth > 0) {
+            updateHeld = true; // Remise à la fin de la portée
+            return;
+        }
+        if (changes != null) {
+            List<GameEvent> events = collectEvents();
+            if (!events.isEmpty()) {
+                for (GameListener listener : listeners) {
+                    listener.changed(events);
+                }
+            }
+        }
         for (Observer o: this.observers) {
             o.update();
         }
     }
+
+    /**
+     * Adds a listener receiving the typed changes of the game from now on.
+     * @param listener the listener to add
+     */
+    public void addListener(GameListener listener) {
+        if (changes == null) {
+            changes = new ArrayList<>();
+            rememberState(); // Point de départ des différences
+        }
+        listeners.add(listener);
+    }
+
+    /**
+     * Removes a listener.
+     * @param listener the listener to remove
+     */
+    public void removeListener(GameListener listener) {
+        listeners.remove(listener);
+        if (listeners.isEmpty()) {
+            changes = null; // Plus personne à qui rapporter les changements
+        }
+    }
+
+    /**
+     * Records that the content of a cell changed, for the listeners. Called by the commands.
+     * @param x the row of the cell
+     * @param y the column of the cell
+     * @param oldCode the {@link CellCode} before the change
+     * @param newCode the {@link CellCode} after the change
+     */
+    void cellChanged(int x, int y, int oldCode, int newCode) {
+        if (changes != null && oldCode != newCode) {
+            changes.add(new GameEvent.CellChanged(x, y, oldCode, newCode));
+        }
+    }
+
+    /**
+     * Records that a totem changed cell, for the listeners. Called by the commands, the cells being
+     * recorded apart.
+     * @param shape the shape of the totem
+     * @param fromX the row left by the totem
+     * @param fromY the column left by the totem
+     * @param toX the row reached by the totem
+     * @param toY the column reached by the totem
+     */
+    void totemMoved(Shape shape, int fromX, int fromY, int toX, int toY) {
+        if (changes != null && (fromX != toX || fromY != toY)) {
+            changes.add(new GameEvent.TotemMoved(shape, fromX, fromY, toX, toY));
+        }
+    }
+
+    /**
+     * Completes the changes recorded by the commands with those of the reserves, the phase, the player and
+     * the result, compared with the state seen at the previous update, and merges them into their net change.
+     * Nothing here depends on the size of the board.
+     * @return the changes, cells first
+     */
+    private List<GameEvent> collectEvents() {
+        Player[] players = {playerRose, playerNoir};
+        for (int i = 0; i < seenTokens.length; i++) {
+            Player player = players[i >> 1];
+            Shape shape = CellCode.shape(i & 1);
+            int count = player.getNbTokens(shape);
+            if (count != seenTokens[i]) {
+                changes.add(new GameEvent.TokensChanged(player.getColor(), shape, count));
+            }
+        }
+        if (gameStat != seenPhase) {
+            changes.add(new GameEvent.PhaseChanged(seenPhase, gameStat));
+        }
+        if (currentPlayer.getColor() != seenPlayer) {
+            changes.add(new GameEvent.PlayerSwitched(currentPlayer.getColor()));
+        }
+        if (gameOver && (!seenOver || !Objects.equals(winner, seenWinner))) {
+            changes.add(new GameEvent.GameOver(winner));
+        } else if (!gameOver && seenOver) {
+            changes.add(new GameEvent.GameReopened());
+        }
+        List<GameEvent> events = GameEvent.netChange(changes);
+        changes.clear();
+        rememberState();
+        return events;
+    }
+
+    /**
+     * Remembers the state seen by the listeners, outside of the board.
+     */
+    private void rememberState() {
+        Player[] players = {playerRose, playerNoir};
+        for (int i = 0; i < seenTokens.length; i++) {
+            seenTokens[i] = players[i >> 1].getNbTokens(CellCode.shape(i & 1));
+        }
+        seenPhase = gameStat;
+        seenPlayer = currentPlayer.getColor();
+        seenOver = gameOver;
+        seenWinner = winner;
+    }
+
+    /**
+     * Opens an update scope, holding the notifications until the matching {@link #endUpdate()}.
+     */
+    @Override
+    public void beginUpdate() {
+        updateDepth++;
+    }
+
+    /**
+     * Closes an update scope and notifies the observers once if the outermost scope held a notification.
+     */
+    @Override
+    public void endUpdate() {
+        if (updateDepth == 0) {
+            throw new IllegalStateException("Aucune mise à jour groupée en cours");
+        }
+        if (--updateDepth == 0 && updateHeld) {
+            updateHeld = false;
+            notifyObservers();
+        }
+    }
 }
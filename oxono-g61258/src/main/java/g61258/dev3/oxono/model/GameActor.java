@@ -0,0 +1,158 @@
+package g61258.dev3.oxono.model;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * The {@code GameActor} class lets any number of threads share a {@link Game}, which is not thread-safe.
+ * <p>Every action on the game goes through a queue served by a single writer thread, one action at a time
+ * in the order they were submitted, so that the game needs no lock. After every action, an immutable
+ * {@linkplain Game#boardSnapshot() snapshot of the position} is published through an atomic reference:
+ * readers such as the hover highlighting, the statistics or spectators read {@link #getSnapshot()} without
+ * waiting for the writer nor slowing it down. Publishing copies the board only; the snapshot with the
+ * whole history, to be saved, is taken on demand by {@link #fullSnapshot()}.</p>
+ * <p>Once given to an actor, the game must only be reached through it. Its observers and listeners are
+ * called on the writer thread. An action must not wait for another action of the same actor.</p>
+ */
+public class GameActor implements AutoCloseable {
+
+    /**
+     * A published snapshot with the number of actions it follows.
+     */
+    private static final class Published {
+        final GameSnapshot snapshot;
+        final long version;
+
+        Published(GameSnapshot snapshot, long version) {
+            this.snapshot = snapshot;
+            this.version = version;
+        }
+    }
+
+    private final Game game;
+    private final ExecutorService writer;
+    private final AtomicReference<Published> published;
+    private long version; // Modifié par le seul thread d'écriture
+
+    /**
+     * Constructs an actor owning a game, and starts its writer thread.
+     * @param game the game, not to be used directly anymore
+     */
+    public GameActor(Game game) {
+        this.game = game;
+        this.published = new AtomicReference<>(new Published(game.boardSnapshot(), 0));
+        this.writer = Executors.newSingleThreadExecutor(action -> {
+            Thread thread = new Thread(action, "game-actor");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Queues an action changing the game. The snapshot is published once it is done, even if it failed.
+     * @param action the action, run on the writer thread
+     * @return a future completed after the action, exceptionally if it threw
+     * @throws RejectedExecutionException if the actor is closed
+     */
+    public CompletableFuture<Void> execute(Consumer<Game> action) {
+        return call(game -> {
+            action.accept(game);
+            return null;
+        });
+    }
+
+    /**
+     * Queues an action changing or reading the game and returning a result.
+     * The snapshot is published once it is done, even if it failed.
+     * @param action the action, run on the writer thread
+     * @param <R> the type of the result
+     * @return a future completed with the result of the action, exceptionally if it threw anything,
+     *         errors included, or if the snapshot could not be published
+     * @throws RejectedExecutionException if the actor is closed
+     */
+    public <R> CompletableFuture<R> call(Function<Game, R> action) {
+        CompletableFuture<R> result = new CompletableFuture<>();
+        writer.execute(() -> {
+            R value = null;
+            Throwable failure = null;
+            try {
+                value = action.apply(game);
+            } catch (Throwable e) {
+                failure = e;
+            } finally {
+                // L'action a pu modifier la partie avant d'échouer : on publie dans tous les cas
+                try {
+                    publish();
+                } catch (Throwable e) {
+                    if (failure == null) {
+                        failure = e;
+                    } else {
+                        failure.addSuppressed(e);
+                    }
+                }
+                if (failure == null) {
+                    result.complete(value);
+                } else {
+                    result.completeExceptionally(failure);
+                }
+            }
+        });
+        return result;
+    }
+
+    /**
+     * Queues the copy of the whole game, history included, for instance to save it.
+     * @return a future completed with the complete snapshot of the game
+     * @throws RejectedExecutionException if the actor is closed
+     */
+    public CompletableFuture<GameSnapshot> fullSnapshot() {
+        return call(Game::snapshot);
+    }
+
+    /**
+     * Publishes the position of the game after an action.
+     */
+    private void publish() {
+        published.set(new Published(game.boardSnapshot(), ++version));
+    }
+
+    /**
+     * Stops accepting actions and waits for the queued ones.
+     */
+    @Override
+    public void close() {
+        writer.shutdown();
+        try {
+            if (!writer.awaitTermination(1, TimeUnit.MINUTES)) {
+                writer.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            writer.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // GETTERS
+
+    /**
+     * Returns the position of the game after the last finished action, without locking.
+     * @return the last published snapshot, without history
+     */
+    public GameSnapshot getSnapshot() {
+        return published.get().snapshot;
+    }
+
+    /**
+     * Returns the number of actions finished, to tell whether a snapshot read before is still current.
+     * @return the version of the last published snapshot
+     */
+    public long getVersion() {
+        return published.get().version;
+    }
+}
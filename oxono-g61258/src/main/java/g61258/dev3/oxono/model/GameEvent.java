@@ -0,0 +1,340 @@
+package g61258.dev3.oxono.model;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The {@code GameEvent} class is a change of a {@link Game}, as delivered to its {@link GameListener}s.
+ * <p>The events of one update describe the difference between the state seen by the previous update
+ * and the current one: changes made and reverted within an update scope are not reported. Every changed
+ * cell gives a {@link CellChanged}; the other events describe the changes of the totems, the reserves,
+ * the phase, the player and the result. Events are immutable; their kinds are the nested classes.</p>
+ * <p>The changes of the board are emitted by the commands as they move the totems and place the tokens,
+ * so that an update costs the cells it changes rather than a pass over the board. Only a jump in the history
+ * that restores a checkpoint compares the restored board with the previous one.</p>
+ */
+public abstract class GameEvent {
+
+    private GameEvent() {
+    }
+
+    /**
+     * The content of a cell changed.
+     */
+    public static final class CellChanged extends GameEvent {
+        private final int x;
+        private final int y;
+        private final int oldCode;
+        private final int newCode;
+
+        CellChanged(int x, int y, int oldCode, int newCode) {
+            this.x = x;
+            this.y = y;
+            this.oldCode = oldCode;
+            this.newCode = newCode;
+        }
+
+        /**
+         * Returns the x-coordinate of the cell.
+         * @return the row of the cell
+         */
+        public int getX() {
+            return x;
+        }
+
+        /**
+         * Returns the y-coordinate of the cell.
+         * @return the column of the cell
+         */
+        public int getY() {
+            return y;
+        }
+
+        /**
+         * Returns the previous content of the cell.
+         * @return the {@link CellCode} before the change
+         */
+        public int getOldCode() {
+            return oldCode;
+        }
+
+        /**
+         * Returns the new content of the cell.
+         * @return the {@link CellCode} after the change
+         */
+        public int getNewCode() {
+            return newCode;
+        }
+
+        @Override
+        public String toString() {
+            return "CellChanged(" + x + ", " + y + ", " + oldCode + " -> " + newCode + ")";
+        }
+    }
+
+    /**
+     * A totem left its cell for another one.
+     */
+    public static final class TotemMoved extends GameEvent {
+        private final Shape shape;
+        private final int fromX;
+        private final int fromY;
+        private final int toX;
+        private final int toY;
+
+        TotemMoved(Shape shape, int fromX, int fromY, int toX, int toY) {
+            this.shape = shape;
+            this.fromX = fromX;
+            this.fromY = fromY;
+            this.toX = toX;
+            this.toY = toY;
+        }
+
+        /**
+         * Returns the shape of the moved totem.
+         * @return the shape of the totem
+         */
+        public Shape getShape() {
+            return shape;
+        }
+
+        /**
+         * Returns the x-coordinate of the cell left by the totem.
+         * @return the previous row of the totem
+         */
+        public int getFromX() {
+            return fromX;
+        }
+
+        /**
+         * Returns the y-coordinate of the cell left by the totem.
+         * @return the previous column of the totem
+         */
+        public int getFromY() {
+            return fromY;
+        }
+
+        /**
+         * Returns the x-coordinate of the cell reached by the totem.
+         * @return the new row of the totem
+         */
+        public int getToX() {
+            return toX;
+        }
+
+        /**
+         * Returns the y-coordinate of the cell reached by the totem.
+         * @return the new column of the totem
+         */
+        public int getToY() {
+            return toY;
+        }
+
+        @Override
+        public String toString() {
+            return "TotemMoved(" + shape + ", " + fromX + ", " + fromY + " -> " + toX + ", " + toY + ")";
+        }
+    }
+
+    /**
+     * The number of tokens of one shape left to a player changed.
+     */
+    public static final class TokensChanged extends GameEvent {
+        private final Color color;
+        private final Shape shape;
+        private final int count;
+
+        TokensChanged(Color color, Shape shape, int count) {
+            this.color = color;
+            this.shape = shape;
+            this.count = count;
+        }
+
+        /**
+         * Returns the color of the player.
+         * @return the color of the player whose reserve changed
+         */
+        public Color getColor() {
+            return color;
+        }
+
+        /**
+         * Returns the shape of the tokens.
+         * @return the shape whose count changed
+         */
+        public Shape getShape() {
+            return shape;
+        }
+
+        /**
+         * Returns the new number of tokens.
+         * @return the tokens of this shape left to the player
+         */
+        public int getCount() {
+            return count;
+        }
+
+        @Override
+        public String toString() {
+            return "TokensChanged(" + color + " " + shape + " = " + count + ")";
+        }
+    }
+
+    /**
+     * The phase of the turn changed.
+     */
+    public static final class PhaseChanged extends GameEvent {
+        private final GameStat oldPhase;
+        private final GameStat newPhase;
+
+        PhaseChanged(GameStat oldPhase, GameStat newPhase) {
+            this.oldPhase = oldPhase;
+            this.newPhase = newPhase;
+        }
+
+        /**
+         * Returns the previous phase.
+         * @return the phase before the change
+         */
+        public GameStat getOldPhase() {
+            return oldPhase;
+        }
+
+        /**
+         * Returns the new phase.
+         * @return the phase after the change
+         */
+        public GameStat getNewPhase() {
+            return newPhase;
+        }
+
+        @Override
+        public String toString() {
+            return "PhaseChanged(" + oldPhase + " -> " + newPhase + ")";
+        }
+    }
+
+    /**
+     * The turn went to the other player.
+     */
+    public static final class PlayerSwitched extends GameEvent {
+        private final Color player;
+
+        PlayerSwitched(Color player) {
+            this.player = player;
+        }
+
+        /**
+         * Returns the player to play.
+         * @return the color of the new current player
+         */
+        public Color getPlayer() {
+            return player;
+        }
+
+        @Override
+        public String toString() {
+            return "PlayerSwitched(" + player + ")";
+        }
+    }
+
+    /**
+     * The game ended, won, drawn or abandoned.
+     */
+    public static final class GameOver extends GameEvent {
+        private final String winner;
+
+        GameOver(String winner) {
+            this.winner = winner;
+        }
+
+        /**
+         * Returns the winner.
+         * @return the name of the winner, or null for a drawn or abandoned game
+         */
+        public String getWinner() {
+            return winner;
+        }
+
+        @Override
+        public String toString() {
+            return "GameOver(" + winner + ")";
+        }
+    }
+
+    /**
+     * A finished game was reopened by going back in its history.
+     */
+    public static final class GameReopened extends GameEvent {
+
+        GameReopened() {
+        }
+
+        @Override
+        public String toString() {
+            return "GameReopened";
+        }
+    }
+
+    /**
+     * Merges successive changes into their net change: the first and last content of every cell and
+     * position of every totem, the last count of every reserve, the first and last phase, the last player
+     * and the last result. Changes reverted meanwhile disappear, so the merged list is never larger than
+     * the board, however many changes it covers.
+     * @param changes the changes, in order
+     * @return the net change, cells first, unmodifiable
+     */
+    static List<GameEvent> netChange(List<GameEvent> changes) {
+        Map<Long, CellChanged> cells = new LinkedHashMap<>();
+        Map<Shape, TotemMoved> totems = new EnumMap<>(Shape.class);
+        Map<String, TokensChanged> tokens = new LinkedHashMap<>();
+        PhaseChanged phase = null;
+        PlayerSwitched player = null;
+        GameEvent result = null;
+        for (GameEvent event : changes) {
+            if (event instanceof CellChanged cell) {
+                cells.merge((long) cell.x << 32 | cell.y, cell,
+                        (seen, next) -> new CellChanged(seen.x, seen.y, seen.oldCode, next.newCode));
+            } else if (event instanceof TotemMoved totem) {
+                totems.merge(totem.shape, totem,
+                        (seen, next) -> new TotemMoved(seen.shape, seen.fromX, seen.fromY, next.toX, next.toY));
+            } else if (event instanceof TokensChanged count) {
+                tokens.put(count.color + " " + count.shape, count);
+            } else if (event instanceof PhaseChanged next) {
+                phase = phase == null ? next : new PhaseChanged(phase.oldPhase, next.newPhase);
+            } else if (event instanceof PlayerSwitched next) {
+                player = next;
+            } else {
+                result = event;
+            }
+        }
+
+        // Les changements annulés entre-temps disparaissent
+        List<GameEvent> events = new ArrayList<>(cells.size() + 8);
+        for (CellChanged cell : cells.values()) {
+            if (cell.oldCode != cell.newCode) {
+                events.add(cell);
+            }
+        }
+        for (TotemMoved totem : totems.values()) {
+            if (totem.fromX != totem.toX || totem.fromY != totem.toY) {
+                events.add(totem);
+            }
+        }
+        events.addAll(tokens.values());
+        if (phase != null && phase.oldPhase != phase.newPhase) {
+            events.add(phase);
+        }
+        if (player != null) {
+            events.add(player);
+        }
+        if (result != null) {
+            events.add(result);
+        }
+        return Collections.unmodifiableList(events);
+    }
+}
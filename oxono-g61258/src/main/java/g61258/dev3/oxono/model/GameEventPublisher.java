@@ -0,0 +1,47 @@
+package g61258.dev3.oxono.model;
+
+import g61258.dev3.oxono.utils.EventPublisher;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+/**
+ * The {@code GameEventPublisher} class publishes the changes of a game to {@link java.util.concurrent.Flow}
+ * subscribers such as spectators, loggers or savers, on their own threads.
+ * <p>Attached with {@link Game#addListener(GameListener)}, it only buffers every update for each subscriber,
+ * so that a slow subscriber never delays the game or the turns of the computer. Subscribed with
+ * {@link EventPublisher.Overflow#COALESCE}, a late subscriber receives the updates it missed
+ * merged into their net change, so that its pending update stays bounded by the size of the board;
+ * with the other policies, it loses some updates.</p>
+ */
+public class GameEventPublisher extends EventPublisher<List<GameEvent>> implements GameListener {
+
+    /**
+     * Constructs a publisher.
+     * @param executor the executor running the deliveries
+     * @param capacity the number of updates buffered per subscriber
+     */
+    public GameEventPublisher(Executor executor, int capacity) {
+        super(executor, capacity, GameEventPublisher::merge);
+    }
+
+    /**
+     * Publishes the changes of one update of the game.
+     * @param events the changes
+     */
+    @Override
+    public void changed(List<GameEvent> events) {
+        submit(events);
+    }
+
+    /**
+     * Merges two updates into their net change, see {@link GameEvent#netChange(List)}.
+     */
+    private static List<GameEvent> merge(List<GameEvent> first, List<GameEvent> second) {
+        List<GameEvent> events = new ArrayList<>(first.size() + second.size());
+        events.addAll(first);
+        events.addAll(second);
+        return GameEvent.netChange(events);
+    }
+}
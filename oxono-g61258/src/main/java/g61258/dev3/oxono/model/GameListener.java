@@ -0,0 +1,18 @@
+package g61258.dev3.oxono.model;
+
+import java.util.List;
+
+/**
+ * The {@code GameListener} interface receives the typed changes of a {@link Game}, unlike the
+ * {@link g61258.dev3.oxono.utils.Observer}s which are only told that something changed.
+ * It is attached with {@link Game#addListener(GameListener)}.
+ */
+public interface GameListener {
+
+    /**
+     * Called once per update of the game, with everything that changed since the previous update.
+     * Update scopes of the game deliver a single list for the whole scope.
+     * @param events the changes, cells first; never empty and unmodifiable
+     */
+    void changed(List<GameEvent> events);
+}
@@ -0,0 +1,262 @@
+package g61258.dev3.oxono.model;
+
+import java.util.Arrays;
+
+/**
+ * The {@code GameSnapshot} class is the complete state of a {@link Game} in primitive form, as saved
+ * and loaded by the persistence codecs or published to readers by a {@link GameActor}: the board, the players' tokens,
+ * the phase and the history.
+ * <p>It is taken by {@link Game#snapshot()} and turned back into a game by {@link Game#restore(GameSnapshot)},
+ * which keeps the whole undo and redo history. The history is opaque: turns packed as in the
+ * {@link CommandManager} and its checkpoints, saved as they are. A snapshot is immutable; its arrays
+ * are copied in and out.</p>
+ * <p>The snapshot published by a {@link GameActor} is taken by {@link Game#boardSnapshot()}: its history is
+ * empty and starts at the current ply, so it describes the position only.</p>
+ */
+public final class GameSnapshot {
+
+    /**
+     * Maximum number of tokens of one shape held by a player.
+     */
+    public static final int MAX_TOKENS = 8;
+
+    private final int boardSize;
+    private final int aiLevel;
+    private final byte[] cells;
+    private final int[] tokens;
+    private final int lastMovedTotem;
+    private final int currentColor;
+    private final GameStat phase;
+    private final boolean gameOver;
+    private final boolean won;
+    private final long historyStart;
+    private final int historyPly;
+    private final long[] history;
+    private final byte[] checkpoints;
+    private final long pendingMove;
+
+    /**
+     * Constructs a snapshot, checking that its parts are consistent.
+     * @param boardSize the size of the board
+     * @param aiLevel the level of the opponent, or -1 without opponent
+     * @param cells the {@link CellCode} of every cell, at index {@code x * boardSize + y}
+     * @param tokens the remaining tokens: pink crosses, pink circles, black crosses, black circles
+     * @param lastMovedTotem the shape index of the last moved totem, or -1 before the first move
+     * @param currentColor the color index of the player to play
+     * @param phase the phase of the turn
+     * @param gameOver true if the game is over
+     * @param won true if the current player has won, false for a game in progress or abandoned
+     * @param historyStart the first ply kept by the history
+     * @param historyPly the current ply, relative to {@code historyStart}
+     * @param history the packed turns of the history, undone ones included
+     * @param checkpoints the checkpoints of the history
+     * @param pendingMove the packed totem move waiting for its placement, or -1
+     * @throws IllegalArgumentException if the parts are not consistent
+     */
+    public GameSnapshot(int boardSize, int aiLevel, byte[] cells, int[] tokens, int lastMovedTotem, int currentColor,
+                        GameStat phase, boolean gameOver, boolean won, long historyStart, int historyPly,
+                        long[] history, byte[] checkpoints, long pendingMove) {
+        if (boardSize < 2 || cells.length != boardSize * boardSize) {
+            throw new IllegalArgumentException("Sauvegarde invalide : plateau de " + cells.length + " cases pour une taille " + boardSize);
+        }
+        int totems = 0;
+        for (byte cell : cells) {
+            if (cell < 0 || cell >= CellCode.COUNT) {
+                throw new IllegalArgumentException("Sauvegarde invalide : contenu de case inconnu " + cell);
+            }
+            totems |= CellCode.isTotem(cell) ? 1 << CellCode.shapeOf(cell) : 0;
+        }
+        if (totems != 3) {
+            throw new IllegalArgumentException("Sauvegarde invalide : totem manquant");
+        }
+        if (tokens.length != 4 || Arrays.stream(tokens).anyMatch(count -> count < 0 || count > MAX_TOKENS)) {
+            throw new IllegalArgumentException("Sauvegarde invalide : réserve de jetons " + Arrays.toString(tokens));
+        }
+        if (lastMovedTotem < -1 || lastMovedTotem > 1 || currentColor < 0 || currentColor > 1 || aiLevel < -1) {
+            throw new IllegalArgumentException("Sauvegarde invalide : totem, joueur ou niveau inconnu");
+        }
+        if (historyStart < 0 || historyPly < 0 || historyPly > history.length || (pendingMove >= 0 && historyPly != history.length)) {
+            throw new IllegalArgumentException("Sauvegarde invalide : coup " + historyPly + " hors de l'historique");
+        }
+        if (won && !gameOver) {
+            throw new IllegalArgumentException("Sauvegarde invalide : victoire d'une partie en cours");
+        }
+        this.boardSize = boardSize;
+        this.aiLevel = aiLevel;
+        this.cells = cells.clone();
+        this.tokens = tokens.clone();
+        this.lastMovedTotem = lastMovedTotem;
+        this.currentColor = currentColor;
+        this.phase = phase;
+        this.gameOver = gameOver;
+        this.won = won;
+        this.historyStart = historyStart;
+        this.historyPly = historyPly;
+        this.history = history.clone();
+        this.checkpoints = checkpoints.clone();
+        this.pendingMove = pendingMove;
+    }
+
+    /**
+     * Returns the state of the board and the players in the format of a {@link CommandManager} checkpoint.
+     * @return the cell codes, the four token counts and the last moved totem plus one
+     */
+    byte[] state() {
+        byte[] state = Arrays.copyOf(cells, cells.length + tokens.length + 1);
+        for (int i = 0; i < tokens.length; i++) {
+            state[cells.length + i] = (byte) tokens[i];
+        }
+        state[state.length - 1] = (byte) (lastMovedTotem + 1);
+        return state;
+    }
+
+    /**
+     * Compares the saved content of two snapshots.
+     * @param o the other object
+     * @return true if both snapshots hold the same state and history
+     */
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof GameSnapshot other)) return false;
+        return boardSize == other.boardSize && aiLevel == other.aiLevel && lastMovedTotem == other.lastMovedTotem
+                && currentColor == other.currentColor && phase == other.phase && gameOver == other.gameOver
+                && won == other.won && historyStart == other.historyStart && historyPly == other.historyPly
+                && pendingMove == other.pendingMove && Arrays.equals(cells, other.cells)
+                && Arrays.equals(tokens, other.tokens) && Arrays.equals(history, other.history)
+                && Arrays.equals(checkpoints, other.checkpoints);
+    }
+
+    /**
+     * Returns a hash code consistent with {@link #equals(Object)}.
+     * @return the hash code of the board and the history
+     */
+    @Override
+    public int hashCode() {
+        return 31 * (31 * Arrays.hashCode(cells) + Arrays.hashCode(history)) + historyPly;
+    }
+
+    // GETTERS
+
+    /**
+     * Returns the size of the board.
+     * @return the number of cells of a side
+     */
+    public int getBoardSize() {
+        return boardSize;
+    }
+
+    /**
+     * Returns the level of the opponent.
+     * @return 0 for random moves, 1 for the level 2 strategy, -1 without opponent
+     */
+    public int getAiLevel() {
+        return aiLevel;
+    }
+
+    /**
+     * Returns the content of the board.
+     * @return the {@link CellCode} of every cell, at index {@code x * size + y}
+     */
+    public byte[] getCells() {
+        return cells.clone();
+    }
+
+    /**
+     * Returns the content of a cell, without copying the board.
+     * @param x the x-coordinate of the cell
+     * @param y the y-coordinate of the cell
+     * @return the {@link CellCode} of the cell
+     */
+    public int getCell(int x, int y) {
+        return cells[x * boardSize + y];
+    }
+
+    /**
+     * Returns the tokens left to the players.
+     * @return the counts of pink crosses, pink circles, black crosses and black circles
+     */
+    public int[] getTokens() {
+        return tokens.clone();
+    }
+
+    /**
+     * Returns the last moved totem.
+     * @return 0 for the cross totem, 1 for the circle totem, -1 before the first move
+     */
+    public int getLastMovedTotem() {
+        return lastMovedTotem;
+    }
+
+    /**
+     * Returns the player to play.
+     * @return 0 for pink, 1 for black
+     */
+    public int getCurrentColor() {
+        return currentColor;
+    }
+
+    /**
+     * Returns the phase of the turn.
+     * @return the phase
+     */
+    public GameStat getPhase() {
+        return phase;
+    }
+
+    /**
+     * Checks if the game is over.
+     * @return true if the game is won or abandoned
+     */
+    public boolean isGameOver() {
+        return gameOver;
+    }
+
+    /**
+     * Checks if the game has been won by the current player.
+     * @return true for a won game, false for a game in progress or abandoned
+     */
+    public boolean isWon() {
+        return won;
+    }
+
+    /**
+     * Returns the first ply kept by the history, the older ones having been forgotten.
+     * @return the first ply of the history
+     */
+    public long getHistoryStart() {
+        return historyStart;
+    }
+
+    /**
+     * Returns the current ply of the history.
+     * @return the number of turns played since the first ply of the history, undone ones excepted
+     */
+    public int getHistoryPly() {
+        return historyPly;
+    }
+
+    /**
+     * Returns the turns of the history, packed as in the {@link CommandManager}.
+     * @return the packed turns, the undone ones after the current ply
+     */
+    public long[] getHistory() {
+        return history.clone();
+    }
+
+    /**
+     * Returns the checkpoints of the history.
+     * @return the checkpoints, one after another
+     */
+    public byte[] getCheckpoints() {
+        return checkpoints.clone();
+    }
+
+    /**
+     * Returns the totem move waiting for the placement of the current turn.
+     * @return the packed move, or -1 if no move is pending
+     */
+    public long getPendingMove() {
+        return pendingMove;
+    }
+}
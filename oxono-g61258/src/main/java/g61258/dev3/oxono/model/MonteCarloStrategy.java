@@ -0,0 +1,130 @@
+package g61258.dev3.oxono.model;
+
+import java.util.SplittableRandom;
+
+/**
+ * The {@code MonteCarloStrategy} class is an automatic opponent choosing its move by random
+ * playouts: every legal move is a bandit arm, the arm to play out is chosen with the UCB1 formula
+ * and the move played is the most explored one.
+ * <p>Before any playout, each move receives {@link SearchParameters#PRIOR_WEIGHT} virtual playouts
+ * whose result is the winning probability given by an {@link Evaluator} to the position after the
+ * move, which focuses the budget on promising moves. A move winning immediately is played without
+ * search. The knobs are read from {@link SearchParameters}.</p>
+ */
+public class MonteCarloStrategy implements OpponentStrategy {
+
+    private final SearchParameters parameters;
+    private final Evaluator evaluator;
+    private final int playouts;
+    private final PlayoutEngine engine;
+
+    private int[] moves;
+    private double[] results;
+    private double[] visits;
+    private Position child;
+
+    /**
+     * Constructs a strategy.
+     * @param parameters the knobs of the search
+     * @param evaluator the evaluator giving the prior of every move, owned by this strategy
+     * @param playouts the number of playouts of every move choice
+     * @param random the random generator of the playouts, owned by this strategy
+     */
+    public MonteCarloStrategy(SearchParameters parameters, Evaluator evaluator, int playouts, SplittableRandom random) {
+        this.parameters = parameters;
+        this.evaluator = evaluator;
+        this.playouts = playouts;
+        this.engine = new PlayoutEngine(random);
+    }
+
+    /**
+     * Searches the best move of the current player and plays it. Nothing is played if the
+     * current player cannot move.
+     * @param game the current game instance
+     * @param board the game board
+     */
+    @Override
+    public void play(Game game, Board board) {
+        int move = bestMove(Position.of(game));
+        if (move >= 0) {
+            Move.play(game, move);
+        }
+    }
+
+    /**
+     * Chooses the move of the player to move.
+     * @param position the position to search, left unchanged
+     * @return the chosen packed move, or -1 if the player to move cannot play
+     */
+    public int bestMove(Position position) {
+        if (moves == null || moves.length != position.maxMoves()) {
+            moves = new int[position.maxMoves()];
+            results = new double[moves.length];
+            visits = new double[moves.length];
+            child = new Position(position.getSize());
+        }
+        int count = position.generateMoves(moves);
+        if (count == 0) {
+            return -1;
+        }
+
+        int side = position.getSide();
+        double priorWeight = parameters.get(SearchParameters.PRIOR_WEIGHT);
+        for (int i = 0; i < count; i++) {
+            position.play(moves[i]);
+            boolean won = position.getWinner() != Position.NONE;
+            double prior = won ? 1 : 1 / (1 + Math.exp(evaluator.evaluate(position) / 100.0));
+            position.undo();
+            if (won) {
+                return moves[i];
+            }
+            results[i] = priorWeight * prior;
+            visits[i] = priorWeight;
+        }
+
+        double exploration = parameters.get(SearchParameters.EXPLORATION);
+        double total = priorWeight * count;
+        for (int n = 0; n < playouts; n++) {
+            int arm = select(count, total, exploration);
+            child.copyFrom(position);
+            child.play(moves[arm]);
+            int winner = engine.playout(child);
+            results[arm] += winner == Position.NONE ? 0.5 : winner == side ? 1 : 0;
+            visits[arm]++;
+            total++;
+        }
+
+        int best = 0;
+        for (int i = 1; i < count; i++) {
+            if (visits[i] > visits[best]) {
+                best = i;
+            }
+        }
+        return moves[best];
+    }
+
+    /**
+     * Chooses the move to play out with the UCB1 formula. Moves never tried come first when they
+     * have no prior.
+     * @param count the number of moves
+     * @param total the total number of real and virtual playouts
+     * @param exploration the exploration constant
+     * @return the index of the chosen move
+     */
+    private int select(int count, double total, double exploration) {
+        double logTotal = Math.log(Math.max(total, 1));
+        int best = 0;
+        double bestScore = Double.NEGATIVE_INFINITY;
+        for (int i = 0; i < count; i++) {
+            if (visits[i] == 0) {
+                return i;
+            }
+            double score = results[i] / visits[i] + exploration * Math.sqrt(logTotal / visits[i]);
+            if (score > bestScore) {
+                bestScore = score;
+                best = i;
+            }
+        }
+        return best;
+    }
+}
@@ -0,0 +1,103 @@
+package g61258.dev3.oxono.model;
+
+/**
+ * The {@code Move} class packs a complete Oxono turn into a single {@code int}:
+ * the shape of the moved totem, the destination cell of the totem and the cell
+ * where the token is placed. Cells are indexed by {@code x * size + y}.
+ * <p>Layout : bit 30 = totem shape (0 cross, 1 circle), bits 15-29 = destination, bits 0-14 = placement.</p>
+ */
+public final class Move {
+
+    /**
+     * Largest cell index that can be encoded in a move.
+     */
+    public static final int MAX_CELL = 0x7FFF;
+
+    private Move() {
+    }
+
+    /**
+     * Packs a turn into an int.
+     * @param shape the shape index of the moved totem (0 for cross, 1 for circle)
+     * @param destination the cell where the totem is moved
+     * @param placement the cell where the token is placed
+     * @return the packed move
+     */
+    public static int of(int shape, int destination, int placement) {
+        return shape << 30 | destination << 15 | placement;
+    }
+
+    /**
+     * Returns the shape index of the totem moved by a packed move.
+     * @param move the packed move
+     * @return 0 for the cross totem, 1 for the circle totem
+     */
+    public static int shape(int move) {
+        return move >>> 30;
+    }
+
+    /**
+     * Returns the destination cell of the totem.
+     * @param move the packed move
+     * @return the index of the destination cell
+     */
+    public static int destination(int move) {
+        return (move >>> 15) & MAX_CELL;
+    }
+
+    /**
+     * Returns the cell where the token is placed.
+     * @param move the packed move
+     * @return the index of the placement cell
+     */
+    public static int placement(int move) {
+        return move & MAX_CELL;
+    }
+
+    /**
+     * Returns the last complete turn played in a game, read from the last moved totem
+     * and the coordinates of the last placed token.
+     * @param game the game to read
+     * @return the packed move, or -1 if no token has been placed yet
+     */
+    public static int lastMoveOf(Game game) {
+        Totem totem = game.getLastMovedTotem();
+        int[] placed = game.getLastPlacedTokenCoords();
+        if (totem == null || placed == null) {
+            return -1;
+        }
+        int size = game.getBoard().getSize();
+        return of(CellCode.shapeIndex(totem.getShape()),
+                totem.getX() * size + totem.getY(),
+                placed[0] * size + placed[1]);
+    }
+
+    /**
+     * Applies a packed move to a game through the regular {@code Game} API,
+     * moving the totem then placing the token of the current player.
+     * @param game the game to play the move in
+     * @param move the packed move
+     */
+    public static void play(Game game, int move) {
+        Board board = game.getBoard();
+        int size = board.getSize();
+        Totem totem = shape(move) == 0 ? board.getTotemX() : board.getTotemO();
+        int destination = destination(move);
+        int placement = placement(move);
+        game.moveTotem(destination / size, destination % size, totem);
+        game.placeToken(placement / size, placement % size, totem);
+    }
+
+    /**
+     * Returns a readable form of a packed move, for debugging.
+     * @param move the packed move
+     * @param size the size of the board
+     * @return a string such as "X (2,3) -> (2,4)"
+     */
+    public static String toString(int move, int size) {
+        int destination = destination(move);
+        int placement = placement(move);
+        return CellCode.shape(shape(move)) + " (" + destination / size + "," + destination % size + ")"
+                + " -> (" + placement / size + "," + placement % size + ")";
+    }
+}
@@ -11,18 +11,21 @@ public class MoveTotemCommand implements Command {
     private Totem totem;
     private Totem previousTotem;
     private int fromX, fromY, toX, toY;
+    private int color;
 
 
 
 
     /**
-     * Constructs a new MoveTotemCommand.
+     * Constructs a new MoveTotemCommand, played by the current player of the game.
+     * @param game the game where the totem is moved
      * @param board the board where the totem will be moved
      * @param totem the totem to move
      * @param fromX the original X-coordinate of the totem
      * @param fromY the original Y-coordinate of the totem
      * @param toX the new X-coordinate of the totem
      * @param toY the new Y-coordinate of the totem
+     * @param previousTotem the last moved totem before this move, restored on undo, may be null
      */
     public MoveTotemCommand(Game game, Board board, Totem totem, int fromX, int fromY, int toX, int toY, Totem previousTotem) {
         this.game = game;
@@ -33,6 +36,7 @@ public class MoveTotemCommand implements Command {
         this.toX = toX;
         this.toY = toY;
         this.previousTotem = previousTotem;
+        this.color = CellCode.colorIndex(game.getCurrentPlayerColor());
     }
 
     /**
@@ -42,7 +46,7 @@ public class MoveTotemCommand implements Command {
     @Override
     public void execute() {
         board.setLastMovedTotem(totem);
-        board.moveTotem(toX, toY, totem);
+        move(toX, toY);
     }
 
     /**
@@ -52,7 +56,41 @@ public class MoveTotemCommand implements Command {
     @Override
     public void unexecute() {
         board.setLastMovedTotem(previousTotem);
-        board.moveTotem(fromX, fromY, totem);
+        move(fromX, fromY);
+    }
+
+    /**
+     * Moves the totem to a cell and reports the change of the two cells to the game.
+     * @param x the row reached by the totem
+     * @param y the column reached by the totem
+     */
+    private void move(int x, int y) {
+        int oldX = totem.getX();
+        int oldY = totem.getY();
+        board.moveTotem(x, y, totem);
+        if (totem.getX() != oldX || totem.getY() != oldY) {
+            int code = CellCode.of(totem);
+            game.cellChanged(oldX, oldY, code, CellCode.EMPTY);
+            game.cellChanged(x, y, CellCode.EMPTY, code);
+            game.totemMoved(totem.getShape(), oldX, oldY, x, y);
+        }
+    }
+
+    /**
+     * Packs the move with the player who made it, as the totem part of a {@link TurnCommand}.
+     * @return the packed move
+     */
+    long pack() {
+        int size = board.getSize();
+        return CommandManager.packMove(color, CellCode.shapeIndex(totem.getShape()), fromX * size + fromY, toX * size + toY);
+    }
+
+    /**
+     * Returns the moved totem.
+     * @return the totem of the move
+     */
+    Totem getTotem() {
+        return totem;
     }
 
 }
@@ -0,0 +1,296 @@
+package g61258.dev3.oxono.model;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The {@code NTupleNetwork} class is an {@link Evaluator} made of lookup tables indexed by the
+ * contents of fixed tuples of cells, so that an evaluation costs only a few array reads.
+ * <p>The network sums three kinds of weights, all seen from the player to move:</p>
+ * <ul>
+ *     <li>a table shared by every window of four consecutive cells of a row or a column,
+ *     indexed by the relative state of its four cells;</li>
+ *     <li>a table indexed by a cell and its relative state, which gives the windows a position;</li>
+ *     <li>a table indexed by the remaining tokens of both players.</li>
+ * </ul>
+ * <p>A cell has {@value #STATES} relative states: empty, cross or circle of the player to move,
+ * cross or circle of the opponent, cross or circle totem. The sum is the logit of the probability
+ * that the player to move wins, and the score is expressed in hundredths of it as required by
+ * {@link Evaluator}.</p>
+ * <p>The network only reads its tables while evaluating, a trained network can be shared by
+ * strategies of several threads. It is saved as a little-endian binary file: magic number,
+ * version, board size, then the three tables as floats. The network shipped for 6x6 is the output of
+ * {@code NTupleTrainer -g 300000 -s 6 -seed 32}, which is deterministic for a given seed.</p>
+ */
+public class NTupleNetwork implements Evaluator {
+
+    /**
+     * System property naming the weights file loaded by {@link #loadDefault(int)}.
+     */
+    public static final String FILE_PROPERTY = "oxono.ntuple";
+
+    /**
+     * Number of relative states of a cell.
+     */
+    public static final int STATES = 7;
+
+    private static final int MAGIC = 0x544E584F; // "OXNT"
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 12;
+    private static final int WINDOW = 4;
+    private static final int COUNTS = Position.TOKENS_PER_SHAPE + 1;
+
+    private static final Map<Integer, NTupleNetwork> loaded = new HashMap<>();
+    private static boolean configuredRead;
+
+    private final int size;
+    private final int[] windows;
+    private final float[] windowWeights = new float[STATES * STATES * STATES * STATES];
+    private final float[] cellWeights;
+    private final float[] tokenWeights = new float[COUNTS * COUNTS * COUNTS * COUNTS];
+
+    /**
+     * Constructs an untrained network, evaluating every position to 0.
+     * @param size the size of the board
+     */
+    public NTupleNetwork(int size) {
+        this.size = size;
+        int perLine = Math.max(0, size - WINDOW + 1);
+        this.windows = new int[2 * size * perLine * WINDOW];
+        int n = 0;
+        for (int line = 0; line < size; line++) {
+            for (int start = 0; start < perLine; start++) {
+                for (int i = 0; i < WINDOW; i++) {
+                    windows[n++] = line * size + start + i; // Ligne
+                }
+                for (int i = 0; i < WINDOW; i++) {
+                    windows[n++] = (start + i) * size + line; // Colonne
+                }
+            }
+        }
+        this.cellWeights = new float[size * size * STATES];
+    }
+
+    /**
+     * Returns the network used by strategies created without explicit network: the one of the file
+     * named by {@value #FILE_PROPERTY} if it is made for this board size, or else the one shipped for
+     * this size, or an untrained one. The file is read once, for its own size only, so that a network
+     * of another size never replaces the shipped one. The network is read once per board size.
+     * @param size the size of the board
+     * @return the startup network of this board size
+     * @throws UncheckedIOException if the file of the property or the shipped network cannot be read
+     */
+    public static NTupleNetwork loadDefault(int size) {
+        synchronized (loaded) {
+            readConfigured();
+            NTupleNetwork network = loaded.get(size);
+            if (network == null) {
+                try (InputStream in = NTupleNetwork.class.getResourceAsStream("/weights/ntuple" + size + ".bin")) {
+                    network = in == null ? new NTupleNetwork(size) : read(ByteBuffer.wrap(in.readAllBytes()));
+                } catch (IOException e) {
+                    throw new UncheckedIOException("Impossible de lire le réseau livré pour un plateau " + size, e);
+                }
+                loaded.put(size, network);
+            }
+            return network;
+        }
+    }
+
+    /**
+     * Reads the network of the file named by {@value #FILE_PROPERTY}, once, and keeps it for the
+     * board size it was trained for. Must be called holding the lock of the loaded networks.
+     * @throws UncheckedIOException if the file cannot be read
+     */
+    private static void readConfigured() {
+        if (configuredRead) {
+            return;
+        }
+        String file = System.getProperty(FILE_PROPERTY);
+        if (file != null) {
+            try {
+                NTupleNetwork network = load(Path.of(file));
+                loaded.put(network.size, network);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Impossible de lire le réseau " + file, e);
+            }
+        }
+        configuredRead = true;
+    }
+
+    /**
+     * Returns an evaluator using the startup network of the size of the evaluated positions,
+     * see {@link #loadDefault(int)}. The file of {@value #FILE_PROPERTY} is read here, so that
+     * an unreadable file fails when the strategy is created rather than during a game.
+     * @return a new evaluator, to be owned by a single strategy
+     * @throws UncheckedIOException if the file of the property cannot be read
+     */
+    public static Evaluator defaultEvaluator() {
+        synchronized (loaded) {
+            readConfigured();
+        }
+        return new Evaluator() {
+            private NTupleNetwork network;
+
+            @Override
+            public int evaluate(Position position) {
+                if (network == null || network.size != position.getSize()) {
+                    network = loadDefault(position.getSize());
+                }
+                return network.evaluate(position);
+            }
+        };
+    }
+
+    @Override
+    public int evaluate(Position position) {
+        return Math.round(100 * value(position));
+    }
+
+    /**
+     * Computes the sum of the weights of a position.
+     * @param position the position, of the size of the network
+     * @return the logit of the probability that the player to move wins
+     */
+    public float value(Position position) {
+        int side = position.getSide();
+        float sum = 0;
+        for (int w = 0; w < windows.length; w += WINDOW) {
+            sum += windowWeights[windowIndex(position, side, w)];
+        }
+        for (int cell = 0; cell < size * size; cell++) {
+            sum += cellWeights[cell * STATES + state(position.getCell(cell), side)];
+        }
+        return sum + tokenWeights[tokenIndex(position, side)];
+    }
+
+    /**
+     * Moves the weights of a position in the direction that increases its value, as the gradient
+     * step of a temporal-difference update.
+     * @param position the position, of the size of the network
+     * @param delta the change applied to every weight of the position
+     */
+    public void update(Position position, float delta) {
+        int side = position.getSide();
+        for (int w = 0; w < windows.length; w += WINDOW) {
+            windowWeights[windowIndex(position, side, w)] += delta;
+        }
+        for (int cell = 0; cell < size * size; cell++) {
+            cellWeights[cell * STATES + state(position.getCell(cell), side)] += delta;
+        }
+        tokenWeights[tokenIndex(position, side)] += delta;
+    }
+
+    /**
+     * Returns the number of weights updated by {@link #update(Position, float)}.
+     * @return the number of windows and cells, plus one
+     */
+    public int activeWeights() {
+        return windows.length / WINDOW + size * size + 1;
+    }
+
+    /**
+     * Computes the index of a window in the shared table.
+     */
+    private int windowIndex(Position position, int side, int window) {
+        int index = 0;
+        for (int i = 0; i < WINDOW; i++) {
+            index = index * STATES + state(position.getCell(windows[window + i]), side);
+        }
+        return index;
+    }
+
+    /**
+     * Computes the index of the remaining tokens in the token table.
+     */
+    private static int tokenIndex(Position position, int side) {
+        int opponent = side ^ 1;
+        return ((position.getTokenCount(side, 0) * COUNTS + position.getTokenCount(side, 1)) * COUNTS
+                + position.getTokenCount(opponent, 0)) * COUNTS + position.getTokenCount(opponent, 1);
+    }
+
+    /**
+     * Converts a {@link CellCode} to its state relative to the player to move.
+     */
+    private static int state(int code, int side) {
+        if (CellCode.isToken(code)) {
+            return (CellCode.colorOf(code) == side ? 1 : 3) + CellCode.shapeOf(code);
+        }
+        return CellCode.isTotem(code) ? 5 + CellCode.shapeOf(code) : 0;
+    }
+
+    // FICHIER
+
+    /**
+     * Reads a network from a binary file.
+     * @param path the file to read
+     * @return the network of the file
+     * @throws IOException if the file cannot be read or is not a network
+     */
+    public static NTupleNetwork load(Path path) throws IOException {
+        return read(ByteBuffer.wrap(Files.readAllBytes(path)));
+    }
+
+    /**
+     * Decodes a network.
+     * @param buffer the content of a network file
+     * @return the decoded network
+     * @throws IOException if the content is not a network
+     */
+    private static NTupleNetwork read(ByteBuffer buffer) throws IOException {
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+        if (buffer.remaining() < HEADER_SIZE || buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+            throw new IOException("Fichier de réseau invalide");
+        }
+        NTupleNetwork network = new NTupleNetwork(buffer.getInt());
+        if (buffer.remaining() != network.weightCount() * Float.BYTES) {
+            throw new IOException("Taille de fichier de réseau incohérente");
+        }
+        buffer.asFloatBuffer().get(network.windowWeights).get(network.cellWeights).get(network.tokenWeights);
+        return network;
+    }
+
+    /**
+     * Writes the network to a binary file.
+     * @param path the file to create or replace
+     * @throws IOException if the file cannot be written
+     */
+    public void save(Path path) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_SIZE + weightCount() * Float.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.putInt(MAGIC).putInt(VERSION).putInt(size);
+        buffer.asFloatBuffer().put(windowWeights).put(cellWeights).put(tokenWeights);
+        buffer.position(buffer.capacity());
+        buffer.flip();
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        }
+    }
+
+    /**
+     * Returns the total number of weights of the tables.
+     */
+    private int weightCount() {
+        return windowWeights.length + cellWeights.length + tokenWeights.length;
+    }
+
+    // GETTERS
+
+    /**
+     * Returns the size of the board of this network.
+     * @return the number of cells on a side of the board
+     */
+    public int getSize() {
+        return size;
+    }
+}
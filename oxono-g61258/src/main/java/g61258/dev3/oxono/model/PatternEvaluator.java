@@ -0,0 +1,39 @@
+package g61258.dev3.oxono.model;
+
+/**
+ * The {@code PatternEvaluator} class evaluates a position as the weighted sum of its {@link PatternFeatures}.
+ */
+public class PatternEvaluator implements Evaluator {
+
+    private final double[] weights;
+    private final int[] features = new int[PatternFeatures.COUNT];
+    private PatternFeatures extractor;
+
+    /**
+     * Constructs an evaluator with the startup weights, see {@link EvaluationWeights#loadDefault()}.
+     */
+    public PatternEvaluator() {
+        this(EvaluationWeights.loadDefault());
+    }
+
+    /**
+     * Constructs an evaluator with the given weights.
+     * @param weights the weights of the features
+     */
+    public PatternEvaluator(EvaluationWeights weights) {
+        this.weights = weights.toArray();
+    }
+
+    @Override
+    public int evaluate(Position position) {
+        if (extractor == null || extractor.getSize() != position.getSize()) {
+            extractor = new PatternFeatures(position.getSize());
+        }
+        extractor.extract(position, features);
+        double score = 0;
+        for (int i = 0; i < features.length; i++) {
+            score += weights[i] * features[i];
+        }
+        return (int) Math.round(score);
+    }
+}
@@ -0,0 +1,151 @@
+package g61258.dev3.oxono.model;
+
+/**
+ * The {@code PatternFeatures} class extracts the pattern features of a {@link Position},
+ * seen from the player to move, on which the {@link PatternEvaluator} computes a weighted sum.
+ * <p>Runs are counted on every window of four consecutive cells of a row or a column, the
+ * lines on which a game is won. A window is an open color run when its tokens all belong to
+ * the same player, and an open shape run when its tokens all have the same shape; totems do
+ * not block a window since they move every turn.</p>
+ */
+public class PatternFeatures {
+
+    /**
+     * Windows holding one, two and three tokens of the player to move and none of the opponent.
+     */
+    public static final int OWN_COLOR_1 = 0;
+    public static final int OWN_COLOR_2 = 1;
+    public static final int OWN_COLOR_3 = 2;
+
+    /**
+     * Windows holding one, two and three tokens of the opponent and none of the player to move.
+     */
+    public static final int OPPONENT_COLOR_1 = 3;
+    public static final int OPPONENT_COLOR_2 = 4;
+    public static final int OPPONENT_COLOR_3 = 5;
+
+    /**
+     * Windows holding two and three tokens of the same shape and none of the other shape.
+     */
+    public static final int SHAPE_2 = 6;
+    public static final int SHAPE_3 = 7;
+
+    /**
+     * Windows holding three tokens of a shape the player to move still holds.
+     */
+    public static final int PLAYABLE_SHAPE_3 = 8;
+
+    /**
+     * Number of destinations of the totems whose shape the player to move still holds.
+     */
+    public static final int TOTEM_MOBILITY = 9;
+
+    /**
+     * Remaining tokens of the player to move minus those of the opponent.
+     */
+    public static final int TOKEN_BALANCE = 10;
+
+    /**
+     * Constant feature, the advantage of having the move.
+     */
+    public static final int TEMPO = 11;
+
+    /**
+     * Number of features.
+     */
+    public static final int COUNT = 12;
+
+    /**
+     * Names of the features, used in weight files.
+     */
+    public static final String[] NAMES = {
+            "own_color_1", "own_color_2", "own_color_3",
+            "opponent_color_1", "opponent_color_2", "opponent_color_3",
+            "shape_2", "shape_3", "playable_shape_3",
+            "totem_mobility", "token_balance", "tempo"
+    };
+
+    private static final int WINDOW = 4;
+
+    private final int size;
+    // Cellules des fenêtres, WINDOW entrées consécutives par fenêtre
+    private final int[] windows;
+    private final int[] destinations;
+
+    /**
+     * Constructs the extractor of positions of the given board size.
+     * @param size the size of the board
+     */
+    public PatternFeatures(int size) {
+        this.size = size;
+        int perLine = Math.max(0, size - WINDOW + 1);
+        this.windows = new int[2 * size * perLine * WINDOW];
+        int n = 0;
+        for (int line = 0; line < size; line++) {
+            for (int start = 0; start < perLine; start++) {
+                for (int i = 0; i < WINDOW; i++) {
+                    windows[n++] = line * size + start + i; // Ligne
+                }
+                for (int i = 0; i < WINDOW; i++) {
+                    windows[n++] = (start + i) * size + line; // Colonne
+                }
+            }
+        }
+        this.destinations = new int[size * size];
+    }
+
+    /**
+     * Computes the features of a position.
+     * @param position the position, of the size of this extractor
+     * @param out the array receiving the {@link #COUNT} features
+     */
+    public void extract(Position position, int[] out) {
+        if (position.getSize() != size) {
+            throw new IllegalArgumentException("Taille de plateau différente : " + position.getSize());
+        }
+        for (int i = 0; i < COUNT; i++) {
+            out[i] = 0;
+        }
+        int side = position.getSide();
+        for (int w = 0; w < windows.length; w += WINDOW) {
+            int own = 0;
+            int opponent = 0;
+            int crosses = 0;
+            int circles = 0;
+            for (int i = 0; i < WINDOW; i++) {
+                int code = position.getCell(windows[w + i]);
+                if (CellCode.isToken(code)) {
+                    if (CellCode.colorOf(code) == side) own++; else opponent++;
+                    if (CellCode.shapeOf(code) == 0) crosses++; else circles++;
+                }
+            }
+            if (own > 0 && own < WINDOW && opponent == 0) {
+                out[OWN_COLOR_1 + own - 1]++;
+            } else if (opponent > 0 && opponent < WINDOW && own == 0) {
+                out[OPPONENT_COLOR_1 + opponent - 1]++;
+            }
+            int run = circles == 0 ? crosses : crosses == 0 ? circles : 0;
+            if (run >= 2 && run < WINDOW) {
+                out[SHAPE_2 + run - 2]++;
+                if (run == 3 && position.getTokenCount(side, circles == 0 ? 0 : 1) > 0) {
+                    out[PLAYABLE_SHAPE_3]++;
+                }
+            }
+        }
+        for (int shape = 0; shape < 2; shape++) {
+            if (position.getTokenCount(side, shape) > 0) {
+                out[TOTEM_MOBILITY] += position.destinations(shape, destinations);
+            }
+            out[TOKEN_BALANCE] += position.getTokenCount(side, shape) - position.getTokenCount(side ^ 1, shape);
+        }
+        out[TEMPO] = 1;
+    }
+
+    /**
+     * Returns the size of the board of this extractor.
+     * @return the number of cells on a side of the board
+     */
+    public int getSize() {
+        return size;
+    }
+}
@@ -37,8 +37,10 @@ public class PlaceTokenCommand implements Command {
      */
     @Override
     public void execute() {
+        int old = CellCode.of(board.getToken(x, y));
         board.placeToken(x, y, token);
-        }
+        game.cellChanged(x, y, old, CellCode.of(board.getToken(x, y)));
+    }
 
     /**
      * Reverts the action of placing a token on the board.
@@ -49,6 +51,15 @@ public class PlaceTokenCommand implements Command {
         Token token = board.getToken(x, y);
         currentPlayer.addToken(token);
         board.removeToken(x, y);
+        game.cellChanged(x, y, CellCode.of(token), CellCode.EMPTY);
+    }
+
+    /**
+     * Packs the cell of the placement, as the token part of a {@link TurnCommand}.
+     * @return the packed placement
+     */
+    long pack() {
+        return CommandManager.packPlacement(x * board.getSize() + y);
     }
 }
 
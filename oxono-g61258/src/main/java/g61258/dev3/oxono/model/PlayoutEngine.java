@@ -0,0 +1,190 @@
+package g61258.dev3.oxono.model;
+
+import java.util.SplittableRandom;
+
+/**
+ * The {@code PlayoutEngine} class plays random games to the end from a given position.
+ * <p>Each turn picks a random totem among those the player still has tokens for, a random legal
+ * destination and a random legal placement. The engine works on a private {@link Position},
+ * uses a seedable {@link SplittableRandom} and does not allocate during a playout, so the
+ * same seed always gives the same sequence of results.</p>
+ * <p>An engine is not thread-safe: use {@link #split()} to give each thread its own engine
+ * with an independent random stream.</p>
+ */
+public class PlayoutEngine {
+
+    private final SplittableRandom random;
+    private Position position;
+    private int[] destinations;
+    private int[] placements;
+
+    private long playouts;
+    private long plies;
+    private long elapsedNanos;
+
+    /**
+     * Constructs a playout engine with the given seed.
+     * @param seed the seed of the random generator
+     */
+    public PlayoutEngine(long seed) {
+        this(new SplittableRandom(seed));
+    }
+
+    /**
+     * Constructs a playout engine using the given random generator.
+     * @param random the random generator, owned by this engine from now on
+     */
+    public PlayoutEngine(SplittableRandom random) {
+        this.random = random;
+    }
+
+    /**
+     * Creates a new engine whose random stream is split from this one.
+     * @return an independent engine, to be used by another thread
+     */
+    public PlayoutEngine split() {
+        return new PlayoutEngine(random.split());
+    }
+
+    /**
+     * Plays a random game from the given position until a player wins or the player to move is blocked.
+     * The given position is not modified.
+     * @param start the position to play from
+     * @return the color index of the winner, or {@link Position#NONE} for a draw
+     */
+    public int playout(Position start) {
+        long begin = System.nanoTime();
+        Position current = prepare(start);
+        int startPly = current.getPly();
+
+        while (current.getWinner() == Position.NONE) {
+            int move = randomMove(current);
+            if (move < 0) {
+                break; // Le joueur n'a plus de jeton ou ne peut plus déplacer de totem
+            }
+            current.play(move);
+        }
+
+        plies += current.getPly() - startPly;
+        playouts++;
+        elapsedNanos += System.nanoTime() - begin;
+        return current.getWinner();
+    }
+
+    /**
+     * Picks a random legal move for the player to move.
+     * @param current the position to play in
+     * @return the packed move, or -1 if the player cannot play
+     */
+    public int randomMove(Position current) {
+        int side = current.getSide();
+        boolean cross = current.getTokenCount(side, 0) > 0;
+        boolean circle = current.getTokenCount(side, 1) > 0;
+        if (!cross && !circle) {
+            return -1;
+        }
+        int shape = cross && circle ? random.nextInt(2) : (cross ? 0 : 1);
+        ensureBuffers(current.getSize());
+
+        int destinationCount = current.destinations(shape, destinations);
+        if (destinationCount == 0 && cross && circle) {
+            shape ^= 1; // Le totem choisi est bloqué, on essaie l'autre
+            destinationCount = current.destinations(shape, destinations);
+        }
+        if (destinationCount == 0) {
+            return -1;
+        }
+        int destination = destinations[random.nextInt(destinationCount)];
+        int placementCount = current.placements(shape, destination, placements);
+        return Move.of(shape, destination, placements[random.nextInt(placementCount)]);
+    }
+
+    /**
+     * Copies the starting position into the working position, allocating it only when the board size changes.
+     * @param start the position to play from
+     * @return the working position
+     */
+    private Position prepare(Position start) {
+        if (position == null || position.getSize() != start.getSize()) {
+            position = new Position(start.getSize());
+        }
+        position.copyFrom(start);
+        return position;
+    }
+
+    /**
+     * Allocates the move buffers for the given board size if needed.
+     * @param size the size of the board
+     */
+    private void ensureBuffers(int size) {
+        if (destinations == null || destinations.length < size * size) {
+            destinations = new int[size * size];
+            placements = new int[size * size];
+        }
+    }
+
+    // GETTERS
+
+    /**
+     * Returns the number of playouts played by this engine.
+     * @return the playout counter
+     */
+    public long getPlayouts() {
+        return playouts;
+    }
+
+    /**
+     * Returns the number of turns played by this engine over all its playouts.
+     * @return the ply counter
+     */
+    public long getPlies() {
+        return plies;
+    }
+
+    /**
+     * Returns the playout throughput of this engine.
+     * @return the number of playouts per second of playout time, or 0 if nothing was played
+     */
+    public double getPlayoutsPerSecond() {
+        return elapsedNanos == 0 ? 0.0 : playouts * 1e9 / elapsedNanos;
+    }
+
+    /**
+     * Resets the playout, ply and time counters.
+     */
+    public void resetStatistics() {
+        playouts = 0;
+        plies = 0;
+        elapsedNanos = 0;
+    }
+
+    /**
+     * Measures the playout throughput from the starting position.
+     * Usage : {@code PlayoutEngine [boardSize] [playouts] [seed]}
+     * @param args the optional board size, number of playouts and seed
+     */
+    public static void main(String[] args) {
+        int size = args.length > 0 ? Integer.parseInt(args[0]) : 6;
+        int count = args.length > 1 ? Integer.parseInt(args[1]) : 1_000_000;
+        long seed = args.length > 2 ? Long.parseLong(args[2]) : 42L;
+
+        PlayoutEngine engine = new PlayoutEngine(seed);
+        Position start = Position.initial(size, true);
+        int[] results = new int[3];
+
+        // Préchauffage du JIT avant la mesure
+        for (int i = 0; i < Math.min(count, 100_000); i++) {
+            engine.playout(start);
+        }
+        engine.resetStatistics();
+
+        for (int i = 0; i < count; i++) {
+            int winner = engine.playout(start);
+            results[winner == Position.NONE ? 2 : winner]++;
+        }
+
+        System.out.printf("%d playouts sur %dx%d : %.0f playouts/s, %.1f coups en moyenne%n",
+                count, size, size, engine.getPlayoutsPerSecond(), (double) engine.getPlies() / count);
+        System.out.printf("Rose : %d, Noir : %d, nul : %d%n", results[0], results[1], results[2]);
+    }
+}
@@ -0,0 +1,613 @@
+package g61258.dev3.oxono.model;
+
+import java.util.Arrays;
+
+/**
+ * The {@code Position} class is a compact, mutable representation of an Oxono position
+ * stored in primitive arrays, meant for engines that play or analyse many positions.
+ * <p>It follows the same rules as {@link Game} (totem moves, token placement, victory by
+ * four aligned tokens of the same color or shape) but plays complete turns packed by
+ * {@link Move}, never notifies observers and does not allocate once constructed.
+ * Every move can be undone, and the Zobrist hash of {@link PositionHash} is kept up to date.</p>
+ * <p>Cells are indexed by {@code x * size + y}, colors and shapes by the indexes of {@link CellCode}.</p>
+ */
+public class Position {
+
+    /**
+     * Number of tokens of each shape a player holds at the start of a game (see {@link Player}).
+     */
+    public static final int TOKENS_PER_SHAPE = 8;
+
+    /**
+     * Winner value of a position without winner.
+     */
+    public static final int NONE = -1;
+
+    /**
+     * Win kind of a game won by four tokens of the same color.
+     */
+    public static final int COLOR_LINE = 1;
+
+    /**
+     * Win kind of a game won by four tokens of the same shape.
+     */
+    public static final int SHAPE_LINE = 2;
+
+    private static final int ALIGNMENT = 4;
+    private static final int[] DX = {0, 1, 0, -1};
+    private static final int[] DY = {1, 0, -1, 0};
+
+    private final int size;
+    private final byte[] cells;
+    private final int[] totems = new int[2];
+    private final int[] counts = new int[4];
+    private int side;
+    private long hash;
+    private int ply;
+    private int winner = NONE;
+    private int winKind;
+
+    // Historique pour l'annulation : coup joué et case de départ du totem
+    private final int[] moves;
+    private final int[] origins;
+
+    // Tampons de génération des destinations et des placements
+    private final int[] destinationBuffer;
+    private final int[] placementBuffer;
+
+    /**
+     * Constructs an empty position for the given board size, without totems.
+     * Use {@link #initial(int, boolean)} or {@link #of(Game)} to obtain a playable position.
+     * @param size the size of the board
+     */
+    public Position(int size) {
+        if (size * size - 1 > Move.MAX_CELL) {
+            throw new IllegalArgumentException("Plateau trop grand pour l'encodage des coups : " + size);
+        }
+        this.size = size;
+        this.cells = new byte[size * size];
+        this.moves = new int[size * size];
+        this.origins = new int[size * size];
+        this.destinationBuffer = new int[size * size];
+        this.placementBuffer = new int[size * size];
+    }
+
+    /**
+     * Creates the starting position of a game.
+     * @param size the size of the board
+     * @param crossTotemFirst true if the cross totem starts on the cell (size/2 - 1, size/2 - 1),
+     *                        false if it starts on (size/2, size/2)
+     * @return the starting position, pink to move
+     */
+    public static Position initial(int size, boolean crossTotemFirst) {
+        Position position = new Position(size);
+        int half = size / 2;
+        int first = (half - 1) * size + (half - 1);
+        int second = half * size + half;
+        position.putTotem(0, crossTotemFirst ? first : second);
+        position.putTotem(1, crossTotemFirst ? second : first);
+        Arrays.fill(position.counts, TOKENS_PER_SHAPE);
+        return position;
+    }
+
+    /**
+     * Creates the position of a running game: board content, remaining tokens and player to move.
+     * @param game the game to read
+     * @return a new position equivalent to the current state of the game
+     */
+    public static Position of(Game game) {
+        Board board = game.getBoard();
+        Position position = new Position(board.getSize());
+        for (int x = 0; x < position.size; x++) {
+            for (int y = 0; y < position.size; y++) {
+                int code = CellCode.of(board.getToken(x, y));
+                int cell = x * position.size + y;
+                if (CellCode.isTotem(code)) {
+                    position.putTotem(CellCode.shapeOf(code), cell);
+                } else {
+                    position.set(cell, code);
+                }
+            }
+        }
+        for (int color = 0; color < 2; color++) {
+            for (Token token : game.getPlayerTokens(CellCode.color(color))) {
+                position.counts[color * 2 + CellCode.shapeIndex(token.getShape())]++;
+            }
+        }
+        if (game.getCurrentPlayerColor() == Color.BLACK) {
+            position.side = 1;
+            position.hash ^= PositionHash.SIDE_KEY;
+        }
+        return position;
+    }
+
+    /**
+     * Copies the whole state of another position of the same size into this one.
+     * @param other the position to copy
+     */
+    public void copyFrom(Position other) {
+        if (other.size != size) {
+            throw new IllegalArgumentException("Tailles de plateau différentes : " + other.size + " et " + size);
+        }
+        System.arraycopy(other.cells, 0, cells, 0, cells.length);
+        System.arraycopy(other.moves, 0, moves, 0, other.ply);
+        System.arraycopy(other.origins, 0, origins, 0, other.ply);
+        totems[0] = other.totems[0];
+        totems[1] = other.totems[1];
+        System.arraycopy(other.counts, 0, counts, 0, counts.length);
+        side = other.side;
+        hash = other.hash;
+        ply = other.ply;
+        winner = other.winner;
+        winKind = other.winKind;
+    }
+
+    /**
+     * Replaces the state of this position by the given cells, remaining tokens and player to move.
+     * The history is cleared and the hash recomputed.
+     * @param cellCodes the {@link CellCode} of every cell, of length {@code size * size}
+     * @param tokenCounts the remaining tokens indexed by {@code color * 2 + shape}
+     * @param sideToMove the color index of the player to move
+     */
+    public void load(byte[] cellCodes, int[] tokenCounts, int sideToMove) {
+        hash = 0L;
+        for (int cell = 0; cell < cells.length; cell++) {
+            int code = cellCodes[cell];
+            cells[cell] = (byte) code;
+            hash ^= PositionHash.cellKey(cell, code);
+            if (CellCode.isTotem(code)) {
+                totems[CellCode.shapeOf(code)] = cell;
+            }
+        }
+        System.arraycopy(tokenCounts, 0, counts, 0, counts.length);
+        side = sideToMove;
+        if (side == 1) {
+            hash ^= PositionHash.SIDE_KEY;
+        }
+        ply = 0;
+        winner = NONE;
+        winKind = 0;
+    }
+
+    /**
+     * Copies the content of every cell into the given array.
+     * @param out the array receiving the {@link CellCode} of every cell, of length at least {@code size * size}
+     */
+    public void exportCells(byte[] out) {
+        System.arraycopy(cells, 0, out, 0, cells.length);
+    }
+
+    /**
+     * Returns an independent copy of this position.
+     * @return a new position with the same state and history
+     */
+    public Position copy() {
+        Position copy = new Position(size);
+        copy.copyFrom(this);
+        return copy;
+    }
+
+    // REGLES
+
+    /**
+     * Plays a complete turn for the player to move: moves the totem, places the token,
+     * checks for a victory and gives the turn to the other player.
+     * The move is not validated, see {@link #isLegal(int)}.
+     * @param move the packed move to play
+     */
+    public void play(int move) {
+        int shape = Move.shape(move);
+        int destination = Move.destination(move);
+        int placement = Move.placement(move);
+
+        int origin = totems[shape];
+        set(origin, CellCode.EMPTY);
+        putTotem(shape, destination);
+        set(placement, CellCode.token(side, shape));
+        counts[side * 2 + shape]--;
+
+        moves[ply] = move;
+        origins[ply] = origin;
+        ply++;
+
+        int kind = winKindAt(placement);
+        if (kind != 0) {
+            winner = side;
+            winKind = kind;
+        }
+        side ^= 1;
+        hash ^= PositionHash.SIDE_KEY;
+    }
+
+    /**
+     * Undoes the last played turn.
+     */
+    public void undo() {
+        ply--;
+        int move = moves[ply];
+        int shape = Move.shape(move);
+        side ^= 1;
+        hash ^= PositionHash.SIDE_KEY;
+        winner = NONE;
+        winKind = 0;
+
+        counts[side * 2 + shape]++;
+        set(Move.placement(move), CellCode.EMPTY);
+        set(Move.destination(move), CellCode.EMPTY);
+        putTotem(shape, origins[ply]);
+    }
+
+    /**
+     * Fills the buffer with the cells where the totem of the given shape may be moved,
+     * following the rules of {@link Game#isMoveTotemPossible(int, int, Totem)}.
+     * @param shape the shape index of the totem
+     * @param out the buffer to fill, of length at least {@code size * size}
+     * @return the number of destinations written
+     */
+    public int destinations(int shape, int[] out) {
+        int origin = totems[shape];
+        int cx = origin / size;
+        int cy = origin % size;
+        int n = 0;
+
+        if (isLineOccupied(cx, cy)) {
+            // Ligne et colonne pleines : le totem peut aller sur n'importe quelle case libre
+            for (int cell = 0; cell < cells.length; cell++) {
+                if (cells[cell] == CellCode.EMPTY) {
+                    out[n++] = cell;
+                }
+            }
+            return n;
+        }
+
+        boolean enclaved = !hasFreeNeighbour(cx, cy);
+        for (int d = 0; d < 4; d++) {
+            int x = cx + DX[d];
+            int y = cy + DY[d];
+            if (enclaved) {
+                // Totem enclavé : il saute par-dessus les pièces jusqu'à la première case libre
+                while (x >= 0 && x < size && y >= 0 && y < size && cells[x * size + y] != CellCode.EMPTY) {
+                    x += DX[d];
+                    y += DY[d];
+                }
+                if (x >= 0 && x < size && y >= 0 && y < size) {
+                    out[n++] = x * size + y;
+                }
+            } else {
+                while (x >= 0 && x < size && y >= 0 && y < size && cells[x * size + y] == CellCode.EMPTY) {
+                    out[n++] = x * size + y;
+                    x += DX[d];
+                    y += DY[d];
+                }
+            }
+        }
+        return n;
+    }
+
+    /**
+     * Fills the buffer with the cells where a token may be placed once the totem of the given
+     * shape has been moved to the destination: the free neighbours of the totem, or every free
+     * cell when the totem is enclaved.
+     * @param shape the shape index of the moved totem
+     * @param destination the cell where the totem is moved
+     * @param out the buffer to fill, of length at least {@code size * size}
+     * @return the number of placements written
+     */
+    public int placements(int shape, int destination, int[] out) {
+        int origin = totems[shape];
+        byte totemCode = cells[origin];
+        cells[origin] = CellCode.EMPTY;
+        cells[destination] = totemCode;
+
+        int n = 0;
+        int dx = destination / size;
+        int dy = destination % size;
+        for (int d = 0; d < 4; d++) {
+            int x = dx + DX[d];
+            int y = dy + DY[d];
+            if (x >= 0 && x < size && y >= 0 && y < size && cells[x * size + y] == CellCode.EMPTY) {
+                out[n++] = x * size + y;
+            }
+        }
+        if (n == 0) {
+            for (int cell = 0; cell < cells.length; cell++) {
+                if (cells[cell] == CellCode.EMPTY) {
+                    out[n++] = cell;
+                }
+            }
+        }
+
+        cells[destination] = CellCode.EMPTY;
+        cells[origin] = totemCode;
+        return n;
+    }
+
+    /**
+     * Fills the buffer with every legal move of the player to move.
+     * @param out the buffer to fill, of length at least {@link #maxMoves()}
+     * @return the number of moves written, 0 if the game is over
+     */
+    public int generateMoves(int[] out) {
+        if (winner != NONE) {
+            return 0;
+        }
+        int n = 0;
+        for (int shape = 0; shape < 2; shape++) {
+            if (counts[side * 2 + shape] == 0) {
+                continue;
+            }
+            int destinationCount = destinations(shape, destinationBuffer);
+            for (int i = 0; i < destinationCount; i++) {
+                int destination = destinationBuffer[i];
+                int placementCount = placements(shape, destination, placementBuffer);
+                for (int j = 0; j < placementCount; j++) {
+                    out[n++] = Move.of(shape, destination, placementBuffer[j]);
+                }
+            }
+        }
+        return n;
+    }
+
+    /**
+     * Checks if a packed move is legal for the player to move.
+     * @param move the packed move
+     * @return true if the move follows the rules of the game
+     */
+    public boolean isLegal(int move) {
+        int shape = Move.shape(move);
+        if (winner != NONE || shape > 1 || counts[side * 2 + shape] == 0) {
+            return false;
+        }
+        int destination = Move.destination(move);
+        int placement = Move.placement(move);
+        if (destination >= cells.length || placement >= cells.length) {
+            return false;
+        }
+        return contains(destinationBuffer, destinations(shape, destinationBuffer), destination)
+                && contains(placementBuffer, placements(shape, destination, placementBuffer), placement);
+    }
+
+    /**
+     * Checks if the player to move can play at least one move.
+     * @return true if a totem with remaining tokens of its shape can be moved
+     */
+    public boolean hasLegalMove() {
+        if (winner != NONE) {
+            return false;
+        }
+        for (int shape = 0; shape < 2; shape++) {
+            // Une fois le totem déplacé, sa case de départ est libre : un placement existe toujours
+            if (counts[side * 2 + shape] > 0 && destinations(shape, destinationBuffer) > 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Checks if the game is over, either won or blocked.
+     * @return true if a player has won or if the player to move cannot play
+     */
+    public boolean isOver() {
+        return winner != NONE || !hasLegalMove();
+    }
+
+    /**
+     * Returns the maximum number of legal moves of a position of this size, used to size move buffers.
+     * @return an upper bound of {@link #generateMoves(int[])}
+     */
+    public int maxMoves() {
+        return 2 * cells.length * cells.length;
+    }
+
+    /**
+     * Checks if the row and the column of a cell are completely occupied,
+     * as {@link Game#areRowsAndColumnsOccupied(Totem)}.
+     * @param x the x-coordinate of the cell
+     * @param y the y-coordinate of the cell
+     * @return true if no cell of the row and column is empty
+     */
+    private boolean isLineOccupied(int x, int y) {
+        for (int i = 0; i < size; i++) {
+            if (cells[i * size + y] == CellCode.EMPTY || cells[x * size + i] == CellCode.EMPTY) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Checks if a cell has at least one free orthogonal neighbour.
+     * @param x the x-coordinate of the cell
+     * @param y the y-coordinate of the cell
+     * @return true if a neighbour is empty
+     */
+    private boolean hasFreeNeighbour(int x, int y) {
+        for (int d = 0; d < 4; d++) {
+            int nx = x + DX[d];
+            int ny = y + DY[d];
+            if (nx >= 0 && nx < size && ny >= 0 && ny < size && cells[nx * size + ny] == CellCode.EMPTY) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Checks the row and the column of a cell for four aligned tokens, as {@link Game#checkVictory(int, int)}.
+     * @param cell the cell of the last placed token
+     * @return {@link #COLOR_LINE}, {@link #SHAPE_LINE} or 0 if there is no alignment
+     */
+    private int winKindAt(int cell) {
+        int kind = lineWinKind(cell % size, size);
+        return kind != 0 ? kind : lineWinKind(cell - cell % size, 1);
+    }
+
+    /**
+     * Looks for four consecutive tokens of the same color or shape on a line of the board.
+     * Totems and empty cells break the sequences.
+     * @param start the first cell of the line
+     * @param step the index difference between two cells of the line
+     * @return {@link #COLOR_LINE}, {@link #SHAPE_LINE} or 0 if there is no alignment
+     */
+    private int lineWinKind(int start, int step) {
+        int colorCount = 0;
+        int shapeCount = 0;
+        int previousColor = NONE;
+        int previousShape = NONE;
+        for (int i = 0, cell = start; i < size; i++, cell += step) {
+            int code = cells[cell];
+            if (!CellCode.isToken(code)) {
+                colorCount = 0;
+                shapeCount = 0;
+                previousColor = NONE;
+                previousShape = NONE;
+                continue;
+            }
+            int color = CellCode.colorOf(code);
+            int shape = CellCode.shapeOf(code);
+            if (color == previousColor) {
+                if (++colorCount == ALIGNMENT) return COLOR_LINE;
+            } else {
+                colorCount = 1;
+                previousColor = color;
+            }
+            if (shape == previousShape) {
+                if (++shapeCount == ALIGNMENT) return SHAPE_LINE;
+            } else {
+                shapeCount = 1;
+                previousShape = shape;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Writes a cell and updates the hash.
+     * @param cell the index of the cell
+     * @param code the new content of the cell
+     */
+    private void set(int cell, int code) {
+        hash ^= PositionHash.cellKey(cell, cells[cell]) ^ PositionHash.cellKey(cell, code);
+        cells[cell] = (byte) code;
+    }
+
+    /**
+     * Puts a totem on a cell and records its position.
+     * @param shape the shape index of the totem
+     * @param cell the index of the cell
+     */
+    private void putTotem(int shape, int cell) {
+        totems[shape] = cell;
+        set(cell, CellCode.totem(shape));
+    }
+
+    /**
+     * Checks if the first elements of a buffer contain a value.
+     */
+    private static boolean contains(int[] buffer, int length, int value) {
+        for (int i = 0; i < length; i++) {
+            if (buffer[i] == value) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // GETTERS
+
+    /**
+     * Returns the size of the board.
+     * @return the number of cells on a side of the board
+     */
+    public int getSize() {
+        return size;
+    }
+
+    /**
+     * Returns the content of a cell.
+     * @param cell the index of the cell
+     * @return the {@link CellCode} of the cell
+     */
+    public int getCell(int cell) {
+        return cells[cell];
+    }
+
+    /**
+     * Returns the content of a cell.
+     * @param x the x-coordinate of the cell
+     * @param y the y-coordinate of the cell
+     * @return the {@link CellCode} of the cell
+     */
+    public int getCell(int x, int y) {
+        return cells[x * size + y];
+    }
+
+    /**
+     * Returns the cell of a totem.
+     * @param shape the shape index of the totem
+     * @return the index of the cell holding the totem
+     */
+    public int getTotemCell(int shape) {
+        return totems[shape];
+    }
+
+    /**
+     * Returns the number of tokens a player still holds.
+     * @param color the color index of the player
+     * @param shape the shape index of the tokens
+     * @return the number of remaining tokens
+     */
+    public int getTokenCount(int color, int shape) {
+        return counts[color * 2 + shape];
+    }
+
+    /**
+     * Returns the player to move.
+     * @return the color index of the player to move
+     */
+    public int getSide() {
+        return side;
+    }
+
+    /**
+     * Returns the Zobrist hash of the position, equal to {@link PositionHash#of(Board, Color)}.
+     * @return the 64-bit key of the position
+     */
+    public long getHash() {
+        return hash;
+    }
+
+    /**
+     * Returns the number of turns played since this position was created.
+     * @return the number of moves that can be undone
+     */
+    public int getPly() {
+        return ply;
+    }
+
+    /**
+     * Returns a move of the history.
+     * @param index the index of the move, from 0 to {@link #getPly()} - 1
+     * @return the packed move
+     */
+    public int getMove(int index) {
+        return moves[index];
+    }
+
+    /**
+     * Returns the winner of the game.
+     * @return the color index of the winner, or {@link #NONE}
+     */
+    public int getWinner() {
+        return winner;
+    }
+
+    /**
+     * Returns how the game was won.
+     * @return {@link #COLOR_LINE}, {@link #SHAPE_LINE} or 0 if nobody has won
+     */
+    public int getWinKind() {
+        return winKind;
+    }
+}
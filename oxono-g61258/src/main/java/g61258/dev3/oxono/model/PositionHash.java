@@ -0,0 +1,69 @@
+package g61258.dev3.oxono.model;
+
+/**
+ * The {@code PositionHash} class computes 64-bit Zobrist keys of Oxono positions.
+ * A position is identified by the content of every cell and the color of the player to move.
+ * The key of each (cell, content) pair is derived from a fixed mixing function, so keys are
+ * identical across runs and board sizes and can be updated incrementally by xor.
+ */
+public final class PositionHash {
+
+    /**
+     * Key xor-ed into the hash when the black player is to move.
+     */
+    public static final long SIDE_KEY = mix(0x5DEECE66DL);
+
+    private PositionHash() {
+    }
+
+    /**
+     * Returns the key of a cell holding the given content.
+     * The empty cell has key 0 so that only occupied cells contribute to the hash.
+     * @param cell the index of the cell ({@code x * size + y})
+     * @param code the content of the cell, as a {@link CellCode}
+     * @return the Zobrist key of the pair
+     */
+    public static long cellKey(int cell, int code) {
+        if (code == CellCode.EMPTY) {
+            return 0L;
+        }
+        return mix(((long) cell << 3 | code) + 1);
+    }
+
+    /**
+     * Computes the hash of the given board with the given player to move.
+     * @param board the board to hash
+     * @param sideToMove the color of the player to move
+     * @return the 64-bit key of the position
+     */
+    public static long of(Board board, Color sideToMove) {
+        int size = board.getSize();
+        long hash = sideToMove == Color.BLACK ? SIDE_KEY : 0L;
+        for (int x = 0; x < size; x++) {
+            for (int y = 0; y < size; y++) {
+                hash ^= cellKey(x * size + y, CellCode.of(board.getToken(x, y)));
+            }
+        }
+        return hash;
+    }
+
+    /**
+     * Computes the hash of the current position of a game.
+     * @param game the game to hash
+     * @return the 64-bit key of the position
+     */
+    public static long of(Game game) {
+        return of(game.getBoard(), game.getCurrentPlayerColor());
+    }
+
+    /**
+     * SplitMix64 finalizer, spreads the bits of the input over the whole word.
+     * @param z the value to mix
+     * @return the mixed value
+     */
+    static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
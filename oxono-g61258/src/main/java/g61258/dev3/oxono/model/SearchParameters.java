@@ -0,0 +1,199 @@
+package g61258.dev3.oxono.model;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Locale;
+
+/**
+ * The {@code SearchParameters} class holds the numeric knobs of the {@link MonteCarloStrategy}.
+ * Every knob has bounds and a perturbation step used by automatic tuners.
+ * <p>Parameters are saved as a text file with one {@code name = value} line per knob, lines
+ * starting with {@code #} being comments. The parameters used by strategies created without
+ * explicit parameters are read once from the file named by the system property
+ * {@value #FILE_PROPERTY}, or are the built-in defaults when the property is not set.</p>
+ */
+public class SearchParameters {
+
+    /**
+     * System property naming the parameter file loaded by {@link #loadDefault()}.
+     */
+    public static final String FILE_PROPERTY = "oxono.search";
+
+    /**
+     * Exploration constant of the UCB1 formula.
+     */
+    public static final int EXPLORATION = 0;
+
+    /**
+     * Number of virtual playouts given to the evaluation of a move before it is played out.
+     */
+    public static final int PRIOR_WEIGHT = 1;
+
+    /**
+     * Number of knobs.
+     */
+    public static final int COUNT = 2;
+
+    /**
+     * Names of the knobs, used in parameter files.
+     */
+    public static final String[] NAMES = {"exploration", "prior_weight"};
+
+    private static final double[] DEFAULTS = {0.7, 4.0};
+    private static final double[] MIN = {0.0, 0.0};
+    private static final double[] MAX = {3.0, 50.0};
+    private static final double[] STEPS = {0.15, 2.0};
+
+    private static volatile SearchParameters loaded;
+
+    private final double[] values;
+
+    /**
+     * Constructs parameters from their values, clamped to their bounds.
+     * @param values the value of every knob, indexed by the constants of this class
+     */
+    public SearchParameters(double[] values) {
+        if (values.length != COUNT) {
+            throw new IllegalArgumentException("Nombre de paramètres invalide : " + values.length);
+        }
+        this.values = new double[COUNT];
+        for (int i = 0; i < COUNT; i++) {
+            this.values[i] = Math.max(MIN[i], Math.min(MAX[i], values[i]));
+        }
+    }
+
+    /**
+     * Returns the built-in parameters.
+     * @return new parameters with the default values
+     */
+    public static SearchParameters defaults() {
+        return new SearchParameters(DEFAULTS);
+    }
+
+    /**
+     * Returns the parameters shared by strategies created without explicit parameters: those of the
+     * file named by {@value #FILE_PROPERTY}, read at the first call, or the defaults.
+     * @return the startup parameters
+     * @throws UncheckedIOException if the file of the property cannot be read
+     */
+    public static SearchParameters loadDefault() {
+        SearchParameters parameters = loaded;
+        if (parameters == null) {
+            synchronized (SearchParameters.class) {
+                parameters = loaded;
+                if (parameters == null) {
+                    String file = System.getProperty(FILE_PROPERTY);
+                    try {
+                        parameters = file == null ? defaults() : load(Path.of(file));
+                    } catch (IOException e) {
+                        throw new UncheckedIOException("Impossible de lire les paramètres " + file, e);
+                    }
+                    loaded = parameters;
+                }
+            }
+        }
+        return parameters;
+    }
+
+    /**
+     * Reads parameters from a text file. Knobs missing from the file keep their default value.
+     * @param path the file to read
+     * @return the parameters of the file
+     * @throws IOException if the file cannot be read or contains an unknown knob
+     */
+    public static SearchParameters load(Path path) throws IOException {
+        double[] values = DEFAULTS.clone();
+        for (String line : Files.readAllLines(path, StandardCharsets.UTF_8)) {
+            line = line.strip();
+            if (line.isEmpty() || line.startsWith("#")) {
+                continue;
+            }
+            int equals = line.indexOf('=');
+            if (equals < 0) {
+                throw new IOException("Ligne de paramètre invalide : " + line);
+            }
+            int knob = indexOf(line.substring(0, equals).strip());
+            try {
+                values[knob] = Double.parseDouble(line.substring(equals + 1).strip());
+            } catch (NumberFormatException e) {
+                throw new IOException("Paramètre invalide : " + line, e);
+            }
+        }
+        return new SearchParameters(values);
+    }
+
+    /**
+     * Writes the parameters to a text file.
+     * @param path the file to create or replace
+     * @param comment a comment written at the top of the file, may be null
+     * @throws IOException if the file cannot be written
+     */
+    public void save(Path path, String comment) throws IOException {
+        try (BufferedWriter writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8)) {
+            if (comment != null) {
+                writer.write("# " + comment);
+                writer.newLine();
+            }
+            for (int i = 0; i < COUNT; i++) {
+                writer.write(String.format(Locale.ROOT, "%s = %.6f", NAMES[i], values[i]));
+                writer.newLine();
+            }
+        }
+    }
+
+    /**
+     * Returns the index of a knob from its name.
+     * @param name the name of the knob
+     * @return the index of the knob
+     * @throws IOException if no knob has this name
+     */
+    private static int indexOf(String name) throws IOException {
+        for (int i = 0; i < COUNT; i++) {
+            if (NAMES[i].equals(name)) {
+                return i;
+            }
+        }
+        throw new IOException("Paramètre inconnu : " + name);
+    }
+
+    // GETTERS
+
+    /**
+     * Returns the value of a knob.
+     * @param knob the index of the knob
+     * @return the value of the knob
+     */
+    public double get(int knob) {
+        return values[knob];
+    }
+
+    /**
+     * Returns the perturbation step of a knob, the typical change that has a measurable effect.
+     * @param knob the index of the knob
+     * @return the step of the knob
+     */
+    public static double getStep(int knob) {
+        return STEPS[knob];
+    }
+
+    /**
+     * Returns a copy of all the values.
+     * @return the values indexed by the constants of this class
+     */
+    public double[] toArray() {
+        return values.clone();
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < COUNT; i++) {
+            builder.append(i == 0 ? "" : ", ").append(NAMES[i]).append(String.format(Locale.ROOT, " = %.4f", values[i]));
+        }
+        return builder.toString();
+    }
+}
@@ -0,0 +1,164 @@
+package g61258.dev3.oxono.model;
+
+import java.util.SplittableRandom;
+
+/**
+ * The {@code SearchStrategy} class is an automatic opponent searching the game tree with a
+ * fixed-depth alpha-beta negamax on a compact {@link Position}, whose leaves are scored by an
+ * {@link Evaluator}. Leaf scores are kept in an {@link EvaluationCache} keyed by the position hash.
+ * <p>The root moves are shuffled before the search, so that equally scored moves are chosen at
+ * random and two games between the same strategies differ.</p>
+ */
+public class SearchStrategy implements OpponentStrategy {
+
+    /**
+     * Score of a won position, decreased by the number of plies needed to win.
+     */
+    public static final int WIN_SCORE = 1_000_000;
+
+    private static final int CACHE_CAPACITY = 1 << 16;
+
+    private final Evaluator evaluator;
+    private final int depth;
+    private final EvaluationCache cache = new EvaluationCache(CACHE_CAPACITY);
+    private final SplittableRandom random;
+    private int[][] moveBuffers;
+    private long nodes;
+
+    /**
+     * Constructs a strategy with a random seed.
+     * @param evaluator the evaluator of the leaves, owned by this strategy
+     * @param depth the number of plies searched, at least 1
+     */
+    public SearchStrategy(Evaluator evaluator, int depth) {
+        this(evaluator, depth, new SplittableRandom());
+    }
+
+    /**
+     * Constructs a strategy.
+     * @param evaluator the evaluator of the leaves, owned by this strategy
+     * @param depth the number of plies searched, at least 1
+     * @param random the generator shuffling the root moves
+     */
+    public SearchStrategy(Evaluator evaluator, int depth, SplittableRandom random) {
+        if (depth < 1) {
+            throw new IllegalArgumentException("Profondeur invalide : " + depth);
+        }
+        this.evaluator = evaluator;
+        this.depth = depth;
+        this.random = random;
+    }
+
+    /**
+     * Searches the best move of the current player and plays it. Nothing is played if the
+     * current player cannot move.
+     * @param game the current game instance
+     * @param board the game board
+     */
+    @Override
+    public void play(Game game, Board board) {
+        int move = bestMove(Position.of(game));
+        if (move >= 0) {
+            Move.play(game, move);
+        }
+    }
+
+    /**
+     * Searches the best move of a position.
+     * @param position the position to search, restored before returning
+     * @return the best packed move, or -1 if the player to move cannot play
+     */
+    public int bestMove(Position position) {
+        if (moveBuffers == null || moveBuffers[0].length != position.maxMoves()) {
+            moveBuffers = new int[depth + 1][position.maxMoves()];
+        }
+        int[] moves = moveBuffers[depth];
+        int count = position.generateMoves(moves);
+        for (int i = count - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int swap = moves[i];
+            moves[i] = moves[j];
+            moves[j] = swap;
+        }
+
+        int best = -1;
+        int alpha = -WIN_SCORE - 1;
+        for (int i = 0; i < count; i++) {
+            position.play(moves[i]);
+            int score = -negamax(position, depth - 1, -WIN_SCORE - 1, -alpha);
+            position.undo();
+            if (score > alpha) {
+                alpha = score;
+                best = moves[i];
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Scores a position by alpha-beta negamax.
+     * @param position the position, restored before returning
+     * @param remaining the number of plies still to search
+     * @param alpha the score the player to move is already assured of
+     * @param beta the score above which the opponent avoids this position
+     * @return the score of the position for the player to move
+     */
+    private int negamax(Position position, int remaining, int alpha, int beta) {
+        nodes++;
+        if (position.getWinner() != Position.NONE) {
+            return -(WIN_SCORE - position.getPly()); // Le joueur précédent vient de gagner
+        }
+        if (remaining == 0) {
+            return evaluate(position);
+        }
+        int[] moves = moveBuffers[remaining];
+        int count = position.generateMoves(moves);
+        if (count == 0) {
+            return 0; // Plus de coup possible : partie nulle
+        }
+        for (int i = 0; i < count; i++) {
+            position.play(moves[i]);
+            int score = -negamax(position, remaining - 1, -beta, -alpha);
+            position.undo();
+            if (score > alpha) {
+                alpha = score;
+                if (alpha >= beta) {
+                    break;
+                }
+            }
+        }
+        return alpha;
+    }
+
+    /**
+     * Evaluates a leaf through the cache. A position without legal move is a draw.
+     * @param position the leaf position
+     * @return the score of the position for the player to move
+     */
+    private int evaluate(Position position) {
+        int score = cache.get(position.getHash());
+        if (score == EvaluationCache.MISS) {
+            score = position.hasLegalMove() ? evaluator.evaluate(position) : 0;
+            cache.put(position.getHash(), score);
+        }
+        return score;
+    }
+
+    // GETTERS
+
+    /**
+     * Returns the number of positions visited by all the searches of this strategy.
+     * @return the number of visited nodes
+     */
+    public long getNodes() {
+        return nodes;
+    }
+
+    /**
+     * Returns the cache of the leaf evaluations.
+     * @return the evaluation cache of this strategy
+     */
+    public EvaluationCache getCache() {
+        return cache;
+    }
+}
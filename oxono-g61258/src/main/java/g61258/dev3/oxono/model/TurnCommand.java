@@ -0,0 +1,62 @@
+package g61258.dev3.oxono.model;
+
+/**
+ * Command implementation that encapsulates a whole turn: the totem move, the token placement
+ * and the token taken from the player's reserve.
+ * The turn is executed and undone as a single command, so that it takes a single entry of the history.
+ */
+public class TurnCommand implements Command {
+    private final MoveTotemCommand move;
+    private final PlaceTokenCommand placement;
+    private final Player player;
+    private final Shape shape;
+
+    /**
+     * Constructs a new TurnCommand.
+     * @param move the totem move of the turn
+     * @param placement the token placement of the turn
+     * @param player the player of the turn, whose reserve gives the token
+     */
+    public TurnCommand(MoveTotemCommand move, PlaceTokenCommand placement, Player player) {
+        this.move = move;
+        this.placement = placement;
+        this.player = player;
+        this.shape = move.getTotem().getShape();
+    }
+
+    /**
+     * Executes the turn: moves the totem, places the token and takes it from the player.
+     */
+    @Override
+    public void execute() {
+        move.execute();
+        place();
+    }
+
+    /**
+     * Executes the second half of the turn, when the totem has already been moved.
+     */
+    void place() {
+        placement.execute();
+        player.removeToken(shape);
+    }
+
+    /**
+     * Reverts the turn: gives the token back to the player and moves the totem back,
+     * restoring the last moved totem before the turn.
+     */
+    @Override
+    public void unexecute() {
+        placement.unexecute();
+        move.unexecute();
+    }
+
+    /**
+     * Packs the turn into the primitive form kept by the {@link CommandManager} history,
+     * from which it can be rebuilt on undo and redo.
+     * @return the packed turn, see {@link CommandManager#packMove} and {@link CommandManager#packPlacement}
+     */
+    long pack() {
+        return move.pack() | placement.pack();
+    }
+}
@@ -0,0 +1,190 @@
+package g61258.dev3.oxono.persistence;
+
+import g61258.dev3.oxono.model.CommandManager;
+import g61258.dev3.oxono.model.GameSnapshot;
+import g61258.dev3.oxono.model.GameStat;
+import g61258.dev3.oxono.record.RecordFormat;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The {@code BinaryGameCodec} class saves games in a compact binary form.
+ * <p>The stream starts with the magic number {@link #MAGIC} and the {@link #VERSION} as two
+ * little-endian ints, followed by the games one after another up to the end of the stream. A game is:</p>
+ * <ul>
+ *     <li>the board size as a varint;</li>
+ *     <li>one byte for the level of the opponent plus one;</li>
+ *     <li>one byte of flags: the player to play (bit 0), game over (bit 1), won (bit 2), the phase (bits 3 and 4);</li>
+ *     <li>one byte for the last moved totem plus one;</li>
+ *     <li>the cells, two {@link g61258.dev3.oxono.model.CellCode}s per byte, the first one in the low half;</li>
+ *     <li>four bytes for the remaining tokens;</li>
+ *     <li>the first ply of the history, its number of turns and the current ply as varints;</li>
+ *     <li>one varint per packed turn, then the pending move plus one;</li>
+ *     <li>the number of checkpoints as a varint, followed by their bytes.</li>
+ * </ul>
+ * <p>Varints are unsigned LEB128, as in the {@link RecordFormat}.
+ * In the {@link SaveBenchmark}, a 6x6 game takes about 160 bytes, three times less than in JSON.</p>
+ */
+public class BinaryGameCodec implements GameCodec {
+
+    /**
+     * Magic number at the start of every stream of saved games ("OXGS").
+     */
+    public static final int MAGIC = 0x5347584F;
+
+    /**
+     * Version of the format.
+     */
+    public static final int VERSION = 2;
+
+    private static final int HEADER_SIZE = 8;
+    private static final GameStat[] PHASES = GameStat.values();
+
+    /**
+     * Writes the header and the games.
+     * @param games the games to save
+     * @param out the stream receiving the games
+     * @throws IOException if the stream cannot be written
+     */
+    @Override
+    public void write(List<GameSnapshot> games, OutputStream out) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(1 << 12).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.putInt(MAGIC).putInt(VERSION);
+        for (GameSnapshot game : games) {
+            int cells = game.getBoardSize() * game.getBoardSize();
+            long[] turns = game.getHistory();
+            byte[] checkpoints = game.getCheckpoints();
+            int bound = 5 * RecordFormat.MAX_VARINT_BYTES + cells / 2 + 8 + RecordFormat.MAX_VARINT_BYTES * turns.length
+                    + checkpoints.length;
+            if (buffer.remaining() < bound) {
+                out.write(buffer.array(), 0, buffer.position());
+                buffer.clear();
+                if (buffer.capacity() < bound) {
+                    buffer = ByteBuffer.allocate(Integer.highestOneBit(bound) * 2).order(ByteOrder.LITTLE_ENDIAN);
+                }
+            }
+            writeGame(buffer, game, turns, checkpoints);
+        }
+        out.write(buffer.array(), 0, buffer.position());
+        out.flush();
+    }
+
+    /**
+     * Writes one game in a buffer large enough.
+     */
+    private static void writeGame(ByteBuffer buffer, GameSnapshot game, long[] turns, byte[] checkpoints) {
+        RecordFormat.putVarint(buffer, game.getBoardSize());
+        buffer.put((byte) (game.getAiLevel() + 1));
+        buffer.put((byte) (game.getCurrentColor() | (game.isGameOver() ? 2 : 0) | (game.isWon() ? 4 : 0)
+                | game.getPhase().ordinal() << 3));
+        buffer.put((byte) (game.getLastMovedTotem() + 1));
+        byte[] cells = game.getCells();
+        for (int i = 0; i < cells.length; i += 2) {
+            int high = i + 1 < cells.length ? cells[i + 1] : 0;
+            buffer.put((byte) (cells[i] | high << 4));
+        }
+        for (int count : game.getTokens()) {
+            buffer.put((byte) count);
+        }
+        RecordFormat.putVarint(buffer, game.getHistoryStart());
+        RecordFormat.putVarint(buffer, turns.length);
+        RecordFormat.putVarint(buffer, game.getHistoryPly());
+        for (long turn : turns) {
+            RecordFormat.putVarint(buffer, turn);
+        }
+        RecordFormat.putVarint(buffer, game.getPendingMove() + 1);
+        int checkpointSize = cells.length + 5;
+        RecordFormat.putVarint(buffer, checkpoints.length / checkpointSize);
+        buffer.put(checkpoints);
+    }
+
+    /**
+     * Reads the header and every game up to the end of the stream.
+     * @param in the stream holding the games
+     * @return the games
+     * @throws IOException if the stream cannot be read, is truncated or does not hold valid games
+     */
+    @Override
+    public List<GameSnapshot> read(InputStream in) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(in.readAllBytes()).order(ByteOrder.LITTLE_ENDIAN);
+        if (buffer.remaining() < HEADER_SIZE || buffer.getInt() != MAGIC) {
+            throw new IOException("Ce n'est pas un fichier de parties sauvegardées");
+        }
+        int version = buffer.getInt();
+        if (version != VERSION) {
+            throw new IOException("Version de sauvegarde non prise en charge : " + version);
+        }
+        List<GameSnapshot> games = new ArrayList<>();
+        try {
+            while (buffer.hasRemaining()) {
+                games.add(readGame(buffer));
+            }
+        } catch (BufferUnderflowException e) {
+            throw new EOFException("Sauvegarde tronquée après " + games.size() + " parties");
+        } catch (IllegalArgumentException e) {
+            throw new IOException(e.getMessage(), e);
+        }
+        return games;
+    }
+
+    /**
+     * Reads one game.
+     */
+    private static GameSnapshot readGame(ByteBuffer buffer) throws IOException {
+        int size = (int) RecordFormat.getVarint(buffer);
+        if (size < 2 || size > CommandManager.MAX_BOARD_SIZE) {
+            throw new IOException("Taille de plateau invalide : " + size);
+        }
+        int aiLevel = buffer.get() - 1;
+        int flags = buffer.get();
+        int lastMovedTotem = buffer.get() - 1;
+        int phase = flags >> 3 & 3;
+        if (phase >= PHASES.length) {
+            throw new IOException("Phase inconnue : " + phase);
+        }
+        byte[] cells = new byte[size * size];
+        for (int i = 0; i < cells.length; i += 2) {
+            int pair = buffer.get();
+            cells[i] = (byte) (pair & 0xF);
+            if (i + 1 < cells.length) {
+                cells[i + 1] = (byte) (pair >> 4 & 0xF);
+            }
+        }
+        int[] tokens = new int[4];
+        for (int i = 0; i < tokens.length; i++) {
+            tokens[i] = buffer.get();
+        }
+        long start = RecordFormat.getVarint(buffer);
+        int count = checkedCount(RecordFormat.getVarint(buffer), buffer.remaining());
+        int ply = (int) RecordFormat.getVarint(buffer);
+        long[] turns = new long[count];
+        for (int i = 0; i < count; i++) {
+            turns[i] = RecordFormat.getVarint(buffer);
+        }
+        long pending = RecordFormat.getVarint(buffer) - 1;
+        int checkpointSize = cells.length + 5;
+        byte[] checkpoints = new byte[checkedCount(RecordFormat.getVarint(buffer), buffer.remaining() / checkpointSize) * checkpointSize];
+        buffer.get(checkpoints);
+        return new GameSnapshot(size, aiLevel, cells, tokens, lastMovedTotem, flags & 1, PHASES[phase],
+                (flags & 2) != 0, (flags & 4) != 0, start, ply, turns, checkpoints, pending);
+    }
+
+    /**
+     * Checks a count read from the stream against the bytes left, so that a corrupted count
+     * does not allocate a huge array.
+     */
+    private static int checkedCount(long count, int limit) throws IOException {
+        if (count < 0 || count > limit) {
+            throw new IOException("Nombre d'éléments invalide : " + count);
+        }
+        return (int) count;
+    }
+}
@@ -0,0 +1,67 @@
+package g61258.dev3.oxono.persistence;
+
+import g61258.dev3.oxono.model.Game;
+import g61258.dev3.oxono.model.GameSnapshot;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * The {@code GameCodec} interface saves and loads complete games, as {@link GameSnapshot}s, to and from
+ * a stream holding any number of them. Implementations are stateless and may be shared between threads.
+ */
+public interface GameCodec {
+
+    /**
+     * Writes games to a stream, which is flushed but not closed.
+     * @param games the games to save
+     * @param out the stream receiving the games
+     * @throws IOException if the stream cannot be written
+     */
+    void write(List<GameSnapshot> games, OutputStream out) throws IOException;
+
+    /**
+     * Reads every game of a stream, up to its end. The stream is not closed.
+     * @param in the stream holding the games
+     * @return the games, in the order they were written
+     * @throws IOException if the stream cannot be read or does not hold valid games
+     */
+    List<GameSnapshot> read(InputStream in) throws IOException;
+
+    /**
+     * Saves a game to a file, replacing it.
+     * @param game the game to save
+     * @param path the file
+     * @throws IOException if the file cannot be written
+     */
+    default void save(Game game, Path path) throws IOException {
+        try (OutputStream out = Files.newOutputStream(path)) {
+            write(List.of(game.snapshot()), out);
+        }
+    }
+
+    /**
+     * Loads the first game of a file.
+     * @param path the file
+     * @return the game, with its history
+     * @throws IOException if the file cannot be read or does not hold a valid game
+     */
+    default Game load(Path path) throws IOException {
+        List<GameSnapshot> games;
+        try (InputStream in = Files.newInputStream(path)) {
+            games = read(in);
+        }
+        if (games.isEmpty()) {
+            throw new IOException("Aucune partie dans " + path);
+        }
+        try {
+            return Game.restore(games.get(0));
+        } catch (IllegalArgumentException e) {
+            throw new IOException(e.getMessage(), e);
+        }
+    }
+}
@@ -0,0 +1,550 @@
+package g61258.dev3.oxono.persistence;
+
+import g61258.dev3.oxono.model.ActionRecorder;
+import g61258.dev3.oxono.model.Board;
+import g61258.dev3.oxono.model.CellCode;
+import g61258.dev3.oxono.model.Game;
+import g61258.dev3.oxono.model.Shape;
+import g61258.dev3.oxono.model.Totem;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * The {@code GameJournal} class is a write-ahead journal of the actions applied to games, so that the
+ * games in progress survive a restart of the process.
+ * <p>Every game created by {@link #newGame(int, int)} records its actions through an {@link ActionRecorder}:
+ * each action is appended as a fixed record of {@value #RECORD_SIZE} bytes (game, action, shape, cell) to
+ * a buffer in memory, whatever the length of the game. A writer thread appends the buffered records to the
+ * file and forces them to the disk with a single {@code fsync} for all the records gathered meanwhile, at
+ * most once every commit interval (group commit). A crash therefore loses at most the actions of the last
+ * interval; {@link #sync()} waits until every recorded action is on the disk.</p>
+ * <p>Opening an existing journal replays it chunk by chunk: the games neither won, drawn nor abandoned are
+ * rebuilt by applying their actions again, and are given by {@link #getRecoveredGames()} with their recording
+ * resumed. A game whose actions cannot be replayed is abandoned alone. The journal is then replaced atomically
+ * by a compacted one holding only the records of the recovered games, so that it does not grow from one
+ * launch to the next; a record torn by a crash at the end of the file is discarded with the finished games.</p>
+ */
+public class GameJournal implements Closeable {
+
+    /**
+     * Default minimum delay between two commits to the disk, in milliseconds.
+     */
+    public static final long DEFAULT_COMMIT_INTERVAL = 5;
+
+    /**
+     * Size of a record, and of the header of the file, in bytes.
+     */
+    public static final int RECORD_SIZE = 8;
+
+    private static final int MAGIC = 0x4C4A584F; // "OXJL"
+    private static final int VERSION = 1;
+    private static final int INITIAL_BUFFER = 4096;
+    private static final int CHUNK_SIZE = 64 * 1024;
+
+    // Types d'enregistrement : 0 marque une fin de fichier remplie de zéros après un arrêt brutal
+    static final byte BEGIN = 1;
+    static final byte MOVE = 2;
+    static final byte PLACE = 3;
+    static final byte SWITCH = 4;
+    static final byte UNDO = 5;
+    static final byte REDO = 6;
+    static final byte JUMP = 7;
+    static final byte ABANDON = 8;
+    static final byte WON = 9;
+    static final byte DRAWN = 10;
+
+    private final FileChannel channel;
+    private final long commitInterval;
+    private final Thread writerThread;
+    private final Map<Integer, Game> recovered = new LinkedHashMap<>();
+    private final Random random = new Random();
+    private ByteBuffer pending = allocate(INITIAL_BUFFER);
+    private ByteBuffer spare = allocate(INITIAL_BUFFER);
+    private long appended;
+    private long durable;
+    private long commits;
+    private int nextId;
+    private boolean closed;
+    private volatile IOException failure;
+
+    /**
+     * Opens a journal with the default commit interval, replaying its games in progress.
+     * @param path the journal file, created if it does not exist
+     * @throws IOException if the file cannot be opened, or is not a journal
+     */
+    public GameJournal(Path path) throws IOException {
+        this(path, DEFAULT_COMMIT_INTERVAL);
+    }
+
+    /**
+     * Opens a journal, replaying its games in progress, and starts the writer thread.
+     * @param path the journal file, created if it does not exist
+     * @param commitInterval the minimum delay between two commits to the disk, in milliseconds
+     * @throws IOException if the file cannot be opened, or is not a journal
+     */
+    public GameJournal(Path path, long commitInterval) throws IOException {
+        this.commitInterval = commitInterval;
+        // Le journal est réécrit avec les seules parties en cours, puis remplace l'ancien d'un coup
+        Path compacted = path.resolveSibling(path.getFileName() + ".tmp");
+        try (FileChannel output = FileChannel.open(compacted, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer buffer = allocate(CHUNK_SIZE).putInt(MAGIC).putInt(VERSION);
+            if (Files.exists(path) && Files.size(path) >= RECORD_SIZE) {
+                try (FileChannel input = FileChannel.open(path, StandardOpenOption.READ)) {
+                    buffer = recover(input, output, buffer);
+                }
+            }
+            write(output, buffer);
+            output.force(true);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(compacted);
+            throw e;
+        }
+        Files.move(compacted, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        this.channel = FileChannel.open(path, StandardOpenOption.WRITE);
+        channel.position(channel.size());
+        this.writerThread = new Thread(this::drain, "journal-writer");
+        this.writerThread.setDaemon(true);
+        this.writerThread.start();
+    }
+
+    /**
+     * Creates a game recorded by the journal, on a board with a random totem layout.
+     * @param boardSize the size of the board
+     * @param aiLevel the level of the opponent, 0 for random moves, 1 for the level 2 strategy
+     * @return the started game
+     */
+    public Game newGame(int boardSize, int aiLevel) {
+        boolean crossTotemFirst = random.nextBoolean();
+        Game game = new Game(new Board(boardSize, crossTotemFirst), aiLevel);
+        game.start();
+        int id;
+        synchronized (this) {
+            id = nextId++;
+        }
+        append(id, BEGIN, aiLevel << 1 | (crossTotemFirst ? 1 : 0), boardSize);
+        game.setActionRecorder(new Recorder(id, boardSize));
+        return game;
+    }
+
+    /**
+     * Appends a record to the buffer of the next commit.
+     * @throws UncheckedIOException if the writer thread failed
+     */
+    private synchronized void append(int game, byte type, int arg, int cell) {
+        if (failure != null) {
+            throw new UncheckedIOException(failure);
+        }
+        if (closed) {
+            throw new IllegalStateException("Journal fermé");
+        }
+        if (pending.remaining() < RECORD_SIZE) {
+            pending = allocate(pending.capacity() * 2).put(pending.flip());
+        }
+        pending.putInt(game).put(type).put((byte) arg).putShort((short) cell);
+        appended++;
+        notifyAll();
+    }
+
+    /**
+     * Waits until every record appended so far is forced to the disk.
+     * @throws IOException if a commit failed or the thread is interrupted
+     */
+    public synchronized void sync() throws IOException {
+        long target = appended;
+        try {
+            while (durable < target && failure == null) {
+                wait();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Attente du journal interrompue", e);
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    /**
+     * Commits the buffered records until the journal is closed: the records appended while a commit is
+     * written and forced are gathered into the next one.
+     */
+    private void drain() {
+        long lastCommit = System.nanoTime() - commitInterval * 1_000_000;
+        try {
+            while (true) {
+                synchronized (this) {
+                    while (pending.position() == 0 && !closed) {
+                        wait();
+                    }
+                    if (pending.position() == 0) {
+                        return;
+                    }
+                }
+                // Laisse les actions suivantes rejoindre le même fsync
+                long delay = lastCommit + commitInterval * 1_000_000 - System.nanoTime();
+                if (delay > 0 && !isClosed()) {
+                    Thread.sleep(delay / 1_000_000, (int) (delay % 1_000_000));
+                }
+                ByteBuffer batch;
+                long target;
+                synchronized (this) {
+                    batch = pending;
+                    pending = spare;
+                    spare = batch;
+                    target = appended;
+                }
+                batch.flip();
+                while (batch.hasRemaining()) {
+                    channel.write(batch);
+                }
+                channel.force(false);
+                batch.clear();
+                lastCommit = System.nanoTime();
+                synchronized (this) {
+                    durable = target;
+                    commits++;
+                    notifyAll();
+                }
+            }
+        } catch (IOException e) {
+            synchronized (this) {
+                failure = e;
+                notifyAll();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Reads the journal in chunks, rebuilds the games in progress and copies their records alone
+     * to the compacted journal. A game whose replay fails is abandoned in the compacted journal
+     * rather than failing the whole journal.
+     * @param input the journal file, opened for reading
+     * @param output the compacted journal, after its header
+     * @param buffer the buffer of the compacted journal, holding its header
+     * @return the buffer, possibly flushed
+     */
+    private ByteBuffer recover(FileChannel input, FileChannel output, ByteBuffer buffer) throws IOException {
+        ByteBuffer header = allocate(RECORD_SIZE);
+        readFully(input, header, 0);
+        if (header.getInt(0) != MAGIC || header.getInt(4) != VERSION) {
+            throw new IOException("Fichier de journal invalide");
+        }
+        long size = input.size() - RECORD_SIZE;
+        long end = RECORD_SIZE + size - size % RECORD_SIZE;
+
+        // Premier passage : parties terminées et fin valide du journal
+        Set<Integer> finished = new HashSet<>();
+        Set<Integer> begun = new HashSet<>();
+        long valid = scan(input, end, (game, type, arg, cell) -> {
+            if (type < BEGIN || type > DRAWN || (type == BEGIN) == begun.contains(game)) {
+                return false; // Enregistrement déchiré ou fin remplie de zéros
+            }
+            begun.add(game);
+            if (type == ABANDON || type == WON || type == DRAWN) {
+                finished.add(game);
+            }
+            nextId = Math.max(nextId, game + 1);
+            return true;
+        });
+
+        // Second passage : rejoue les seules parties en cours et recopie leurs enregistrements
+        ByteBuffer[] compacted = {buffer};
+        scan(input, valid, (id, type, arg, cell) -> {
+            if (finished.contains(id)) {
+                return true;
+            }
+            compacted[0] = put(output, compacted[0], id, type, arg, cell);
+            try {
+                if (type == BEGIN) {
+                    Game game = new Game(new Board(cell, (arg & 1) != 0), arg >> 1);
+                    game.start();
+                    recovered.put(id, game);
+                } else {
+                    apply(recovered.get(id), type, arg, cell);
+                }
+            } catch (RuntimeException e) {
+                // Partie illisible : abandonnée, les autres sont reprises
+                recovered.remove(id);
+                finished.add(id);
+                compacted[0] = put(output, compacted[0], id, ABANDON, 0, 0);
+            }
+            return true;
+        });
+        for (Map.Entry<Integer, Game> entry : recovered.entrySet()) {
+            entry.getValue().setActionRecorder(new Recorder(entry.getKey(), entry.getValue().getBoardSize()));
+        }
+        return compacted[0];
+    }
+
+    /**
+     * Reads the records of a journal chunk by chunk, from the first one up to an offset.
+     * @param input the journal file
+     * @param end the offset after the last record to read
+     * @param visitor the action run on every record, until it returns false
+     * @return the offset after the last record accepted by the visitor
+     */
+    private static long scan(FileChannel input, long end, RecordVisitor visitor) throws IOException {
+        ByteBuffer chunk = allocate(CHUNK_SIZE);
+        long offset = RECORD_SIZE;
+        while (offset < end) {
+            chunk.clear().limit((int) Math.min(CHUNK_SIZE, end - offset));
+            readFully(input, chunk, offset);
+            for (int i = 0; i < chunk.limit(); i += RECORD_SIZE) {
+                if (!visitor.visit(chunk.getInt(i), chunk.get(i + 4), chunk.get(i + 5), chunk.getShort(i + 6) & 0xFFFF)) {
+                    return offset + i;
+                }
+            }
+            offset += chunk.limit();
+        }
+        return offset;
+    }
+
+    /**
+     * Adds a record to the buffer of a file, writing the buffer first if it is full.
+     * @return the buffer
+     */
+    private static ByteBuffer put(FileChannel output, ByteBuffer buffer, int game, byte type, int arg, int cell)
+            throws IOException {
+        if (buffer.remaining() < RECORD_SIZE) {
+            write(output, buffer);
+        }
+        return buffer.putInt(game).put(type).put((byte) arg).putShort((short) cell);
+    }
+
+    /**
+     * Writes the content of a buffer to a file and clears it.
+     */
+    private static void write(FileChannel output, ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            output.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    /**
+     * Applies a recorded action to a game.
+     */
+    private static void apply(Game game, byte type, int shape, int cell) {
+        int size = game.getBoardSize();
+        switch (type) {
+            case MOVE -> game.moveTotem(cell / size, cell % size, totemOf(game, CellCode.shape(shape)));
+            case PLACE -> game.placeToken(cell / size, cell % size, totemOf(game, CellCode.shape(shape)));
+            case SWITCH -> game.switchPlayer();
+            case UNDO -> game.undo();
+            case REDO -> game.redo();
+            case JUMP -> game.jumpToPly(cell);
+            default -> throw new IllegalStateException("Action inconnue : " + type);
+        }
+    }
+
+    /**
+     * Returns the totem of a shape placed on the board of a game.
+     */
+    private static Totem totemOf(Game game, Shape shape) {
+        Totem copy = game.choseTotem(shape);
+        return (Totem) game.getToken(copy.getX(), copy.getY());
+    }
+
+    /**
+     * Reads bytes of a file from an offset until the buffer is full.
+     */
+    private static void readFully(FileChannel input, ByteBuffer buffer, long offset) throws IOException {
+        while (buffer.hasRemaining()) {
+            int read = input.read(buffer, offset + buffer.position());
+            if (read < 0) {
+                throw new IOException("Fin inattendue du journal");
+            }
+        }
+        buffer.flip();
+    }
+
+    /**
+     * Creates a buffer in the byte order of the file.
+     */
+    private static ByteBuffer allocate(int capacity) {
+        return ByteBuffer.allocate(capacity).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    /**
+     * Checks if the journal is being closed.
+     */
+    private synchronized boolean isClosed() {
+        return closed;
+    }
+
+    /**
+     * Commits the remaining records, stops the writer thread and closes the file.
+     * The games of the journal must no longer be played.
+     * @throws IOException if a commit failed or the file cannot be closed
+     */
+    @Override
+    public void close() throws IOException {
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            notifyAll();
+        }
+        try {
+            writerThread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Fermeture du journal interrompue", e);
+        } finally {
+            channel.close();
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    // GETTERS
+
+    /**
+     * Returns the games in progress found when the journal was opened, by identifier, in creation order.
+     * They are recorded again by the journal.
+     * @return the recovered games
+     */
+    public Map<Integer, Game> getRecoveredGames() {
+        return Collections.unmodifiableMap(recovered);
+    }
+
+    /**
+     * Returns the number of records appended since the journal was opened.
+     * @return the number of appended records
+     */
+    public synchronized long getRecords() {
+        return appended;
+    }
+
+    /**
+     * Returns the number of commits to the disk since the journal was opened.
+     * @return the number of {@code fsync} calls
+     */
+    public synchronized long getCommits() {
+        return commits;
+    }
+
+    /**
+     * Action run on every record read from a journal.
+     */
+    @FunctionalInterface
+    private interface RecordVisitor {
+        /**
+         * Visits a record.
+         * @return false to stop reading at this record
+         */
+        boolean visit(int game, byte type, int arg, int cell) throws IOException;
+    }
+
+    /**
+     * The {@code Recorder} class appends the actions of one game to the journal.
+     */
+    private class Recorder implements ActionRecorder {
+
+        private final int id;
+        private final int size;
+
+        /**
+         * Constructs the recorder of a game.
+         * @param id the identifier of the game in the journal
+         * @param size the size of the board of the game
+         */
+        private Recorder(int id, int size) {
+            this.id = id;
+            this.size = size;
+        }
+
+        /**
+         * Records a totem move.
+         */
+        @Override
+        public void totemMoved(Shape shape, int x, int y) {
+            append(id, MOVE, CellCode.shapeIndex(shape), x * size + y);
+        }
+
+        /**
+         * Records a token placement.
+         */
+        @Override
+        public void tokenPlaced(Shape shape, int x, int y) {
+            append(id, PLACE, CellCode.shapeIndex(shape), x * size + y);
+        }
+
+        /**
+         * Records a change of player.
+         */
+        @Override
+        public void playerSwitched() {
+            append(id, SWITCH, 0, 0);
+        }
+
+        /**
+         * Records an undo.
+         */
+        @Override
+        public void undone() {
+            append(id, UNDO, 0, 0);
+        }
+
+        /**
+         * Records a redo.
+         */
+        @Override
+        public void redone() {
+            append(id, REDO, 0, 0);
+        }
+
+        /**
+         * Records a jump in the history.
+         */
+        @Override
+        public void jumped(long ply) {
+            append(id, JUMP, 0, (int) ply);
+        }
+
+        /**
+         * Records the abandon of the game.
+         */
+        @Override
+        public void abandoned() {
+            append(id, ABANDON, 0, 0);
+        }
+
+        /**
+         * Records the victory ending the game.
+         */
+        @Override
+        public void won() {
+            append(id, WON, 0, 0);
+        }
+
+        /**
+         * Records the draw ending the game.
+         */
+        @Override
+        public void drawn() {
+            append(id, DRAWN, 0, 0);
+        }
+    }
+}
@@ -0,0 +1,235 @@
+package g61258.dev3.oxono.persistence;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import g61258.dev3.oxono.model.GameSnapshot;
+import g61258.dev3.oxono.model.GameStat;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The {@code JsonGameCodec} class saves games as a JSON array, written and read with the streaming
+ * {@link JsonGenerator} and {@link JsonParser} of Jackson, field by field, without data binding.
+ * <p>A game is an object:</p>
+ * <pre>
+ * {"size": 6, "aiLevel": 1, "board": "000000...", "tokens": [8, 7, 8, 8], "lastMovedTotem": 0,
+ *  "player": "BLACK", "phase": "MOVE", "gameOver": false, "won": false,
+ *  "history": {"format": 2, "start": 0, "ply": 1, "turns": [...], "checkpoints": "base64", "pending": -1}}
+ * </pre>
+ * <p>The turns are packed as in the {@link g61258.dev3.oxono.model.CommandManager}, as {@code long}s since the
+ * format 2 of the history; a history of another format is refused rather than misread.</p>
+ * <p>The board is a string of one {@link g61258.dev3.oxono.model.CellCode} digit per cell, row by row.
+ * Unknown fields are skipped, so that later versions can add some.</p>
+ */
+public class JsonGameCodec implements GameCodec {
+
+    private static final int HISTORY_FORMAT = 2;
+
+    private static final JsonFactory FACTORY = new JsonFactory()
+            .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+            .disable(JsonParser.Feature.AUTO_CLOSE_SOURCE);
+
+    /**
+     * Writes the games as a JSON array.
+     * @param games the games to save
+     * @param out the stream receiving the games
+     * @throws IOException if the stream cannot be written
+     */
+    @Override
+    public void write(List<GameSnapshot> games, OutputStream out) throws IOException {
+        try (JsonGenerator json = FACTORY.createGenerator(out, JsonEncoding.UTF8)) {
+            json.writeStartArray();
+            for (GameSnapshot game : games) {
+                writeGame(json, game);
+            }
+            json.writeEndArray();
+        }
+    }
+
+    /**
+     * Writes one game as a JSON object.
+     */
+    private static void writeGame(JsonGenerator json, GameSnapshot game) throws IOException {
+        json.writeStartObject();
+        json.writeNumberField("size", game.getBoardSize());
+        json.writeNumberField("aiLevel", game.getAiLevel());
+        byte[] cells = game.getCells();
+        char[] board = new char[cells.length];
+        for (int i = 0; i < cells.length; i++) {
+            board[i] = (char) ('0' + cells[i]);
+        }
+        json.writeFieldName("board");
+        json.writeString(board, 0, board.length);
+        json.writeFieldName("tokens");
+        int[] tokens = game.getTokens();
+        json.writeArray(tokens, 0, tokens.length);
+        json.writeNumberField("lastMovedTotem", game.getLastMovedTotem());
+        json.writeStringField("player", game.getCurrentColor() == 0 ? "PINK" : "BLACK");
+        json.writeStringField("phase", game.getPhase().name());
+        json.writeBooleanField("gameOver", game.isGameOver());
+        json.writeBooleanField("won", game.isWon());
+
+        json.writeObjectFieldStart("history");
+        json.writeNumberField("format", HISTORY_FORMAT);
+        json.writeNumberField("start", game.getHistoryStart());
+        json.writeNumberField("ply", game.getHistoryPly());
+        json.writeFieldName("turns");
+        long[] turns = game.getHistory();
+        json.writeArray(turns, 0, turns.length);
+        json.writeBinaryField("checkpoints", game.getCheckpoints());
+        json.writeNumberField("pending", game.getPendingMove());
+        json.writeEndObject();
+        json.writeEndObject();
+    }
+
+    /**
+     * Reads the games of a JSON array.
+     * @param in the stream holding the games
+     * @return the games
+     * @throws IOException if the stream cannot be read or does not hold valid games
+     */
+    @Override
+    public List<GameSnapshot> read(InputStream in) throws IOException {
+        List<GameSnapshot> games = new ArrayList<>();
+        try (JsonParser json = FACTORY.createParser(in)) {
+            expect(json, json.nextToken(), JsonToken.START_ARRAY);
+            JsonToken token;
+            while ((token = json.nextToken()) != JsonToken.END_ARRAY) {
+                expect(json, token, JsonToken.START_OBJECT);
+                games.add(readGame(json));
+            }
+        }
+        return games;
+    }
+
+    /**
+     * Reads one game, the parser being on the start of its object.
+     */
+    private static GameSnapshot readGame(JsonParser json) throws IOException {
+        int size = 0;
+        int aiLevel = -1;
+        String board = null;
+        int[] tokens = null;
+        int lastMovedTotem = -1;
+        int color = 0;
+        GameStat phase = GameStat.MOVE;
+        boolean gameOver = false;
+        boolean won = false;
+        long start = 0;
+        int ply = 0;
+        int format = 0;
+        long[] turns = new long[0];
+        byte[] checkpoints = new byte[0];
+        long pending = -1;
+
+        while (json.nextToken() == JsonToken.FIELD_NAME) {
+            String field = json.currentName();
+            JsonToken value = json.nextToken();
+            switch (field) {
+                case "size" -> size = json.getIntValue();
+                case "aiLevel" -> aiLevel = json.getIntValue();
+                case "board" -> board = json.getText();
+                case "tokens" -> tokens = readInts(json, value);
+                case "lastMovedTotem" -> lastMovedTotem = json.getIntValue();
+                case "player" -> color = json.getText().equals("BLACK") ? 1 : 0;
+                case "phase" -> phase = readPhase(json);
+                case "gameOver" -> gameOver = json.getBooleanValue();
+                case "won" -> won = json.getBooleanValue();
+                case "history" -> {
+                    expect(json, value, JsonToken.START_OBJECT);
+                    while (json.nextToken() == JsonToken.FIELD_NAME) {
+                        String historyField = json.currentName();
+                        JsonToken historyValue = json.nextToken();
+                        switch (historyField) {
+                            case "format" -> format = json.getIntValue();
+                            case "start" -> start = json.getLongValue();
+                            case "ply" -> ply = json.getIntValue();
+                            case "turns" -> turns = readLongs(json, historyValue);
+                            case "checkpoints" -> checkpoints = json.getBinaryValue();
+                            case "pending" -> pending = json.getLongValue();
+                            default -> json.skipChildren();
+                        }
+                    }
+                }
+                default -> json.skipChildren(); // Champ d'une version ultérieure
+            }
+        }
+        if (board == null || tokens == null) {
+            throw new IOException("Partie incomplète à la ligne " + json.currentLocation().getLineNr());
+        }
+        if ((turns.length > 0 || pending >= 0) && format != HISTORY_FORMAT) {
+            throw new IOException("Format d'historique non pris en charge : " + format);
+        }
+        byte[] cells = new byte[board.length()];
+        for (int i = 0; i < cells.length; i++) {
+            cells[i] = (byte) (board.charAt(i) - '0');
+        }
+        try {
+            return new GameSnapshot(size, aiLevel, cells, tokens, lastMovedTotem, color, phase, gameOver, won,
+                    start, ply, turns, checkpoints, pending);
+        } catch (IllegalArgumentException e) {
+            throw new IOException(e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Reads an array of ints, the parser being on its start.
+     */
+    private static int[] readInts(JsonParser json, JsonToken start) throws IOException {
+        expect(json, start, JsonToken.START_ARRAY);
+        int[] values = new int[16];
+        int count = 0;
+        while (json.nextToken() != JsonToken.END_ARRAY) {
+            if (count == values.length) {
+                values = Arrays.copyOf(values, count * 2);
+            }
+            values[count++] = json.getIntValue();
+        }
+        return Arrays.copyOf(values, count);
+    }
+
+    /**
+     * Reads an array of longs, the parser being on its start.
+     */
+    private static long[] readLongs(JsonParser json, JsonToken start) throws IOException {
+        expect(json, start, JsonToken.START_ARRAY);
+        long[] values = new long[16];
+        int count = 0;
+        while (json.nextToken() != JsonToken.END_ARRAY) {
+            if (count == values.length) {
+                values = Arrays.copyOf(values, count * 2);
+            }
+            values[count++] = json.getLongValue();
+        }
+        return Arrays.copyOf(values, count);
+    }
+
+    /**
+     * Reads the phase of a turn.
+     */
+    private static GameStat readPhase(JsonParser json) throws IOException {
+        try {
+            return GameStat.valueOf(json.getText());
+        } catch (IllegalArgumentException e) {
+            throw new IOException("Phase inconnue : " + json.getText(), e);
+        }
+    }
+
+    /**
+     * Checks the kind of the current token.
+     */
+    private static void expect(JsonParser json, JsonToken token, JsonToken expected) throws IOException {
+        if (token != expected) {
+            throw new IOException("JSON inattendu à la ligne " + json.currentLocation().getLineNr() + " : " + token
+                    + " au lieu de " + expected);
+        }
+    }
+}
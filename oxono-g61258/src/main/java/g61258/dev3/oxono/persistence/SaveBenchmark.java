@@ -0,0 +1,128 @@
+package g61258.dev3.oxono.persistence;
+
+import g61258.dev3.oxono.model.Board;
+import g61258.dev3.oxono.model.Game;
+import g61258.dev3.oxono.model.GameSnapshot;
+import g61258.dev3.oxono.model.Move;
+import g61258.dev3.oxono.model.PlayoutEngine;
+import g61258.dev3.oxono.model.Position;
+import g61258.dev3.oxono.model.Shape;
+import g61258.dev3.oxono.model.Totem;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * The {@code SaveBenchmark} class compares the {@link GameCodec}s on games saved at random points of
+ * random games: the size of a saved game and the number of games written and read per second,
+ * restoring every read game as a {@link Game}.
+ *
+ * <pre>
+ * SaveBenchmark [games] [boardSize] [rounds]
+ * </pre>
+ */
+public final class SaveBenchmark {
+
+    private SaveBenchmark() {
+    }
+
+    /**
+     * Plays random games stopped at a random ply, some of them with undone turns left to redo
+     * or with a totem move waiting for its placement.
+     * @param count the number of games
+     * @param boardSize the size of the board
+     * @param seed the seed of the games
+     * @return the snapshots of the games
+     */
+    public static List<GameSnapshot> randomGames(int count, int boardSize, long seed) {
+        SplittableRandom random = new SplittableRandom(seed);
+        PlayoutEngine engine = new PlayoutEngine(seed);
+        List<GameSnapshot> games = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            Game game = new Game(new Board(boardSize, random.nextBoolean()), random.nextInt(2));
+            int turns = random.nextInt(2 * boardSize * boardSize);
+            int move;
+            while (turns-- > 0 && !game.isGameOver() && (move = engine.randomMove(Position.of(game))) >= 0) {
+                Totem totem = totemOf(game, Move.shape(move));
+                game.moveTotem(Move.destination(move) / boardSize, Move.destination(move) % boardSize, totem);
+                game.placeToken(Move.placement(move) / boardSize, Move.placement(move) % boardSize, totem);
+                game.endTurn();
+            }
+            if (!game.isGameOver()) {
+                switch (random.nextInt(4)) {
+                    case 0 -> {
+                        game.undo();
+                        game.undo();
+                    }
+                    case 1 -> {
+                        move = engine.randomMove(Position.of(game));
+                        if (move >= 0) {
+                            game.moveTotem(Move.destination(move) / boardSize, Move.destination(move) % boardSize,
+                                    totemOf(game, Move.shape(move)));
+                        }
+                    }
+                    default -> {
+                    }
+                }
+            }
+            games.add(game.snapshot());
+        }
+        return games;
+    }
+
+    /**
+     * Returns the totem of a shape as found on the board.
+     */
+    private static Totem totemOf(Game game, int shape) {
+        Totem copy = game.choseTotem(shape == 0 ? Shape.CROSS : Shape.CIRCLE);
+        return (Totem) game.getToken(copy.getX(), copy.getY());
+    }
+
+    /**
+     * Measures both codecs from the command line.
+     * @param args the number of games, the size of the board and the number of rounds
+     * @throws IOException if a codec fails
+     */
+    public static void main(String[] args) throws IOException {
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : 10_000;
+        int boardSize = args.length > 1 ? Integer.parseInt(args[1]) : 6;
+        int rounds = args.length > 2 ? Integer.parseInt(args[2]) : 5;
+        List<GameSnapshot> games = randomGames(count, boardSize, 1);
+        GameCodec[] codecs = {new JsonGameCodec(), new BinaryGameCodec()};
+        String[] names = {"JSON", "Binaire"};
+
+        for (int c = 0; c < codecs.length; c++) {
+            GameCodec codec = codecs[c];
+            byte[] saved = null;
+            long writeNanos = Long.MAX_VALUE;
+            long readNanos = Long.MAX_VALUE;
+            // Meilleur tour retenu : les premiers tours chauffent le compilateur
+            for (int round = 0; round < rounds; round++) {
+                ByteArrayOutputStream out = new ByteArrayOutputStream(saved == null ? 1 << 16 : saved.length);
+                long start = System.nanoTime();
+                codec.write(games, out);
+                writeNanos = Math.min(writeNanos, System.nanoTime() - start);
+                saved = out.toByteArray();
+
+                start = System.nanoTime();
+                List<GameSnapshot> read = codec.read(new ByteArrayInputStream(saved));
+                for (GameSnapshot game : read) {
+                    Game.restore(game);
+                }
+                readNanos = Math.min(readNanos, System.nanoTime() - start);
+                if (!read.equals(games)) {
+                    throw new IllegalStateException(names[c] + " : parties relues différentes");
+                }
+            }
+            System.out.printf("%-8s %6.1f octets par partie, écriture %,9.0f parties/s (%5.1f Mo/s), "
+                            + "lecture %,9.0f parties/s (%5.1f Mo/s)%n",
+                    names[c], (double) saved.length / count,
+                    count / (writeNanos / 1e9), saved.length / (writeNanos / 1e3),
+                    count / (readNanos / 1e9), saved.length / (readNanos / 1e3));
+        }
+    }
+}
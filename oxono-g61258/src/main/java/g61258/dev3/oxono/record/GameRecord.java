@@ -0,0 +1,140 @@
+package g61258.dev3.oxono.record;
+
+import g61258.dev3.oxono.model.Board;
+import g61258.dev3.oxono.model.Color;
+import g61258.dev3.oxono.model.Game;
+import g61258.dev3.oxono.model.Move;
+import g61258.dev3.oxono.model.Position;
+
+import java.util.Arrays;
+
+/**
+ * The {@code GameRecord} class holds a recorded game: its header (board size, initial totem
+ * layout, seed) and the packed {@link Move} of every turn, in the order they were played.
+ * <p>Records are written and read by {@link GameRecordWriter} and {@link GameRecordReader},
+ * and replayed through the regular {@link Game} API.</p>
+ */
+public class GameRecord {
+
+    private final int boardSize;
+    private final boolean crossTotemFirst;
+    private final long seed;
+    private final int[] moves;
+
+    /**
+     * Constructs a record.
+     * @param boardSize the size of the board
+     * @param crossTotemFirst the initial totem layout, see {@link Board#Board(int, boolean)}
+     * @param seed the seed the game was played with, 0 if unknown
+     * @param moves the packed moves of the game, copied
+     */
+    public GameRecord(int boardSize, boolean crossTotemFirst, long seed, int[] moves) {
+        this.boardSize = boardSize;
+        this.crossTotemFirst = crossTotemFirst;
+        this.seed = seed;
+        this.moves = moves.clone();
+    }
+
+    /**
+     * Replays the game from its initial layout with {@link Game#moveTotem(int, int, g61258.dev3.oxono.model.Totem)}
+     * and {@link Game#placeToken(int, int, g61258.dev3.oxono.model.Totem)}, checking the victory and
+     * switching players after every turn as the controllers do.
+     * @return the game after the last recorded move
+     */
+    public Game replay() {
+        Game game = new Game(new Board(boardSize, crossTotemFirst), null);
+        game.start();
+        for (int move : moves) {
+            Move.play(game, move);
+            if (game.endTurn()) {
+                break;
+            }
+        }
+        return game;
+    }
+
+    /**
+     * Plays the game on a compact position, for fast analysis.
+     * @return the position after the last recorded move, with its history
+     */
+    public Position toPosition() {
+        Position position = Position.initial(boardSize, crossTotemFirst);
+        for (int move : moves) {
+            position.play(move);
+        }
+        return position;
+    }
+
+    /**
+     * Returns the winner of the game, replaying it on a compact position.
+     * @return the color of the winner, or null for a game without winner
+     */
+    public Color getWinner() {
+        int winner = toPosition().getWinner();
+        return winner == Position.NONE ? null : winner == 0 ? Color.PINK : Color.BLACK;
+    }
+
+    // GETTERS
+
+    /**
+     * Returns the size of the board.
+     * @return the number of cells on a side of the board
+     */
+    public int getBoardSize() {
+        return boardSize;
+    }
+
+    /**
+     * Returns the initial totem layout.
+     * @return true if the cross totem started on the cell (size/2 - 1, size/2 - 1)
+     */
+    public boolean isCrossTotemFirst() {
+        return crossTotemFirst;
+    }
+
+    /**
+     * Returns the seed the game was played with.
+     * @return the seed, 0 if unknown
+     */
+    public long getSeed() {
+        return seed;
+    }
+
+    /**
+     * Returns the number of recorded turns.
+     * @return the number of moves
+     */
+    public int getMoveCount() {
+        return moves.length;
+    }
+
+    /**
+     * Returns a recorded move.
+     * @param index the index of the turn, from 0
+     * @return the packed move
+     */
+    public int getMove(int index) {
+        return moves[index];
+    }
+
+    /**
+     * Returns a copy of the recorded moves.
+     * @return the packed moves in the order they were played
+     */
+    public int[] getMoves() {
+        return moves.clone();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof GameRecord other)) return false;
+        return boardSize == other.boardSize && crossTotemFirst == other.crossTotemFirst
+                && seed == other.seed && Arrays.equals(moves, other.moves);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * (31 * Long.hashCode(seed) + boardSize) + Arrays.hashCode(moves);
+    }
+}
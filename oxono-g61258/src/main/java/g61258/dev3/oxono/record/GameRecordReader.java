@@ -0,0 +1,219 @@
+package g61258.dev3.oxono.record;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * The {@code GameRecordReader} class reads the games of a record file of {@link RecordFormat}
+ * through a buffered {@link FileChannel}.
+ * <p>Games are read whole with {@link #read()}, or streamed without allocation with
+ * {@link #nextGame()} followed by {@link #nextMove()} until it returns -1. {@link #seek(long)}
+ * jumps to a game whose offset was returned by the writer. The reader is not thread-safe.</p>
+ */
+public class GameRecordReader implements Closeable {
+
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private final FileChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+    // Position dans le fichier du premier octet du tampon
+    private long bufferStart;
+    private boolean inGame;
+    private int boardSize;
+    private boolean crossTotemFirst;
+    private long seed;
+    private long gameOffset;
+    private int[] moves = new int[64];
+
+    /**
+     * Opens a record file and checks its header.
+     * @param path the record file
+     * @throws IOException if the file cannot be read or is not a record file
+     */
+    public GameRecordReader(Path path) throws IOException {
+        this.channel = FileChannel.open(path, StandardOpenOption.READ);
+        buffer.flip(); // Tampon vide
+        try {
+            checkHeader(channel);
+            seek(RecordFormat.HEADER_SIZE);
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Checks the header of a record file.
+     * @param channel the open file
+     * @throws IOException if the file does not start with the header of this version
+     */
+    static void checkHeader(FileChannel channel) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(RecordFormat.HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        channel.read(header, 0);
+        header.flip();
+        if (header.remaining() < RecordFormat.HEADER_SIZE || header.getInt() != RecordFormat.MAGIC) {
+            throw new IOException("Fichier de parties invalide");
+        }
+        int version = header.getInt();
+        if (version != RecordFormat.VERSION) {
+            throw new IOException("Version de fichier non supportée : " + version);
+        }
+    }
+
+    /**
+     * Moves to the game starting at the given offset.
+     * @param offset the offset of a game, as returned by {@link GameRecordWriter#beginGame(int, boolean, long)}
+     * @throws IOException if the file cannot be read
+     */
+    public void seek(long offset) throws IOException {
+        if (offset >= bufferStart && offset <= bufferStart + buffer.limit()) {
+            buffer.position((int) (offset - bufferStart)); // Déjà dans le tampon
+        } else {
+            bufferStart = offset;
+            buffer.clear().flip();
+        }
+        inGame = false;
+    }
+
+    /**
+     * Reads the next game whole.
+     * @return the next game, or null at the end of the file
+     * @throws IOException if the file cannot be read or is truncated
+     */
+    public GameRecord read() throws IOException {
+        if (!nextGame()) {
+            return null;
+        }
+        int count = 0;
+        int move;
+        while ((move = nextMove()) >= 0) {
+            if (count == moves.length) {
+                moves = Arrays.copyOf(moves, count * 2);
+            }
+            moves[count++] = move;
+        }
+        return new GameRecord(boardSize, crossTotemFirst, seed, Arrays.copyOf(moves, count));
+    }
+
+    /**
+     * Reads the header of the next game, skipping the remaining turns of the current one.
+     * @return false at the end of the file
+     * @throws IOException if the file cannot be read or is truncated
+     */
+    public boolean nextGame() throws IOException {
+        while (inGame) {
+            nextMove();
+        }
+        if (!ensure(1)) {
+            return false;
+        }
+        gameOffset = bufferStart + buffer.position();
+        boardSize = (int) readVarint();
+        ensureOrFail(1);
+        crossTotemFirst = buffer.get() == 1;
+        seed = readVarint();
+        inGame = true;
+        return true;
+    }
+
+    /**
+     * Reads the next turn of the current game.
+     * @return the packed move, or -1 at the end of the game
+     * @throws IOException if the file cannot be read or is truncated
+     */
+    public int nextMove() throws IOException {
+        if (!inGame) {
+            return -1;
+        }
+        long value = readVarint();
+        if (value == 0) {
+            inGame = false;
+            return -1;
+        }
+        return RecordFormat.decodeMove((int) (value - 1), boardSize);
+    }
+
+    /**
+     * Reads an unsigned LEB128 varint, loading the bytes it may need beforehand.
+     */
+    private long readVarint() throws IOException {
+        ensure(RecordFormat.MAX_VARINT_BYTES); // En fin de fichier, un varint plus court reste lisible
+        return RecordFormat.getVarint(buffer);
+    }
+
+    /**
+     * Makes at least the given number of bytes available in the buffer, if the file has them.
+     * @return false if the end of the file is reached before
+     */
+    private boolean ensure(int bytes) throws IOException {
+        while (buffer.remaining() < bytes) {
+            bufferStart += buffer.position();
+            buffer.compact();
+            int read = channel.read(buffer, bufferStart + buffer.position());
+            buffer.flip();
+            if (read < 0) {
+                return buffer.remaining() >= bytes;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Makes the given number of bytes available in the buffer, failing at the end of the file.
+     */
+    private void ensureOrFail(int bytes) throws IOException {
+        if (!ensure(bytes)) {
+            throw new EOFException("Fichier de parties tronqué");
+        }
+    }
+
+    /**
+     * Closes the file.
+     * @throws IOException if the file cannot be closed
+     */
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    // GETTERS
+
+    /**
+     * Returns the board size of the current game.
+     * @return the size of the board
+     */
+    public int getBoardSize() {
+        return boardSize;
+    }
+
+    /**
+     * Returns the initial totem layout of the current game.
+     * @return true if the cross totem started first
+     */
+    public boolean isCrossTotemFirst() {
+        return crossTotemFirst;
+    }
+
+    /**
+     * Returns the seed of the current game.
+     * @return the seed, 0 if unknown
+     */
+    public long getSeed() {
+        return seed;
+    }
+
+    /**
+     * Returns the offset in the file of the current game.
+     * @return the offset to give to {@link #seek(long)} to read the game again
+     */
+    public long getGameOffset() {
+        return gameOffset;
+    }
+}
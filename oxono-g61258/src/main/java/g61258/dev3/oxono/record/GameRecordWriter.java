@@ -0,0 +1,179 @@
+package g61258.dev3.oxono.record;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * The {@code GameRecordWriter} class appends games to a record file of {@link RecordFormat}
+ * through a buffered {@link FileChannel}.
+ * <p>Games are written whole with {@link #write(GameRecord)}, or streamed turn by turn with
+ * {@link #beginGame(int, boolean, long)}, {@link #writeMove(int)} and {@link #endGame()} while they
+ * are played. A new file receives the header, an existing file is appended to.
+ * The writer is not thread-safe.</p>
+ */
+public class GameRecordWriter implements Closeable {
+
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private final FileChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+    private long written;
+    private int boardSize;
+    private boolean inGame;
+    private long games;
+
+    /**
+     * Opens a record file for appending, creating it with its header if it is empty.
+     * @param path the record file
+     * @throws IOException if the file cannot be opened, or is not a record file
+     */
+    public GameRecordWriter(Path path) throws IOException {
+        this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.READ);
+        try {
+            if (channel.size() == 0) {
+                buffer.putInt(RecordFormat.MAGIC).putInt(RecordFormat.VERSION);
+            } else {
+                GameRecordReader.checkHeader(channel);
+            }
+            written = channel.size();
+            channel.position(written);
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Writes a complete game.
+     * @param record the game to write
+     * @return the offset of the game in the file, to be given to {@link GameRecordReader#seek(long)}
+     * @throws IOException if the file cannot be written
+     */
+    public long write(GameRecord record) throws IOException {
+        long offset = beginGame(record.getBoardSize(), record.isCrossTotemFirst(), record.getSeed());
+        for (int i = 0; i < record.getMoveCount(); i++) {
+            writeMove(record.getMove(i));
+        }
+        endGame();
+        return offset;
+    }
+
+    /**
+     * Starts a new game by writing its header.
+     * @param boardSize the size of the board
+     * @param crossTotemFirst the initial totem layout
+     * @param seed the seed the game is played with, 0 if unknown
+     * @return the offset of the game in the file
+     * @throws IOException if the file cannot be written
+     */
+    public long beginGame(int boardSize, boolean crossTotemFirst, long seed) throws IOException {
+        if (inGame) {
+            throw new IllegalStateException("La partie précédente n'est pas terminée");
+        }
+        ensure(2 * RecordFormat.MAX_VARINT_BYTES + 1);
+        long offset = getPosition();
+        RecordFormat.putVarint(buffer, boardSize);
+        buffer.put((byte) (crossTotemFirst ? 1 : 0));
+        RecordFormat.putVarint(buffer, seed);
+        this.boardSize = boardSize;
+        this.inGame = true;
+        return offset;
+    }
+
+    /**
+     * Appends a turn to the current game.
+     * @param move the packed move of the turn
+     * @throws IOException if the file cannot be written
+     */
+    public void writeMove(int move) throws IOException {
+        if (!inGame) {
+            throw new IllegalStateException("Aucune partie en cours");
+        }
+        ensure(RecordFormat.MAX_VARINT_BYTES);
+        RecordFormat.putVarint(buffer, RecordFormat.encodeMove(move, boardSize) + 1L);
+    }
+
+    /**
+     * Ends the current game.
+     * @throws IOException if the file cannot be written
+     */
+    public void endGame() throws IOException {
+        if (!inGame) {
+            throw new IllegalStateException("Aucune partie en cours");
+        }
+        ensure(1);
+        buffer.put((byte) 0);
+        inGame = false;
+        games++;
+    }
+
+    /**
+     * Writes the buffered bytes to the file.
+     * @throws IOException if the file cannot be written
+     */
+    public void flush() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            written += channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    /**
+     * Flushes the buffer and forces the written bytes to the disk.
+     * @throws IOException if the file cannot be written
+     */
+    public void force() throws IOException {
+        flush();
+        channel.force(false);
+    }
+
+    /**
+     * Flushes the buffer and closes the file. A game still in progress is ended first.
+     * @throws IOException if the file cannot be written
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            if (inGame) {
+                endGame();
+            }
+            flush();
+        } finally {
+            channel.close();
+        }
+    }
+
+    /**
+     * Flushes the buffer if it has less than the given free space.
+     */
+    private void ensure(int bytes) throws IOException {
+        if (buffer.remaining() < bytes) {
+            flush();
+        }
+    }
+
+    // GETTERS
+
+    /**
+     * Returns the offset in the file of the next written byte.
+     * @return the size the file will have once flushed
+     */
+    public long getPosition() {
+        return written + buffer.position();
+    }
+
+    /**
+     * Returns the number of games ended by this writer.
+     * @return the number of written games
+     */
+    public long getGames() {
+        return games;
+    }
+}
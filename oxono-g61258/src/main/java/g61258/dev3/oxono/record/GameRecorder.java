@@ -0,0 +1,114 @@
+package g61258.dev3.oxono.record;
+
+import g61258.dev3.oxono.model.Board;
+import g61258.dev3.oxono.model.Game;
+import g61258.dev3.oxono.model.OpponentStrategy;
+import g61258.dev3.oxono.tournament.GameRunner;
+import g61258.dev3.oxono.tournament.LatencyHistogram;
+import g61258.dev3.oxono.tournament.StrategyRegistry;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.function.Supplier;
+
+/**
+ * The {@code GameRecorder} class plays headless games between two strategies and streams every
+ * turn to a {@link GameRecordWriter} while the game is played.
+ * <p>The seed of each game decides its initial totem layout and is stored in its header.</p>
+ *
+ * <pre>
+ * GameRecorder [-g games] [-s boardSize] [-seed seed] -o file pinkStrategy [blackStrategy]
+ * </pre>
+ */
+public class GameRecorder {
+
+    private final GameRecordWriter writer;
+    private final int boardSize;
+
+    /**
+     * Constructs a recorder.
+     * @param writer the writer receiving the games
+     * @param boardSize the size of the board
+     */
+    public GameRecorder(GameRecordWriter writer, int boardSize) {
+        this.writer = writer;
+        this.boardSize = boardSize;
+    }
+
+    /**
+     * Plays and records a game.
+     * @param pink the strategy of the pink player
+     * @param black the strategy of the black player
+     * @param seed the seed of the game
+     * @return {@link GameRunner#PINK_WINS}, {@link GameRunner#BLACK_WINS} or {@link GameRunner#DRAW}
+     * @throws IOException if the game cannot be written
+     */
+    public int record(OpponentStrategy pink, OpponentStrategy black, long seed) throws IOException {
+        boolean crossTotemFirst = new SplittableRandom(seed).nextBoolean();
+        Game game = new Game(new Board(boardSize, crossTotemFirst), null);
+        game.start();
+        LatencyHistogram latency = new LatencyHistogram();
+
+        writer.beginGame(boardSize, crossTotemFirst, seed);
+        int result;
+        try {
+            result = new GameRunner(boardSize).play(game, pink, black, latency, latency, move -> {
+                try {
+                    writer.writeMove(move);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        writer.endGame();
+        return result;
+    }
+
+    /**
+     * Records games from the command line.
+     * @param args the options and the names of the strategies
+     * @throws IOException if the file cannot be written
+     */
+    public static void main(String[] args) throws IOException {
+        int games = 100;
+        int boardSize = 6;
+        long seed = System.nanoTime();
+        Path output = null;
+        List<String> names = new ArrayList<>();
+
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "-g" -> games = Integer.parseInt(args[++i]);
+                case "-s" -> boardSize = Integer.parseInt(args[++i]);
+                case "-seed" -> seed = Long.parseLong(args[++i]);
+                case "-o" -> output = Path.of(args[++i]);
+                default -> names.add(args[i]);
+            }
+        }
+        if (output == null || names.isEmpty() || names.size() > 2) {
+            System.err.println("Usage : GameRecorder [-g parties] [-s taille] [-seed graine] -o fichier strategieRose [strategieNoire]");
+            System.err.println("Stratégies disponibles : " + StrategyRegistry.names());
+            System.exit(1);
+        }
+
+        Supplier<OpponentStrategy> pink = StrategyRegistry.get(names.get(0));
+        Supplier<OpponentStrategy> black = StrategyRegistry.get(names.get(names.size() - 1));
+        long start = System.nanoTime();
+        try (GameRecordWriter writer = new GameRecordWriter(output)) {
+            long before = writer.getPosition();
+            GameRecorder recorder = new GameRecorder(writer, boardSize);
+            for (int i = 0; i < games; i++) {
+                recorder.record(pink.get(), black.get(), seed + i);
+            }
+            writer.flush();
+            System.out.printf("%d parties enregistrées dans %s en %.1f s, %.1f octets par partie%n", games, output,
+                    (System.nanoTime() - start) / 1e9, (double) (writer.getPosition() - before) / games);
+        }
+    }
+}
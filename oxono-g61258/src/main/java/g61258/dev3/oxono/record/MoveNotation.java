@@ -0,0 +1,154 @@
+package g61258.dev3.oxono.record;
+
+import g61258.dev3.oxono.model.Move;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * The {@code MoveNotation} class writes and reads the text notation of a complete turn: the letter
+ * of the moved totem, its destination cell and the cell of the placed token, for example
+ * {@code Xc3c4}.
+ * <p>The totem letter is {@code X} for the cross and {@code O} for the circle. A cell is written
+ * as the letter of its column followed by the number of its row, {@code a1} being the cell
+ * (0, 0) and {@code c4} the cell (3, 2), so that boards up to {@value #MAX_SIZE} columns
+ * can be noted.</p>
+ * <p>A game is written on a single line by {@link NotationWriter} and read by {@link NotationReader}:
+ * board size, initial totem layout ({@code X} when the cross totem starts on the first central
+ * cell, else {@code O}), seed, then the turns, separated by spaces. Lines starting with
+ * {@code #} are comments.</p>
+ * <pre>
+ * # Oxono
+ * 6 X 42 Xc3c4 Od3e3 Xc2b2
+ * </pre>
+ */
+public final class MoveNotation {
+
+    /**
+     * Largest board size of the notation.
+     */
+    public static final int MAX_SIZE = 26;
+
+    /**
+     * Largest number of characters of a noted turn.
+     */
+    public static final int MAX_LENGTH = 7;
+
+    private MoveNotation() {
+    }
+
+    /**
+     * Writes a turn into a byte array, without allocation.
+     * @param move the packed move
+     * @param size the size of the board
+     * @param out the array receiving the ASCII characters, with at least {@value #MAX_LENGTH} free bytes
+     * @param offset the index of the first written byte
+     * @return the index after the last written byte
+     */
+    public static int format(int move, int size, byte[] out, int offset) {
+        out[offset++] = (byte) (Move.shape(move) == 0 ? 'X' : 'O');
+        offset = formatCell(Move.destination(move), size, out, offset);
+        return formatCell(Move.placement(move), size, out, offset);
+    }
+
+    /**
+     * Writes a cell: column letter then row number.
+     */
+    private static int formatCell(int cell, int size, byte[] out, int offset) {
+        int x = cell / size;
+        out[offset++] = (byte) ('a' + cell % size);
+        if (x >= 9) {
+            out[offset++] = (byte) ('0' + (x + 1) / 10);
+        }
+        out[offset++] = (byte) ('0' + (x + 1) % 10);
+        return offset;
+    }
+
+    /**
+     * Returns the notation of a turn.
+     * @param move the packed move
+     * @param size the size of the board
+     * @return the text of the turn, for example {@code Xc3c4}
+     */
+    public static String toString(int move, int size) {
+        byte[] text = new byte[MAX_LENGTH];
+        int length = format(move, size, text, 0);
+        return new String(text, 0, length, StandardCharsets.US_ASCII);
+    }
+
+    /**
+     * Reads a turn. Letters may be upper or lower case, spaces around the turn are ignored.
+     * The legality of the turn is not checked.
+     * @param text the notation of a turn
+     * @param size the size of the board
+     * @return the packed move, or -1 if the text is not a turn on this board
+     */
+    public static int parse(CharSequence text, int size) {
+        int start = 0;
+        int end = text.length();
+        while (start < end && Character.isWhitespace(text.charAt(start))) {
+            start++;
+        }
+        while (end > start && Character.isWhitespace(text.charAt(end - 1))) {
+            end--;
+        }
+        if (start == end) {
+            return -1;
+        }
+        int shape = shapeOf(text.charAt(start));
+        if (shape < 0) {
+            return -1;
+        }
+        long destination = parseCell(text, start + 1, end, size);
+        if (destination < 0) {
+            return -1;
+        }
+        long placement = parseCell(text, (int) (destination >>> 32), end, size);
+        if (placement < 0 || (int) (placement >>> 32) != end) {
+            return -1;
+        }
+        return Move.of(shape, (int) destination, (int) placement);
+    }
+
+    /**
+     * Reads a cell from a character sequence.
+     * @return the index after the cell in the high half and the cell in the low half, or -1
+     */
+    private static long parseCell(CharSequence text, int index, int end, int size) {
+        if (index >= end) {
+            return -1;
+        }
+        int y = Character.toLowerCase(text.charAt(index++)) - 'a';
+        int row = 0;
+        int digits = 0;
+        while (index < end && digits < 3 && text.charAt(index) >= '0' && text.charAt(index) <= '9') {
+            row = row * 10 + text.charAt(index++) - '0';
+            digits++;
+        }
+        int cell = cellOf(row - 1, y, size);
+        return digits == 0 || cell < 0 ? -1 : (long) index << 32 | cell;
+    }
+
+    /**
+     * Converts a totem letter to a shape index.
+     * @param c the letter, upper or lower case
+     * @return 0 for the cross, 1 for the circle, -1 for any other character
+     */
+    static int shapeOf(int c) {
+        return switch (c) {
+            case 'X', 'x' -> 0;
+            case 'O', 'o' -> 1;
+            default -> -1;
+        };
+    }
+
+    /**
+     * Converts coordinates to a cell index.
+     * @param x the row, from 0
+     * @param y the column, from 0
+     * @param size the size of the board
+     * @return the index of the cell, or -1 if it is outside the board
+     */
+    static int cellOf(int x, int y, int size) {
+        return x < 0 || y < 0 || x >= size || y >= size ? -1 : x * size + y;
+    }
+}
@@ -0,0 +1,83 @@
+package g61258.dev3.oxono.record;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * The {@code NotationConverter} class converts games between the binary record files of
+ * {@link RecordFormat} and the text notation of {@link MoveNotation}, streaming every turn without
+ * building the games in memory.
+ *
+ * <pre>
+ * NotationConverter export records.oxr games.txt
+ * NotationConverter import games.txt records.oxr
+ * </pre>
+ */
+public final class NotationConverter {
+
+    private NotationConverter() {
+    }
+
+    /**
+     * Appends the games of a record file to a text file.
+     * @param records the record file to read
+     * @param text the text file to append to
+     * @return the number of converted games
+     * @throws IOException if a file cannot be read or written
+     */
+    public static long export(Path records, Path text) throws IOException {
+        try (GameRecordReader reader = new GameRecordReader(records);
+             NotationWriter writer = new NotationWriter(text)) {
+            while (reader.nextGame()) {
+                writer.beginGame(reader.getBoardSize(), reader.isCrossTotemFirst(), reader.getSeed());
+                int move;
+                while ((move = reader.nextMove()) >= 0) {
+                    writer.writeMove(move);
+                }
+                writer.endGame();
+            }
+            return writer.getGames();
+        }
+    }
+
+    /**
+     * Appends the games of a text file to a record file.
+     * @param text the text file to read
+     * @param records the record file to append to
+     * @return the number of converted games
+     * @throws IOException if a file cannot be read or written, or a line is malformed
+     */
+    public static long importText(Path text, Path records) throws IOException {
+        try (NotationReader reader = new NotationReader(text);
+             GameRecordWriter writer = new GameRecordWriter(records)) {
+            long before = writer.getGames();
+            while (reader.nextGame()) {
+                writer.beginGame(reader.getBoardSize(), reader.isCrossTotemFirst(), reader.getSeed());
+                int move;
+                while ((move = reader.nextMove()) >= 0) {
+                    writer.writeMove(move);
+                }
+                writer.endGame();
+            }
+            return writer.getGames() - before;
+        }
+    }
+
+    /**
+     * Converts a file from the command line.
+     * @param args the direction, the input file and the output file
+     * @throws IOException if a file cannot be read or written
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length != 3 || !(args[0].equals("export") || args[0].equals("import"))) {
+            System.err.println("Usage : NotationConverter export parties.oxr parties.txt | NotationConverter import parties.txt parties.oxr");
+            System.exit(1);
+        }
+        long start = System.nanoTime();
+        Path input = Path.of(args[1]);
+        Path output = Path.of(args[2]);
+        long games = args[0].equals("export") ? export(input, output) : importText(input, output);
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.printf("%d parties converties en %.2f s, %.0f parties par minute%n", games, seconds, games * 60 / seconds);
+    }
+}
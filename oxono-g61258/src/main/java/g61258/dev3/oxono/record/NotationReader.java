@@ -0,0 +1,270 @@
+package g61258.dev3.oxono.record;
+
+import g61258.dev3.oxono.model.Move;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * The {@code NotationReader} class reads games written in the text notation of {@link MoveNotation},
+ * one game per line, through a buffered {@link FileChannel}.
+ * <p>Games are read whole with {@link #read()}, or streamed without allocation with
+ * {@link #nextGame()} followed by {@link #nextMove()} until it returns -1, as with
+ * {@link GameRecordReader}. The bytes are parsed by hand: no string, matcher or boxed number is
+ * created, except to report a malformed line. The reader is not thread-safe.</p>
+ */
+public class NotationReader implements Closeable {
+
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private final FileChannel channel;
+    private final byte[] data = new byte[BUFFER_SIZE];
+    private final ByteBuffer buffer = ByteBuffer.wrap(data);
+    private int position;
+    private int limit;
+    private boolean endOfFile;
+    private long line;
+    private boolean inGame;
+    private int boardSize;
+    private boolean crossTotemFirst;
+    private long seed;
+    private int[] moves = new int[64];
+
+    /**
+     * Opens a text file of games.
+     * @param path the file to read
+     * @throws IOException if the file cannot be opened
+     */
+    public NotationReader(Path path) throws IOException {
+        this.channel = FileChannel.open(path, StandardOpenOption.READ);
+    }
+
+    /**
+     * Reads the next game whole.
+     * @return the next game, or null at the end of the file
+     * @throws IOException if the file cannot be read or a line is malformed
+     */
+    public GameRecord read() throws IOException {
+        if (!nextGame()) {
+            return null;
+        }
+        int count = 0;
+        int move;
+        while ((move = nextMove()) >= 0) {
+            if (count == moves.length) {
+                moves = Arrays.copyOf(moves, count * 2);
+            }
+            moves[count++] = move;
+        }
+        return new GameRecord(boardSize, crossTotemFirst, seed, Arrays.copyOf(moves, count));
+    }
+
+    /**
+     * Reads the header of the next game, skipping the remaining turns of the current one,
+     * the empty lines and the comments.
+     * @return false at the end of the file
+     * @throws IOException if the file cannot be read or the header is malformed
+     */
+    public boolean nextGame() throws IOException {
+        while (inGame) {
+            nextMove();
+        }
+        while (true) {
+            skipSpaces();
+            int c = peek();
+            if (c < 0) {
+                return false;
+            }
+            if (c == '\n') {
+                position++;
+                line++;
+            } else if (c == '#') {
+                while ((c = peek()) >= 0 && c != '\n') {
+                    position++;
+                }
+            } else {
+                break;
+            }
+        }
+        line++;
+        boardSize = (int) readNumber();
+        if (boardSize < 2 || boardSize > MoveNotation.MAX_SIZE) {
+            throw malformed("taille de plateau " + boardSize);
+        }
+        skipSpaces();
+        int layout = MoveNotation.shapeOf(peek());
+        if (layout < 0) {
+            throw malformed("disposition des totems attendue");
+        }
+        position++;
+        crossTotemFirst = layout == 0;
+        seed = readNumber();
+        inGame = true;
+        return true;
+    }
+
+    /**
+     * Reads the next turn of the current game.
+     * @return the packed move, or -1 at the end of the game
+     * @throws IOException if the file cannot be read or the turn is malformed
+     */
+    public int nextMove() throws IOException {
+        if (!inGame) {
+            return -1;
+        }
+        skipSpaces();
+        int c = peek();
+        if (c < 0 || c == '\n') {
+            if (c == '\n') {
+                position++;
+            }
+            inGame = false;
+            return -1;
+        }
+        int shape = MoveNotation.shapeOf(c);
+        if (shape < 0) {
+            throw malformed("totem attendu");
+        }
+        position++;
+        int destination = readCell();
+        int placement = readCell();
+        c = peek();
+        if (c >= 0 && c != ' ' && c != '\t' && c != '\r' && c != '\n') {
+            throw malformed("séparateur attendu");
+        }
+        return Move.of(shape, destination, placement);
+    }
+
+    /**
+     * Reads a cell: column letter then row number.
+     */
+    private int readCell() throws IOException {
+        int c = peek();
+        int y = (c | 0x20) - 'a'; // Minuscule
+        position++;
+        int row = 0;
+        int digits = 0;
+        while ((c = peek()) >= '0' && c <= '9' && digits < 3) {
+            row = row * 10 + c - '0';
+            digits++;
+            position++;
+        }
+        int cell = MoveNotation.cellOf(row - 1, y, boardSize);
+        if (digits == 0 || cell < 0) {
+            throw malformed("case invalide");
+        }
+        return cell;
+    }
+
+    /**
+     * Reads a decimal number, possibly negative, after optional spaces.
+     */
+    private long readNumber() throws IOException {
+        skipSpaces();
+        boolean negative = peek() == '-';
+        if (negative) {
+            position++;
+        }
+        long value = 0;
+        int digits = 0;
+        int c;
+        while ((c = peek()) >= '0' && c <= '9') {
+            value = value * 10 + c - '0';
+            digits++;
+            position++;
+        }
+        if (digits == 0 || digits > 19) {
+            throw malformed("nombre attendu");
+        }
+        return negative ? -value : value;
+    }
+
+    /**
+     * Skips spaces, tabs and carriage returns, but not the end of the line.
+     */
+    private void skipSpaces() throws IOException {
+        int c;
+        while ((c = peek()) == ' ' || c == '\t' || c == '\r') {
+            position++;
+        }
+    }
+
+    /**
+     * Returns the next byte without consuming it, refilling the buffer if needed.
+     * @return the next byte, or -1 at the end of the file
+     */
+    private int peek() throws IOException {
+        if (position == limit) {
+            if (endOfFile) {
+                return -1;
+            }
+            buffer.clear();
+            int read = 0;
+            while (read == 0) {
+                read = channel.read(buffer);
+            }
+            if (read < 0) {
+                endOfFile = true;
+                return -1;
+            }
+            position = 0;
+            limit = read;
+        }
+        return data[position] & 0xFF;
+    }
+
+    /**
+     * Creates the exception reporting a malformed line.
+     */
+    private IOException malformed(String reason) {
+        return new IOException("Notation invalide ligne " + line + " : " + reason);
+    }
+
+    /**
+     * Closes the file.
+     * @throws IOException if the file cannot be closed
+     */
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    // GETTERS
+
+    /**
+     * Returns the board size of the current game.
+     * @return the size of the board
+     */
+    public int getBoardSize() {
+        return boardSize;
+    }
+
+    /**
+     * Returns the initial totem layout of the current game.
+     * @return true if the cross totem starts on the first central cell
+     */
+    public boolean isCrossTotemFirst() {
+        return crossTotemFirst;
+    }
+
+    /**
+     * Returns the seed of the current game.
+     * @return the seed written in the header of the game
+     */
+    public long getSeed() {
+        return seed;
+    }
+
+    /**
+     * Returns the number of the line of the current game.
+     * @return the line number, from 1
+     */
+    public long getLine() {
+        return line;
+    }
+}
@@ -0,0 +1,190 @@
+package g61258.dev3.oxono.record;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * The {@code NotationWriter} class appends games to a text file in the notation of
+ * {@link MoveNotation}, one game per line, through a buffered {@link FileChannel}.
+ * <p>Games are written whole with {@link #write(GameRecord)}, or streamed turn by turn with
+ * {@link #beginGame(int, boolean, long)}, {@link #writeMove(int)} and {@link #endGame()}, as with
+ * {@link GameRecordWriter}. Characters are formatted directly into the buffer, without allocation.
+ * The writer is not thread-safe.</p>
+ */
+public class NotationWriter implements Closeable {
+
+    private static final int BUFFER_SIZE = 1 << 16;
+    private static final int MAX_HEADER = 32;
+
+    private final FileChannel channel;
+    private final byte[] data = new byte[BUFFER_SIZE];
+    private final ByteBuffer buffer = ByteBuffer.wrap(data);
+    private int position;
+    private int boardSize;
+    private boolean inGame;
+    private long games;
+
+    /**
+     * Opens a text file for appending, creating it if needed.
+     * @param path the text file
+     * @throws IOException if the file cannot be opened
+     */
+    public NotationWriter(Path path) throws IOException {
+        this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.APPEND);
+    }
+
+    /**
+     * Writes a complete game.
+     * @param record the game to write
+     * @throws IOException if the file cannot be written
+     */
+    public void write(GameRecord record) throws IOException {
+        beginGame(record.getBoardSize(), record.isCrossTotemFirst(), record.getSeed());
+        for (int i = 0; i < record.getMoveCount(); i++) {
+            writeMove(record.getMove(i));
+        }
+        endGame();
+    }
+
+    /**
+     * Starts a new game line.
+     * @param boardSize the size of the board, at most {@value MoveNotation#MAX_SIZE}
+     * @param crossTotemFirst the initial totem layout
+     * @param seed the seed of the game
+     * @throws IOException if the file cannot be written
+     */
+    public void beginGame(int boardSize, boolean crossTotemFirst, long seed) throws IOException {
+        if (inGame) {
+            throw new IllegalStateException("Une partie est déjà en cours");
+        }
+        if (boardSize < 2 || boardSize > MoveNotation.MAX_SIZE) {
+            throw new IllegalArgumentException("Taille de plateau non notable : " + boardSize);
+        }
+        ensure(MAX_HEADER);
+        putNumber(boardSize);
+        data[position++] = ' ';
+        data[position++] = (byte) (crossTotemFirst ? 'X' : 'O');
+        data[position++] = ' ';
+        putNumber(seed);
+        this.boardSize = boardSize;
+        inGame = true;
+    }
+
+    /**
+     * Writes a turn of the current game.
+     * @param move the packed move
+     * @throws IOException if the file cannot be written
+     */
+    public void writeMove(int move) throws IOException {
+        if (!inGame) {
+            throw new IllegalStateException("Aucune partie en cours");
+        }
+        ensure(MoveNotation.MAX_LENGTH + 1);
+        data[position++] = ' ';
+        position = MoveNotation.format(move, boardSize, data, position);
+    }
+
+    /**
+     * Ends the line of the current game.
+     * @throws IOException if the file cannot be written
+     */
+    public void endGame() throws IOException {
+        if (!inGame) {
+            throw new IllegalStateException("Aucune partie en cours");
+        }
+        ensure(1);
+        data[position++] = '\n';
+        inGame = false;
+        games++;
+    }
+
+    /**
+     * Writes a comment line.
+     * @param comment the text of the comment, without line break
+     * @throws IOException if the file cannot be written
+     */
+    public void writeComment(String comment) throws IOException {
+        if (inGame) {
+            throw new IllegalStateException("Une partie est en cours");
+        }
+        byte[] text = ("# " + comment + "\n").getBytes(StandardCharsets.UTF_8);
+        flush();
+        ByteBuffer line = ByteBuffer.wrap(text);
+        while (line.hasRemaining()) {
+            channel.write(line);
+        }
+    }
+
+    /**
+     * Writes a decimal number, possibly negative.
+     */
+    private void putNumber(long value) {
+        if (value < 0) {
+            data[position++] = '-';
+        }
+        // Chiffres écrits à l'envers puis retournés ; Long.MIN_VALUE reste négatif à chaque étape
+        int start = position;
+        do {
+            data[position++] = (byte) ('0' + Math.abs(value % 10));
+            value /= 10;
+        } while (value != 0);
+        for (int i = start, j = position - 1; i < j; i++, j--) {
+            byte swap = data[i];
+            data[i] = data[j];
+            data[j] = swap;
+        }
+    }
+
+    /**
+     * Writes the buffered bytes to the file.
+     * @throws IOException if the file cannot be written
+     */
+    public void flush() throws IOException {
+        buffer.clear().limit(position);
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        position = 0;
+    }
+
+    /**
+     * Flushes the buffer if it has less than the given free space.
+     */
+    private void ensure(int bytes) throws IOException {
+        if (data.length - position < bytes) {
+            flush();
+        }
+    }
+
+    /**
+     * Flushes the buffer and closes the file. A game still in progress is ended first.
+     * @throws IOException if the file cannot be written
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            if (inGame) {
+                endGame();
+            }
+            flush();
+        } finally {
+            channel.close();
+        }
+    }
+
+    // GETTERS
+
+    /**
+     * Returns the number of games ended by this writer.
+     * @return the number of written games
+     */
+    public long getGames() {
+        return games;
+    }
+}
@@ -0,0 +1,106 @@
+package g61258.dev3.oxono.record;
+
+import g61258.dev3.oxono.model.Move;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * The {@code RecordFormat} class describes the binary file of game records.
+ * <p>The file starts with the magic number {@link #MAGIC} and the {@link #VERSION} as two
+ * little-endian ints, followed by the games one after another. A game is:</p>
+ * <ul>
+ *     <li>the board size as a varint;</li>
+ *     <li>one byte for the initial totem layout, 1 when the cross totem starts first;</li>
+ *     <li>the seed as a varint of 64 bits;</li>
+ *     <li>one varint per turn, the {@linkplain #encodeMove(int, int) compact move} plus one;</li>
+ *     <li>a zero varint ending the game.</li>
+ * </ul>
+ * <p>Varints are unsigned LEB128: seven bits per byte, low bits first, the high bit set on every
+ * byte but the last. A turn of a 6x6 game takes two bytes. {@link #putVarint(ByteBuffer, long)} and
+ * {@link #getVarint(ByteBuffer)} are the only implementation of them, shared with the binary saves.</p>
+ */
+public final class RecordFormat {
+
+    /**
+     * Magic number at the start of every record file ("OXGR").
+     */
+    public static final int MAGIC = 0x5247584F;
+
+    /**
+     * Version of the format.
+     */
+    public static final int VERSION = 1;
+
+    /**
+     * Size of the file header in bytes.
+     */
+    public static final int HEADER_SIZE = 8;
+
+    /**
+     * Maximum number of bytes of a varint of 64 bits.
+     */
+    public static final int MAX_VARINT_BYTES = 10;
+
+    private RecordFormat() {
+    }
+
+    /**
+     * Converts a packed {@link Move} to its compact form: {@code (destination * cells + placement) * 2 + shape}.
+     * @param move the packed move
+     * @param boardSize the size of the board
+     * @return the compact move
+     */
+    public static int encodeMove(int move, int boardSize) {
+        int cells = boardSize * boardSize;
+        return (Move.destination(move) * cells + Move.placement(move)) << 1 | Move.shape(move);
+    }
+
+    /**
+     * Writes an unsigned LEB128 varint.
+     * @param buffer the buffer, with at least {@link #MAX_VARINT_BYTES} free bytes
+     * @param value the value, read as unsigned
+     */
+    public static void putVarint(ByteBuffer buffer, long value) {
+        while ((value & ~0x7FL) != 0) {
+            buffer.put((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        buffer.put((byte) value);
+    }
+
+    /**
+     * Reads an unsigned LEB128 varint.
+     * @param buffer the buffer, positioned on the first byte of the varint
+     * @return the value, as unsigned
+     * @throws EOFException if the buffer ends inside the varint
+     * @throws IOException if the varint is longer than {@link #MAX_VARINT_BYTES} bytes
+     */
+    public static long getVarint(ByteBuffer buffer) throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            if (!buffer.hasRemaining()) {
+                throw new EOFException("Varint tronqué à la position " + buffer.position());
+            }
+            byte b = buffer.get();
+            value |= (long) (b & 0x7F) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+        throw new IOException("Varint trop long à la position " + buffer.position());
+    }
+
+    /**
+     * Converts a compact move back to a packed {@link Move}.
+     * @param compact the compact move
+     * @param boardSize the size of the board
+     * @return the packed move
+     */
+    public static int decodeMove(int compact, int boardSize) {
+        int cells = boardSize * boardSize;
+        int cellPair = compact >>> 1;
+        return Move.of(compact & 1, cellPair / cells, cellPair % cells);
+    }
+}
@@ -0,0 +1,208 @@
+package g61258.dev3.oxono.record;
+
+import g61258.dev3.oxono.model.Position;
+
+/**
+ * The {@code ReplayEngine} class moves through a recorded game ply by ply, without going through
+ * {@link g61258.dev3.oxono.model.Game} and its observers.
+ * <p>The engine keeps the moves of the game and a snapshot of the position every
+ * {@code interval} plies: the content of every cell, the remaining tokens and the player to move,
+ * packed in a single byte array. Seeking a ply loads the closest snapshot before it and plays at
+ * most {@code interval - 1} moves, or simply plays or undoes moves when the current ply is closer.
+ * Stepping forward plays a move, stepping backward undoes it.</p>
+ */
+public class ReplayEngine {
+
+    /**
+     * Default number of plies between two snapshots.
+     */
+    public static final int DEFAULT_INTERVAL = 8;
+
+    private static final int COUNTS = 4;
+
+    private final int[] moves;
+    private final int interval;
+    private final int snapshotSize;
+    private final byte[] snapshots;
+    private final byte[] cellBuffer;
+    private final int[] countBuffer = new int[COUNTS];
+    private final Position position;
+
+    private int ply;
+    private int base;
+
+    /**
+     * Constructs an engine with a snapshot every {@value #DEFAULT_INTERVAL} plies.
+     * @param record the game to replay
+     */
+    public ReplayEngine(GameRecord record) {
+        this(record, DEFAULT_INTERVAL);
+    }
+
+    /**
+     * Constructs an engine, replaying the whole game once to take the snapshots.
+     * The engine is then at ply 0.
+     * @param record the game to replay
+     * @param interval the number of plies between two snapshots
+     */
+    public ReplayEngine(GameRecord record, int interval) {
+        if (interval < 1) {
+            throw new IllegalArgumentException("Intervalle de sauvegarde invalide : " + interval);
+        }
+        this.moves = record.getMoves();
+        this.interval = interval;
+        int cells = record.getBoardSize() * record.getBoardSize();
+        this.snapshotSize = cells + COUNTS + 1;
+        this.cellBuffer = new byte[cells];
+
+        // Pas d'instantané au dernier coup : le vainqueur ne serait pas restauré
+        int count = moves.length == 0 ? 1 : (moves.length - 1) / interval + 1;
+        this.snapshots = new byte[count * snapshotSize];
+        this.position = Position.initial(record.getBoardSize(), record.isCrossTotemFirst());
+        for (int i = 0; i < moves.length; i++) {
+            if (i % interval == 0) {
+                save(i / interval);
+            }
+            position.play(moves[i]);
+        }
+        if (moves.length == 0) {
+            save(0);
+        }
+        restore(0);
+    }
+
+    /**
+     * Moves to the given ply, through the cheapest of undoing, playing forward or restoring a snapshot.
+     * @param target the number of moves played, between 0 and {@link #getLength()}
+     * @return the position after these moves, owned by the engine
+     */
+    public Position seek(int target) {
+        if (target < 0 || target > moves.length) {
+            throw new IndexOutOfBoundsException("Coup hors de la partie : " + target);
+        }
+        int snapshot = Math.min(target / interval, (moves.length - 1) / interval);
+        int fromSnapshot = target - snapshot * interval;
+        if (target >= ply && target - ply <= fromSnapshot) {
+            while (ply < target) {
+                position.play(moves[ply++]);
+            }
+        } else if (target < ply && target >= base && ply - target <= fromSnapshot) {
+            while (ply > target) {
+                position.undo();
+                ply--;
+            }
+        } else {
+            restore(snapshot);
+            while (ply < target) {
+                position.play(moves[ply++]);
+            }
+        }
+        return position;
+    }
+
+    /**
+     * Plays the next move of the game.
+     * @return the position after the move, owned by the engine
+     * @throws IllegalStateException if the end of the game is reached
+     */
+    public Position forward() {
+        if (ply == moves.length) {
+            throw new IllegalStateException("Fin de la partie atteinte");
+        }
+        position.play(moves[ply++]);
+        return position;
+    }
+
+    /**
+     * Goes back one move.
+     * @return the position before the last move, owned by the engine
+     * @throws IllegalStateException if the start of the game is reached
+     */
+    public Position backward() {
+        if (ply == 0) {
+            throw new IllegalStateException("Début de la partie atteint");
+        }
+        if (ply > base) {
+            position.undo();
+            ply--;
+            return position;
+        }
+        return seek(ply - 1);
+    }
+
+    /**
+     * Packs the current position into a snapshot.
+     * @param index the number of the snapshot
+     */
+    private void save(int index) {
+        int offset = index * snapshotSize;
+        position.exportCells(cellBuffer);
+        System.arraycopy(cellBuffer, 0, snapshots, offset, cellBuffer.length);
+        offset += cellBuffer.length;
+        for (int color = 0; color < 2; color++) {
+            for (int shape = 0; shape < 2; shape++) {
+                snapshots[offset++] = (byte) position.getTokenCount(color, shape);
+            }
+        }
+        snapshots[offset] = (byte) position.getSide();
+    }
+
+    /**
+     * Loads a snapshot into the position, which loses its history.
+     * @param index the number of the snapshot
+     */
+    private void restore(int index) {
+        int offset = index * snapshotSize;
+        System.arraycopy(snapshots, offset, cellBuffer, 0, cellBuffer.length);
+        offset += cellBuffer.length;
+        for (int i = 0; i < COUNTS; i++) {
+            countBuffer[i] = snapshots[offset++];
+        }
+        position.load(cellBuffer, countBuffer, snapshots[offset]);
+        ply = index * interval;
+        base = ply;
+    }
+
+    // GETTERS
+
+    /**
+     * Returns the current position. It changes with the engine and must not be modified.
+     * @return the position after {@link #getPly()} moves
+     */
+    public Position getPosition() {
+        return position;
+    }
+
+    /**
+     * Returns the number of moves played to reach the current position.
+     * @return the current ply
+     */
+    public int getPly() {
+        return ply;
+    }
+
+    /**
+     * Returns the number of moves of the game.
+     * @return the last ply that can be reached
+     */
+    public int getLength() {
+        return moves.length;
+    }
+
+    /**
+     * Returns the recorded move played at the given ply.
+     * @param index the ply of the move, from 0
+     * @return the packed move
+     */
+    public int getMove(int index) {
+        return moves[index];
+    }
+
+    /**
+     * Returns the number of plies between two snapshots.
+     * @return the snapshot interval
+     */
+    public int getInterval() {
+        return interval;
+    }
+}
@@ -0,0 +1,111 @@
+package g61258.dev3.oxono.tournament;
+
+import g61258.dev3.oxono.model.Board;
+import g61258.dev3.oxono.model.Color;
+import g61258.dev3.oxono.model.Game;
+import g61258.dev3.oxono.model.Move;
+import g61258.dev3.oxono.model.OpponentStrategy;
+
+import java.util.function.IntConsumer;
+
+/**
+ * The {@code GameRunner} class plays a complete game between two strategies without any view,
+ * following the same turn sequence as the controllers: the strategy of the current player plays,
+ * the victory is checked on the placed token, then the turn passes to the other player.
+ * The duration of every turn is recorded in the histogram of the player.
+ */
+public class GameRunner {
+
+    /**
+     * Result of a game won by the pink player.
+     */
+    public static final int PINK_WINS = 0;
+
+    /**
+     * Result of a game won by the black player.
+     */
+    public static final int BLACK_WINS = 1;
+
+    /**
+     * Result of a game without winner.
+     */
+    public static final int DRAW = 2;
+
+    private final int boardSize;
+
+    /**
+     * Constructs a runner for games on boards of the given size.
+     * @param boardSize the size of the board
+     */
+    public GameRunner(int boardSize) {
+        this.boardSize = boardSize;
+    }
+
+    /**
+     * Plays a game until a player wins, both players run out of tokens or a player cannot play.
+     * @param pink the strategy of the pink player, who moves first
+     * @param black the strategy of the black player
+     * @param crossTotemFirst the initial totem layout, see {@link Board#Board(int, boolean)}
+     * @param pinkLatency the histogram receiving the duration of the turns of the pink player
+     * @param blackLatency the histogram receiving the duration of the turns of the black player
+     * @return {@link #PINK_WINS}, {@link #BLACK_WINS} or {@link #DRAW}
+     */
+    public int play(OpponentStrategy pink, OpponentStrategy black, boolean crossTotemFirst,
+                    LatencyHistogram pinkLatency, LatencyHistogram blackLatency) {
+        Game game = new Game(new Board(boardSize, crossTotemFirst), null);
+        game.start();
+        return play(game, pink, black, pinkLatency, blackLatency);
+    }
+
+    /**
+     * Plays an already created game until its end.
+     * @param game the game to play, pink to move
+     * @param pink the strategy of the pink player
+     * @param black the strategy of the black player
+     * @param pinkLatency the histogram receiving the duration of the turns of the pink player
+     * @param blackLatency the histogram receiving the duration of the turns of the black player
+     * @return {@link #PINK_WINS}, {@link #BLACK_WINS} or {@link #DRAW}
+     */
+    public int play(Game game, OpponentStrategy pink, OpponentStrategy black,
+                    LatencyHistogram pinkLatency, LatencyHistogram blackLatency) {
+        return play(game, pink, black, pinkLatency, blackLatency, null);
+    }
+
+    /**
+     * Plays an already created game until its end, reporting every played turn.
+     * @param game the game to play, pink to move
+     * @param pink the strategy of the pink player
+     * @param black the strategy of the black player
+     * @param pinkLatency the histogram receiving the duration of the turns of the pink player
+     * @param blackLatency the histogram receiving the duration of the turns of the black player
+     * @param moveListener receives the {@link Move} of every turn, before the victory check, may be null
+     * @return {@link #PINK_WINS}, {@link #BLACK_WINS} or {@link #DRAW}
+     */
+    public int play(Game game, OpponentStrategy pink, OpponentStrategy black,
+                    LatencyHistogram pinkLatency, LatencyHistogram blackLatency, IntConsumer moveListener) {
+        int maxTurns = boardSize * boardSize;
+        for (int turn = 0; turn < maxTurns; turn++) {
+            if (!game.stillHasTokens()) {
+                return DRAW; // Plus aucun jeton pour les deux joueurs
+            }
+            boolean pinkToMove = game.getCurrentPlayerColor() == Color.PINK;
+            long ply = game.getPly();
+
+            long start = System.nanoTime();
+            game.playTurn(pinkToMove ? pink : black);
+            long elapsed = System.nanoTime() - start;
+            (pinkToMove ? pinkLatency : blackLatency).record(elapsed);
+
+            if (game.getPly() == ply) {
+                return DRAW; // La stratégie n'a pas pu jouer : aucun tour ajouté à l'historique
+            }
+            if (moveListener != null) {
+                moveListener.accept(Move.lastMoveOf(game));
+            }
+            if (game.endTurn()) {
+                return game.getCurrentPlayerColor() == Color.PINK ? PINK_WINS : BLACK_WINS;
+            }
+        }
+        return DRAW;
+    }
+}
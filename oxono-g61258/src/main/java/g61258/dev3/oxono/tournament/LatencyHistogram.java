@@ -0,0 +1,129 @@
+package g61258.dev3.oxono.tournament;
+
+/**
+ * The {@code LatencyHistogram} class records durations in nanoseconds in log-linear buckets:
+ * each power of two is split in 16 buckets, so percentiles are precise to about 6%
+ * whatever the magnitude, in a fixed amount of memory.
+ * <p>A histogram is not thread-safe; histograms filled by different threads can be merged.</p>
+ */
+public class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 4;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int BUCKETS = (64 - SUB_BUCKET_BITS + 1) * SUB_BUCKETS;
+
+    private final long[] counts = new long[BUCKETS];
+    private long count;
+    private long total;
+    private long max;
+
+    /**
+     * Records a duration.
+     * @param nanos the duration in nanoseconds, negative values are counted as 0
+     */
+    public void record(long nanos) {
+        long value = Math.max(0, nanos);
+        counts[index(value)]++;
+        count++;
+        total += value;
+        max = Math.max(max, value);
+    }
+
+    /**
+     * Adds all the durations recorded by another histogram to this one.
+     * @param other the histogram to merge
+     */
+    public void merge(LatencyHistogram other) {
+        for (int i = 0; i < BUCKETS; i++) {
+            counts[i] += other.counts[i];
+        }
+        count += other.count;
+        total += other.total;
+        max = Math.max(max, other.max);
+    }
+
+    /**
+     * Returns the number of recorded durations.
+     * @return the number of values
+     */
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * Returns the mean of the recorded durations.
+     * @return the mean in nanoseconds, or 0 if nothing was recorded
+     */
+    public double getMean() {
+        return count == 0 ? 0.0 : (double) total / count;
+    }
+
+    /**
+     * Returns the largest recorded duration.
+     * @return the maximum in nanoseconds
+     */
+    public long getMax() {
+        return max;
+    }
+
+    /**
+     * Returns an approximation of a percentile of the recorded durations.
+     * @param percentile the percentile, between 0 and 100
+     * @return the middle of the bucket holding the percentile, in nanoseconds, or 0 if nothing was recorded
+     */
+    public long getPercentile(double percentile) {
+        if (count == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100.0 * count));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return Math.min(max, lowerBound(i) + (width(i) - 1) / 2);
+            }
+        }
+        return max;
+    }
+
+    /**
+     * Returns the bucket of a value.
+     * @param value a non-negative value
+     * @return the index of the bucket
+     */
+    private static int index(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int sub = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+        return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + sub;
+    }
+
+    /**
+     * Returns the smallest value of a bucket.
+     * @param index the index of the bucket
+     * @return the lower bound of the bucket
+     */
+    private static long lowerBound(int index) {
+        if (index < SUB_BUCKETS) {
+            return index;
+        }
+        int exponent = index / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+        long sub = index % SUB_BUCKETS;
+        return (SUB_BUCKETS + sub) << (exponent - SUB_BUCKET_BITS);
+    }
+
+    /**
+     * Returns the number of distinct values of a bucket.
+     * @param index the index of the bucket
+     * @return the width of the bucket
+     */
+    private static long width(int index) {
+        if (index < SUB_BUCKETS) {
+            return 1;
+        }
+        int exponent = index / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+        return 1L << (exponent - SUB_BUCKET_BITS);
+    }
+}
@@ -0,0 +1,173 @@
+package g61258.dev3.oxono.tournament;
+
+import g61258.dev3.oxono.model.OpponentStrategy;
+
+import java.io.PrintStream;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Supplier;
+
+/**
+ * The {@code Match} class plays a series of headless games between two strategies A and B,
+ * spread over a pool of threads.
+ * <p>Games are played in blocks of four so that each strategy plays both colors with both
+ * initial totem layouts: A is pink in even games, and the cross totem starts first in the
+ * first two games of every block. Every game uses new strategy instances.</p>
+ */
+public class Match {
+
+    /**
+     * Number of games between two live reports of the sequential test.
+     */
+    public static final int REPORT_INTERVAL = 50;
+
+    private final String nameA;
+    private final String nameB;
+    private final Supplier<OpponentStrategy> strategyA;
+    private final Supplier<OpponentStrategy> strategyB;
+    private final int boardSize;
+    private final int threads;
+
+    /**
+     * Constructs a match between two registered strategies.
+     * @param nameA the name of strategy A in the {@link StrategyRegistry}
+     * @param nameB the name of strategy B in the {@link StrategyRegistry}
+     * @param boardSize the size of the board
+     * @param threads the number of games played in parallel
+     */
+    public Match(String nameA, String nameB, int boardSize, int threads) {
+        this(nameA, StrategyRegistry.get(nameA), nameB, StrategyRegistry.get(nameB), boardSize, threads);
+    }
+
+    /**
+     * Constructs a match between two strategy factories.
+     * @param nameA the name displayed for strategy A
+     * @param strategyA the factory of strategy A
+     * @param nameB the name displayed for strategy B
+     * @param strategyB the factory of strategy B
+     * @param boardSize the size of the board
+     * @param threads the number of games played in parallel
+     */
+    public Match(String nameA, Supplier<OpponentStrategy> strategyA, String nameB, Supplier<OpponentStrategy> strategyB,
+                 int boardSize, int threads) {
+        this.nameA = nameA;
+        this.nameB = nameB;
+        this.strategyA = strategyA;
+        this.strategyB = strategyB;
+        this.boardSize = boardSize;
+        this.threads = Math.max(1, threads);
+    }
+
+    /**
+     * Plays the given number of games and collects their results.
+     * @param games the number of games to play
+     * @return the results of the match, seen from A, {@linkplain MatchResult#isInterrupted() marked interrupted}
+     *         if the thread was interrupted before the last game
+     */
+    public MatchResult run(int games) {
+        return run(games, null, null);
+    }
+
+    /**
+     * Plays games until the given number of games or until the sequential test reaches a decision.
+     * Only a few games per thread are submitted in advance, the games still running when the test
+     * stops are cancelled and not counted. If the thread is interrupted, the games still running are
+     * cancelled too, the interrupt status is kept and the result is marked incomplete.
+     * @param maxGames the maximum number of games to play
+     * @param sprt the sequential test stopping the match, or null to play every game
+     * @param progress the stream receiving the live report of the test every {@link #REPORT_INTERVAL} games,
+     *                 or null for no report
+     * @return the results of the match, seen from A, {@linkplain MatchResult#isInterrupted() marked interrupted}
+     *         if the thread was interrupted before the end of the match
+     */
+    public MatchResult run(int maxGames, Sprt sprt, PrintStream progress) {
+        MatchResult result = new MatchResult(nameA, nameB);
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            CompletionService<GameOutcome> completion = new ExecutorCompletionService<>(pool);
+            int submitted = 0;
+            while (submitted < Math.min(maxGames, threads * 2)) {
+                submit(completion, submitted++);
+            }
+            while (result.getGames() < submitted) {
+                GameOutcome outcome = completion.take().get();
+                result.add(outcome.score, outcome.latencyA, outcome.latencyB);
+
+                if (sprt != null) {
+                    Sprt.Status status = sprt.status(result);
+                    if (progress != null && (status != Sprt.Status.CONTINUE || result.getGames() % REPORT_INTERVAL == 0)) {
+                        progress.println(sprt.report(result));
+                    }
+                    if (status != Sprt.Status.CONTINUE) {
+                        break;
+                    }
+                }
+                if (submitted < maxGames) {
+                    submit(completion, submitted++);
+                }
+            }
+        } catch (InterruptedException e) {
+            result.markInterrupted(); // Résultat partiel : l'appelant ne doit pas le prendre pour un match complet
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Une partie du match a échoué", e.getCause());
+        } finally {
+            pool.shutdownNow();
+        }
+        return result;
+    }
+
+    /**
+     * Submits a game to the pool.
+     * @param completion the completion service of the match
+     * @param index the index of the game
+     */
+    private void submit(CompletionService<GameOutcome> completion, int index) {
+        completion.submit(() -> playGame(index));
+    }
+
+    /**
+     * Plays one game of the match.
+     * @param index the index of the game, which decides the colors and the totem layout
+     * @return the outcome of the game, seen from A
+     */
+    GameOutcome playGame(int index) {
+        boolean aIsPink = index % 2 == 0;
+        boolean crossTotemFirst = (index / 2) % 2 == 0;
+        LatencyHistogram latencyA = new LatencyHistogram();
+        LatencyHistogram latencyB = new LatencyHistogram();
+        OpponentStrategy a = strategyA.get();
+        OpponentStrategy b = strategyB.get();
+
+        GameRunner runner = new GameRunner(boardSize);
+        int result = aIsPink
+                ? runner.play(a, b, crossTotemFirst, latencyA, latencyB)
+                : runner.play(b, a, crossTotemFirst, latencyB, latencyA);
+
+        int score = 0;
+        if (result == GameRunner.PINK_WINS) {
+            score = aIsPink ? 1 : -1;
+        } else if (result == GameRunner.BLACK_WINS) {
+            score = aIsPink ? -1 : 1;
+        }
+        return new GameOutcome(score, latencyA, latencyB);
+    }
+
+    /**
+     * Outcome of a single game: the score of A and the latencies of both strategies.
+     */
+    static class GameOutcome {
+        final int score;
+        final LatencyHistogram latencyA;
+        final LatencyHistogram latencyB;
+
+        GameOutcome(int score, LatencyHistogram latencyA, LatencyHistogram latencyB) {
+            this.score = score;
+            this.latencyA = latencyA;
+            this.latencyB = latencyB;
+        }
+    }
+}
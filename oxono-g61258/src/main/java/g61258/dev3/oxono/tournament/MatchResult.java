@@ -0,0 +1,226 @@
+package g61258.dev3.oxono.tournament;
+
+/**
+ * The {@code MatchResult} class accumulates the results of the games of a match between
+ * a strategy A and a strategy B, seen from A, and the turn latencies of both strategies.
+ * <p>It computes the Elo difference of A over B from the score, with a 95% confidence interval
+ * derived from the variance of the per-game scores (wins, draws and losses).</p>
+ */
+public class MatchResult {
+
+    private static final double Z_95 = 1.959963984540054;
+
+    private final String nameA;
+    private final String nameB;
+    private int wins;
+    private int draws;
+    private int losses;
+    private boolean interrupted;
+    private final LatencyHistogram latencyA = new LatencyHistogram();
+    private final LatencyHistogram latencyB = new LatencyHistogram();
+
+    /**
+     * Constructs an empty result.
+     * @param nameA the name of strategy A
+     * @param nameB the name of strategy B
+     */
+    public MatchResult(String nameA, String nameB) {
+        this.nameA = nameA;
+        this.nameB = nameB;
+    }
+
+    /**
+     * Adds the result of a game.
+     * @param score 1 if A won, 0 for a draw, -1 if B won
+     * @param gameLatencyA the turn latencies of A during the game
+     * @param gameLatencyB the turn latencies of B during the game
+     */
+    public void add(int score, LatencyHistogram gameLatencyA, LatencyHistogram gameLatencyB) {
+        if (score > 0) {
+            wins++;
+        } else if (score < 0) {
+            losses++;
+        } else {
+            draws++;
+        }
+        latencyA.merge(gameLatencyA);
+        latencyB.merge(gameLatencyB);
+    }
+
+    /**
+     * Marks the result as incomplete: the match was interrupted before playing all its games
+     * or before its sequential test decided.
+     */
+    void markInterrupted() {
+        interrupted = true;
+    }
+
+    /**
+     * Returns the number of played games.
+     * @return wins + draws + losses
+     */
+    public int getGames() {
+        return wins + draws + losses;
+    }
+
+    /**
+     * Returns the mean score of A, a draw counting as half a win.
+     * @return the score between 0 and 1, or 0.5 if no game was played
+     */
+    public double getScore() {
+        int games = getGames();
+        return games == 0 ? 0.5 : (wins + draws / 2.0) / games;
+    }
+
+    /**
+     * Returns the Elo difference of A over B matching the score.
+     * @return the Elo difference, positive if A is stronger
+     */
+    public double getEloDifference() {
+        return eloFromScore(getScore());
+    }
+
+    /**
+     * Returns the half-width of the 95% confidence interval of the Elo difference.
+     * @return the Elo error margin, infinite if the score is 0 or 1
+     */
+    public double getEloErrorMargin() {
+        int games = getGames();
+        if (games == 0) {
+            return Double.POSITIVE_INFINITY;
+        }
+        double score = getScore();
+        double deviation = Math.sqrt(getScoreVariance() / games);
+        double upper = eloFromScore(Math.min(1.0, score + Z_95 * deviation));
+        double lower = eloFromScore(Math.max(0.0, score - Z_95 * deviation));
+        return (upper - lower) / 2;
+    }
+
+    /**
+     * Returns the variance of the score of a single game of A.
+     * @return the per-game score variance
+     */
+    public double getScoreVariance() {
+        int games = getGames();
+        if (games == 0) {
+            return 0.0;
+        }
+        double score = getScore();
+        double winPart = wins * Math.pow(1.0 - score, 2);
+        double drawPart = draws * Math.pow(0.5 - score, 2);
+        double lossPart = losses * Math.pow(score, 2);
+        return (winPart + drawPart + lossPart) / games;
+    }
+
+    /**
+     * Converts a score into an Elo difference with the logistic model.
+     * @param score the expected score between 0 and 1
+     * @return the Elo difference, infinite for a score of 0 or 1
+     */
+    public static double eloFromScore(double score) {
+        if (score <= 0.0) {
+            return Double.NEGATIVE_INFINITY;
+        }
+        if (score >= 1.0) {
+            return Double.POSITIVE_INFINITY;
+        }
+        return -400.0 * Math.log10(1.0 / score - 1.0);
+    }
+
+    /**
+     * Converts an Elo difference into an expected score with the logistic model.
+     * @param elo the Elo difference
+     * @return the expected score between 0 and 1
+     */
+    public static double scoreFromElo(double elo) {
+        return 1.0 / (1.0 + Math.pow(10.0, -elo / 400.0));
+    }
+
+    // GETTERS
+
+    /**
+     * Returns the name of strategy A.
+     * @return the name of A
+     */
+    public String getNameA() {
+        return nameA;
+    }
+
+    /**
+     * Returns the name of strategy B.
+     * @return the name of B
+     */
+    public String getNameB() {
+        return nameB;
+    }
+
+    /**
+     * Returns the number of games won by A.
+     * @return the wins of A
+     */
+    public int getWins() {
+        return wins;
+    }
+
+    /**
+     * Returns the number of games without winner.
+     * @return the draws
+     */
+    public int getDraws() {
+        return draws;
+    }
+
+    /**
+     * Returns the number of games lost by A.
+     * @return the losses of A
+     */
+    public int getLosses() {
+        return losses;
+    }
+
+    /**
+     * Tells whether the match stopped early because its thread was interrupted.
+     * @return true if the result holds only the games finished before the interruption
+     */
+    public boolean isInterrupted() {
+        return interrupted;
+    }
+
+    /**
+     * Returns the turn latencies of A over the whole match.
+     * @return the latency histogram of A
+     */
+    public LatencyHistogram getLatencyA() {
+        return latencyA;
+    }
+
+    /**
+     * Returns the turn latencies of B over the whole match.
+     * @return the latency histogram of B
+     */
+    public LatencyHistogram getLatencyB() {
+        return latencyB;
+    }
+
+    /**
+     * Returns a report of the match: results, Elo difference and latencies.
+     * @return a multi-line summary of the match
+     */
+    @Override
+    public String toString() {
+        return String.format("%s vs %s : %d parties, +%d =%d -%d, score %.1f%%%s%n",
+                nameA, nameB, getGames(), wins, draws, losses, getScore() * 100, interrupted ? " (interrompu)" : "")
+                + String.format("  Elo %s : %+.1f +/- %.1f%n", nameA, getEloDifference(), getEloErrorMargin())
+                + formatLatency(nameA, latencyA)
+                + formatLatency(nameB, latencyB);
+    }
+
+    /**
+     * Formats the latencies of a strategy.
+     */
+    private static String formatLatency(String name, LatencyHistogram latency) {
+        return String.format("  Latence %s : moyenne %.3f ms, p99 %.3f ms, max %.3f ms (%d coups)%n",
+                name, latency.getMean() / 1e6, latency.getPercentile(99) / 1e6,
+                latency.getMax() / 1e6, latency.getCount());
+    }
+}
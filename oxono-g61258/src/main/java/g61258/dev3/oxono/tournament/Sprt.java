@@ -0,0 +1,111 @@
+package g61258.dev3.oxono.tournament;
+
+/**
+ * The {@code Sprt} class implements a sequential probability ratio test on the results of a match,
+ * to decide as early as possible between two hypotheses on the Elo difference of A over B:
+ * H0 : elo = elo0 and H1 : elo = elo1.
+ * <p>The log-likelihood ratio uses the normal approximation of the per-game score, whose
+ * variance is estimated from the observed wins, draws and losses. The test accepts H1 when the
+ * ratio reaches {@code ln((1 - beta) / alpha)} and H0 when it falls to {@code ln(beta / (1 - alpha))}.
+ * Elo values follow the logistic model of {@link MatchResult#scoreFromElo(double)}.</p>
+ */
+public class Sprt {
+
+    /**
+     * State of the test after some games.
+     */
+    public enum Status {
+        CONTINUE, // Aucune borne n'est encore atteinte
+        ACCEPT_H0, // A n'est pas plus fort de elo1
+        ACCEPT_H1 // A est plus fort de elo1
+    }
+
+    private final double elo0;
+    private final double elo1;
+    private final double lowerBound;
+    private final double upperBound;
+
+    /**
+     * Constructs a test with error rates of 5%.
+     * @param elo0 the Elo difference of the null hypothesis
+     * @param elo1 the Elo difference of the alternative hypothesis, greater than elo0
+     */
+    public Sprt(double elo0, double elo1) {
+        this(elo0, elo1, 0.05, 0.05);
+    }
+
+    /**
+     * Constructs a test.
+     * @param elo0 the Elo difference of the null hypothesis
+     * @param elo1 the Elo difference of the alternative hypothesis, greater than elo0
+     * @param alpha the probability of accepting H1 when H0 is true
+     * @param beta the probability of accepting H0 when H1 is true
+     */
+    public Sprt(double elo0, double elo1, double alpha, double beta) {
+        if (elo1 <= elo0) {
+            throw new IllegalArgumentException("elo1 doit être supérieur à elo0");
+        }
+        this.elo0 = elo0;
+        this.elo1 = elo1;
+        this.lowerBound = Math.log(beta / (1 - alpha));
+        this.upperBound = Math.log((1 - beta) / alpha);
+    }
+
+    /**
+     * Computes the log-likelihood ratio of H1 against H0 for the results of a match.
+     * @param result the results of the match, seen from A
+     * @return the log-likelihood ratio, 0 while the score variance is null
+     */
+    public double logLikelihoodRatio(MatchResult result) {
+        double variance = result.getScoreVariance();
+        if (variance <= 0) {
+            return 0.0;
+        }
+        double s0 = MatchResult.scoreFromElo(elo0);
+        double s1 = MatchResult.scoreFromElo(elo1);
+        return result.getGames() * (s1 - s0) * (2 * result.getScore() - s0 - s1) / (2 * variance);
+    }
+
+    /**
+     * Returns the decision of the test for the results of a match.
+     * @param result the results of the match, seen from A
+     * @return the accepted hypothesis, or {@link Status#CONTINUE} if no bound is crossed
+     */
+    public Status status(MatchResult result) {
+        double llr = logLikelihoodRatio(result);
+        if (llr >= upperBound) {
+            return Status.ACCEPT_H1;
+        }
+        if (llr <= lowerBound) {
+            return Status.ACCEPT_H0;
+        }
+        return Status.CONTINUE;
+    }
+
+    /**
+     * Returns the bound under which H0 is accepted.
+     * @return the lower bound of the log-likelihood ratio
+     */
+    public double getLowerBound() {
+        return lowerBound;
+    }
+
+    /**
+     * Returns the bound above which H1 is accepted.
+     * @return the upper bound of the log-likelihood ratio
+     */
+    public double getUpperBound() {
+        return upperBound;
+    }
+
+    /**
+     * Returns a one-line report of the test for the results of a match.
+     * @param result the results of the match, seen from A
+     * @return the games, results, ratio, bounds and decision
+     */
+    public String report(MatchResult result) {
+        return String.format("SPRT [%.1f, %.1f] : %d parties, +%d =%d -%d, LLR %.2f [%.2f, %.2f] %s",
+                elo0, elo1, result.getGames(), result.getWins(), result.getDraws(), result.getLosses(),
+                logLikelihoodRatio(result), lowerBound, upperBound, status(result));
+    }
+}
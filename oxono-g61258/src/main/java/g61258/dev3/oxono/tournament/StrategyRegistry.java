@@ -0,0 +1,70 @@
+package g61258.dev3.oxono.tournament;
+
+import g61258.dev3.oxono.model.MonteCarloStrategy;
+import g61258.dev3.oxono.model.NTupleNetwork;
+import g61258.dev3.oxono.model.OpponentStrategy;
+import g61258.dev3.oxono.model.OpponentStrategyLevel2;
+import g61258.dev3.oxono.model.PatternEvaluator;
+import g61258.dev3.oxono.model.RandomOpponentStrategy;
+import g61258.dev3.oxono.model.SearchParameters;
+import g61258.dev3.oxono.model.SearchStrategy;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.function.Supplier;
+
+/**
+ * The {@code StrategyRegistry} class maps the names used on the command line
+ * to factories of {@link OpponentStrategy} implementations.
+ * A new strategy instance is created for every game, so strategies holding state
+ * (random generators, caches) are never shared between threads.
+ */
+public final class StrategyRegistry {
+
+    private static final Map<String, Supplier<OpponentStrategy>> STRATEGIES = new LinkedHashMap<>();
+
+    static {
+        register("random", RandomOpponentStrategy::new);
+        register("level2", OpponentStrategyLevel2::new);
+        register("eval", () -> new SearchStrategy(new PatternEvaluator(), 2));
+        register("ntuple", () -> new SearchStrategy(NTupleNetwork.defaultEvaluator(), 2));
+        register("mc", () -> new MonteCarloStrategy(SearchParameters.loadDefault(), new PatternEvaluator(),
+                1000, new SplittableRandom()));
+    }
+
+    private StrategyRegistry() {
+    }
+
+    /**
+     * Registers a strategy under a name, replacing any strategy with the same name.
+     * @param name the name of the strategy
+     * @param factory the factory creating a new instance of the strategy
+     */
+    public static synchronized void register(String name, Supplier<OpponentStrategy> factory) {
+        STRATEGIES.put(name, factory);
+    }
+
+    /**
+     * Returns the factory of a registered strategy.
+     * @param name the name of the strategy
+     * @return the factory creating new instances of the strategy
+     * @throws IllegalArgumentException if no strategy has this name
+     */
+    public static synchronized Supplier<OpponentStrategy> get(String name) {
+        Supplier<OpponentStrategy> factory = STRATEGIES.get(name);
+        if (factory == null) {
+            throw new IllegalArgumentException("Stratégie inconnue : " + name + " (disponibles : " + STRATEGIES.keySet() + ")");
+        }
+        return factory;
+    }
+
+    /**
+     * Returns the names of the registered strategies.
+     * @return the names, in registration order
+     */
+    public static synchronized List<String> names() {
+        return List.copyOf(STRATEGIES.keySet());
+    }
+}
@@ -0,0 +1,138 @@
+package g61258.dev3.oxono.tournament;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The {@code Tournament} class is the command-line entry point of headless matches.
+ * With two strategies it plays a single match, with more strategies a round-robin where
+ * every pair of strategies plays the given number of games. No JavaFX and no console
+ * input are involved, games are spread over all the cores by default.
+ *
+ * <p>With {@code -sprt elo0 elo1}, a match between two strategies stops as soon as the
+ * sequential probability ratio test accepts one of the hypotheses, {@code -g} being then
+ * the maximum number of games.</p>
+ *
+ * <pre>
+ * Tournament [-g games] [-s boardSize] [-t threads] [-sprt elo0 elo1] strategy1 strategy2 [strategy3 ...]
+ * </pre>
+ */
+public class Tournament {
+
+    private final List<String> strategies;
+    private final int games;
+    private final int boardSize;
+    private final int threads;
+
+    /**
+     * Constructs a tournament.
+     * @param strategies the names of the strategies in the {@link StrategyRegistry}
+     * @param games the number of games played by every pair of strategies
+     * @param boardSize the size of the board
+     * @param threads the number of games played in parallel
+     */
+    public Tournament(List<String> strategies, int games, int boardSize, int threads) {
+        if (strategies.size() < 2) {
+            throw new IllegalArgumentException("Il faut au moins deux stratégies");
+        }
+        this.strategies = List.copyOf(strategies);
+        this.games = games;
+        this.boardSize = boardSize;
+        this.threads = threads;
+    }
+
+    /**
+     * Plays every pair of strategies and returns the results of the matches.
+     * An interrupted match ends the tournament; its incomplete result is the last one returned.
+     * @return one result per pair played, in the order of the strategies
+     */
+    public List<MatchResult> run() {
+        List<MatchResult> results = new ArrayList<>();
+        for (int i = 0; i < strategies.size(); i++) {
+            for (int j = i + 1; j < strategies.size(); j++) {
+                Match match = new Match(strategies.get(i), strategies.get(j), boardSize, threads);
+                MatchResult result = match.run(games);
+                System.out.print(result);
+                results.add(result);
+                if (result.isInterrupted()) {
+                    return results;
+                }
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Prints the standings of a round-robin: total score of each strategy over all its matches.
+     * @param results the results of the matches
+     */
+    private void printStandings(List<MatchResult> results) {
+        System.out.println();
+        System.out.println("Classement :");
+        for (String name : strategies) {
+            double points = 0;
+            int played = 0;
+            for (MatchResult result : results) {
+                if (result.getNameA().equals(name)) {
+                    points += result.getWins() + result.getDraws() / 2.0;
+                    played += result.getGames();
+                } else if (result.getNameB().equals(name)) {
+                    points += result.getLosses() + result.getDraws() / 2.0;
+                    played += result.getGames();
+                }
+            }
+            System.out.printf("  %-12s %7.1f / %d (%.1f%%)%n", name, points, played, played == 0 ? 0 : points * 100 / played);
+        }
+    }
+
+    /**
+     * Runs a tournament from the command line.
+     * @param args the options and the names of the strategies
+     */
+    public static void main(String[] args) {
+        int games = 100;
+        int boardSize = 6;
+        int threads = Runtime.getRuntime().availableProcessors();
+        Sprt sprt = null;
+        List<String> names = new ArrayList<>();
+
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "-g" -> games = Integer.parseInt(args[++i]);
+                case "-s" -> boardSize = Integer.parseInt(args[++i]);
+                case "-t" -> threads = Integer.parseInt(args[++i]);
+                case "-sprt" -> {
+                    double elo0 = Double.parseDouble(args[++i]);
+                    double elo1 = Double.parseDouble(args[++i]);
+                    sprt = new Sprt(elo0, elo1);
+                }
+                default -> names.add(args[i]);
+            }
+        }
+        if (names.size() < 2) {
+            System.err.println("Usage : Tournament [-g parties] [-s taille] [-t threads] [-sprt elo0 elo1] strategie1 strategie2 [...]");
+            System.err.println("Stratégies disponibles : " + StrategyRegistry.names());
+            System.exit(1);
+        }
+
+        if (sprt != null) {
+            if (names.size() != 2) {
+                System.err.println("Le SPRT compare exactement deux stratégies");
+                System.exit(1);
+            }
+            System.out.printf("SPRT %s contre %s, au plus %d parties sur %dx%d, %d threads%n",
+                    names.get(0), names.get(1), games, boardSize, boardSize, threads);
+            Match match = new Match(names.get(0), names.get(1), boardSize, threads);
+            MatchResult result = match.run(games, sprt, System.out);
+            System.out.print(result);
+            return;
+        }
+
+        System.out.printf("%d parties par paire sur %dx%d, %d threads%n", games, boardSize, boardSize, threads);
+        Tournament tournament = new Tournament(names, games, boardSize, threads);
+        List<MatchResult> results = tournament.run();
+        if (names.size() > 2) {
+            tournament.printStandings(results);
+        }
+    }
+}
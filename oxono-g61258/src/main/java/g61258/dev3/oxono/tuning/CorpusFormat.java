@@ -0,0 +1,254 @@
+package g61258.dev3.oxono.tuning;
+
+import g61258.dev3.oxono.model.CellCode;
+import g61258.dev3.oxono.model.Position;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * The {@code CorpusFormat} class describes the binary file of a position corpus.
+ * <p>The file starts with a header of {@link #HEADER_SIZE} bytes (magic number, version,
+ * board size, record size) followed by records of fixed size, so that the number of records
+ * is deduced from the file size and any record is reached by its index. A record holds:</p>
+ * <ul>
+ *     <li>the {@link CellCode} of every cell, two cells per byte (low nibble first);</li>
+ *     <li>the cells of the cross and circle totems, as two shorts;</li>
+ *     <li>the remaining tokens, one byte per color and shape (pink cross, pink circle, black cross, black circle);</li>
+ *     <li>the color index of the player to move;</li>
+ *     <li>the packed {@link g61258.dev3.oxono.model.Move} played from the position;</li>
+ *     <li>the final result for the player to move: {@link #LOSS}, {@link #DRAW} or {@link #WIN}.</li>
+ * </ul>
+ * All values are little-endian.
+ */
+public final class CorpusFormat {
+
+    /**
+     * Magic number at the start of every corpus file ("OXPC").
+     */
+    public static final int MAGIC = 0x4350584F;
+
+    /**
+     * Version of the format.
+     */
+    public static final int VERSION = 1;
+
+    /**
+     * Size of the header in bytes.
+     */
+    public static final int HEADER_SIZE = 12;
+
+    /**
+     * Result of a position whose player to move lost the game.
+     */
+    public static final int LOSS = 0;
+
+    /**
+     * Result of a position whose game ended without winner.
+     */
+    public static final int DRAW = 1;
+
+    /**
+     * Result of a position whose player to move won the game.
+     */
+    public static final int WIN = 2;
+
+    private CorpusFormat() {
+    }
+
+    /**
+     * Returns the size of a record for the given board size.
+     * @param boardSize the size of the board
+     * @return the number of bytes of a record
+     */
+    public static int recordSize(int boardSize) {
+        return cellBytes(boardSize) + 4 + 4 + 1 + 4 + 1;
+    }
+
+    /**
+     * Returns the number of bytes holding the cells of a record.
+     * @param boardSize the size of the board
+     * @return the number of bytes of the packed cells
+     */
+    private static int cellBytes(int boardSize) {
+        return (boardSize * boardSize + 1) / 2;
+    }
+
+    /**
+     * Writes the header of a corpus file.
+     * @param buffer the buffer receiving the header, little-endian
+     * @param boardSize the size of the board
+     */
+    public static void writeHeader(ByteBuffer buffer, int boardSize) {
+        buffer.putInt(MAGIC);
+        buffer.putShort((short) VERSION);
+        buffer.putShort((short) boardSize);
+        buffer.putInt(recordSize(boardSize));
+    }
+
+    /**
+     * Reads and checks the header of a corpus file.
+     * @param buffer the buffer positioned on the header, little-endian
+     * @return the size of the board of the corpus
+     * @throws IOException if the header is not the one of a corpus of this version
+     */
+    public static int readHeader(ByteBuffer buffer) throws IOException {
+        if (buffer.remaining() < HEADER_SIZE || buffer.getInt() != MAGIC) {
+            throw new IOException("Fichier de positions invalide");
+        }
+        int version = buffer.getShort();
+        if (version != VERSION) {
+            throw new IOException("Version de fichier non supportée : " + version);
+        }
+        int boardSize = buffer.getShort();
+        if (buffer.getInt() != recordSize(boardSize)) {
+            throw new IOException("Taille d'enregistrement incohérente");
+        }
+        return boardSize;
+    }
+
+    /**
+     * Creates a buffer with the byte order of the format.
+     * @param capacity the capacity of the buffer in bytes
+     * @return a new direct little-endian buffer
+     */
+    public static ByteBuffer allocate(int capacity) {
+        return ByteBuffer.allocateDirect(capacity).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    /**
+     * Appends a record at the current position of the buffer.
+     * @param buffer the buffer receiving the record, little-endian
+     * @param position the position before the move, with the player to move
+     * @param move the move played from the position
+     * @param result the final result for the player to move
+     */
+    public static void write(ByteBuffer buffer, Position position, int move, int result) {
+        int cellCount = position.getSize() * position.getSize();
+        for (int cell = 0; cell < cellCount; cell += 2) {
+            int low = position.getCell(cell);
+            int high = cell + 1 < cellCount ? position.getCell(cell + 1) : CellCode.EMPTY;
+            buffer.put((byte) (low | high << 4));
+        }
+        buffer.putShort((short) position.getTotemCell(0));
+        buffer.putShort((short) position.getTotemCell(1));
+        for (int color = 0; color < 2; color++) {
+            for (int shape = 0; shape < 2; shape++) {
+                buffer.put((byte) position.getTokenCount(color, shape));
+            }
+        }
+        buffer.put((byte) position.getSide());
+        buffer.putInt(move);
+        buffer.put((byte) result);
+    }
+
+    // LECTURE D'UN ENREGISTREMENT
+
+    /**
+     * Returns the content of a cell of a record.
+     * @param buffer the buffer holding the record, little-endian
+     * @param offset the offset of the record in the buffer
+     * @param cell the index of the cell
+     * @return the {@link CellCode} of the cell
+     */
+    public static int cell(ByteBuffer buffer, int offset, int cell) {
+        int packed = buffer.get(offset + (cell >> 1));
+        return (cell & 1) == 0 ? packed & 0x0F : (packed >> 4) & 0x0F;
+    }
+
+    /**
+     * Decodes the cells of a record.
+     * @param buffer the buffer holding the record, little-endian
+     * @param offset the offset of the record in the buffer
+     * @param boardSize the size of the board
+     * @param out the array receiving the {@link CellCode} of every cell
+     */
+    public static void cells(ByteBuffer buffer, int offset, int boardSize, byte[] out) {
+        int cellCount = boardSize * boardSize;
+        for (int cell = 0; cell < cellCount; cell += 2) {
+            int packed = buffer.get(offset + (cell >> 1));
+            out[cell] = (byte) (packed & 0x0F);
+            if (cell + 1 < cellCount) {
+                out[cell + 1] = (byte) ((packed >> 4) & 0x0F);
+            }
+        }
+    }
+
+    /**
+     * Returns the cell of a totem of a record.
+     * @param buffer the buffer holding the record, little-endian
+     * @param offset the offset of the record in the buffer
+     * @param boardSize the size of the board
+     * @param shape the shape index of the totem
+     * @return the cell of the totem
+     */
+    public static int totemCell(ByteBuffer buffer, int offset, int boardSize, int shape) {
+        return buffer.getShort(offset + cellBytes(boardSize) + shape * 2);
+    }
+
+    /**
+     * Returns the number of remaining tokens of a color and a shape in a record.
+     * @param buffer the buffer holding the record, little-endian
+     * @param offset the offset of the record in the buffer
+     * @param boardSize the size of the board
+     * @param color the color index
+     * @param shape the shape index
+     * @return the number of tokens the player still holds
+     */
+    public static int tokenCount(ByteBuffer buffer, int offset, int boardSize, int color, int shape) {
+        return buffer.get(offset + cellBytes(boardSize) + 4 + color * 2 + shape);
+    }
+
+    /**
+     * Returns the player to move of a record.
+     * @param buffer the buffer holding the record, little-endian
+     * @param offset the offset of the record in the buffer
+     * @param boardSize the size of the board
+     * @return the color index of the player to move
+     */
+    public static int side(ByteBuffer buffer, int offset, int boardSize) {
+        return buffer.get(offset + cellBytes(boardSize) + 8);
+    }
+
+    /**
+     * Returns the move played from the position of a record.
+     * @param buffer the buffer holding the record, little-endian
+     * @param offset the offset of the record in the buffer
+     * @param boardSize the size of the board
+     * @return the packed move
+     */
+    public static int move(ByteBuffer buffer, int offset, int boardSize) {
+        return buffer.getInt(offset + cellBytes(boardSize) + 9);
+    }
+
+    /**
+     * Returns the final result of a record for its player to move.
+     * @param buffer the buffer holding the record, little-endian
+     * @param offset the offset of the record in the buffer
+     * @param boardSize the size of the board
+     * @return {@link #LOSS}, {@link #DRAW} or {@link #WIN}
+     */
+    public static int result(ByteBuffer buffer, int offset, int boardSize) {
+        return buffer.get(offset + cellBytes(boardSize) + 13);
+    }
+
+    /**
+     * Loads the position of a record, without history.
+     * @param buffer the buffer holding the record, little-endian
+     * @param offset the offset of the record in the buffer
+     * @param position the position receiving the record, of the size of the corpus
+     * @param cells a work array of at least {@code size * size} cells
+     * @param counts a work array of four token counts
+     */
+    public static void load(ByteBuffer buffer, int offset, Position position, byte[] cells, int[] counts) {
+        int boardSize = position.getSize();
+        cells(buffer, offset, boardSize, cells);
+        for (int color = 0; color < 2; color++) {
+            for (int shape = 0; shape < 2; shape++) {
+                counts[color * 2 + shape] = tokenCount(buffer, offset, boardSize, color, shape);
+            }
+        }
+        position.load(cells, counts, side(buffer, offset, boardSize));
+    }
+}
@@ -0,0 +1,113 @@
+package g61258.dev3.oxono.tuning;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * The {@code CorpusReader} class gives read access to the records of a corpus file written by
+ * {@link CorpusWriter} by memory-mapping it, so that records are decoded in place with the
+ * accessors of {@link CorpusFormat} instead of being parsed into objects.
+ * <p>A mapping is limited to 2 GiB, the file is therefore mapped in chunks holding a whole number
+ * of records. Records are read with absolute accessors only, the reader can be shared by threads.</p>
+ */
+public class CorpusReader implements Closeable {
+
+    private final FileChannel channel;
+    private final int boardSize;
+    private final int recordSize;
+    private final long records;
+    private final int recordsPerChunk;
+    private final MappedByteBuffer[] chunks;
+
+    /**
+     * Opens and maps a corpus file.
+     * @param path the corpus file
+     * @throws IOException if the file cannot be read or is not a corpus
+     */
+    public CorpusReader(Path path) throws IOException {
+        this(path, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Opens and maps a corpus file with chunks of at most the given number of bytes.
+     * @param path the corpus file
+     * @param maxChunkBytes the maximum size of a mapping, at least one record
+     * @throws IOException if the file cannot be read or is not a corpus
+     */
+    CorpusReader(Path path, int maxChunkBytes) throws IOException {
+        this.channel = FileChannel.open(path, StandardOpenOption.READ);
+        try {
+            ByteBuffer header = CorpusFormat.allocate(CorpusFormat.HEADER_SIZE);
+            channel.read(header, 0);
+            header.flip();
+            this.boardSize = CorpusFormat.readHeader(header);
+            this.recordSize = CorpusFormat.recordSize(boardSize);
+            this.records = (channel.size() - CorpusFormat.HEADER_SIZE) / recordSize;
+            this.recordsPerChunk = Math.max(1, maxChunkBytes / recordSize);
+
+            int chunkCount = (int) ((records + recordsPerChunk - 1) / recordsPerChunk);
+            this.chunks = new MappedByteBuffer[chunkCount];
+            for (int i = 0; i < chunkCount; i++) {
+                long first = (long) i * recordsPerChunk;
+                long count = Math.min(recordsPerChunk, records - first);
+                chunks[i] = channel.map(FileChannel.MapMode.READ_ONLY,
+                        CorpusFormat.HEADER_SIZE + first * recordSize, count * recordSize);
+                chunks[i].order(ByteOrder.LITTLE_ENDIAN);
+            }
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Returns the mapped buffer holding a record.
+     * @param record the index of the record
+     * @return the buffer to pass to the accessors of {@link CorpusFormat}
+     */
+    public ByteBuffer buffer(long record) {
+        return chunks[(int) (record / recordsPerChunk)];
+    }
+
+    /**
+     * Returns the offset of a record in its buffer.
+     * @param record the index of the record
+     * @return the offset to pass to the accessors of {@link CorpusFormat}
+     */
+    public int offset(long record) {
+        return (int) (record % recordsPerChunk) * recordSize;
+    }
+
+    /**
+     * Closes the file. The mappings stay valid until they are garbage collected.
+     * @throws IOException if the file cannot be closed
+     */
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    // GETTERS
+
+    /**
+     * Returns the size of the board of the positions.
+     * @return the size of the board
+     */
+    public int getBoardSize() {
+        return boardSize;
+    }
+
+    /**
+     * Returns the number of records of the corpus.
+     * @return the number of complete records in the file
+     */
+    public long getRecords() {
+        return records;
+    }
+}
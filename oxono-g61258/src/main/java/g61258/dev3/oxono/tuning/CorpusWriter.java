@@ -0,0 +1,206 @@
+package g61258.dev3.oxono.tuning;
+
+import g61258.dev3.oxono.model.Position;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The {@code CorpusWriter} class streams records of {@link CorpusFormat} to a file.
+ * <p>Producers write into their own {@link Sink}, which fills a buffer taken from a fixed pool.
+ * Full buffers are handed to a single writer thread that appends them to the file channel and
+ * gives them back to the pool. The memory used is therefore bounded by the pool, whatever the
+ * size of the corpus: when the disk is slower than the producers, they wait for a free buffer.</p>
+ * <p>Records of a buffer are contiguous, but buffers of different producers are interleaved.</p>
+ */
+public class CorpusWriter implements Closeable {
+
+    // Tampon vide signalant la fin au thread d'écriture
+    private static final ByteBuffer END = ByteBuffer.allocate(0);
+
+    private final int boardSize;
+    private final int recordSize;
+    private final FileChannel channel;
+    private final BlockingQueue<ByteBuffer> freeBuffers;
+    private final BlockingQueue<ByteBuffer> fullBuffers;
+    private final Thread writerThread;
+    private final AtomicLong records = new AtomicLong();
+    private volatile IOException failure;
+    private boolean closed;
+
+    /**
+     * Creates the file, writes its header and starts the writer thread.
+     * A pool of at least one buffer more than the number of producers avoids any waiting
+     * while a buffer is being written.
+     * @param path the file to create or replace
+     * @param boardSize the size of the board of the positions
+     * @param buffers the number of buffers of the pool
+     * @param recordsPerBuffer the number of records of each buffer
+     * @throws IOException if the file cannot be created
+     */
+    public CorpusWriter(Path path, int boardSize, int buffers, int recordsPerBuffer) throws IOException {
+        this.boardSize = boardSize;
+        this.recordSize = CorpusFormat.recordSize(boardSize);
+        this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+        ByteBuffer header = CorpusFormat.allocate(CorpusFormat.HEADER_SIZE);
+        CorpusFormat.writeHeader(header, boardSize);
+        header.flip();
+        while (header.hasRemaining()) {
+            channel.write(header);
+        }
+
+        this.freeBuffers = new ArrayBlockingQueue<>(buffers);
+        this.fullBuffers = new ArrayBlockingQueue<>(buffers + 1);
+        for (int i = 0; i < buffers; i++) {
+            freeBuffers.add(CorpusFormat.allocate(recordSize * recordsPerBuffer));
+        }
+        this.writerThread = new Thread(this::drain, "corpus-writer");
+        this.writerThread.start();
+    }
+
+    /**
+     * Creates a sink for a producer thread. A sink must not be shared between threads.
+     * @return a new sink writing to this corpus
+     */
+    public Sink newSink() {
+        return new Sink();
+    }
+
+    /**
+     * Appends the full buffers to the file until the end is signalled.
+     * After an error the buffers are still recycled so that producers never block.
+     */
+    private void drain() {
+        try {
+            while (true) {
+                ByteBuffer buffer = fullBuffers.take();
+                if (buffer == END) {
+                    return;
+                }
+                buffer.flip();
+                long count = buffer.remaining() / recordSize;
+                if (failure == null) {
+                    try {
+                        while (buffer.hasRemaining()) {
+                            channel.write(buffer);
+                        }
+                        records.addAndGet(count);
+                    } catch (IOException e) {
+                        failure = e;
+                    }
+                }
+                buffer.clear();
+                freeBuffers.put(buffer);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Waits for every handed buffer to be written, then closes the file.
+     * The sinks must have been flushed before.
+     * @throws IOException if a write failed or the file cannot be closed
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            fullBuffers.put(END);
+            writerThread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Écriture du corpus interrompue", e);
+        } finally {
+            channel.close();
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    // GETTERS
+
+    /**
+     * Returns the size of the board of the positions.
+     * @return the size of the board
+     */
+    public int getBoardSize() {
+        return boardSize;
+    }
+
+    /**
+     * Returns the number of records already written to the file.
+     * @return the number of written records
+     */
+    public long getRecords() {
+        return records.get();
+    }
+
+    /**
+     * The {@code Sink} class collects the records of a single producer in a buffer of the pool.
+     */
+    public class Sink {
+
+        private ByteBuffer buffer;
+
+        /**
+         * Private constructor, see {@link CorpusWriter#newSink()}.
+         */
+        private Sink() {
+        }
+
+        /**
+         * Appends a record, handing the buffer to the writer thread when it is full.
+         * @param position the position before the move, with the player to move
+         * @param move the move played from the position
+         * @param result the final result for the player to move, see {@link CorpusFormat}
+         * @throws IOException if the writer failed or the thread is interrupted
+         */
+        public void write(Position position, int move, int result) throws IOException {
+            if (failure != null) {
+                throw failure;
+            }
+            if (buffer == null) {
+                try {
+                    buffer = freeBuffers.take();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IOException("Écriture du corpus interrompue", e);
+                }
+            }
+            CorpusFormat.write(buffer, position, move, result);
+            if (buffer.remaining() < recordSize) {
+                flush();
+            }
+        }
+
+        /**
+         * Hands the current buffer, even partially filled, to the writer thread.
+         * @throws IOException if the thread is interrupted
+         */
+        public void flush() throws IOException {
+            if (buffer == null) {
+                return;
+            }
+            try {
+                fullBuffers.put(buffer);
+                buffer = null;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Écriture du corpus interrompue", e);
+            }
+        }
+    }
+}
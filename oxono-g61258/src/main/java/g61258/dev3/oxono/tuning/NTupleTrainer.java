@@ -0,0 +1,181 @@
+package g61258.dev3.oxono.tuning;
+
+import g61258.dev3.oxono.model.NTupleNetwork;
+import g61258.dev3.oxono.model.Position;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.SplittableRandom;
+
+/**
+ * The {@code NTupleTrainer} class trains a {@link NTupleNetwork} by temporal-difference learning
+ * on games it plays against itself.
+ * <p>Every turn, the player to move plays the move leading to the position the network finds the
+ * worst for the opponent, or a random move with the exploration probability. The value of the
+ * position before the move is then pulled towards the value after it (TD(0)): the target is 1 when
+ * the move wins, 0.5 when the opponent cannot play and else the predicted result of the opponent
+ * turned around. The step is the learning rate divided by the number of weights of a position.</p>
+ *
+ * <pre>
+ * NTupleTrainer [-g games] [-s boardSize] [-a learningRate] [-e exploration] [-seed seed] [-i network] -o network
+ * </pre>
+ */
+public class NTupleTrainer {
+
+    private final NTupleNetwork network;
+    private final float learningRate;
+    private final double exploration;
+    private final SplittableRandom random;
+    private final int[] moves;
+    private long plies;
+
+    /**
+     * Constructs a trainer.
+     * @param network the network to train, modified in place
+     * @param learningRate the learning rate of the updates
+     * @param exploration the probability of playing a random move
+     * @param seed the seed of the exploration and of the initial totem layouts
+     */
+    public NTupleTrainer(NTupleNetwork network, float learningRate, double exploration, long seed) {
+        this.network = network;
+        this.learningRate = learningRate;
+        this.exploration = exploration;
+        this.random = new SplittableRandom(seed);
+        this.moves = new int[new Position(network.getSize()).maxMoves()];
+    }
+
+    /**
+     * Plays the given number of self-play games, updating the network after every move.
+     * @param games the number of games
+     */
+    public void train(int games) {
+        for (int game = 0; game < games; game++) {
+            playGame();
+        }
+    }
+
+    /**
+     * Plays and learns a single game.
+     * @return the color index of the winner, or {@link Position#NONE} for a draw
+     */
+    int playGame() {
+        Position position = Position.initial(network.getSize(), random.nextBoolean());
+        float step = learningRate / network.activeWeights();
+        while (true) {
+            int count = position.generateMoves(moves);
+            if (count == 0) {
+                return Position.NONE;
+            }
+            int move = random.nextDouble() < exploration ? moves[random.nextInt(count)] : greedyMove(position, count);
+            float predicted = sigmoid(network.value(position));
+
+            position.play(move);
+            plies++;
+            float target;
+            if (position.getWinner() != Position.NONE) {
+                target = 1;
+            } else if (!position.hasLegalMove()) {
+                target = 0.5f;
+            } else {
+                target = sigmoid(-network.value(position));
+            }
+            position.undo();
+            network.update(position, step * (target - predicted));
+            position.play(move);
+
+            if (position.getWinner() != Position.NONE) {
+                return position.getWinner();
+            }
+        }
+    }
+
+    /**
+     * Chooses the move after which the opponent has the lowest value, a winning move if any.
+     * @param position the position of the player to move
+     * @param count the number of moves generated in the buffer
+     * @return the chosen move
+     */
+    private int greedyMove(Position position, int count) {
+        int best = moves[0];
+        float bestValue = Float.NEGATIVE_INFINITY;
+        for (int i = 0; i < count; i++) {
+            position.play(moves[i]);
+            float value = position.getWinner() != Position.NONE ? Float.POSITIVE_INFINITY : -network.value(position);
+            position.undo();
+            if (value > bestValue) {
+                bestValue = value;
+                best = moves[i];
+                if (value == Float.POSITIVE_INFINITY) {
+                    break;
+                }
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Converts a logit to a probability.
+     */
+    private static float sigmoid(float logit) {
+        return (float) (1 / (1 + Math.exp(-logit)));
+    }
+
+    /**
+     * Returns the number of moves played since the trainer was created.
+     * @return the number of plies of all the games
+     */
+    public long getPlies() {
+        return plies;
+    }
+
+    /**
+     * Trains a network from the command line.
+     * @param args the options
+     * @throws IOException if a network file cannot be read or written
+     */
+    public static void main(String[] args) throws IOException {
+        int games = 100_000;
+        int boardSize = 6;
+        float learningRate = 0.1f;
+        double exploration = 0.1;
+        long seed = System.nanoTime();
+        Path initial = null;
+        Path output = null;
+
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "-g" -> games = Integer.parseInt(args[++i]);
+                case "-s" -> boardSize = Integer.parseInt(args[++i]);
+                case "-a" -> learningRate = Float.parseFloat(args[++i]);
+                case "-e" -> exploration = Double.parseDouble(args[++i]);
+                case "-seed" -> seed = Long.parseLong(args[++i]);
+                case "-i" -> initial = Path.of(args[++i]);
+                case "-o" -> output = Path.of(args[++i]);
+                default -> {
+                    System.err.println("Option inconnue : " + args[i]);
+                    System.exit(1);
+                }
+            }
+        }
+        if (output == null) {
+            System.err.println("Usage : NTupleTrainer [-g parties] [-s taille] [-a pas] [-e exploration] [-seed graine] [-i reseau] -o reseau");
+            System.exit(1);
+        }
+
+        NTupleNetwork network = initial == null ? new NTupleNetwork(boardSize) : NTupleNetwork.load(initial);
+        NTupleTrainer trainer = new NTupleTrainer(network, learningRate, exploration, seed);
+        int report = Math.max(1, games / 10);
+        int[] results = new int[3];
+        long start = System.nanoTime();
+        for (int game = 1; game <= games; game++) {
+            int winner = trainer.playGame();
+            results[winner == Position.NONE ? 2 : winner]++;
+            if (game % report == 0) {
+                double seconds = (System.nanoTime() - start) / 1e9;
+                System.out.printf("%d parties : rose %d, noir %d, nulles %d, %.1f coups par partie, %.0f parties/s%n",
+                        game, results[0], results[1], results[2], (double) trainer.getPlies() / game, game / seconds);
+            }
+        }
+        network.save(output);
+    }
+}
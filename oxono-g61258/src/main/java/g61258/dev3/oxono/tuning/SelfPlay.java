@@ -0,0 +1,204 @@
+package g61258.dev3.oxono.tuning;
+
+import g61258.dev3.oxono.model.Board;
+import g61258.dev3.oxono.model.Game;
+import g61258.dev3.oxono.model.OpponentStrategy;
+import g61258.dev3.oxono.model.Position;
+import g61258.dev3.oxono.tournament.GameRunner;
+import g61258.dev3.oxono.tournament.LatencyHistogram;
+import g61258.dev3.oxono.tournament.StrategyRegistry;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * The {@code SelfPlay} class plays headless games between two strategies and streams a sample
+ * of their positions to a {@link CorpusWriter}, each with the move played and the final result.
+ * <p>Every worker thread follows its game on a compact {@link Position}; once the result is known
+ * the moves are undone one by one and each position is kept with the probability of the sampling
+ * rate. A game thus never allocates records and the memory does not grow with the corpus.</p>
+ *
+ * <pre>
+ * SelfPlay [-g games] [-s boardSize] [-t threads] [-r sampleRate] [-seed seed] -o file pinkStrategy [blackStrategy]
+ * </pre>
+ */
+public class SelfPlay {
+
+    private static final int RECORDS_PER_BUFFER = 4096;
+
+    private final Supplier<OpponentStrategy> pink;
+    private final Supplier<OpponentStrategy> black;
+    private final int boardSize;
+    private final int threads;
+    private final double sampleRate;
+    private final long seed;
+    private final AtomicInteger gamesPlayed = new AtomicInteger();
+
+    /**
+     * Constructs a self-play session.
+     * @param pink the factory of the strategy of the pink player
+     * @param black the factory of the strategy of the black player
+     * @param boardSize the size of the board
+     * @param threads the number of games played in parallel
+     * @param sampleRate the probability of keeping each position, between 0 and 1
+     * @param seed the seed of the sampling
+     */
+    public SelfPlay(Supplier<OpponentStrategy> pink, Supplier<OpponentStrategy> black,
+                    int boardSize, int threads, double sampleRate, long seed) {
+        if (sampleRate < 0 || sampleRate > 1) {
+            throw new IllegalArgumentException("Taux d'échantillonnage invalide : " + sampleRate);
+        }
+        this.pink = pink;
+        this.black = black;
+        this.boardSize = boardSize;
+        this.threads = Math.max(1, threads);
+        this.sampleRate = sampleRate;
+        this.seed = seed;
+    }
+
+    /**
+     * Plays the given number of games and writes their sampled positions.
+     * @param games the number of games to play
+     * @param writer the corpus receiving the positions, of the same board size
+     * @throws IOException if the corpus cannot be written
+     */
+    public void run(int games, CorpusWriter writer) throws IOException {
+        if (writer.getBoardSize() != boardSize) {
+            throw new IllegalArgumentException("Taille de plateau du corpus différente : " + writer.getBoardSize());
+        }
+        AtomicInteger nextGame = new AtomicInteger();
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<Void>> workers = new ArrayList<>();
+            for (int worker = 0; worker < threads; worker++) {
+                SplittableRandom random = new SplittableRandom(seed + worker * 0x9E3779B97F4A7C15L);
+                workers.add(pool.submit(() -> {
+                    work(games, nextGame, writer.newSink(), random);
+                    return null;
+                }));
+            }
+            for (Future<Void> worker : workers) {
+                worker.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Parties interrompues", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException io) {
+                throw io;
+            }
+            throw new IllegalStateException("Une partie a échoué", e.getCause());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    /**
+     * Plays games until the given number of games is reached by all the workers.
+     * @param games the total number of games
+     * @param nextGame the index of the next game to play, shared by the workers
+     * @param sink the sink of this worker
+     * @param random the sampling generator of this worker
+     * @throws IOException if the corpus cannot be written
+     */
+    private void work(int games, AtomicInteger nextGame, CorpusWriter.Sink sink, SplittableRandom random)
+            throws IOException {
+        GameRunner runner = new GameRunner(boardSize);
+        LatencyHistogram latency = new LatencyHistogram();
+        int index;
+        while ((index = nextGame.getAndIncrement()) < games) {
+            boolean crossTotemFirst = index % 2 == 0;
+            Game game = new Game(new Board(boardSize, crossTotemFirst), null);
+            game.start();
+            Position position = Position.initial(boardSize, crossTotemFirst);
+            int result = runner.play(game, pink.get(), black.get(), latency, latency, position::play);
+
+            int winner = result == GameRunner.DRAW ? Position.NONE : result;
+            for (int ply = position.getPly() - 1; ply >= 0; ply--) {
+                int move = position.getMove(ply);
+                position.undo();
+                if (random.nextDouble() < sampleRate) {
+                    sink.write(position, move, resultFor(winner, position.getSide()));
+                }
+            }
+            gamesPlayed.incrementAndGet();
+        }
+        sink.flush();
+    }
+
+    /**
+     * Returns the result of a game for a player.
+     * @param winner the color index of the winner, or {@link Position#NONE}
+     * @param side the color index of the player
+     * @return {@link CorpusFormat#WIN}, {@link CorpusFormat#DRAW} or {@link CorpusFormat#LOSS}
+     */
+    static int resultFor(int winner, int side) {
+        if (winner == Position.NONE) {
+            return CorpusFormat.DRAW;
+        }
+        return winner == side ? CorpusFormat.WIN : CorpusFormat.LOSS;
+    }
+
+    /**
+     * Returns the number of games already played.
+     * @return the number of finished games
+     */
+    public int getGamesPlayed() {
+        return gamesPlayed.get();
+    }
+
+    /**
+     * Runs a self-play session from the command line.
+     * @param args the options and the names of the strategies
+     * @throws IOException if the corpus cannot be written
+     */
+    public static void main(String[] args) throws IOException {
+        int games = 1000;
+        int boardSize = 6;
+        int threads = Runtime.getRuntime().availableProcessors();
+        double sampleRate = 0.25;
+        long seed = System.nanoTime();
+        Path output = null;
+        List<String> names = new ArrayList<>();
+
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "-g" -> games = Integer.parseInt(args[++i]);
+                case "-s" -> boardSize = Integer.parseInt(args[++i]);
+                case "-t" -> threads = Integer.parseInt(args[++i]);
+                case "-r" -> sampleRate = Double.parseDouble(args[++i]);
+                case "-seed" -> seed = Long.parseLong(args[++i]);
+                case "-o" -> output = Path.of(args[++i]);
+                default -> names.add(args[i]);
+            }
+        }
+        if (output == null || names.isEmpty() || names.size() > 2) {
+            System.err.println("Usage : SelfPlay [-g parties] [-s taille] [-t threads] [-r taux] [-seed graine] -o fichier strategieRose [strategieNoire]");
+            System.err.println("Stratégies disponibles : " + StrategyRegistry.names());
+            System.exit(1);
+        }
+
+        Supplier<OpponentStrategy> pink = StrategyRegistry.get(names.get(0));
+        Supplier<OpponentStrategy> black = StrategyRegistry.get(names.get(names.size() - 1));
+        SelfPlay selfPlay = new SelfPlay(pink, black, boardSize, threads, sampleRate, seed);
+
+        long start = System.nanoTime();
+        CorpusWriter writer = new CorpusWriter(output, boardSize, threads * 2, RECORDS_PER_BUFFER);
+        try (writer) {
+            selfPlay.run(games, writer);
+        }
+        // Lu après la fermeture, qui écrit les derniers tampons
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.printf("%d parties, %d positions écrites dans %s en %.1f s (%.0f positions/s)%n",
+                selfPlay.getGamesPlayed(), writer.getRecords(), output, seconds, writer.getRecords() / seconds);
+    }
+}
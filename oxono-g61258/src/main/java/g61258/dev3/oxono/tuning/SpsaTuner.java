@@ -0,0 +1,204 @@
+package g61258.dev3.oxono.tuning;
+
+import g61258.dev3.oxono.model.MonteCarloStrategy;
+import g61258.dev3.oxono.model.OpponentStrategy;
+import g61258.dev3.oxono.model.PatternEvaluator;
+import g61258.dev3.oxono.model.SearchParameters;
+import g61258.dev3.oxono.tournament.Match;
+import g61258.dev3.oxono.tournament.MatchResult;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.SplittableRandom;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * The {@code SpsaTuner} class tunes {@link SearchParameters} by simultaneous perturbation
+ * stochastic approximation (SPSA) on headless self-play matches.
+ * <p>Each iteration {@code k} draws a random sign for every knob, builds two variants of the
+ * current parameters shifted by {@code +c_k} and {@code -c_k} along these signs, and plays a short
+ * {@link Match} between them on all the cores. The difference of their results estimates the
+ * gradient, and the parameters move by {@code a_k} times this estimate. Knobs are handled in units
+ * of their {@linkplain SearchParameters#getStep(int) step}, with {@code c_k = 1 / k^0.101} and
+ * {@code a_k = a / (A + k)^0.602}, {@code A} being a tenth of the iterations.</p>
+ * <p>After every iteration the parameters are written to the output file, with the iteration
+ * number in its first comment line. A run started on an existing file resumes from it.</p>
+ *
+ * <pre>
+ * SpsaTuner [-n iterations] [-g gamesPerIteration] [-s boardSize] [-t threads] [-p playouts] [-a rate] [-seed seed] -o parameters
+ * </pre>
+ */
+public class SpsaTuner {
+
+    private static final double ALPHA = 0.602;
+    private static final double GAMMA = 0.101;
+    private static final String HEADER = "SPSA iteration ";
+    private static final Pattern ITERATION = Pattern.compile("^# " + HEADER + "(\\d+)");
+
+    private final Function<SearchParameters, Supplier<OpponentStrategy>> factory;
+    private final int gamesPerIteration;
+    private final int boardSize;
+    private final int threads;
+    private final double rate;
+    private final long seed;
+
+    /**
+     * Constructs a tuner.
+     * @param factory creates the factory of strategies using some parameters
+     * @param gamesPerIteration the number of games between the two variants of an iteration, a multiple of 4
+     * @param boardSize the size of the board
+     * @param threads the number of games played in parallel
+     * @param rate the learning rate {@code a}
+     * @param seed the seed of the perturbations, the one of iteration {@code k} depending only on it and {@code k}
+     */
+    public SpsaTuner(Function<SearchParameters, Supplier<OpponentStrategy>> factory, int gamesPerIteration,
+                     int boardSize, int threads, double rate, long seed) {
+        this.factory = factory;
+        this.gamesPerIteration = gamesPerIteration;
+        this.boardSize = boardSize;
+        this.threads = threads;
+        this.rate = rate;
+        this.seed = seed;
+    }
+
+    /**
+     * Runs iterations from the given state, writing a checkpoint after each of them.
+     * An interrupted match stops the run without applying its partial result.
+     * @param start the parameters after {@code done} iterations
+     * @param done the number of iterations already done
+     * @param iterations the total number of iterations
+     * @param checkpoint the file receiving the parameters after every iteration, may be null
+     * @param progress the stream receiving the result and the parameters of every iteration, or null for no report
+     * @return the parameters after the last iteration
+     * @throws IOException if the checkpoint cannot be written
+     */
+    public SearchParameters run(SearchParameters start, int done, int iterations, Path checkpoint, PrintStream progress)
+            throws IOException {
+        double[] theta = start.toArray();
+        double stability = iterations / 10.0;
+        for (int k = done + 1; k <= iterations; k++) {
+            double c = 1 / Math.pow(k, GAMMA);
+            double a = rate / Math.pow(stability + k, ALPHA);
+
+            SplittableRandom random = new SplittableRandom(seed ^ (k * 0x9E3779B97F4A7C15L));
+            double[] signs = new double[theta.length];
+            double[] plus = new double[theta.length];
+            double[] minus = new double[theta.length];
+            for (int i = 0; i < theta.length; i++) {
+                signs[i] = random.nextBoolean() ? 1 : -1;
+                double shift = c * signs[i] * SearchParameters.getStep(i);
+                plus[i] = theta[i] + shift;
+                minus[i] = theta[i] - shift;
+            }
+
+            Match match = new Match("plus", factory.apply(new SearchParameters(plus)),
+                    "minus", factory.apply(new SearchParameters(minus)), boardSize, threads);
+            MatchResult result = match.run(gamesPerIteration);
+            if (result.isInterrupted()) {
+                break; // Un match partiel fausserait le gradient ; le dernier point de reprise reste valable
+            }
+            double difference = (double) (result.getWins() - result.getLosses()) / Math.max(1, result.getGames());
+
+            for (int i = 0; i < theta.length; i++) {
+                // Gradient estimé en unités de pas, ramené à l'échelle du paramètre
+                theta[i] += a * difference / (2 * c * signs[i]) * SearchParameters.getStep(i);
+            }
+            SearchParameters current = new SearchParameters(theta);
+            theta = current.toArray(); // Valeurs bornées
+            if (progress != null) {
+                progress.printf("Itération %d : +%d =%d -%d, %s%n", k,
+                        result.getWins(), result.getDraws(), result.getLosses(), current);
+            }
+            if (checkpoint != null) {
+                save(current, k, checkpoint);
+            }
+        }
+        return new SearchParameters(theta);
+    }
+
+    /**
+     * Writes a checkpoint atomically, through a temporary file.
+     * @param parameters the current parameters
+     * @param iteration the number of iterations done
+     * @param path the checkpoint file
+     * @throws IOException if the file cannot be written
+     */
+    static void save(SearchParameters parameters, int iteration, Path path) throws IOException {
+        Path temporary = path.resolveSibling(path.getFileName() + ".tmp");
+        parameters.save(temporary, HEADER + iteration);
+        Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Reads the number of iterations done from a checkpoint.
+     * @param path the checkpoint file
+     * @return the iteration of the checkpoint, 0 if the file does not come from this tuner
+     * @throws IOException if the file cannot be read
+     */
+    static int iterationOf(Path path) throws IOException {
+        try (var lines = Files.lines(path)) {
+            return lines.findFirst()
+                    .map(ITERATION::matcher)
+                    .filter(Matcher::find)
+                    .map(matcher -> Integer.parseInt(matcher.group(1)))
+                    .orElse(0);
+        }
+    }
+
+    /**
+     * Tunes the parameters of the Monte Carlo strategy from the command line.
+     * @param args the options
+     * @throws IOException if the parameter file cannot be read or written
+     */
+    public static void main(String[] args) throws IOException {
+        int iterations = 200;
+        int games = 64;
+        int boardSize = 6;
+        int threads = Runtime.getRuntime().availableProcessors();
+        int playouts = 1000;
+        double rate = 5.0;
+        long seed = 1;
+        Path output = null;
+
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "-n" -> iterations = Integer.parseInt(args[++i]);
+                case "-g" -> games = Integer.parseInt(args[++i]);
+                case "-s" -> boardSize = Integer.parseInt(args[++i]);
+                case "-t" -> threads = Integer.parseInt(args[++i]);
+                case "-p" -> playouts = Integer.parseInt(args[++i]);
+                case "-a" -> rate = Double.parseDouble(args[++i]);
+                case "-seed" -> seed = Long.parseLong(args[++i]);
+                case "-o" -> output = Path.of(args[++i]);
+                default -> {
+                    System.err.println("Option inconnue : " + args[i]);
+                    System.exit(1);
+                }
+            }
+        }
+        if (output == null) {
+            System.err.println("Usage : SpsaTuner [-n iterations] [-g parties] [-s taille] [-t threads] [-p playouts] [-a pas] [-seed graine] -o parametres");
+            System.exit(1);
+        }
+
+        SearchParameters start = SearchParameters.defaults();
+        int done = 0;
+        if (Files.exists(output)) {
+            start = SearchParameters.load(output);
+            done = iterationOf(output);
+            System.out.printf("Reprise après l'itération %d : %s%n", done, start);
+        }
+
+        int budget = playouts;
+        SpsaTuner tuner = new SpsaTuner(parameters -> () -> new MonteCarloStrategy(parameters, new PatternEvaluator(),
+                budget, new SplittableRandom()), games, boardSize, threads, rate, seed);
+        SearchParameters tuned = tuner.run(start, done, iterations, output, System.out);
+        System.out.println("Paramètres : " + tuned);
+    }
+}
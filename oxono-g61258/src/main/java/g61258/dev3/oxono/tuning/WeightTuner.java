@@ -0,0 +1,279 @@
+package g61258.dev3.oxono.tuning;
+
+import g61258.dev3.oxono.model.EvaluationWeights;
+import g61258.dev3.oxono.model.PatternFeatures;
+import g61258.dev3.oxono.model.Position;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.Locale;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+/**
+ * The {@code WeightTuner} class fits the {@link EvaluationWeights} of the pattern evaluator on a
+ * corpus of labelled positions by logistic regression.
+ * <p>The predicted result of a position is {@code sigmoid(score / 100)}, where the score is the
+ * weighted sum of its {@link PatternFeatures}, and the tuner minimises the mean squared error
+ * between the prediction and the actual result of the game (1 for a win, 0.5 for a draw, 0 for
+ * a loss) with full-batch Adam gradient steps.</p>
+ * <p>The corpus is memory-mapped by a {@link CorpusReader}. The features of every record are
+ * extracted once, in parallel, into a flat array of shorts, then every pass splits the records in
+ * blocks whose partial gradients are computed by a parallel stream on all the cores and summed.</p>
+ *
+ * <pre>
+ * WeightTuner [-e epochs] [-l learningRate] [-t threads] [-i initialWeights] -o weights corpus
+ * </pre>
+ */
+public class WeightTuner {
+
+    private static final int BLOCK = 4096;
+    private static final double BETA1 = 0.9;
+    private static final double BETA2 = 0.999;
+    private static final double EPSILON = 1e-8;
+
+    private final int records;
+    private final short[] features;
+    private final float[] targets;
+    private final ForkJoinPool pool;
+
+    /**
+     * Extracts the features and the results of every record of a corpus.
+     * @param reader the mapped corpus
+     * @param pool the pool running the parallel passes
+     */
+    public WeightTuner(CorpusReader reader, ForkJoinPool pool) {
+        if (reader.getRecords() * PatternFeatures.COUNT > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Corpus trop grand : " + reader.getRecords() + " positions");
+        }
+        this.records = (int) reader.getRecords();
+        this.features = new short[records * PatternFeatures.COUNT];
+        this.targets = new float[records];
+        this.pool = pool;
+        execute(() -> IntStream.range(0, blocks()).parallel().forEach(block -> extract(reader, block)));
+    }
+
+    /**
+     * Extracts the features of a block of records.
+     * @param reader the mapped corpus
+     * @param block the index of the block
+     */
+    private void extract(CorpusReader reader, int block) {
+        int boardSize = reader.getBoardSize();
+        Position position = new Position(boardSize);
+        PatternFeatures extractor = new PatternFeatures(boardSize);
+        byte[] cells = new byte[boardSize * boardSize];
+        int[] counts = new int[4];
+        int[] values = new int[PatternFeatures.COUNT];
+
+        int end = Math.min(records, (block + 1) * BLOCK);
+        for (int record = block * BLOCK; record < end; record++) {
+            ByteBuffer buffer = reader.buffer(record);
+            int offset = reader.offset(record);
+            CorpusFormat.load(buffer, offset, position, cells, counts);
+            extractor.extract(position, values);
+            for (int i = 0; i < values.length; i++) {
+                features[record * PatternFeatures.COUNT + i] = (short) values[i];
+            }
+            targets[record] = CorpusFormat.result(buffer, offset, boardSize) / 2.0f;
+        }
+    }
+
+    /**
+     * Minimises the prediction error from initial weights.
+     * @param initial the starting weights
+     * @param epochs the number of gradient steps
+     * @param learningRate the step size of Adam, in hundredths of a logit
+     * @param reportInterval the number of epochs between two printed errors, 0 for no report
+     * @return the tuned weights
+     */
+    public EvaluationWeights tune(EvaluationWeights initial, int epochs, double learningRate, int reportInterval) {
+        double[] weights = initial.toArray();
+        double[] m = new double[weights.length];
+        double[] v = new double[weights.length];
+        for (int epoch = 1; epoch <= epochs; epoch++) {
+            double[] gradient = gradient(weights);
+            for (int i = 0; i < weights.length; i++) {
+                m[i] = BETA1 * m[i] + (1 - BETA1) * gradient[i];
+                v[i] = BETA2 * v[i] + (1 - BETA2) * gradient[i] * gradient[i];
+                double mHat = m[i] / (1 - Math.pow(BETA1, epoch));
+                double vHat = v[i] / (1 - Math.pow(BETA2, epoch));
+                weights[i] -= learningRate * mHat / (Math.sqrt(vHat) + EPSILON);
+            }
+            if (reportInterval > 0 && epoch % reportInterval == 0) {
+                System.out.printf("Époque %d : erreur %.6f%n", epoch, error(weights));
+            }
+        }
+        return new EvaluationWeights(weights);
+    }
+
+    /**
+     * Computes the mean squared error of the predictions of some weights.
+     * @param weights the weights indexed as in {@link PatternFeatures}
+     * @return the mean squared error over the corpus
+     */
+    public double error(double[] weights) {
+        return compute(() -> IntStream.range(0, blocks()).parallel()
+                .mapToDouble(block -> blockError(weights, block)).sum()) / records;
+    }
+
+    /**
+     * Computes the gradient of the mean squared error.
+     * @param weights the weights indexed as in {@link PatternFeatures}
+     * @return the partial derivative of the error for every weight
+     */
+    double[] gradient(double[] weights) {
+        double[] gradient = compute(() -> IntStream.range(0, blocks()).parallel()
+                .mapToObj(block -> blockGradient(weights, block))
+                .reduce(WeightTuner::add)
+                .orElseGet(() -> new double[weights.length]));
+        for (int i = 0; i < gradient.length; i++) {
+            gradient[i] /= records;
+        }
+        return gradient;
+    }
+
+    /**
+     * Sums the squared errors of a block of records.
+     */
+    private double blockError(double[] weights, int block) {
+        double sum = 0;
+        int end = Math.min(records, (block + 1) * BLOCK);
+        for (int record = block * BLOCK; record < end; record++) {
+            double error = predict(weights, record) - targets[record];
+            sum += error * error;
+        }
+        return sum;
+    }
+
+    /**
+     * Sums the gradients of the squared errors of a block of records.
+     */
+    private double[] blockGradient(double[] weights, int block) {
+        double[] gradient = new double[weights.length];
+        int end = Math.min(records, (block + 1) * BLOCK);
+        for (int record = block * BLOCK; record < end; record++) {
+            double p = predict(weights, record);
+            // d(p - y)² / dw = 2 (p - y) p (1 - p) f / 100
+            double factor = 2 * (p - targets[record]) * p * (1 - p) / 100;
+            int base = record * PatternFeatures.COUNT;
+            for (int i = 0; i < gradient.length; i++) {
+                gradient[i] += factor * features[base + i];
+            }
+        }
+        return gradient;
+    }
+
+    /**
+     * Predicts the result of a record for its player to move.
+     */
+    private double predict(double[] weights, int record) {
+        int base = record * PatternFeatures.COUNT;
+        double score = 0;
+        for (int i = 0; i < weights.length; i++) {
+            score += weights[i] * features[base + i];
+        }
+        return 1 / (1 + Math.exp(-score / 100));
+    }
+
+    /**
+     * Adds a partial gradient to another one.
+     */
+    private static double[] add(double[] a, double[] b) {
+        for (int i = 0; i < a.length; i++) {
+            a[i] += b[i];
+        }
+        return a;
+    }
+
+    /**
+     * Returns the number of blocks of records.
+     */
+    private int blocks() {
+        return (records + BLOCK - 1) / BLOCK;
+    }
+
+    /**
+     * Runs a parallel stream in the pool of the tuner, so that it uses the requested number of threads.
+     */
+    private <T> T compute(Callable<T> task) {
+        try {
+            return pool.submit(task).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Réglage interrompu", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Le réglage a échoué", e.getCause());
+        }
+    }
+
+    /**
+     * Runs a parallel stream without result in the pool of the tuner.
+     */
+    private void execute(Runnable task) {
+        compute(() -> {
+            task.run();
+            return null;
+        });
+    }
+
+    /**
+     * Returns the number of positions of the corpus.
+     * @return the number of records
+     */
+    public int getRecords() {
+        return records;
+    }
+
+    /**
+     * Tunes the weights from the command line.
+     * @param args the options and the corpus file
+     * @throws IOException if the corpus or a weight file cannot be read or written
+     */
+    public static void main(String[] args) throws IOException {
+        int epochs = 500;
+        double learningRate = 1.0;
+        int threads = Runtime.getRuntime().availableProcessors();
+        Path initialFile = null;
+        Path output = null;
+        Path corpus = null;
+
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "-e" -> epochs = Integer.parseInt(args[++i]);
+                case "-l" -> learningRate = Double.parseDouble(args[++i]);
+                case "-t" -> threads = Integer.parseInt(args[++i]);
+                case "-i" -> initialFile = Path.of(args[++i]);
+                case "-o" -> output = Path.of(args[++i]);
+                default -> corpus = Path.of(args[i]);
+            }
+        }
+        if (corpus == null || output == null) {
+            System.err.println("Usage : WeightTuner [-e epoques] [-l pas] [-t threads] [-i poidsInitiaux] -o poids corpus");
+            System.exit(1);
+        }
+
+        ForkJoinPool pool = new ForkJoinPool(Math.max(1, threads));
+        try (CorpusReader reader = new CorpusReader(corpus)) {
+            long start = System.nanoTime();
+            WeightTuner tuner = new WeightTuner(reader, pool);
+            System.out.printf("%d positions chargées en %.1f s%n", tuner.getRecords(), (System.nanoTime() - start) / 1e9);
+
+            EvaluationWeights initial = initialFile == null ? EvaluationWeights.defaults() : EvaluationWeights.load(initialFile);
+            System.out.printf("Erreur initiale : %.6f%n", tuner.error(initial.toArray()));
+            start = System.nanoTime();
+            EvaluationWeights tuned = tuner.tune(initial, epochs, learningRate, Math.max(1, epochs / 10));
+            double error = tuner.error(tuned.toArray());
+            System.out.printf("Erreur finale : %.6f en %.1f s%n", error, (System.nanoTime() - start) / 1e9);
+            System.out.println(tuned);
+
+            tuned.save(output, String.format(Locale.ROOT, "%d positions de %s, erreur %.6f",
+                    tuner.getRecords(), corpus.getFileName(), error));
+        } finally {
+            pool.shutdown();
+        }
+    }
+}
@@ -0,0 +1,304 @@
+package g61258.dev3.oxono.utils;
+
+import java.util.ArrayDeque;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BinaryOperator;
+
+/**
+ * The {@code EventPublisher} class delivers items to any number of {@link Flow.Subscriber}s
+ * asynchronously, without ever blocking the thread that submits them.
+ * <p>Every subscriber has its own bounded buffer, drained on the executor as the subscriber
+ * {@linkplain Flow.Subscription#request(long) requests} items; a subscriber never receives two items
+ * at once. When the buffer of a slow subscriber is full, its {@link Overflow} policy decides what is
+ * lost: the oldest item, the new one, or nothing when both are coalesced into one. Other subscribers
+ * and the submitting thread are not affected.</p>
+ * <p>Subscriptions are kept in a copy-on-write list, so that subscribing and cancelling are safe during
+ * a submission. {@link #submit(Object)} may be called from any thread. If the executor refuses a
+ * delivery, for instance once it is shut down, the subscription is cancelled and its subscriber
+ * receives the {@link RejectedExecutionException} through {@link Flow.Subscriber#onError(Throwable)};
+ * the submitting thread never sees it.</p>
+ * @param <T> the type of the items
+ */
+public class EventPublisher<T> implements Flow.Publisher<T>, AutoCloseable {
+
+    /**
+     * What happens to an item submitted while the buffer of a subscriber is full.
+     */
+    public enum Overflow {
+        /** The oldest buffered item is dropped to make room. */
+        DROP_OLDEST,
+        /** The new item is dropped. */
+        DROP_NEWEST,
+        /** The new item is merged into the newest buffered one; nothing is lost. */
+        COALESCE
+    }
+
+    private final Executor executor;
+    private final int capacity;
+    private final BinaryOperator<T> coalescer;
+    private final List<BufferedSubscription> subscriptions = new CopyOnWriteArrayList<>();
+    private final LongAdder dropped = new LongAdder();
+    private volatile boolean closed;
+
+    /**
+     * Constructs a publisher whose subscribers cannot use {@link Overflow#COALESCE}.
+     * @param executor the executor running the deliveries
+     * @param capacity the number of items buffered per subscriber
+     */
+    public EventPublisher(Executor executor, int capacity) {
+        this(executor, capacity, null);
+    }
+
+    /**
+     * Constructs a publisher.
+     * @param executor the executor running the deliveries
+     * @param capacity the number of items buffered per subscriber
+     * @param coalescer merges a buffered item and a newer one for {@link Overflow#COALESCE}, may be null
+     */
+    public EventPublisher(Executor executor, int capacity, BinaryOperator<T> coalescer) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Capacité invalide : " + capacity);
+        }
+        this.executor = Objects.requireNonNull(executor);
+        this.capacity = capacity;
+        this.coalescer = coalescer;
+    }
+
+    /**
+     * Adds a subscriber whose oldest items are dropped when it falls behind.
+     * @param subscriber the subscriber
+     */
+    @Override
+    public void subscribe(Flow.Subscriber<? super T> subscriber) {
+        subscribe(subscriber, Overflow.DROP_OLDEST);
+    }
+
+    /**
+     * Adds a subscriber with the given overflow policy. It receives the items submitted from now on.
+     * @param subscriber the subscriber
+     * @param overflow what to do when its buffer is full
+     * @throws IllegalArgumentException if the policy is {@link Overflow#COALESCE} without coalescer
+     * @throws RejectedExecutionException if the executor refuses the subscription, which is then dropped
+     */
+    public void subscribe(Flow.Subscriber<? super T> subscriber, Overflow overflow) {
+        if (overflow == Overflow.COALESCE && coalescer == null) {
+            throw new IllegalArgumentException("Aucune fusion définie pour ce diffuseur");
+        }
+        BufferedSubscription subscription = new BufferedSubscription(subscriber, overflow);
+        subscriptions.add(subscription);
+        try {
+            executor.execute(() -> {
+                subscriber.onSubscribe(subscription);
+                subscription.drain();
+            });
+        } catch (RejectedExecutionException e) {
+            subscriptions.remove(subscription);
+            throw e;
+        }
+        if (closed) {
+            subscription.complete();
+        }
+    }
+
+    /**
+     * Buffers an item for every subscriber and schedules its delivery. Never blocks.
+     * Items submitted after {@link #close()} are ignored.
+     * @param item the item
+     */
+    public void submit(T item) {
+        Objects.requireNonNull(item);
+        if (closed) {
+            return;
+        }
+        for (BufferedSubscription subscription : subscriptions) {
+            subscription.offer(item);
+        }
+    }
+
+    /**
+     * Completes every subscriber once its buffered items are delivered. Later submissions are ignored.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        for (BufferedSubscription subscription : subscriptions) {
+            subscription.complete();
+        }
+    }
+
+    // GETTERS
+
+    /**
+     * Returns the number of subscribers.
+     * @return the number of active subscriptions
+     */
+    public int getSubscriberCount() {
+        return subscriptions.size();
+    }
+
+    /**
+     * Returns the number of items lost by full buffers, over all subscribers.
+     * @return the number of dropped items
+     */
+    public long getDropped() {
+        return dropped.sum();
+    }
+
+    /**
+     * The subscription of one subscriber, with its buffer and its demand.
+     */
+    private final class BufferedSubscription implements Flow.Subscription {
+        private final Flow.Subscriber<? super T> subscriber;
+        private final Overflow overflow;
+        private final ArrayDeque<T> buffer = new ArrayDeque<>();
+        private final AtomicLong demand = new AtomicLong();
+        private final AtomicInteger work = new AtomicInteger();
+        private volatile boolean cancelled;
+        private volatile boolean completed;
+        private volatile boolean subscribed;
+        private volatile Throwable error;
+
+        BufferedSubscription(Flow.Subscriber<? super T> subscriber, Overflow overflow) {
+            this.subscriber = subscriber;
+            this.overflow = overflow;
+        }
+
+        /**
+         * Buffers an item according to the overflow policy and schedules a delivery.
+         */
+        void offer(T item) {
+            synchronized (buffer) {
+                if (buffer.size() < capacity) {
+                    buffer.addLast(item);
+                } else if (overflow == Overflow.DROP_OLDEST) {
+                    buffer.pollFirst();
+                    buffer.addLast(item);
+                    dropped.increment();
+                } else if (overflow == Overflow.DROP_NEWEST) {
+                    dropped.increment();
+                } else {
+                    buffer.addLast(coalescer.apply(buffer.pollLast(), item));
+                }
+            }
+            schedule();
+        }
+
+        /**
+         * Marks the subscription complete, the subscriber being told once its buffer is empty.
+         */
+        void complete() {
+            completed = true;
+            schedule();
+        }
+
+        /**
+         * Adds to the demand of the subscriber.
+         * @param n the number of additional items wanted, positive
+         */
+        @Override
+        public void request(long n) {
+            if (n <= 0) {
+                error = new IllegalArgumentException("Demande non positive : " + n);
+                schedule();
+                return;
+            }
+            demand.getAndAccumulate(n, (current, added) -> current + added < 0 ? Long.MAX_VALUE : current + added);
+            schedule();
+        }
+
+        /**
+         * Stops the deliveries and forgets the buffered items.
+         */
+        @Override
+        public void cancel() {
+            cancelled = true;
+            subscriptions.remove(this);
+            synchronized (buffer) {
+                buffer.clear();
+            }
+        }
+
+        /**
+         * Runs a delivery on the executor unless one is running, which will then loop again.
+         * A delivery refused by the executor cancels the subscription with an error.
+         */
+        private void schedule() {
+            if (subscribed && work.getAndIncrement() == 0) {
+                try {
+                    executor.execute(this::deliver);
+                } catch (RejectedExecutionException e) {
+                    // Aucune livraison ne tourne : l'erreur peut être signalée depuis ce thread
+                    if (!cancelled) {
+                        cancel();
+                        subscriber.onError(e);
+                    }
+                }
+            }
+        }
+
+        /**
+         * Delivers the first subscription and any item published meanwhile, on the executor.
+         */
+        void drain() {
+            subscribed = true;
+            if (work.getAndIncrement() == 0) {
+                deliver();
+            }
+        }
+
+        /**
+         * Delivers buffered items while the subscriber wants some; one delivery runs at a time.
+         */
+        private void deliver() {
+            int missed = 1;
+            do {
+                if (!cancelled && error != null) {
+                    cancel();
+                    subscriber.onError(error);
+                }
+                while (!cancelled && demand.get() > 0) {
+                    T item;
+                    synchronized (buffer) {
+                        item = buffer.pollFirst();
+                    }
+                    if (item == null) {
+                        break;
+                    }
+                    if (demand.get() != Long.MAX_VALUE) {
+                        demand.decrementAndGet();
+                    }
+                    try {
+                        subscriber.onNext(item);
+                    } catch (RuntimeException e) {
+                        // Un abonné défaillant est retiré sans gêner les autres
+                        cancel();
+                        subscriber.onError(e);
+                    }
+                }
+                if (!cancelled && completed && isEmpty()) {
+                    cancelled = true;
+                    subscriptions.remove(this);
+                    subscriber.onComplete();
+                }
+                missed = work.addAndGet(-missed);
+            } while (missed != 0);
+        }
+
+        /**
+         * Checks if the buffer is empty.
+         */
+        private boolean isEmpty() {
+            synchronized (buffer) {
+                return buffer.isEmpty();
+            }
+        }
+    }
+}
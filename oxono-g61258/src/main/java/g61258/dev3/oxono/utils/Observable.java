@@ -22,11 +22,36 @@ public interface Observable {
 
     /**
      * Notifies all observers by calling their 'update' method.
+     * Inside an update scope, the notification is delayed until the scope ends.
      */
     void notifyObservers();
 
+    /**
+     * Opens an update scope: the notifications are held until the matching {@link #endUpdate()},
+     * so that an action changing the state several times updates every observer once.
+     * Scopes can be nested; only the outermost one notifies.
+     */
+    void beginUpdate();
 
+    /**
+     * Closes the scope opened by the matching {@link #beginUpdate()}. When the outermost scope
+     * ends, the observers are notified once if a notification was held.
+     * @throws IllegalStateException if no scope is open
+     */
+    void endUpdate();
 
+    /**
+     * Runs an action inside an update scope, so that it notifies the observers at most once.
+     * @param action the action changing the state
+     */
+    default void batch(Runnable action) {
+        beginUpdate();
+        try {
+            action.run();
+        } finally {
+            endUpdate();
+        }
+    }
 }
 
 
@@ -0,0 +1,51 @@
+package g61258.dev3.oxono.view;
+
+import g61258.dev3.oxono.controller.GameController;
+import g61258.dev3.oxono.model.GameListener;
+import g61258.dev3.oxono.utils.Observer;
+import javafx.scene.Node;
+
+/**
+ * The {@code BoardRenderer} interface is a way of displaying the game board and handling the clicks on it.
+ * <p>{@link BoardView} shows every cell as its own node and suits the small boards;
+ * {@link CanvasBoardView} draws the whole board on a single canvas and suits the large ones.
+ * The renderer is chosen in the {@link GameStartView}.</p>
+ * <p>As a {@link GameListener}, a renderer learns which cells the game changed; the update that follows,
+ * as an {@link Observer}, redraws those cells only.</p>
+ */
+public interface BoardRenderer extends Observer, GameListener {
+
+    /**
+     * Sets the GameController to manage user input and game logic for the board, and draws the board.
+     * @param controller the controller for handling clicks and other actions on the board
+     */
+    void setController(GameController controller);
+
+    /**
+     * Sets the GameInfoView to be updated when the board changes.
+     * @param gameInfoView the GameInfoView to update with game status
+     */
+    void setGameInfoView(GameInfoView gameInfoView);
+
+    /**
+     * Returns the node displaying the board, to be added to the scene.
+     * @return the node of the board
+     */
+    Node getNode();
+
+    /**
+     * Returns the side of the square needed by the board in the window, margins included.
+     * @return the side in pixels
+     */
+    double getPreferredSide();
+
+    /**
+     * Clears the selected totem, resetting the selection state.
+     */
+    void clearSelectedTotem();
+
+    /**
+     * Grays out the entire board, to indicate that the game is over.
+     */
+    void grayOutBoard();
+}
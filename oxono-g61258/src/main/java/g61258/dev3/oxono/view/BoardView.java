@@ -2,20 +2,33 @@ package g61258.dev3.oxono.view;
 
 import g61258.dev3.oxono.controller.GameController;
 import g61258.dev3.oxono.model.*;
-import g61258.dev3.oxono.utils.Observer;
 import javafx.scene.Node;
 import javafx.scene.effect.ColorAdjust;
-import javafx.scene.image.Image;
 import javafx.scene.image.ImageView;
+import javafx.scene.input.MouseEvent;
 import javafx.scene.layout.GridPane;
 
+import java.util.ArrayList;
+import java.util.List;
+
 /**
  * Represents the view of the game board in the user interface, which displays the board's grid and manages user interactions.
  * This class is responsible for rendering the game board, updating the view when the board changes,
  * and handling interactions with the cells (such as selecting totems and placing tokens).
- * It implements the Observer interface to listen for updates from the model (Game) and reflect those changes on the UI.
+ * It implements the BoardRenderer interface, an Observer, to listen for updates from the model (Game) and reflect those changes on the UI.
+ * <p>Every cell is one {@link ImageView} created with the view, whose mouse handlers are installed once and act
+ * according to what the cell currently shows. An update only looks at the cells changed by the game or by
+ * the selection, and a whole pass over the board only happens when every empty cell changes interactivity.</p>
  */
-public class BoardView implements Observer {
+public class BoardView implements BoardRenderer {
+
+    // Bits de l'état affiché d'une case, en plus de son code ; partagés avec CanvasBoardView
+    static final int CODE_MASK = 7;
+    static final int INTERACTIVE = 8;
+    static final int SELECTED = 16;
+
+    static final ColorAdjust SELECTED_EFFECT = new ColorAdjust(0, 0, -0.4, 0);
+    static final ColorAdjust GRAY_EFFECT = new ColorAdjust(0, -1, -0.4, 0);
 
     private GridPane gridPane;
     private Totem selectedTotem = null;
@@ -24,6 +37,13 @@ public class BoardView implements Observer {
 
     private GameController controller;
 
+    private final ImageView[][] cells;
+    private final int[][] shown;
+    private ImageView hovered;
+    private boolean grayed;
+    private final List<int[]> changedCells = new ArrayList<>();
+    private boolean rescan = true; // Rien d'affiché : la première mise à jour parcourt tout
+
     private final int GRID_PANE_GAPE = 5;
 
     private final int CELL_VIEW_SET_FIT = 50;
@@ -39,12 +59,21 @@ public class BoardView implements Observer {
         gridPane = new GridPane();
         gridPane.setHgap(GRID_PANE_GAPE);
         gridPane.setVgap(GRID_PANE_GAPE);
+
+        cells = new ImageView[boardSize][boardSize];
+        shown = new int[boardSize][boardSize];
+        for (int i = 0; i < boardSize; i++) {
+            for (int j = 0; j < boardSize; j++) {
+                createCell(i, j);
+            }
+        }
     }
 
     /**
      * Sets the GameInfoView to be updated when the board changes.
      * @param gameInfoView the GameInfoView to update with game status
      */
+    @Override
     public void setGameInfoView(GameInfoView gameInfoView) {
         this.gameInfoView = gameInfoView;
     }
@@ -53,6 +82,7 @@ public class BoardView implements Observer {
      * Sets the GameController to manage user input and game logic for the board.
      * @param controller the controller for handling clicks and other actions on the board
      */
+    @Override
     public void setController(GameController controller) {
         this.controller = controller;
         update();
@@ -66,11 +96,62 @@ public class BoardView implements Observer {
         return gridPane;
     }
 
+    /**
+     * Returns the node displaying the board, which is the GridPane of the cells.
+     * @return the GridPane of the game board
+     */
+    @Override
+    public Node getNode() {
+        return gridPane;
+    }
+
+    /**
+     * Returns the side of the square needed by the board: the cells, their gaps and the margins.
+     * @return the side in pixels
+     */
+    @Override
+    public double getPreferredSide() {
+        return boardSize * 60;
+    }
+
     /**
      * Clears the selected totem, resetting the selection state.
+     * The totem is shown unselected by the next update.
      */
+    @Override
     public void clearSelectedTotem() {
-        selectedTotem = null;
+        select(null);
+    }
+
+    /**
+     * Changes the selected totem, its previous and new cells being redrawn by the next update.
+     * @param totem the selected totem, or null
+     */
+    private void select(Totem totem) {
+        if (selectedTotem != null) {
+            changedCells.add(new int[]{selectedTotem.getX(), selectedTotem.getY()});
+        }
+        if (totem != null) {
+            changedCells.add(new int[]{totem.getX(), totem.getY()});
+        }
+        selectedTotem = totem;
+    }
+
+    /**
+     * Remembers the cells changed by the game, to be redrawn by the update that follows.
+     * A change from or to the choice phase changes the interactivity of every empty cell.
+     * @param events the changes of the game
+     */
+    @Override
+    public void changed(List<GameEvent> events) {
+        for (GameEvent event : events) {
+            if (event instanceof GameEvent.CellChanged cell) {
+                changedCells.add(new int[]{cell.getX(), cell.getY()});
+            } else if (event instanceof GameEvent.PhaseChanged phase
+                    && (phase.getOldPhase() == GameStat.CHOICE || phase.getNewPhase() == GameStat.CHOICE)) {
+                rescan = true;
+            }
+        }
     }
 
     /**
@@ -84,36 +165,76 @@ public class BoardView implements Observer {
     }
 
     /**
-     * Updates the board view by clearing the previous display and rendering the current game state.
-     * This method is responsible for creating the appropriate images for each cell (totem or token),
-     * and setting up event handlers for user interaction.
+     * Updates the board view by comparing the current game state with the state shown by the cells changed
+     * since the previous update, or by every cell after a change of phase.
+     * Only the cells whose content, interactivity or selection changed get a new image and effect;
+     * the hover highlighting, computed for the previous state, is removed.
      */
     public void updateBoardView() {
-        gridPane.getChildren().clear();
-
-        for (int i = 0; i < boardSize; i++) {
-            for (int j = 0; j < boardSize; j++) {
-                createAndConfigureCell(i, j);
+        if (hovered != null) {
+            hovered.setEffect(grayed ? GRAY_EFFECT : null);
+            hovered = null;
+        }
+        boolean interactive = controller.getGameStat() != GameStat.CHOICE;
+
+        if (rescan) {
+            rescan = false;
+            for (int i = 0; i < boardSize; i++) {
+                for (int j = 0; j < boardSize; j++) {
+                    refreshCell(i, j, interactive);
+                }
+            }
+        } else {
+            for (int[] cell : changedCells) {
+                refreshCell(cell[0], cell[1], interactive);
             }
         }
+        changedCells.clear();
     }
 
     /**
-     * Creates and configures a cell at the specified row and column.
-     * Depending on the presence of a token, the method determines whether the cell is empty
-     * or occupied and applies the appropriate visual configuration and interactions.
+     * Shows the current state of a cell if it differs from the state it shows.
      * @param row the row index of the cell
      * @param col the column index of the cell
+     * @param interactive true if tokens and totems can be played
      */
-    private void createAndConfigureCell(int row, int col) {
-        ImageView cellView = createImageView();
-        Token token = controller.getToken(row, col);
+    private void refreshCell(int row, int col, boolean interactive) {
+        int state = cellState(controller.getToken(row, col), interactive, selectedTotem);
+        if (state != shown[row][col]) {
+            configureCell(row, col, state);
+        }
+    }
 
+    /**
+     * Computes the state to show for a cell.
+     * @param token the token or totem occupying the cell, or null for an empty cell
+     * @param interactive true if tokens and totems can be played, false when the game waits for a choice
+     * @param selectedTotem the totem selected by the player, or null
+     * @return the {@link CellCode} of the cell, with the interactive bit for a playable empty cell
+     *         and the selected bit for the selected totem
+     */
+    static int cellState(Token token, boolean interactive, Totem selectedTotem) {
+        int code = CellCode.of(token);
         if (token == null) {
-            configureEmptyCell(cellView, row, col);
-        } else {
-            configureOccupiedCell(cellView, token);
+            return interactive ? code | INTERACTIVE : code;
         }
+        return token == selectedTotem ? code | SELECTED : code;
+    }
+
+    /**
+     * Creates the ImageView of a cell, installs its mouse handlers and adds it to the grid.
+     * The handlers stay for the whole game and act according to the state shown by the cell.
+     * @param row the row index of the cell
+     * @param col the column index of the cell
+     */
+    private void createCell(int row, int col) {
+        ImageView cellView = createImageView();
+        cellView.setOnMouseEntered(event -> onMouseEntered(row, col, event));
+        cellView.setOnMouseExited(event -> onMouseExited(row, col));
+        cellView.setOnMouseClicked(event -> onMouseClicked(row, col, event));
+
+        cells[row][col] = cellView;
+        shown[row][col] = -1; // Rien d'affiché : la première mise à jour configure la case
         gridPane.add(cellView, col, row);
     }
 
@@ -130,122 +251,88 @@ public class BoardView implements Observer {
     }
 
     /**
-     * Configures a cell to represent an empty state.
-     * Sets an empty cell image and enables or disables interactions based on the game's state.
-     * @param cellView the ImageView representing the cell
+     * Shows a new state in a cell: the shared image of its content and the effect of its selection.
      * @param row the row index of the cell
      * @param col the column index of the cell
+     * @param state the state of the cell, as computed by {@link #cellState(Token, boolean, Totem)}
      */
-    private void configureEmptyCell(ImageView cellView, int row, int col) {
-        cellView.setImage(new Image(getClass().getResource("/images/empty_cell_image.png").toString()));
-
-        if (controller.getGameStat() == GameStat.CHOICE) {
-            disableCellInteractions(cellView);
+    private void configureCell(int row, int col, int state) {
+        ImageView cellView = cells[row][col];
+        cellView.setImage(ImageAtlas.get(state & CODE_MASK));
+        if (grayed) {
+            cellView.setEffect(GRAY_EFFECT);
         } else {
-            enableEmptyCellInteractions(cellView, row, col);
+            cellView.setEffect((state & SELECTED) != 0 ? SELECTED_EFFECT : null);
         }
+        shown[row][col] = state;
     }
 
     /**
-     * Disables all interactions for a cell, effectively making it static.
-     * @param cellView the ImageView representing the cell
-     */
-    private void disableCellInteractions(ImageView cellView) {
-        cellView.setOnMouseEntered(null);
-        cellView.setOnMouseExited(null);
-        cellView.setOnMouseClicked(null);
-    }
-
-    /**
-     * Enables interactions for an empty cell, allowing hover effects and click handling.
-     * @param cellView the ImageView representing the cell
+     * Highlights a playable empty cell under the mouse, in green or red depending on the validity of the move.
      * @param row the row index of the cell
      * @param col the column index of the cell
+     * @param event the mouse event
      */
-    private void enableEmptyCellInteractions(ImageView cellView, int row, int col) {
-        cellView.setOnMouseEntered(event -> {
-            ColorAdjust colorAdjust = controller.OnMouseEntered(row, col, selectedTotem, event);
-            cellView.setEffect(colorAdjust);
-        });
-
-        cellView.setOnMouseExited(event -> cellView.setEffect(null));
-
-        cellView.setOnMouseClicked(event -> {
-            controller.EmptyCellOnMouseClicked(row, col, selectedTotem, event);
-            selectedTotem = null;
-        });
+    private void onMouseEntered(int row, int col, MouseEvent event) {
+        if ((shown[row][col] & INTERACTIVE) != 0) {
+            ImageView cellView = cells[row][col];
+            cellView.setEffect(controller.OnMouseEntered(row, col, selectedTotem, event));
+            hovered = cellView;
+        }
     }
 
     /**
-     * Configures a cell to represent a token or totem that occupies it.
-     * Delegates to specific methods based on the token type.
-     * @param cellView the ImageView representing the cell
-     * @param token the token occupying the cell
+     * Removes the highlighting of the cell left by the mouse.
+     * @param row the row index of the cell
+     * @param col the column index of the cell
      */
-    private void configureOccupiedCell(ImageView cellView, Token token) {
-        if (token instanceof Totem) {
-            configureTotemCell(cellView, (Totem) token);
-        } else {
-            configureTokenCell(cellView, token);
+    private void onMouseExited(int row, int col) {
+        if (hovered == cells[row][col]) {
+            hovered.setEffect(null);
+            hovered = null;
         }
     }
 
     /**
-     * Configures a cell to display a totem image and handles interactions for selecting and deselecting the totem.
-     * @param cellView the ImageView representing the cell
-     * @param totem the totem occupying the cell
+     * Handles a click on a cell: plays on a playable empty cell, or selects and deselects a totem.
+     * The selection is shown by an update of the board, which only changes the cells concerned.
+     * @param row the row index of the cell
+     * @param col the column index of the cell
+     * @param event the mouse event
      */
-    private void configureTotemCell(ImageView cellView, Totem totem) {
-        String imagePath = "/images/totem_blue_" + totem.getShape().toString().toLowerCase() + ".png";
-        cellView.setImage(new Image(getClass().getResource(imagePath).toString()));
-
-        ColorAdjust colorAdjust = new ColorAdjust();
-        colorAdjust.setBrightness(-0.4);
-
-        if (totem == selectedTotem) {
-            cellView.setEffect(colorAdjust);
-        }
-
-        cellView.setOnMouseClicked(event -> {
+    private void onMouseClicked(int row, int col, MouseEvent event) {
+        int state = shown[row][col];
+        if ((state & INTERACTIVE) != 0) {
+            controller.EmptyCellOnMouseClicked(row, col, selectedTotem, event);
+            select(null);
+        } else if (CellCode.isTotem(state & CODE_MASK) && !grayed) {
+            Totem totem = (Totem) controller.getToken(row, col);
             if (selectedTotem == null && controller.hasTokenShape(totem.getShape())) {
-                selectedTotem = totem;
-                cellView.setEffect(colorAdjust);
+                select(totem);
             } else if (selectedTotem == totem) {
-                selectedTotem = null;
-                cellView.setEffect(null);
+                select(null);
             }
-        });
-    }
-
-
-    /**
-     * Configures a cell to display a token image without interactions.
-     * @param cellView the ImageView representing the cell
-     * @param token the token occupying the cell
-     */
-    private void configureTokenCell(ImageView cellView, Token token) {
-        String imagePath = "/images/token_" + token.getColor().toString().toLowerCase() + "_" + token.getShape().toString().toLowerCase() + ".png";
-        cellView.setImage(new Image(getClass().getResource(imagePath).toString()));
+        } else {
+            return;
+        }
+        updateBoardView();
     }
 
 
     /**
      * Grays out the entire board by applying a color filter to each cell.
      * This effect can be used to indicate that the board is disabled or to simulate a game pause.
+     * The board stays gray for the rest of the game.
      */
+    @Override
     public void grayOutBoard() {
-        for (Node node : gridPane.getChildren()) {
-            if (node instanceof ImageView) {
-                ImageView cellView = (ImageView) node;
-                // Appliquer un filtre de couleur grise et réduire l'opacité
-                ColorAdjust grayEffect = new ColorAdjust();
-                grayEffect.setSaturation(-1); // Désature pour rendre gris
-                grayEffect.setBrightness(-0.4); // Réduit la luminosité
-
-                cellView.setEffect(grayEffect);
+        grayed = true;
+        hovered = null;
+        for (ImageView[] row : cells) {
+            for (ImageView cellView : row) {
+                // Filtre partagé : désaturé et assombri
+                cellView.setEffect(GRAY_EFFECT);
             }
         }
     }
 }
-
-
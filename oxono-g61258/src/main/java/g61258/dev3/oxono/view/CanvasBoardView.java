@@ -0,0 +1,335 @@
+package g61258.dev3.oxono.view;
+
+import g61258.dev3.oxono.controller.GameController;
+import g61258.dev3.oxono.model.*;
+import javafx.scene.Node;
+import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.effect.Effect;
+import javafx.scene.image.Image;
+import javafx.scene.input.MouseEvent;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Represents the game board drawn on a single {@link Canvas}, for the boards too large to have one node per cell.
+ * <p>The cell under the mouse is computed from the coordinates of the events, so the canvas has only three
+ * handlers whatever the size of the board. The canvas keeps the state drawn in every cell, encoded as in
+ * {@link BoardView}: an update, a move of the mouse or a selection only redraws the cells whose state or
+ * effect changed, an update only looking at the cells changed by the game or by the selection.
+ * The cells shrink so that the board fits in the window.</p>
+ * <p>Down to cells of {@value #MIN_CELL_PITCH} pixels, boards up to 100 by 100 fit in the window; larger
+ * ones are drawn at that pitch and overflow it.</p>
+ */
+public class CanvasBoardView implements BoardRenderer {
+
+    private static final int MAX_BOARD_SIDE = 800;
+    private static final int MAX_CELL_PITCH = 55;
+    private static final int MIN_CELL_PITCH = 8;
+
+    private final Canvas canvas;
+    private final GraphicsContext graphics;
+    private final int boardSize;
+    private final int pitch;
+    private final int cellSide;
+
+    private final int[][] shown;
+    private int hoveredRow = -1;
+    private int hoveredCol = -1;
+    private Effect hoverEffect;
+    private boolean grayed;
+    private final List<int[]> changedCells = new ArrayList<>();
+    private boolean rescan = true; // Rien de dessiné : la première mise à jour parcourt tout
+
+    private Totem selectedTotem = null;
+    private GameInfoView gameInfoView;
+    private GameController controller;
+
+    /**
+     * Constructs a CanvasBoardView sized for the given board.
+     * @param boardSize the size of the board displayed
+     */
+    public CanvasBoardView(int boardSize) {
+        this.boardSize = boardSize;
+        this.pitch = Math.max(MIN_CELL_PITCH, Math.min(MAX_CELL_PITCH, MAX_BOARD_SIDE / boardSize));
+        int gap = pitch >= 30 ? 5 : 1;
+        this.cellSide = pitch - gap;
+
+        canvas = new Canvas(boardSize * pitch - gap, boardSize * pitch - gap);
+        graphics = canvas.getGraphicsContext2D();
+        shown = new int[boardSize][boardSize];
+        for (int[] row : shown) {
+            Arrays.fill(row, -1); // Rien de dessiné : la première mise à jour dessine tout
+        }
+
+        canvas.setOnMouseMoved(this::onMouseMoved);
+        canvas.setOnMouseExited(event -> setHovered(-1, -1, null));
+        canvas.setOnMouseClicked(this::onMouseClicked);
+        redrawWhenLoaded();
+    }
+
+    /**
+     * Redraws the board once every image still decoding in the background is ready,
+     * the canvas having drawn nothing for it.
+     */
+    private void redrawWhenLoaded() {
+        for (int code = 0; code < CellCode.COUNT; code++) {
+            Image image = ImageAtlas.get(code);
+            if (image.getProgress() < 1) {
+                image.progressProperty().addListener((observable, oldProgress, progress) -> {
+                    if (progress.doubleValue() >= 1) {
+                        redrawAll();
+                    }
+                });
+            }
+        }
+    }
+
+    /**
+     * Sets the GameInfoView to be updated when the board changes.
+     * @param gameInfoView the GameInfoView to update with game status
+     */
+    @Override
+    public void setGameInfoView(GameInfoView gameInfoView) {
+        this.gameInfoView = gameInfoView;
+    }
+
+    /**
+     * Sets the GameController to manage user input and game logic for the board, and draws the board.
+     * @param controller the controller for handling clicks and other actions on the board
+     */
+    @Override
+    public void setController(GameController controller) {
+        this.controller = controller;
+        update();
+    }
+
+    /**
+     * Returns the canvas on which the board is drawn.
+     * @return the canvas of the game board
+     */
+    @Override
+    public Node getNode() {
+        return canvas;
+    }
+
+    /**
+     * Returns the side of the square needed by the board: the canvas and the margins.
+     * @return the side in pixels
+     */
+    @Override
+    public double getPreferredSide() {
+        return canvas.getWidth() + 60;
+    }
+
+    /**
+     * Clears the selected totem, resetting the selection state.
+     * The totem is drawn unselected by the next update.
+     */
+    @Override
+    public void clearSelectedTotem() {
+        select(null);
+    }
+
+    /**
+     * Changes the selected totem, its previous and new cells being redrawn by the next update.
+     * @param totem the selected totem, or null
+     */
+    private void select(Totem totem) {
+        if (selectedTotem != null) {
+            changedCells.add(new int[]{selectedTotem.getX(), selectedTotem.getY()});
+        }
+        if (totem != null) {
+            changedCells.add(new int[]{totem.getX(), totem.getY()});
+        }
+        selectedTotem = totem;
+    }
+
+    /**
+     * Remembers the cells changed by the game, to be redrawn by the update that follows.
+     * A change from or to the choice phase changes the interactivity of every empty cell.
+     * @param events the changes of the game
+     */
+    @Override
+    public void changed(List<GameEvent> events) {
+        for (GameEvent event : events) {
+            if (event instanceof GameEvent.CellChanged cell) {
+                changedCells.add(new int[]{cell.getX(), cell.getY()});
+            } else if (event instanceof GameEvent.PhaseChanged phase
+                    && (phase.getOldPhase() == GameStat.CHOICE || phase.getNewPhase() == GameStat.CHOICE)) {
+                rescan = true;
+            }
+        }
+    }
+
+    /**
+     * Updates the board to reflect the current game state, redrawing only the cells whose content,
+     * interactivity or selection changed: those changed since the previous update, or every cell after
+     * a change of phase. The hover highlighting, computed for the previous state, is removed.
+     */
+    @Override
+    public void update() {
+        setHovered(-1, -1, null);
+        boolean interactive = controller.getGameStat() != GameStat.CHOICE;
+
+        if (rescan) {
+            rescan = false;
+            for (int i = 0; i < boardSize; i++) {
+                for (int j = 0; j < boardSize; j++) {
+                    refreshCell(i, j, interactive);
+                }
+            }
+        } else {
+            for (int[] cell : changedCells) {
+                refreshCell(cell[0], cell[1], interactive);
+            }
+        }
+        changedCells.clear();
+    }
+
+    /**
+     * Redraws a cell if its current state differs from the state it shows.
+     * @param row the row index of the cell
+     * @param col the column index of the cell
+     * @param interactive true if tokens and totems can be played
+     */
+    private void refreshCell(int row, int col, boolean interactive) {
+        int state = BoardView.cellState(controller.getToken(row, col), interactive, selectedTotem);
+        if (state != shown[row][col]) {
+            shown[row][col] = state;
+            drawCell(row, col);
+        }
+    }
+
+    /**
+     * Redraws every cell, with the state it already shows.
+     */
+    private void redrawAll() {
+        for (int i = 0; i < boardSize; i++) {
+            for (int j = 0; j < boardSize; j++) {
+                if (shown[i][j] >= 0) {
+                    drawCell(i, j);
+                }
+            }
+        }
+    }
+
+    /**
+     * Draws one cell over its previous drawing: the image of its content with its effect.
+     * @param row the row index of the cell
+     * @param col the column index of the cell
+     */
+    private void drawCell(int row, int col) {
+        int state = shown[row][col];
+        double x = col * pitch;
+        double y = row * pitch;
+
+        Effect effect = null;
+        if (grayed) {
+            effect = BoardView.GRAY_EFFECT;
+        } else if (row == hoveredRow && col == hoveredCol) {
+            effect = hoverEffect;
+        } else if ((state & BoardView.SELECTED) != 0) {
+            effect = BoardView.SELECTED_EFFECT;
+        }
+
+        graphics.clearRect(x, y, cellSide, cellSide);
+        graphics.setEffect(effect);
+        graphics.drawImage(ImageAtlas.get(state & BoardView.CODE_MASK), x, y, cellSide, cellSide);
+        graphics.setEffect(null);
+    }
+
+    /**
+     * Finds the cell at the given coordinates of the canvas.
+     * @param x the x-coordinate in the canvas
+     * @param y the y-coordinate in the canvas
+     * @return the row and the column of the cell, or null in a gap or outside the board
+     */
+    private int[] cellAt(double x, double y) {
+        if (x < 0 || y < 0) {
+            return null;
+        }
+        int col = (int) (x / pitch);
+        int row = (int) (y / pitch);
+        if (row >= boardSize || col >= boardSize || x - col * pitch >= cellSide || y - row * pitch >= cellSide) {
+            return null;
+        }
+        return new int[]{row, col};
+    }
+
+    /**
+     * Moves the highlighting to another cell, redrawing the cell left and the cell reached.
+     * @param row the row index of the highlighted cell, or -1 for none
+     * @param col the column index of the highlighted cell, or -1 for none
+     * @param effect the highlighting of the cell, or null for none
+     */
+    private void setHovered(int row, int col, Effect effect) {
+        int oldRow = hoveredRow;
+        int oldCol = hoveredCol;
+        hoveredRow = row;
+        hoveredCol = col;
+        hoverEffect = effect;
+        if (oldRow >= 0 && (oldRow != row || oldCol != col)) {
+            drawCell(oldRow, oldCol);
+        }
+        if (row >= 0) {
+            drawCell(row, col);
+        }
+    }
+
+    /**
+     * Highlights the playable empty cell under the mouse, in green or red depending on the validity of the move.
+     * Nothing is redrawn while the mouse stays in the same cell.
+     * @param event the mouse event
+     */
+    private void onMouseMoved(MouseEvent event) {
+        int[] cell = cellAt(event.getX(), event.getY());
+        if (cell == null || (shown[cell[0]][cell[1]] & BoardView.INTERACTIVE) == 0) {
+            setHovered(-1, -1, null);
+        } else if (cell[0] != hoveredRow || cell[1] != hoveredCol) {
+            setHovered(cell[0], cell[1], controller.OnMouseEntered(cell[0], cell[1], selectedTotem, event));
+        }
+    }
+
+    /**
+     * Handles a click on the board: plays on a playable empty cell, or selects and deselects a totem.
+     * The selection is shown by an update of the board, which only redraws the cells concerned.
+     * @param event the mouse event
+     */
+    private void onMouseClicked(MouseEvent event) {
+        int[] cell = cellAt(event.getX(), event.getY());
+        if (cell == null) {
+            return;
+        }
+        int row = cell[0];
+        int col = cell[1];
+        int state = shown[row][col];
+        if ((state & BoardView.INTERACTIVE) != 0) {
+            controller.EmptyCellOnMouseClicked(row, col, selectedTotem, event);
+            select(null);
+        } else if (CellCode.isTotem(state & BoardView.CODE_MASK) && !grayed) {
+            Totem totem = (Totem) controller.getToken(row, col);
+            if (selectedTotem == null && controller.hasTokenShape(totem.getShape())) {
+                select(totem);
+            } else if (selectedTotem == totem) {
+                select(null);
+            }
+        } else {
+            return;
+        }
+        update();
+    }
+
+    /**
+     * Grays out the entire board, which stays gray for the rest of the game.
+     */
+    @Override
+    public void grayOutBoard() {
+        grayed = true;
+        hoveredRow = -1;
+        hoveredCol = -1;
+        redrawAll();
+    }
+}
@@ -1,7 +1,6 @@
 package g61258.dev3.oxono.view;
 
 import g61258.dev3.oxono.controller.GameController;
-import g61258.dev3.oxono.model.GameStat;
 import g61258.dev3.oxono.model.Shape;
 import g61258.dev3.oxono.utils.Observer;
 import javafx.application.Platform;
@@ -21,7 +20,7 @@ import javafx.scene.layout.VBox;
 public class GameInfoView implements Observer {
 
     private GameController controller;
-    private BoardView boardView;
+    private BoardRenderer boardView;
 
     private VBox infoContainer;
     private Label crossCountLabel;
@@ -39,7 +38,7 @@ public class GameInfoView implements Observer {
      * Constructs a new GameInfoView instance.
      * @param boardView the view of the game board
      */
-    public GameInfoView(BoardView boardView) {
+    public GameInfoView(BoardRenderer boardView) {
         this.boardView = boardView;
         this.endGameView = new EndGameView(); // Initialize end game view
         initializeUI(); // Setup the user interface
@@ -88,36 +87,13 @@ public class GameInfoView implements Observer {
         abandonButton.setOnAction(event -> {
             disableActionButtons();
             controller.abandonGame();
-            update();
             boardView.grayOutBoard();
             endGameView.display(controller.getWinnerName());
         });
 
-        undoButton.setOnAction(event -> {
-            if (controller.getGameStat() == GameStat.MOVE){
-                    controller.switchPlayer();
-                    controller.undo();
-                    controller.undo();
-                    controller.switchPlayer();
-                    controller.undo();
-                } else {
-                controller.undo();
-            }
-            update();
-        });
+        undoButton.setOnAction(event -> controller.undo());
 
-        redoButton.setOnAction(event -> {
-            if (controller.getGameStat() == GameStat.INSERT) {
-                controller.redo();
-                controller.switchPlayer();
-                controller.redo();
-                controller.redo();
-                controller.switchPlayer();
-            } else {
-                controller.redo();
-            }
-            update();
-        });
+        redoButton.setOnAction(event -> controller.redo());
 
         quitButton.setOnAction(event -> Platform.exit());
     }
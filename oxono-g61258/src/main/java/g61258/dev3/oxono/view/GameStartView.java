@@ -9,6 +9,7 @@ import javafx.geometry.Insets;
 import javafx.geometry.Pos;
 import javafx.scene.Scene;
 import javafx.scene.control.Button;
+import javafx.scene.control.CheckBox;
 import javafx.scene.control.ComboBox;
 import javafx.scene.layout.BorderPane;
 import javafx.scene.layout.StackPane;
@@ -25,7 +26,14 @@ public class GameStartView extends VBox {
 
     private GameInfoView gameInfoView;
 
-    private BoardView boardView;
+    private BoardRenderer boardView;
+
+    private CheckBox canvasCheckBox;
+
+    /**
+     * Largest board drawn with one node per cell; larger boards are always drawn on a canvas.
+     */
+    private static final int MAX_NODE_BOARD_SIZE = 8;
 
     /**
      * Constructs a new GameStartView instance for configuring the game.
@@ -39,6 +47,7 @@ public class GameStartView extends VBox {
         Text title = new Text("Configurer la partie");
         ComboBox<Integer> boardSizeComboBox = createBoardSizeComboBox();
         ComboBox<Integer> aiLevelComboBox = createAILevelComboBox();
+        canvasCheckBox = new CheckBox("Dessiner le plateau sur un canevas");
         Button startButton = createStartButton();
 
         // Add event handlers
@@ -46,7 +55,7 @@ public class GameStartView extends VBox {
         addStartButtonHandler(boardSizeComboBox, aiLevelComboBox, startButton);
 
         // Add components to the view
-        getChildren().addAll(title, boardSizeComboBox, aiLevelComboBox, startButton);
+        getChildren().addAll(title, boardSizeComboBox, aiLevelComboBox, canvasCheckBox, startButton);
     }
 
     /**
@@ -64,7 +73,7 @@ public class GameStartView extends VBox {
      */
     private ComboBox<Integer> createBoardSizeComboBox() {
         ComboBox<Integer> boardSizeComboBox = new ComboBox<>();
-        boardSizeComboBox.getItems().addAll(4, 6, 8);
+        boardSizeComboBox.getItems().addAll(4, 6, 8, 16, 32, 48, 64); // Les grands plateaux sont dessinés sur un canevas
         boardSizeComboBox.setPromptText("Taille du plateau");
         return boardSizeComboBox;
     }
@@ -113,48 +122,71 @@ public class GameStartView extends VBox {
             int aiLevel = aiLevelComboBox.getValue();
 
             controller.configureGame(boardSize, aiLevel);
-            initializeViews(boardSize);
-            setSceneWithLayout(boardSize);
+            showGame(boardSize);
         });
     }
 
     /**
-     * Initializes the BoardView and GameInfoView for the game.
+     * Displays the board and the information of the game configured in the controller.
+     * @param boardSize the size of the game board
+     */
+    public void showGame(int boardSize) {
+        initializeViews(boardSize);
+        setSceneWithLayout(boardSize);
+    }
+
+    /**
+     * Initializes the board renderer and GameInfoView for the game.
      * @param boardSize the size of the game board
      */
     private void initializeViews(int boardSize) {
-        boardView =  new BoardView(boardSize);
+        boardView = createBoardRenderer(boardSize);
         gameInfoView = new GameInfoView(boardView);
 
         boardView.setGameInfoView(gameInfoView);
         gameInfoView.setController(controller);
         boardView.setController(controller);
 
+        controller.addListener(boardView); // Les cases changées, avant la mise à jour qui les redessine
         controller.addObserver(boardView);
         controller.addObserver(gameInfoView);
     }
 
+    /**
+     * Creates the renderer of the board: a node per cell for the small boards, unless the canvas is chosen,
+     * and a canvas for the large ones.
+     * @param boardSize the size of the game board
+     * @return the renderer of the board
+     */
+    private BoardRenderer createBoardRenderer(int boardSize) {
+        if (canvasCheckBox.isSelected() || boardSize > MAX_NODE_BOARD_SIZE) {
+            return new CanvasBoardView(boardSize);
+        }
+        return new BoardView(boardSize);
+    }
+
     /**
      * Sets the scene with the main game layout.
      * @param boardSize the size of the game board
      */
     private void setSceneWithLayout(int boardSize) {
         BorderPane mainLayout = createGameLayout(boardView, gameInfoView, boardSize);
-        Scene gameScene = new Scene(mainLayout, boardSize * 60 + 100, boardSize * 60 + 200);
+        double side = boardView.getPreferredSide();
+        Scene gameScene = new Scene(mainLayout, side + 100, side + 200);
         controller.setScene(gameScene);
     }
 
     /**
      * Creates the main layout for the game, positioning the board and game info view.
-     * @param boardView the board view for displaying the game board
+     * @param boardView the renderer displaying the game board
      * @param gameInfoView the game info view displaying game-related information
      * @param boardSize the size of the game board
      * @return the main layout as a BorderPane
      */
-    private BorderPane createGameLayout(BoardView boardView, GameInfoView gameInfoView, int boardSize) {
+    private BorderPane createGameLayout(BoardRenderer boardView, GameInfoView gameInfoView, int boardSize) {
         // Container to center the board
-        StackPane boardContainer = new StackPane(boardView.getGridPane());
-        StackPane.setAlignment(boardView.getGridPane(), Pos.TOP_CENTER);
+        StackPane boardContainer = new StackPane(boardView.getNode());
+        StackPane.setAlignment(boardView.getNode(), Pos.TOP_CENTER);
 
         // Main layout with the board at the top and the game info at the center
         BorderPane mainLayout = new BorderPane();
@@ -186,10 +218,10 @@ public class GameStartView extends VBox {
     }
 
     /**
-     * Returns the BoardView associated with this start view.
-     * @return the BoardView for the current game
+     * Returns the board renderer associated with this start view.
+     * @return the BoardView or CanvasBoardView for the current game
      */
-    public BoardView getBoardView() {
+    public BoardRenderer getBoardView() {
         return boardView;
     }
 
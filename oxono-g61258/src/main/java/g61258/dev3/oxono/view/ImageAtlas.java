@@ -0,0 +1,66 @@
+package g61258.dev3.oxono.view;
+
+import g61258.dev3.oxono.model.CellCode;
+import g61258.dev3.oxono.model.Token;
+import javafx.scene.image.Image;
+
+/**
+ * The {@code ImageAtlas} class holds the images of the board cells, decoded once and shared by every view.
+ * <p>There is one image per {@link CellCode}: the empty cell, the four tokens and the two totems.
+ * {@link #preload()} starts decoding them all in the background when the application starts; an
+ * {@link javafx.scene.image.ImageView} showing an image not yet decoded displays it as soon as it is ready.
+ * The images are never modified, so the same instance can be shown by any number of cells.</p>
+ */
+public final class ImageAtlas {
+
+    private static final String[] PATHS = {
+            "/images/empty_cell_image.png",
+            "/images/token_pink_x.png",
+            "/images/token_pink_o.png",
+            "/images/token_black_x.png",
+            "/images/token_black_o.png",
+            "/images/totem_blue_x.png",
+            "/images/totem_blue_o.png"
+    };
+
+    private static final Image[] IMAGES = new Image[CellCode.COUNT];
+
+    private ImageAtlas() {
+    }
+
+    /**
+     * Starts decoding every image in the background, if it has not been done yet.
+     * Must be called once the JavaFX toolkit is started.
+     */
+    public static synchronized void preload() {
+        for (int code = 0; code < CellCode.COUNT; code++) {
+            if (IMAGES[code] == null) {
+                IMAGES[code] = new Image(ImageAtlas.class.getResource(PATHS[code]).toString(), true);
+            }
+        }
+    }
+
+    /**
+     * Returns the image of a cell content.
+     * @param code the {@link CellCode} of the cell
+     * @return the shared image of this content
+     */
+    public static Image get(int code) {
+        Image image = IMAGES[code];
+        if (image == null) {
+            // Atlas pas encore préchargé : tout est lancé d'un coup
+            preload();
+            image = IMAGES[code];
+        }
+        return image;
+    }
+
+    /**
+     * Returns the image of a token or a totem, or of an empty cell.
+     * @param token the token or totem occupying the cell, or null for an empty cell
+     * @return the shared image of this content
+     */
+    public static Image get(Token token) {
+        return get(CellCode.of(token));
+    }
+}
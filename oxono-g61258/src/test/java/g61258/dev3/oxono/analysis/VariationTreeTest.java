@@ -0,0 +1,85 @@
+package g61258.dev3.oxono.analysis;
+
+import g61258.dev3.oxono.model.PlayoutEngine;
+import g61258.dev3.oxono.model.Position;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class VariationTreeTest {
+
+    /**
+     * Returns the position reached by playing a line from the initial position.
+     */
+    private static Position replayed(int[] line) {
+        Position position = Position.initial(6, true);
+        for (int move : line) {
+            position.play(move);
+        }
+        return position;
+    }
+
+    @Test
+    void testBranchesAreKeptAndReachable() {
+        VariationTree tree = new VariationTree(Position.initial(6, true));
+        PlayoutEngine engine = new PlayoutEngine(3);
+        SplittableRandom random = new SplittableRandom(5);
+        List<Integer> nodes = new ArrayList<>();
+        List<Long> hashes = new ArrayList<>();
+
+        // Explore des variantes aléatoires depuis des noeuds déjà visités
+        for (int i = 0; i < 2000; i++) {
+            if (!nodes.isEmpty() && random.nextInt(4) == 0) {
+                tree.goTo(nodes.get(random.nextInt(nodes.size())));
+            }
+            int move = engine.randomMove(tree.getPosition());
+            if (move < 0 || tree.getPosition().getWinner() != Position.NONE) {
+                tree.goTo(VariationTree.ROOT);
+                continue;
+            }
+            int node = tree.play(move);
+            if (node == tree.getSize() - 1 && !nodes.contains(node)) {
+                nodes.add(node);
+                hashes.add(tree.getPosition().getHash());
+            }
+        }
+        assertTrue(tree.getSize() > 500);
+
+        for (int i = 0; i < 300; i++) {
+            int index = random.nextInt(nodes.size());
+            int node = nodes.get(index);
+            Position position = tree.goTo(node);
+            assertEquals(node, tree.getCurrent());
+            assertEquals(hashes.get(index), position.getHash());
+            assertEquals(replayed(tree.line(node)).getHash(), position.getHash());
+            assertEquals(tree.getDepth(node), tree.line(node).length);
+        }
+    }
+
+    @Test
+    void testSameMoveSharesNode() {
+        VariationTree tree = new VariationTree(Position.initial(6, true));
+        int[] moves = new int[tree.getPosition().maxMoves()];
+        int count = tree.getPosition().generateMoves(moves);
+        assertTrue(count >= 2);
+
+        int first = tree.play(moves[0]);
+        tree.back();
+        int second = tree.play(moves[1]);
+        tree.back();
+        assertEquals(first, tree.play(moves[0]));
+        assertEquals(3, tree.getSize());
+        assertEquals(first, tree.getFirstChild(VariationTree.ROOT));
+        assertEquals(second, tree.getNextSibling(first));
+        assertEquals(-1, tree.getNextSibling(second));
+        assertEquals(VariationTree.ROOT, tree.getParent(second));
+
+        tree.goTo(VariationTree.ROOT);
+        assertThrows(IllegalStateException.class, tree::back);
+        assertThrows(IllegalArgumentException.class, () -> tree.play(moves[0] ^ 1));
+    }
+}
@@ -0,0 +1,82 @@
+package g61258.dev3.oxono.analytics;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import g61258.dev3.oxono.model.Move;
+import g61258.dev3.oxono.model.Position;
+import g61258.dev3.oxono.model.RandomOpponentStrategy;
+import g61258.dev3.oxono.record.TestGames;
+import g61258.dev3.oxono.tournament.GameRunner;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GameStatisticsTest {
+
+    @Test
+    void testConcurrentCountsMatchGames() {
+        List<Position> games = IntStream.range(0, 2000).mapToObj(i -> TestGames.randomPosition(i % 4 == 0 ? 8 : 6, i)).toList();
+        GameStatistics statistics = new GameStatistics();
+        games.parallelStream().forEach(statistics::accept);
+
+        assertEquals(2000, statistics.getGames());
+        long moves = games.stream().mapToLong(Position::getPly).sum();
+        assertEquals(moves, statistics.getMoves());
+
+        Position first = games.get(1);
+        int cell = Move.placement(first.getMove(0));
+        long expected = games.stream().filter(p -> p.getSize() == 6)
+                .flatMapToInt(p -> IntStream.range(0, p.getPly()).filter(i -> i % 2 == 0).map(p::getMove))
+                .filter(m -> Move.placement(m) == cell).count();
+        assertEquals(expected, statistics.getPlacements(6, 0, cell));
+
+        long pinkWins = games.stream().filter(p -> p.getSize() == 8 && p.getWinner() == 0).count();
+        assertEquals(pinkWins, statistics.getResults(8, GameRunner.PINK_WINS));
+        assertEquals(pinkWins, statistics.getWinningLines(8, 0, Position.COLOR_LINE)
+                + statistics.getWinningLines(8, 0, Position.SHAPE_LINE));
+        assertEquals(games.stream().filter(p -> p.getSize() == 6 && p.getPly() == first.getPly()).count(),
+                statistics.getLengths(6, first.getPly()));
+    }
+
+    @Test
+    void testSimulationFailureIsRethrown() {
+        GameStatistics statistics = new GameStatistics();
+        IllegalStateException e = assertThrows(IllegalStateException.class, () -> GameStatistics.simulate(statistics,
+                () -> { throw new IllegalStateException("stratégie défaillante"); }, RandomOpponentStrategy::new, 6, 40, 4, 1));
+        assertEquals("stratégie défaillante", e.getMessage());
+        assertEquals(0, statistics.getGames());
+    }
+
+    @Test
+    void testJsonDump() throws IOException, InterruptedException {
+        GameStatistics statistics = new GameStatistics();
+        GameStatistics.simulate(statistics, RandomOpponentStrategy::new, RandomOpponentStrategy::new, 6, 40, 4, 1);
+        assertEquals(40, statistics.getGames());
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        statistics.writeJson(out);
+        JsonNode root = new ObjectMapper().readTree(out.toByteArray());
+        assertEquals(40, root.get("games").asLong());
+        JsonNode board = root.get("boards").get(0);
+        assertEquals(6, board.get("size").asInt());
+        JsonNode results = board.get("results");
+        assertEquals(40, results.get("pinkWins").asLong() + results.get("blackWins").asLong() + results.get("draws").asLong());
+        assertEquals(6, board.get("placements").get("pink").size());
+        assertEquals(37, board.get("lengths").size());
+
+        long placed = 0;
+        for (String color : List.of("pink", "black")) {
+            for (JsonNode row : board.get("placements").get(color)) {
+                for (JsonNode count : row) {
+                    placed += count.asLong();
+                }
+            }
+        }
+        assertEquals(statistics.getMoves(), placed);
+    }
+}
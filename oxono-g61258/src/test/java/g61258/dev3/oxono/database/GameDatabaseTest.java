@@ -0,0 +1,141 @@
+package g61258.dev3.oxono.database;
+
+import g61258.dev3.oxono.model.Position;
+import g61258.dev3.oxono.record.GameRecord;
+import g61258.dev3.oxono.record.TestGames;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GameDatabaseTest {
+
+    @TempDir
+    Path directory;
+
+    /**
+     * Returns the hash of the position reached after the given number of moves.
+     */
+    private static long hashAfter(GameRecord record, int plies) {
+        Position position = Position.initial(record.getBoardSize(), record.isCrossTotemFirst());
+        for (int i = 0; i < plies; i++) {
+            position.play(record.getMove(i));
+        }
+        return position.getHash();
+    }
+
+    @Test
+    void testFindGamesReachingPosition() throws IOException {
+        List<GameRecord> records = new ArrayList<>();
+        try (GameDatabase database = new GameDatabase(directory)) {
+            for (int i = 0; i < 300; i++) {
+                GameRecord record = TestGames.randomGame(6, i);
+                records.add(record);
+                assertEquals(i, database.add(record));
+            }
+            assertEquals(0, database.getCommittedGames());
+            database.commit();
+            assertEquals(300, database.getCommittedGames());
+
+            // Le premier coup n'a que peu de positions possibles : plusieurs parties les partagent
+            GameRecord record = records.get(7);
+            PositionSummary summary = database.find(hashAfter(record, 1));
+            assertTrue(summary.getOccurrences() >= 1);
+            boolean found = false;
+            for (int i = 0; i < summary.getOccurrences(); i++) {
+                GameRecord game = records.get(summary.getGame(i));
+                assertEquals(summary.getHash(), hashAfter(game, summary.getPly(i)));
+                found |= summary.getGame(i) == 7 && summary.getPly(i) == 1;
+            }
+            assertTrue(found);
+            assertEquals(summary.getOccurrences(), summary.getPinkWins() + summary.getBlackWins() + summary.getDraws());
+
+            PositionSummary last = database.find(hashAfter(record, record.getMoveCount()));
+            int winner = record.toPosition().getWinner();
+            int expected = winner == Position.NONE ? GameDatabase.DRAW : winner == 0 ? GameDatabase.PINK_WINS : GameDatabase.BLACK_WINS;
+            assertEquals(expected, database.result(7));
+            assertTrue(expected == GameDatabase.DRAW ? last.getDraws() > 0
+                    : expected == GameDatabase.PINK_WINS ? last.getPinkWins() > 0 : last.getBlackWins() > 0);
+
+            assertEquals(records.get(123), database.game(123));
+            assertEquals(0, database.find(0x123456789L).getOccurrences());
+        }
+    }
+
+    @Test
+    void testReopenAndAppend() throws IOException {
+        List<GameRecord> records = new ArrayList<>();
+        try (GameDatabase database = new GameDatabase(directory)) {
+            for (int i = 0; i < 50; i++) {
+                records.add(TestGames.randomGame(6, i));
+                database.add(records.get(i));
+            }
+        }
+        try (GameDatabase database = new GameDatabase(directory)) {
+            assertEquals(50, database.getCommittedGames());
+            for (int i = 50; i < 100; i++) {
+                records.add(TestGames.randomGame(i % 2 == 0 ? 6 : 8, i));
+                database.add(records.get(i));
+            }
+            database.commit();
+            for (int i = 0; i < 100; i += 7) {
+                assertEquals(records.get(i), database.game(i));
+            }
+            long indexed = 0;
+            for (GameRecord record : records) {
+                indexed += record.getMoveCount();
+            }
+            assertEquals(indexed, database.getIndexedPositions());
+
+            GameRecord record = records.get(80);
+            PositionSummary summary = database.find(hashAfter(record, record.getMoveCount() / 2));
+            boolean found = false;
+            for (int i = 0; i < summary.getOccurrences(); i++) {
+                found |= summary.getGame(i) == 80;
+            }
+            assertTrue(found);
+        }
+    }
+
+    @Test
+    void testIndexReplacedWithItsGameCount() throws IOException {
+        long indexed;
+        try (GameDatabase database = new GameDatabase(directory)) {
+            for (int i = 0; i < 20; i++) {
+                database.add(TestGames.randomGame(6, i));
+            }
+            database.commit();
+            indexed = database.getIndexedPositions();
+            database.add(TestGames.randomGame(6, 20));
+        }
+        // Fichier temporaire d'une fusion interrompue
+        Files.write(directory.resolve("positions-00009.idx.tmp"), new byte[100]);
+
+        try (GameDatabase database = new GameDatabase(directory)) {
+            assertEquals(21, database.getCommittedGames());
+            assertEquals(indexed + database.game(20).getMoveCount(), database.getIndexedPositions());
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            assertEquals(List.of("positions-00002.idx"), files.map(file -> file.getFileName().toString())
+                    .filter(name -> name.startsWith("positions")).collect(Collectors.toList()));
+        }
+    }
+
+    @Test
+    void testUncommittedGamesAreNotVisible() throws IOException {
+        try (GameDatabase database = new GameDatabase(directory)) {
+            GameRecord record = TestGames.randomGame(6, 3);
+            database.add(record);
+            assertEquals(0, database.find(hashAfter(record, 2)).getOccurrences());
+            assertThrows(IllegalArgumentException.class, () -> database.game(0));
+        }
+    }
+}
@@ -0,0 +1,166 @@
+package g61258.dev3.oxono.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CommandManagerTest {
+
+    /**
+     * Plays a random game turn by turn and returns the hash of the position after every ply.
+     */
+    private static List<Long> playRandomGame(Game game, long seed) {
+        List<Long> hashes = new ArrayList<>();
+        hashes.add(Position.of(game).getHash());
+        PlayoutEngine engine = new PlayoutEngine(seed);
+        Board board = game.getBoard();
+        int size = board.getSize();
+        int move;
+        while (!game.isGameOver() && (move = engine.randomMove(Position.of(game))) >= 0) {
+            Totem totem = Move.shape(move) == 0 ? board.getTotemX() : board.getTotemO();
+            game.moveTotem(Move.destination(move) / size, Move.destination(move) % size, totem);
+            game.placeToken(Move.placement(move) / size, Move.placement(move) % size, totem);
+            game.endTurn();
+            hashes.add(Position.of(game).getHash());
+        }
+        return hashes;
+    }
+
+    @Test
+    void testJumpToAnyPly() {
+        Game game = new Game(new Board(6, true), null);
+        game.start();
+        List<Long> hashes = playRandomGame(game, 4);
+        assertEquals(hashes.size() - 1, game.getHistoryEnd());
+
+        SplittableRandom random = new SplittableRandom(2);
+        for (int i = 0; i < 100; i++) {
+            int ply = random.nextInt(hashes.size());
+            game.jumpToPly(ply);
+            assertEquals(ply, game.getPly());
+            assertEquals(hashes.get(ply), Position.of(game).getHash(), "ply " + ply);
+            assertEquals(GameStat.MOVE, game.getGameStat());
+            if (!game.isGameOver()) {
+                assertEquals(ply % 2 == 0 ? Color.PINK : Color.BLACK, game.getCurrentPlayerColor());
+            }
+        }
+        game.jumpToPly(game.getHistoryEnd());
+        assertFalse(game.getHistoryEnd() > game.getPly());
+    }
+
+    @Test
+    void testUndoRedoWholeTurn() {
+        Game game = new Game(new Board(6, true), null);
+        game.start();
+        Board board = game.getBoard();
+        Totem totem = board.getTotemX();
+        int x = totem.getX();
+        int y = totem.getY();
+        long initial = Position.of(game).getHash();
+        int[] notifications = new int[1];
+        game.addObserver(() -> notifications[0]++);
+
+        game.moveTotem(x, y - 1, totem);
+        game.placeToken(x, y - 2, totem);
+        assertEquals(2, notifications[0]);
+        assertEquals(15, game.getCurrentPlayerTokenCount(Shape.CROSS) + game.getCurrentPlayerTokenCount(Shape.CIRCLE));
+        long played = Position.of(game).getHash();
+        assertEquals(1, game.getPly());
+        game.endTurn();
+
+        game.undo();
+        assertEquals(GameStat.MOVE, game.getGameStat());
+        assertEquals(Color.PINK, game.getCurrentPlayerColor());
+        assertTrue(game.isCellEmpty(x, y - 2));
+        assertEquals(totem, game.getToken(x, y));
+        assertEquals(16, game.getCurrentPlayerTokenCount(Shape.CROSS) + game.getCurrentPlayerTokenCount(Shape.CIRCLE));
+        assertEquals(initial, Position.of(game).getHash());
+        assertEquals(0, game.getPly());
+        assertNull(game.getLastPlacedTokenCoords());
+
+        notifications[0] = 0;
+        game.redo();
+        assertEquals(1, notifications[0]);
+        assertEquals(played, Position.of(game).getHash());
+        assertEquals(1, game.getPly());
+        assertArrayEquals(new int[] {x, y - 2}, game.getLastPlacedTokenCoords());
+        assertFalse(game.canRedo());
+    }
+
+    @Test
+    void testUndoPendingMove() {
+        Game game = new Game(new Board(6, true), null);
+        game.start();
+        Board board = game.getBoard();
+        Totem totem = board.getTotemO();
+        long initial = Position.of(game).getHash();
+
+        game.moveTotem(totem.getX() + 1, totem.getY(), totem);
+        assertEquals(GameStat.INSERT, game.getGameStat());
+        assertTrue(game.canUndo());
+        assertEquals(0, game.getHistoryEnd());
+
+        game.undo();
+        assertEquals(GameStat.MOVE, game.getGameStat());
+        assertEquals(initial, Position.of(game).getHash());
+        assertFalse(game.canUndo());
+        assertNull(game.getLastMovedTotem());
+    }
+
+    @Test
+    void testMemoryCapForgetsOldestPlies() {
+        Game game;
+        List<Long> hashes;
+        long seed = 0;
+        do { // Partie assez longue pour dépasser un intervalle de sauvegarde
+            game = new Game(new Board(8, true), null);
+            game.start();
+            game.setHistoryMemoryCap(0);
+            hashes = playRandomGame(game, seed++);
+        } while (hashes.size() <= CommandManager.DEFAULT_CHECKPOINT_INTERVAL + 1);
+
+        long start = game.getHistoryStart();
+        assertTrue(start > 0);
+        assertEquals(0, start % CommandManager.DEFAULT_CHECKPOINT_INTERVAL);
+        assertTrue(game.getHistoryEnd() - start <= 2L * CommandManager.DEFAULT_CHECKPOINT_INTERVAL);
+        game.jumpToPly(start);
+        assertEquals(hashes.get((int) start), Position.of(game).getHash());
+        Game last = game;
+        assertThrows(IndexOutOfBoundsException.class, () -> last.jumpToPly(start - 1));
+    }
+
+    @Test
+    void testPackedCommands() {
+        long turn = CommandManager.packMove(1, 0, 35, 63) | CommandManager.packPlacement(1023);
+        assertEquals(1, CommandManager.colorOf(turn));
+        assertEquals(0, CommandManager.shapeOf(turn));
+        assertEquals(35, CommandManager.originOf(turn));
+        assertEquals(63, CommandManager.destinationOf(turn));
+        assertEquals(1023, CommandManager.placementOf(turn));
+        int last = CommandManager.MAX_BOARD_SIZE * CommandManager.MAX_BOARD_SIZE - 1;
+        turn = CommandManager.packMove(0, 1, last, 0) | CommandManager.packPlacement(last - 1);
+        assertEquals(0, CommandManager.colorOf(turn));
+        assertEquals(1, CommandManager.shapeOf(turn));
+        assertEquals(last, CommandManager.originOf(turn));
+        assertEquals(0, CommandManager.destinationOf(turn));
+        assertEquals(last - 1, CommandManager.placementOf(turn));
+    }
+
+    @Test
+    void testHistoryOfBoardLargerThan32() {
+        Game game = new Game(new Board(40, true), null);
+        game.start();
+        List<Long> hashes = playRandomGame(game, 9);
+        assertTrue(hashes.size() > 2);
+        game.jumpToPly(1);
+        assertEquals(hashes.get(1), Position.of(game).getHash());
+
+        Game restored = Game.restore(game.snapshot());
+        restored.jumpToPly(hashes.size() - 1);
+        assertEquals(hashes.get(hashes.size() - 1), Position.of(restored).getHash());
+    }
+}
@@ -0,0 +1,91 @@
+package g61258.dev3.oxono.model;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EvaluationCacheTest {
+
+    @Test
+    void testGetMissThenHit() {
+        EvaluationCache cache = new EvaluationCache(8);
+        assertEquals(EvaluationCache.MISS, cache.get(42L), "An unknown position should be a miss");
+
+        cache.put(42L, 17);
+        assertEquals(17, cache.get(42L), "A stored position should be found");
+        assertEquals(1, cache.getHits());
+        assertEquals(1, cache.getMisses());
+    }
+
+    @Test
+    void testPutReplacesValue() {
+        EvaluationCache cache = new EvaluationCache(4);
+        cache.put(7L, 1);
+        cache.put(7L, 2);
+
+        assertEquals(2, cache.get(7L), "Storing a known position should update its value");
+        assertEquals(1, cache.size(), "Storing a known position should not use a new entry");
+    }
+
+    @Test
+    void testSizeNeverExceedsCapacity() {
+        EvaluationCache cache = new EvaluationCache(16);
+        for (long key = 0; key < 1000; key++) {
+            cache.put(key * 0x9E3779B97F4A7C15L, (int) key);
+        }
+        assertEquals(16, cache.size());
+        assertEquals(1000 - 16, cache.getEvictions());
+    }
+
+    @Test
+    void testClockKeepsReferencedEntries() {
+        EvaluationCache cache = new EvaluationCache(4);
+        cache.put(1L, 1);
+        cache.put(2L, 2);
+        cache.put(3L, 3);
+        cache.put(4L, 4);
+
+        // Les entrées 1 et 3 sont relues, 2 doit être la première évincée
+        cache.get(1L);
+        cache.get(3L);
+        cache.put(5L, 5);
+
+        assertEquals(EvaluationCache.MISS, cache.get(2L), "The first unreferenced entry should be evicted");
+        assertEquals(1, cache.get(1L));
+        assertEquals(3, cache.get(3L));
+        assertEquals(4, cache.get(4L));
+        assertEquals(5, cache.get(5L));
+    }
+
+    @Test
+    void testEvictionKeepsOtherKeysReachable() {
+        EvaluationCache cache = new EvaluationCache(64);
+        // Clés en collision sur les bits de poids faible pour exercer le décalage arrière
+        for (long key = 1; key <= 500; key++) {
+            cache.put(key << 40, (int) key);
+            assertEquals((int) key, cache.get(key << 40), "The last stored entry should be reachable");
+        }
+
+        int found = 0;
+        for (long key = 1; key <= 500; key++) {
+            int value = cache.get(key << 40);
+            if (value != EvaluationCache.MISS) {
+                assertEquals((int) key, value, "A cached entry should keep its own value");
+                found++;
+            }
+        }
+        assertEquals(cache.size(), found, "Every cached entry should be reachable through the index");
+    }
+
+    @Test
+    void testPositionHashDependsOnSideToMove() {
+        Board board = new Board(6);
+        assertNotEquals(PositionHash.of(board, Color.PINK), PositionHash.of(board, Color.BLACK));
+
+        long before = PositionHash.of(board, Color.PINK);
+        board.placeToken(0, 0, new Token(Color.PINK, Shape.CROSS));
+        long after = PositionHash.of(board, Color.PINK);
+        assertEquals(before ^ PositionHash.cellKey(0, CellCode.PINK_CROSS), after,
+                "Placing a token should xor the key of the cell into the hash");
+    }
+}
@@ -0,0 +1,130 @@
+package g61258.dev3.oxono.model;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@Timeout(20)
+class GameActorTest {
+
+    /**
+     * Checks that a snapshot is a consistent state: both totems on the board and as many tokens placed as
+     * taken from the reserves.
+     */
+    private static void assertConsistent(GameSnapshot snapshot) {
+        int size = snapshot.getBoardSize();
+        int[] placed = new int[4];
+        int totems = 0;
+        for (int x = 0; x < size; x++) {
+            for (int y = 0; y < size; y++) {
+                int code = snapshot.getCell(x, y);
+                if (CellCode.isToken(code)) {
+                    placed[code - 1]++;
+                } else if (CellCode.isTotem(code)) {
+                    totems++;
+                }
+            }
+        }
+        assertEquals(2, totems);
+        int[] tokens = snapshot.getTokens();
+        for (int i = 0; i < tokens.length; i++) {
+            assertEquals(GameSnapshot.MAX_TOKENS, tokens[i] + placed[i]);
+        }
+    }
+
+    @Test
+    void testConcurrentWritersAndLockFreeReaders() throws Exception {
+        Game game = new Game(new Board(6, true), null);
+        AtomicBoolean running = new AtomicBoolean(true);
+        AtomicLong reads = new AtomicLong();
+        List<Throwable> failures = new ArrayList<>();
+        try (GameActor actor = new GameActor(game)) {
+            List<Thread> readers = new ArrayList<>();
+            for (int i = 0; i < 2; i++) {
+                Thread reader = new Thread(() -> {
+                    try {
+                        while (running.get()) {
+                            assertConsistent(actor.getSnapshot());
+                            reads.incrementAndGet();
+                        }
+                    } catch (Throwable e) {
+                        synchronized (failures) {
+                            failures.add(e);
+                        }
+                    }
+                });
+                reader.start();
+                readers.add(reader);
+            }
+
+            // Plusieurs threads jouent des tours complets, sérialisés par l'acteur
+            List<CompletableFuture<Void>> turns = new ArrayList<>();
+            List<Thread> writers = new ArrayList<>();
+            for (int i = 0; i < 4; i++) {
+                int seed = i;
+                Thread writer = new Thread(() -> {
+                    OpponentStrategy strategy = new RandomOpponentStrategy();
+                    for (int turn = 0; turn < 10; turn++) {
+                        CompletableFuture<Void> done = actor.execute(g -> {
+                            if (!g.isGameOver() && g.stillHasTokens()) {
+                                g.playTurn(strategy);
+                                g.endTurn();
+                            }
+                        });
+                        synchronized (turns) {
+                            turns.add(done);
+                        }
+                    }
+                }, "writer-" + seed);
+                writer.start();
+                writers.add(writer);
+            }
+            for (Thread writer : writers) {
+                writer.join();
+            }
+            CompletableFuture.allOf(turns.toArray(new CompletableFuture<?>[0])).join();
+            running.set(false);
+            for (Thread reader : readers) {
+                reader.join();
+            }
+
+            assertTrue(failures.isEmpty(), failures.toString());
+            assertTrue(reads.get() > 0);
+            assertEquals(40, actor.getVersion());
+            assertConsistent(actor.getSnapshot());
+            GameSnapshot full = actor.fullSnapshot().join();
+            assertArrayEquals(full.getCells(), actor.getSnapshot().getCells());
+            assertTrue(full.getHistoryPly() > 0);
+            assertEquals(0, actor.getSnapshot().getHistory().length);
+            assertEquals(full.getHistoryStart() + full.getHistoryPly(), actor.getSnapshot().getHistoryStart());
+        }
+    }
+
+    @Test
+    void testFailedActionStillPublishes() {
+        try (GameActor actor = new GameActor(new Game(new Board(6, true), null))) {
+            CompletableFuture<Void> failed = actor.execute(game -> {
+                game.abandonGame();
+                throw new IllegalStateException("échec");
+            });
+            assertThrows(Exception.class, failed::join);
+            assertTrue(actor.getSnapshot().isGameOver());
+            assertEquals(1, actor.getVersion());
+
+            // Une erreur termine aussi le futur, et l'acteur continue de servir
+            CompletableFuture<Void> error = actor.execute(game -> {
+                throw new AssertionError("erreur");
+            });
+            assertThrows(Exception.class, error::join);
+            assertEquals(2, actor.getVersion());
+            assertEquals(6, actor.call(Game::getBoardSize).join());
+        }
+    }
+}
@@ -1,8 +1,11 @@
 package g61258.dev3.oxono.model;
 
+import g61258.dev3.oxono.utils.EventPublisher;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.Flow;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -612,4 +615,172 @@ class GameTest {
 
         assertTrue(game.stillHasTokens());
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testUpdateScopesNotifyOnce() {
+        int[] notifications = new int[1];
+        game.addObserver(() -> notifications[0]++);
+        Totem totem = board.getTotemX();
+        int x = totem.getX();
+        int y = totem.getY();
+
+        game.batch(() -> {
+            game.moveTotem(x, y - 1, totem);
+            game.batch(() -> game.placeToken(x, y - 2, totem));
+            assertEquals(0, notifications[0], "Aucune notification avant la fin de la portée externe");
+        });
+        assertEquals(1, notifications[0]);
+
+        notifications[0] = 0;
+        game.endTurn();
+        assertEquals(1, notifications[0]);
+
+        // Tour complet de l'ordinateur : déplacement, placement et fin de tour
+        notifications[0] = 0;
+        game.playOpponentTurn();
+        assertEquals(1, notifications[0]);
+
+        notifications[0] = 0;
+        game.batch(() -> { });
+        assertEquals(0, notifications[0]);
+        assertThrows(IllegalStateException.class, game::endUpdate);
+    }
+
+    @Test
+    public void testListenersReceiveTypedChanges() {
+        List<List<GameEvent>> updates = new ArrayList<>();
+        game.addListener(updates::add);
+        Totem totem = board.getTotemX();
+        int x = totem.getX();
+        int y = totem.getY();
+
+        game.moveTotem(x, y - 1, totem);
+        List<GameEvent> events = updates.get(0);
+        assertEquals(4, events.size(), events.toString());
+        // La case quittée puis la case atteinte
+        assertEquals(CellCode.EMPTY, ((GameEvent.CellChanged) events.get(0)).getNewCode());
+        GameEvent.CellChanged reached = (GameEvent.CellChanged) events.get(1);
+        assertEquals(y - 1, reached.getY());
+        assertEquals(CellCode.TOTEM_CROSS, reached.getNewCode());
+        GameEvent.TotemMoved moved = (GameEvent.TotemMoved) events.get(2);
+        assertEquals(Shape.CROSS, moved.getShape());
+        assertEquals(y, moved.getFromY());
+        assertEquals(y - 1, moved.getToY());
+        assertEquals(GameStat.INSERT, ((GameEvent.PhaseChanged) events.get(3)).getNewPhase());
+
+        // Placement et fin de tour groupés : une seule liste
+        game.batch(() -> {
+            game.placeToken(x, y - 2, totem);
+            game.endTurn();
+        });
+        assertEquals(2, updates.size());
+        events = updates.get(1);
+        assertEquals(4, events.size(), events.toString());
+        assertEquals(CellCode.PINK_CROSS, ((GameEvent.CellChanged) events.get(0)).getNewCode());
+        assertEquals(7, ((GameEvent.TokensChanged) events.get(1)).getCount());
+        assertEquals(Color.BLACK, ((GameEvent.PlayerSwitched) events.get(3)).getPlayer());
+
+        game.undo();
+        game.abandonGame();
+        GameEvent last = updates.get(updates.size() - 1).get(0);
+        assertTrue(last instanceof GameEvent.GameOver, last.toString());
+        assertNull(((GameEvent.GameOver) last).getWinner());
+    }
+
+    @Test
+    public void testListenerEventsFollowBoardThroughHistory() {
+        Game game = new Game(8, 0);
+        int size = game.getBoardSize();
+        int[] shown = new int[size * size];
+        for (int cell = 0; cell < shown.length; cell++) {
+            shown[cell] = CellCode.of(game.getToken(cell / size, cell % size));
+        }
+        List<List<GameEvent>> updates = new ArrayList<>();
+        game.addListener(events -> {
+            updates.add(events);
+            for (GameEvent event : events) {
+                if (event instanceof GameEvent.CellChanged changed) {
+                    int cell = changed.getX() * size + changed.getY();
+                    assertEquals(shown[cell], changed.getOldCode(), changed.toString());
+                    shown[cell] = changed.getNewCode();
+                }
+            }
+        });
+
+        PlayoutEngine engine = new PlayoutEngine(7);
+        while (!game.isGameOver() && game.stillHasTokens()) {
+            int move = engine.randomMove(Position.of(game));
+            Totem totem = game.choseTotem(Move.shape(move) == 0 ? Shape.CROSS : Shape.CIRCLE);
+            totem = (Totem) game.getToken(totem.getX(), totem.getY());
+            game.moveTotem(Move.destination(move) / size, Move.destination(move) % size, totem);
+            game.placeToken(Move.placement(move) / size, Move.placement(move) % size, totem);
+            game.endTurn();
+        }
+        assertTrue(game.isGameOver());
+        List<GameEvent> last = updates.get(updates.size() - 1);
+        assertTrue(last.get(last.size() - 1) instanceof GameEvent.GameOver, last.toString());
+
+        // Revenir en arrière rouvre la partie, sans la déclarer terminée
+        game.undo();
+        last = updates.get(updates.size() - 1);
+        assertTrue(last.get(last.size() - 1) instanceof GameEvent.GameReopened, last.toString());
+        assertTrue(last.stream().noneMatch(GameEvent.GameOver.class::isInstance));
+
+        // Pas à pas et par points de reprise, les événements suivent le plateau
+        long end = game.getHistoryEnd();
+        for (long ply : new long[] {end - 3, game.getHistoryStart(), end / 2, end, 1}) {
+            game.jumpToPly(ply);
+            for (int cell = 0; cell < shown.length; cell++) {
+                assertEquals(CellCode.of(game.getToken(cell / size, cell % size)), shown[cell], "coup " + ply);
+            }
+        }
+    }
+
+    @Test
+    public void testPublisherMergesUpdatesOfLateSubscriber() {
+        List<Runnable> tasks = new ArrayList<>();
+        List<List<GameEvent>> received = new ArrayList<>();
+        GameEventPublisher publisher = new GameEventPublisher(tasks::add, 1);
+        game.addListener(publisher);
+        publisher.subscribe(new Flow.Subscriber<>() {
+            @Override
+            public void onSubscribe(Flow.Subscription subscription) {
+                subscription.request(Long.MAX_VALUE);
+            }
+
+            @Override
+            public void onNext(List<GameEvent> item) {
+                received.add(item);
+            }
+
+            @Override
+            public void onError(Throwable throwable) {
+            }
+
+            @Override
+            public void onComplete() {
+            }
+        }, EventPublisher.Overflow.COALESCE);
+        tasks.remove(0).run();
+
+        // Abonné en retard : les trois mises à jour du tour fusionnées en une
+        Totem totem = board.getTotemX();
+        int x = totem.getX();
+        int y = totem.getY();
+        game.moveTotem(x, y - 1, totem);
+        game.placeToken(x, y - 2, totem);
+        game.endTurn();
+        while (!tasks.isEmpty()) {
+            tasks.remove(0).run();
+        }
+
+        assertEquals(1, received.size());
+        List<GameEvent> events = received.get(0);
+        assertEquals(3, events.stream().filter(GameEvent.CellChanged.class::isInstance).count(), events.toString());
+        GameEvent.TotemMoved moved = (GameEvent.TotemMoved) events.get(3);
+        assertEquals(y, moved.getFromY());
+        assertEquals(y - 1, moved.getToY());
+        assertEquals(Color.BLACK, ((GameEvent.PlayerSwitched) events.get(events.size() - 1)).getPlayer());
+        assertThrows(UnsupportedOperationException.class, events::clear);
+    }
+}
@@ -0,0 +1,132 @@
+package g61258.dev3.oxono.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PositionTest {
+
+    @Test
+    void testInitialPosition() {
+        Position position = Position.initial(6, true);
+        assertEquals(CellCode.TOTEM_CROSS, position.getCell(2, 2));
+        assertEquals(CellCode.TOTEM_CIRCLE, position.getCell(3, 3));
+        assertEquals(Position.TOKENS_PER_SHAPE, position.getTokenCount(0, 0));
+        assertEquals(0, position.getSide(), "Pink should move first");
+        assertFalse(position.isOver());
+    }
+
+    @Test
+    void testRulesMatchGame() {
+        Random random = new Random(1234);
+        for (int g = 0; g < 30; g++) {
+            Game game = new Game(6, 0);
+            Position position = Position.of(game);
+            int[] moves = new int[position.maxMoves()];
+
+            while (true) {
+                assertEquals(PositionHash.of(game), position.getHash(), "Hashes should stay equal to the game");
+                assertSameDestinations(game, position);
+
+                int count = position.generateMoves(moves);
+                if (count == 0) {
+                    break;
+                }
+                int move = moves[random.nextInt(count)];
+                assertTrue(position.isLegal(move));
+
+                Board board = game.getBoard();
+                Totem totem = Move.shape(move) == 0 ? board.getTotemX() : board.getTotemO();
+                int destination = Move.destination(move);
+                game.moveTotem(destination / 6, destination % 6, totem);
+                assertSamePlacements(game, position, move, totem);
+
+                int placement = Move.placement(move);
+                game.placeToken(placement / 6, placement % 6, totem);
+                position.play(move);
+
+                if (game.checkVictory(placement / 6, placement % 6)) {
+                    assertNotEquals(Position.NONE, position.getWinner(), "The position should detect the victory");
+                    break;
+                }
+                assertEquals(Position.NONE, position.getWinner());
+                game.switchPlayer();
+            }
+        }
+    }
+
+    @Test
+    void testUndoRestoresPosition() {
+        Position position = Position.initial(6, false);
+        PlayoutEngine engine = new PlayoutEngine(7);
+        long initialHash = position.getHash();
+
+        for (int i = 0; i < 10 && !position.isOver(); i++) {
+            position.play(engine.randomMove(position));
+        }
+        while (position.getPly() > 0) {
+            position.undo();
+        }
+
+        assertEquals(initialHash, position.getHash());
+        assertEquals(Position.initial(6, false).getHash(), position.getHash());
+        assertEquals(Position.TOKENS_PER_SHAPE, position.getTokenCount(1, 1));
+    }
+
+    @Test
+    void testPlayoutsAreReproducible() {
+        Position start = Position.initial(6, true);
+        PlayoutEngine first = new PlayoutEngine(99);
+        PlayoutEngine second = new PlayoutEngine(99);
+        for (int i = 0; i < 200; i++) {
+            assertEquals(first.playout(start), second.playout(start), "The same seed should give the same results");
+        }
+        assertEquals(first.getPlies(), second.getPlies());
+        assertEquals(0, start.getPly(), "A playout should not modify the starting position");
+    }
+
+    private void assertSameDestinations(Game game, Position position) {
+        Board board = game.getBoard();
+        int[] buffer = new int[36];
+        for (int shape = 0; shape < 2; shape++) {
+            Totem totem = shape == 0 ? board.getTotemX() : board.getTotemO();
+            Set<Integer> expected = new HashSet<>();
+            for (int x = 0; x < 6; x++) {
+                for (int y = 0; y < 6; y++) {
+                    if (game.isMoveTotemPossible(x, y, totem)) {
+                        expected.add(x * 6 + y);
+                    }
+                }
+            }
+            Set<Integer> actual = new HashSet<>();
+            int n = position.destinations(shape, buffer);
+            for (int i = 0; i < n; i++) {
+                actual.add(buffer[i]);
+            }
+            assertEquals(expected, actual, "Totem destinations should match the game rules");
+        }
+    }
+
+    private void assertSamePlacements(Game game, Position position, int move, Totem totem) {
+        boolean enclaved = game.isTotemEnclaved(totem);
+        Set<Integer> expected = new HashSet<>();
+        for (int x = 0; x < 6; x++) {
+            for (int y = 0; y < 6; y++) {
+                if (enclaved ? game.canPlaceTokenAnywhere(x, y, totem) : game.canPlaceToken(x, y, totem)) {
+                    expected.add(x * 6 + y);
+                }
+            }
+        }
+        int[] buffer = new int[36];
+        Set<Integer> actual = new HashSet<>();
+        int n = position.placements(Move.shape(move), Move.destination(move), buffer);
+        for (int i = 0; i < n; i++) {
+            actual.add(buffer[i]);
+        }
+        assertEquals(expected, actual, "Token placements should match the game rules");
+    }
+}
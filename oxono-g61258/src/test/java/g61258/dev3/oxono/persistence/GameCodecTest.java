@@ -0,0 +1,79 @@
+package g61258.dev3.oxono.persistence;
+
+import g61258.dev3.oxono.model.Game;
+import g61258.dev3.oxono.model.GameSnapshot;
+import g61258.dev3.oxono.model.GameStat;
+import g61258.dev3.oxono.model.Position;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GameCodecTest {
+
+    @TempDir
+    Path directory;
+
+    private static byte[] write(GameCodec codec, List<GameSnapshot> games) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        codec.write(games, out);
+        return out.toByteArray();
+    }
+
+    @Test
+    void testRoundTripKeepsStateAndHistory() throws IOException {
+        List<GameSnapshot> games = SaveBenchmark.randomGames(200, 6, 7);
+        for (GameCodec codec : new GameCodec[] {new JsonGameCodec(), new BinaryGameCodec()}) {
+            List<GameSnapshot> read = codec.read(new ByteArrayInputStream(write(codec, games)));
+            assertEquals(games, read);
+            for (int i = 0; i < games.size(); i++) {
+                Game game = Game.restore(read.get(i));
+                assertEquals(games.get(i), game.snapshot());
+            }
+        }
+    }
+
+    @Test
+    void testRestoredGameUndoesAndRedoes() throws IOException {
+        GameSnapshot saved = SaveBenchmark.randomGames(50, 6, 3).stream()
+                .filter(game -> game.getHistoryPly() >= 3 && game.getPendingMove() < 0 && !game.isGameOver())
+                .findFirst().orElseThrow();
+        Path path = directory.resolve("partie.oxs");
+        GameCodec codec = new BinaryGameCodec();
+        codec.save(Game.restore(saved), path);
+        Game game = codec.load(path);
+        long hash = Position.of(game).getHash();
+        long ply = game.getPly();
+
+        game.undo();
+        game.undo();
+        assertEquals(ply - 2, game.getPly());
+        game.redo();
+        game.endTurn();
+        game.redo();
+        game.endTurn();
+        assertEquals(hash, Position.of(game).getHash());
+        assertEquals(GameStat.MOVE, game.getGameStat());
+    }
+
+    @Test
+    void testRejectsCorruptedSaves() throws IOException {
+        List<GameSnapshot> games = SaveBenchmark.randomGames(3, 6, 5);
+        byte[] binary = write(new BinaryGameCodec(), games);
+        assertThrows(IOException.class,
+                () -> new BinaryGameCodec().read(new ByteArrayInputStream(Arrays.copyOf(binary, binary.length - 1))));
+        assertThrows(IOException.class, () -> new JsonGameCodec().read(new ByteArrayInputStream(binary)));
+
+        String json = new String(write(new JsonGameCodec(), games), StandardCharsets.UTF_8);
+        byte[] noTotem = json.replaceFirst("\"board\":\"([0-46]*)5", "\"board\":\"$10").getBytes(StandardCharsets.UTF_8);
+        assertThrows(IOException.class, () -> new JsonGameCodec().read(new ByteArrayInputStream(noTotem)));
+    }
+}
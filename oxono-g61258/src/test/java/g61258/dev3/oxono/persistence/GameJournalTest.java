@@ -0,0 +1,168 @@
+package g61258.dev3.oxono.persistence;
+
+import g61258.dev3.oxono.model.Game;
+import g61258.dev3.oxono.model.Move;
+import g61258.dev3.oxono.model.PlayoutEngine;
+import g61258.dev3.oxono.model.Position;
+import g61258.dev3.oxono.model.Shape;
+import g61258.dev3.oxono.model.Totem;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GameJournalTest {
+
+    @TempDir
+    Path directory;
+
+    /**
+     * Plays a random turn with the actions of the user interface.
+     */
+    private static void playTurn(Game game, PlayoutEngine engine) {
+        int move = engine.randomMove(Position.of(game));
+        int size = game.getBoardSize();
+        Totem copy = game.choseTotem(Move.shape(move) == 0 ? Shape.CROSS : Shape.CIRCLE);
+        Totem totem = (Totem) game.getToken(copy.getX(), copy.getY());
+        game.moveTotem(Move.destination(move) / size, Move.destination(move) % size, totem);
+        game.placeToken(Move.placement(move) / size, Move.placement(move) % size, totem);
+        game.endTurn();
+    }
+
+    @Test
+    void testRecoversGamesInProgress() throws IOException {
+        Path path = directory.resolve("journal.oxj");
+        PlayoutEngine engine = new PlayoutEngine(3);
+        long hash;
+        try (GameJournal journal = new GameJournal(path)) {
+            Game game = journal.newGame(6, 0);
+            for (int i = 0; i < 4; i++) {
+                playTurn(game, engine);
+            }
+            game.undo();
+            game.undo();
+            game.redo();
+            game.endTurn();
+            Totem copy = game.choseTotem(Shape.CROSS);
+            game.moveTotem(copy.getX(), copy.getY() == 0 ? 1 : copy.getY() - 1, (Totem) game.getToken(copy.getX(), copy.getY()));
+            assertFalse(game.isGameOver());
+            hash = Position.of(game).getHash();
+            journal.sync();
+        }
+
+        try (GameJournal journal = new GameJournal(path)) {
+            assertEquals(1, journal.getRecoveredGames().size());
+            Game game = journal.getRecoveredGames().get(0);
+            assertEquals(hash, Position.of(game).getHash());
+            assertEquals(3, game.getPly());
+            assertTrue(game.canUndo());
+
+            // L'enregistrement reprend sur la partie reconstruite
+            game.undo();
+            playTurn(game, engine);
+            hash = Position.of(game).getHash();
+        }
+
+        try (GameJournal journal = new GameJournal(path)) {
+            assertEquals(hash, Position.of(journal.getRecoveredGames().get(0)).getHash());
+        }
+    }
+
+    @Test
+    void testSkipsFinishedGamesAndTornRecord() throws IOException {
+        Path path = directory.resolve("journal.oxj");
+        try (GameJournal journal = new GameJournal(path)) {
+            Game abandoned = journal.newGame(6, 1);
+            playTurn(abandoned, new PlayoutEngine(1));
+            abandoned.abandonGame();
+            Game won = journal.newGame(8, 0);
+            PlayoutEngine engine = new PlayoutEngine(2);
+            while (!won.isGameOver()) {
+                playTurn(won, engine);
+            }
+            journal.newGame(6, 0);
+        }
+        Files.write(path, new byte[] {1, 0, 0}, StandardOpenOption.APPEND);
+
+        try (GameJournal journal = new GameJournal(path)) {
+            assertEquals(1, journal.getRecoveredGames().size());
+            assertEquals(6, journal.getRecoveredGames().get(2).getBoardSize());
+            assertEquals(0, journal.getRecoveredGames().get(2).getPly());
+        }
+        // Le journal compacté ne garde que l'en-tête et le début de la partie en cours
+        assertEquals(2 * GameJournal.RECORD_SIZE, Files.size(path));
+
+        try (GameJournal journal = new GameJournal(path)) {
+            assertEquals(6, journal.getRecoveredGames().get(2).getBoardSize());
+        }
+    }
+
+    @Test
+    void testAbandonsGameThatCannotBeReplayed() throws IOException {
+        Path path = directory.resolve("journal.oxj");
+        PlayoutEngine engine = new PlayoutEngine(4);
+        long hash;
+        try (GameJournal journal = new GameJournal(path)) {
+            playTurn(journal.newGame(6, 0), engine);
+            Game game = journal.newGame(6, 0);
+            playTurn(game, engine);
+            hash = Position.of(game).getHash();
+        }
+        // Déplacement du totem de la première partie hors du plateau
+        ByteBuffer record = ByteBuffer.allocate(GameJournal.RECORD_SIZE).putInt(0).put((byte) 2).put((byte) 0)
+                .putShort((short) 0xFFFF);
+        Files.write(path, record.array(), StandardOpenOption.APPEND);
+
+        try (GameJournal journal = new GameJournal(path)) {
+            assertEquals(1, journal.getRecoveredGames().size());
+            assertEquals(hash, Position.of(journal.getRecoveredGames().get(1)).getHash());
+        }
+        try (GameJournal journal = new GameJournal(path)) {
+            assertEquals(1, journal.getRecoveredGames().size());
+            assertTrue(journal.getRecoveredGames().containsKey(1));
+        }
+    }
+
+    @Test
+    void testSkipsDrawnGames() throws IOException {
+        Path path = directory.resolve("journal.oxj");
+        boolean drawn = false;
+        try (GameJournal journal = new GameJournal(path)) {
+            // Parties aléatoires jusqu'à la première nulle ; les parties gagnées sont terminées aussi
+            for (long seed = 0; seed < 300 && !drawn; seed++) {
+                Game game = journal.newGame(8, 0);
+                PlayoutEngine engine = new PlayoutEngine(seed);
+                while (!game.isGameOver() && game.stillHasTokens()) {
+                    playTurn(game, engine);
+                }
+                drawn = game.getWinner() == null;
+            }
+        }
+        assertTrue(drawn);
+
+        try (GameJournal journal = new GameJournal(path)) {
+            assertTrue(journal.getRecoveredGames().isEmpty());
+        }
+    }
+
+    @Test
+    void testGroupCommit() throws IOException {
+        try (GameJournal journal = new GameJournal(directory.resolve("journal.oxj"), 20)) {
+            PlayoutEngine engine = new PlayoutEngine(5);
+            for (int i = 0; i < 50; i++) {
+                Game game = journal.newGame(6, 0);
+                playTurn(game, engine);
+                playTurn(game, engine);
+            }
+            journal.sync();
+            assertTrue(journal.getRecords() >= 50 * 7);
+            assertTrue(journal.getCommits() < journal.getRecords() / 10, "commits " + journal.getCommits());
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package g61258.dev3.oxono.record;
+
+import g61258.dev3.oxono.model.Color;
+import g61258.dev3.oxono.model.Game;
+import g61258.dev3.oxono.model.Position;
+import g61258.dev3.oxono.model.PositionHash;
+import g61258.dev3.oxono.model.RandomOpponentStrategy;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GameRecordTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void testMoveEncodingRoundTrip() {
+        GameRecord record = TestGames.randomGame(8, 3);
+        for (int i = 0; i < record.getMoveCount(); i++) {
+            int move = record.getMove(i);
+            assertEquals(move, RecordFormat.decodeMove(RecordFormat.encodeMove(move, 8), 8));
+        }
+    }
+
+    @Test
+    void testWriteReadAndSeek() throws IOException {
+        Path file = directory.resolve("games.oxr");
+        List<GameRecord> records = new ArrayList<>();
+        List<Long> offsets = new ArrayList<>();
+        try (GameRecordWriter writer = new GameRecordWriter(file)) {
+            for (int i = 0; i < 200; i++) {
+                GameRecord record = TestGames.randomGame(i % 3 == 0 ? 8 : 6, 1000L * i);
+                records.add(record);
+                offsets.add(writer.write(record));
+            }
+        }
+        // Ajout à un fichier existant
+        try (GameRecordWriter writer = new GameRecordWriter(file)) {
+            GameRecord record = TestGames.randomGame(4, Long.MAX_VALUE);
+            records.add(record);
+            offsets.add(writer.write(record));
+        }
+
+        try (GameRecordReader reader = new GameRecordReader(file)) {
+            for (GameRecord expected : records) {
+                assertEquals(expected, reader.read());
+            }
+            assertNull(reader.read(), "The file should end after the last game");
+
+            reader.seek(offsets.get(57));
+            assertEquals(records.get(57), reader.read());
+            reader.seek(offsets.get(3));
+            assertTrue(reader.nextGame());
+            assertEquals(records.get(3).getSeed(), reader.getSeed());
+            assertEquals(offsets.get(3), reader.getGameOffset());
+            assertTrue(reader.nextGame(), "The rest of a game should be skipped");
+            assertEquals(records.get(4).getSeed(), reader.getSeed());
+        }
+    }
+
+    @Test
+    void testReplayThroughGame() {
+        for (long seed = 0; seed < 30; seed++) {
+            GameRecord record = TestGames.randomGame(6, seed);
+            Game game = record.replay();
+            Position position = record.toPosition();
+            Color winner = record.getWinner();
+            // Le gagnant garde la main dans Game alors que Position la passe
+            long expected = winner == null ? position.getHash() : position.getHash() ^ PositionHash.SIDE_KEY;
+            assertEquals(expected, PositionHash.of(game), "The replayed game should reach the same position");
+            assertEquals(winner != null, game.isGameOver());
+            if (winner != null) {
+                assertEquals(winner, game.getCurrentPlayerColor(), "The winner keeps the turn");
+            }
+        }
+    }
+
+    @Test
+    void testRecordedStrategyGame() throws IOException {
+        Path file = directory.resolve("recorded.oxr");
+        try (GameRecordWriter writer = new GameRecordWriter(file)) {
+            new GameRecorder(writer, 6).record(new RandomOpponentStrategy(), new RandomOpponentStrategy(), 9);
+        }
+        try (GameRecordReader reader = new GameRecordReader(file)) {
+            GameRecord record = reader.read();
+            assertEquals(9, record.getSeed());
+            assertTrue(record.getMoveCount() > 0);
+            Position position = Position.initial(6, record.isCrossTotemFirst());
+            for (int i = 0; i < record.getMoveCount(); i++) {
+                assertTrue(position.isLegal(record.getMove(i)), "Every recorded move should be legal");
+                position.play(record.getMove(i));
+            }
+        }
+    }
+}
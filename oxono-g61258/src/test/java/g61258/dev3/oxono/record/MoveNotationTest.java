@@ -0,0 +1,77 @@
+package g61258.dev3.oxono.record;
+
+import g61258.dev3.oxono.model.Move;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MoveNotationTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void testFormatAndParse() {
+        int move = Move.of(0, 3 * 6 + 2, 3 * 6 + 3);
+        assertEquals("Xc4d4", MoveNotation.toString(move, 6));
+        assertEquals(move, MoveNotation.parse(" xC4d4 ", 6));
+        int large = Move.of(1, 11 * 12 + 11, 10 * 12);
+        assertEquals("Ol12a11", MoveNotation.toString(large, 12));
+        assertEquals(large, MoveNotation.parse("Ol12a11", 12));
+
+        assertEquals(-1, MoveNotation.parse("Xc4", 6));
+        assertEquals(-1, MoveNotation.parse("Zc4d4", 6));
+        assertEquals(-1, MoveNotation.parse("Xg1a1", 6));
+        assertEquals(-1, MoveNotation.parse("Xa7a1", 6));
+        assertEquals(-1, MoveNotation.parse("Xa0a1", 6));
+        assertEquals(-1, MoveNotation.parse("Xa1a1b", 6));
+    }
+
+    @Test
+    void testTextRoundTrip() throws IOException {
+        Path text = directory.resolve("games.txt");
+        List<GameRecord> records = new ArrayList<>();
+        try (NotationWriter writer = new NotationWriter(text)) {
+            writer.writeComment("Parties aléatoires");
+            for (int i = 0; i < 100; i++) {
+                GameRecord record = TestGames.randomGame(i % 3 == 0 ? 8 : 6, i % 5 == 0 ? -1000L * i : 1000L * i);
+                records.add(record);
+                writer.write(record);
+            }
+        }
+        try (NotationReader reader = new NotationReader(text)) {
+            for (GameRecord record : records) {
+                assertEquals(record, reader.read());
+            }
+            assertNull(reader.read());
+        }
+
+        // Conversion vers le binaire puis retour au texte
+        Path binary = directory.resolve("games.oxr");
+        Path back = directory.resolve("back.txt");
+        assertEquals(100, NotationConverter.importText(text, binary));
+        assertEquals(100, NotationConverter.export(binary, back));
+        assertEquals(Files.readString(text).lines().skip(1).toList(), Files.readAllLines(back));
+    }
+
+    @Test
+    void testReaderSkipsCommentsAndReportsErrors() throws IOException {
+        Path text = directory.resolve("games.txt");
+        Files.writeString(text, "# Oxono\r\n\n6 X 42 Xc4d4  Oc3c2\r\n  \n6 O 7\n6 O 1 Xc4d9\n");
+        try (NotationReader reader = new NotationReader(text)) {
+            GameRecord first = reader.read();
+            assertEquals(new GameRecord(6, true, 42, new int[] {
+                    MoveNotation.parse("Xc4d4", 6), MoveNotation.parse("Oc3c2", 6)}), first);
+            assertEquals(new GameRecord(6, false, 7, new int[0]), reader.read());
+            IOException error = assertThrows(IOException.class, reader::read);
+            assertTrue(error.getMessage().contains("ligne 6"));
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package g61258.dev3.oxono.record;
+
+import g61258.dev3.oxono.model.Position;
+import org.junit.jupiter.api.Test;
+
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReplayEngineTest {
+
+    /**
+     * Returns the reference position after the given number of moves, replayed from the start.
+     */
+    private static Position replayed(GameRecord record, int plies) {
+        Position position = Position.initial(record.getBoardSize(), record.isCrossTotemFirst());
+        for (int i = 0; i < plies; i++) {
+            position.play(record.getMove(i));
+        }
+        return position;
+    }
+
+    private static void assertSamePosition(Position expected, Position actual) {
+        assertEquals(expected.getHash(), actual.getHash());
+        assertEquals(expected.getSide(), actual.getSide());
+        for (int color = 0; color < 2; color++) {
+            for (int shape = 0; shape < 2; shape++) {
+                assertEquals(expected.getTokenCount(color, shape), actual.getTokenCount(color, shape));
+            }
+        }
+        for (int shape = 0; shape < 2; shape++) {
+            assertEquals(expected.getTotemCell(shape), actual.getTotemCell(shape));
+        }
+    }
+
+    @Test
+    void testRandomSeeks() {
+        GameRecord record = TestGames.randomGame(8, 5);
+        ReplayEngine engine = new ReplayEngine(record, 5);
+        SplittableRandom random = new SplittableRandom(1);
+        for (int i = 0; i < 200; i++) {
+            int target = random.nextInt(record.getMoveCount() + 1);
+            Position position = engine.seek(target);
+            assertEquals(target, engine.getPly());
+            assertSamePosition(replayed(record, target), position);
+        }
+        engine.seek(record.getMoveCount());
+        assertEquals(record.toPosition().getWinner(), engine.getPosition().getWinner());
+    }
+
+    @Test
+    void testStepping() {
+        GameRecord record = TestGames.randomGame(6, 8);
+        ReplayEngine engine = new ReplayEngine(record, 4);
+        assertThrows(IllegalStateException.class, engine::backward);
+        for (int ply = 1; ply <= record.getMoveCount(); ply++) {
+            assertSamePosition(replayed(record, ply), engine.forward());
+        }
+        assertThrows(IllegalStateException.class, engine::forward);
+        for (int ply = record.getMoveCount() - 1; ply >= 0; ply--) {
+            assertSamePosition(replayed(record, ply), engine.backward());
+        }
+        assertEquals(0, engine.getPly());
+    }
+
+    @Test
+    void testEmptyGame() {
+        ReplayEngine engine = new ReplayEngine(new GameRecord(6, true, 0, new int[0]));
+        assertSamePosition(Position.initial(6, true), engine.seek(0));
+        assertThrows(IndexOutOfBoundsException.class, () -> engine.seek(1));
+    }
+}
@@ -0,0 +1,45 @@
+package g61258.dev3.oxono.record;
+
+import g61258.dev3.oxono.model.PlayoutEngine;
+import g61258.dev3.oxono.model.Position;
+
+/**
+ * Random games shared by the tests of the records, the database and the statistics.
+ */
+public final class TestGames {
+
+    private TestGames() {
+    }
+
+    /**
+     * Plays a random game on a compact position until it is won or blocked.
+     * The seed decides both the moves and the totem moved first.
+     * @param size the size of the board
+     * @param seed the seed of the moves
+     * @return the final position
+     */
+    public static Position randomPosition(int size, long seed) {
+        Position position = Position.initial(size, seed % 2 == 0);
+        PlayoutEngine engine = new PlayoutEngine(seed);
+        int move;
+        while (position.getWinner() == Position.NONE && (move = engine.randomMove(position)) >= 0) {
+            position.play(move);
+        }
+        return position;
+    }
+
+    /**
+     * Plays a random game on a compact position and returns its record.
+     * @param size the size of the board
+     * @param seed the seed of the moves, kept in the record
+     * @return the record of the game
+     */
+    public static GameRecord randomGame(int size, long seed) {
+        Position position = randomPosition(size, seed);
+        int[] moves = new int[position.getPly()];
+        for (int i = 0; i < moves.length; i++) {
+            moves[i] = position.getMove(i);
+        }
+        return new GameRecord(size, seed % 2 == 0, seed, moves);
+    }
+}
@@ -0,0 +1,62 @@
+package g61258.dev3.oxono.tournament;
+
+import g61258.dev3.oxono.model.EvaluationWeights;
+import g61258.dev3.oxono.model.OpponentStrategy;
+import g61258.dev3.oxono.model.PatternEvaluator;
+import g61258.dev3.oxono.model.RandomOpponentStrategy;
+import g61258.dev3.oxono.model.SearchStrategy;
+import org.junit.jupiter.api.Test;
+
+import java.util.SplittableRandom;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MatchTest {
+
+    /**
+     * Returns a factory of identical deterministic strategies.
+     */
+    private static Supplier<OpponentStrategy> seeded() {
+        return () -> new SearchStrategy(new PatternEvaluator(EvaluationWeights.defaults()), 1, new SplittableRandom(7));
+    }
+
+    @Test
+    void testMirroredGamesOfIdenticalStrategies() {
+        // Les parties 2k et 2k+1 sont les mêmes, couleurs échangées : chaque victoire de A a sa défaite
+        MatchResult result = new Match("a", seeded(), "b", seeded(), 6, 2).run(8);
+        assertEquals(8, result.getGames());
+        assertEquals(result.getWins(), result.getLosses());
+        assertEquals(0.5, result.getScore());
+        assertFalse(result.isInterrupted());
+
+        MatchResult again = new Match("a", seeded(), "b", seeded(), 6, 1).run(8);
+        assertEquals(result.getWins(), again.getWins());
+        assertEquals(result.getDraws(), again.getDraws());
+    }
+
+    @Test
+    void testSprtStopsTheMatch() {
+        Match match = new Match("random", RandomOpponentStrategy::new, "random", RandomOpponentStrategy::new, 6, 2);
+        // Hypothèses très éloignées : la décision tombe bien avant la limite
+        MatchResult result = match.run(100_000, new Sprt(-400, 400), null);
+        assertTrue(result.getGames() < 100_000);
+        assertNotEquals(Sprt.Status.CONTINUE, new Sprt(-400, 400).status(result));
+    }
+
+    @Test
+    void testInterruptedMatchIsMarked() {
+        Match match = new Match("random", RandomOpponentStrategy::new, "random", RandomOpponentStrategy::new, 6, 1);
+        Thread.currentThread().interrupt();
+        MatchResult result;
+        try {
+            result = match.run(1000);
+            assertTrue(Thread.currentThread().isInterrupted());
+        } finally {
+            Thread.interrupted();
+        }
+        assertTrue(result.isInterrupted());
+        assertTrue(result.getGames() < 1000);
+        assertTrue(result.toString().contains("interrompu"));
+    }
+}
@@ -0,0 +1,58 @@
+package g61258.dev3.oxono.tournament;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SprtTest {
+
+    /**
+     * Builds the result of a match from its counts, without latencies.
+     */
+    private static MatchResult result(int wins, int draws, int losses) {
+        MatchResult result = new MatchResult("a", "b");
+        LatencyHistogram none = new LatencyHistogram();
+        for (int i = 0; i < wins; i++) {
+            result.add(1, none, none);
+        }
+        for (int i = 0; i < draws; i++) {
+            result.add(0, none, none);
+        }
+        for (int i = 0; i < losses; i++) {
+            result.add(-1, none, none);
+        }
+        return result;
+    }
+
+    @Test
+    void testAcceptsStrongerStrategy() {
+        Sprt sprt = new Sprt(0, 20);
+        // 60 % de score : environ +70 Elo, bien au-delà de elo1
+        assertEquals(Sprt.Status.ACCEPT_H1, sprt.status(result(600, 0, 400)));
+        assertTrue(sprt.logLikelihoodRatio(result(600, 0, 400)) >= sprt.getUpperBound());
+    }
+
+    @Test
+    void testAcceptsNullHypothesis() {
+        Sprt sprt = new Sprt(0, 20);
+        assertEquals(Sprt.Status.ACCEPT_H0, sprt.status(result(1350, 300, 1350)));
+        assertEquals(Sprt.Status.ACCEPT_H0, sprt.status(result(400, 0, 600)));
+    }
+
+    @Test
+    void testContinuesWithoutEvidence() {
+        Sprt sprt = new Sprt(0, 20);
+        assertEquals(Sprt.Status.CONTINUE, sprt.status(result(6, 2, 4)));
+        // Variance nulle : aucun rapport ne peut être calculé
+        assertEquals(0.0, sprt.logLikelihoodRatio(result(10, 0, 0)));
+        assertEquals(Sprt.Status.CONTINUE, sprt.status(result(0, 0, 0)));
+    }
+
+    @Test
+    void testBoundsFollowErrorRates() {
+        Sprt sprt = new Sprt(0, 10, 0.05, 0.05);
+        assertEquals(Math.log(19), sprt.getUpperBound(), 1e-12);
+        assertEquals(-Math.log(19), sprt.getLowerBound(), 1e-12);
+        assertThrows(IllegalArgumentException.class, () -> new Sprt(10, 0));
+    }
+}
@@ -0,0 +1,77 @@
+package g61258.dev3.oxono.tuning;
+
+import g61258.dev3.oxono.model.Position;
+import g61258.dev3.oxono.model.RandomOpponentStrategy;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CorpusWriterTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void testRecordRoundTrip() {
+        Position position = Position.initial(6, true);
+        int[] moves = new int[position.maxMoves()];
+        position.play(moves[position.generateMoves(moves) - 1]);
+        position.generateMoves(moves);
+        int move = moves[3];
+
+        ByteBuffer buffer = CorpusFormat.allocate(CorpusFormat.recordSize(6));
+        CorpusFormat.write(buffer, position, move, CorpusFormat.WIN);
+        assertEquals(0, buffer.remaining(), "A record should fill exactly its size");
+
+        Position loaded = new Position(6);
+        CorpusFormat.load(buffer, 0, loaded, new byte[36], new int[4]);
+        assertEquals(position.getHash(), loaded.getHash());
+        assertEquals(position.getTotemCell(0), CorpusFormat.totemCell(buffer, 0, 6, 0));
+        assertEquals(position.getTotemCell(1), loaded.getTotemCell(1));
+        assertEquals(2 * Position.TOKENS_PER_SHAPE - 1, loaded.getTokenCount(0, 0) + loaded.getTokenCount(0, 1));
+        assertEquals(1, loaded.getSide());
+        assertEquals(move, CorpusFormat.move(buffer, 0, 6));
+        assertEquals(CorpusFormat.WIN, CorpusFormat.result(buffer, 0, 6));
+    }
+
+    @Test
+    void testSelfPlayCorpus() throws IOException {
+        Path file = directory.resolve("corpus.bin");
+        SelfPlay selfPlay = new SelfPlay(RandomOpponentStrategy::new, RandomOpponentStrategy::new, 6, 3, 1.0, 42);
+        CorpusWriter writer = new CorpusWriter(file, 6, 2, 16);
+        try (writer) {
+            selfPlay.run(20, writer);
+        }
+        long written = writer.getRecords();
+        assertEquals(20, selfPlay.getGamesPlayed());
+        assertTrue(written > 20, "Every position should be kept with a rate of 1");
+
+        ByteBuffer content = ByteBuffer.wrap(Files.readAllBytes(file)).order(ByteOrder.LITTLE_ENDIAN);
+        assertEquals(6, CorpusFormat.readHeader(content));
+        int recordSize = CorpusFormat.recordSize(6);
+        assertEquals(written * recordSize, content.capacity() - CorpusFormat.HEADER_SIZE);
+
+        Position position = new Position(6);
+        byte[] cells = new byte[36];
+        int[] counts = new int[4];
+        int starts = 0;
+        for (int offset = CorpusFormat.HEADER_SIZE; offset < content.capacity(); offset += recordSize) {
+            CorpusFormat.load(content, offset, position, cells, counts);
+            assertTrue(position.isLegal(CorpusFormat.move(content, offset, 6)), "The recorded move should be legal");
+            int result = CorpusFormat.result(content, offset, 6);
+            assertTrue(result >= CorpusFormat.LOSS && result <= CorpusFormat.WIN);
+            if (position.getTokenCount(0, 0) + position.getTokenCount(0, 1) == 2 * Position.TOKENS_PER_SHAPE
+                    && position.getSide() == 0) {
+                starts++;
+            }
+        }
+        assertEquals(20, starts, "The starting position of every game should be recorded");
+    }
+}
@@ -0,0 +1,49 @@
+package g61258.dev3.oxono.tuning;
+
+import g61258.dev3.oxono.model.NTupleNetwork;
+import g61258.dev3.oxono.model.Position;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class NTupleTrainerTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void testUpdateMovesValue() {
+        NTupleNetwork network = new NTupleNetwork(6);
+        Position position = Position.initial(6, true);
+        assertEquals(0, network.evaluate(position), "An untrained network should be neutral");
+
+        network.update(position, 0.01f);
+        assertTrue(network.value(position) >= 0.01f * network.activeWeights(),
+                "Every weight of the position should have increased, shared ones several times");
+        assertEquals(Math.round(100 * network.value(position)), network.evaluate(position));
+    }
+
+    @Test
+    void testTrainingAndFileRoundTrip() throws IOException {
+        NTupleNetwork network = new NTupleNetwork(6);
+        NTupleTrainer trainer = new NTupleTrainer(network, 0.1f, 0.1, 5);
+        trainer.train(200);
+        assertTrue(trainer.getPlies() > 200);
+
+        Path file = directory.resolve("network.bin");
+        network.save(file);
+        NTupleNetwork loaded = NTupleNetwork.load(file);
+        assertEquals(6, loaded.getSize());
+
+        Position position = Position.initial(6, false);
+        int[] moves = new int[position.maxMoves()];
+        for (int ply = 0; ply < 6 && position.generateMoves(moves) > 0; ply++) {
+            assertEquals(network.value(position), loaded.value(position));
+            position.play(moves[0]);
+        }
+    }
+}
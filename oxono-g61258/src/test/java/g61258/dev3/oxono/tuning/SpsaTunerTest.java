@@ -0,0 +1,38 @@
+package g61258.dev3.oxono.tuning;
+
+import g61258.dev3.oxono.model.RandomOpponentStrategy;
+import g61258.dev3.oxono.model.SearchParameters;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SpsaTunerTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void testCheckpointAndResume() throws IOException {
+        Path checkpoint = directory.resolve("search.txt");
+        SpsaTuner tuner = new SpsaTuner(parameters -> RandomOpponentStrategy::new, 8, 6, 2, 5.0, 3);
+
+        SearchParameters afterTwo = tuner.run(SearchParameters.defaults(), 0, 2, checkpoint, null);
+        assertEquals(2, SpsaTuner.iterationOf(checkpoint));
+        assertArrayEquals(afterTwo.toArray(), SearchParameters.load(checkpoint).toArray(), 1e-6);
+
+        SearchParameters resumed = tuner.run(SearchParameters.load(checkpoint), 2, 4, checkpoint, null);
+        assertEquals(4, SpsaTuner.iterationOf(checkpoint));
+        assertArrayEquals(resumed.toArray(), SearchParameters.load(checkpoint).toArray(), 1e-6);
+    }
+
+    @Test
+    void testParametersAreClamped() {
+        SearchParameters parameters = new SearchParameters(new double[]{-5, 1000});
+        assertEquals(0.0, parameters.get(SearchParameters.EXPLORATION));
+        assertTrue(parameters.get(SearchParameters.PRIOR_WEIGHT) < 1000);
+    }
+}
@@ -0,0 +1,65 @@
+package g61258.dev3.oxono.tuning;
+
+import g61258.dev3.oxono.model.EvaluationWeights;
+import g61258.dev3.oxono.model.PatternFeatures;
+import g61258.dev3.oxono.model.RandomOpponentStrategy;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WeightTunerTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void testTuningReducesError() throws IOException {
+        Path file = directory.resolve("corpus.bin");
+        SelfPlay selfPlay = new SelfPlay(RandomOpponentStrategy::new, RandomOpponentStrategy::new, 6, 2, 1.0, 7);
+        try (CorpusWriter writer = new CorpusWriter(file, 6, 4, 64)) {
+            selfPlay.run(100, writer);
+        }
+
+        ForkJoinPool pool = new ForkJoinPool(2);
+        try (CorpusReader reader = new CorpusReader(file, 100 * CorpusFormat.recordSize(6))) {
+            WeightTuner tuner = new WeightTuner(reader, pool);
+            assertEquals(reader.getRecords(), tuner.getRecords());
+
+            EvaluationWeights initial = new EvaluationWeights(new double[PatternFeatures.COUNT]);
+            assertEquals(0.0, tuner.error(initial.toArray()) - errorOfHalf(reader), 1e-9,
+                    "Null weights should predict 0.5 everywhere");
+            EvaluationWeights tuned = tuner.tune(initial, 50, 2.0, 0);
+            assertTrue(tuner.error(tuned.toArray()) < tuner.error(initial.toArray()));
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    void testWeightFileRoundTrip() throws IOException {
+        double[] values = new double[PatternFeatures.COUNT];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = i * 1.5 - 4;
+        }
+        Path file = directory.resolve("weights.txt");
+        new EvaluationWeights(values).save(file, "test");
+        assertArrayEquals(values, EvaluationWeights.load(file).toArray(), 1e-4);
+    }
+
+    /**
+     * Computes the mean squared error of the constant prediction 0.5 directly from the records.
+     */
+    private static double errorOfHalf(CorpusReader reader) {
+        double sum = 0;
+        for (long record = 0; record < reader.getRecords(); record++) {
+            double error = 0.5 - CorpusFormat.result(reader.buffer(record), reader.offset(record), 6) / 2.0;
+            sum += error * error;
+        }
+        return sum / reader.getRecords();
+    }
+}
@@ -0,0 +1,138 @@
+package g61258.dev3.oxono.utils;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@Timeout(10)
+class EventPublisherTest {
+
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+
+    /**
+     * Subscriber recording its items, whose first delivery waits for a latch.
+     */
+    private static class Recorder implements Flow.Subscriber<String> {
+        final List<String> items = new CopyOnWriteArrayList<>();
+        final CountDownLatch release;
+        final CountDownLatch done = new CountDownLatch(1);
+        volatile Throwable error;
+
+        Recorder(CountDownLatch release) {
+            this.release = release;
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            subscription.request(Long.MAX_VALUE);
+        }
+
+        @Override
+        public void onNext(String item) {
+            items.add(item);
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            error = throwable;
+            done.countDown();
+        }
+
+        @Override
+        public void onComplete() {
+            done.countDown();
+        }
+    }
+
+    @AfterEach
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void testSlowSubscriberNeverBlocksPublisher() throws InterruptedException {
+        CountDownLatch release = new CountDownLatch(1);
+        // Fermé à la main : la fermeture fait partie de ce qui est vérifié
+        EventPublisher<String> publisher = new EventPublisher<>(executor, 4, String::concat);
+        Recorder slow = new Recorder(release);
+        Recorder coalesced = new Recorder(release);
+        Recorder fast = new Recorder(new CountDownLatch(0));
+        publisher.subscribe(slow, EventPublisher.Overflow.DROP_OLDEST);
+        publisher.subscribe(coalesced, EventPublisher.Overflow.COALESCE);
+        publisher.subscribe(fast, EventPublisher.Overflow.DROP_NEWEST);
+        while (slow.items.isEmpty() || coalesced.items.isEmpty()) {
+            publisher.submit("a"); // Jusqu'à ce que les abonnés lents soient bloqués
+            Thread.sleep(1);
+        }
+        for (int i = 0; i < 1000; i++) {
+            publisher.submit(Integer.toString(i % 10));
+        }
+        assertTrue(publisher.getDropped() > 0);
+        release.countDown();
+        publisher.close();
+        assertTrue(slow.done.await(5, TimeUnit.SECONDS));
+        assertTrue(coalesced.done.await(5, TimeUnit.SECONDS));
+        assertTrue(fast.done.await(5, TimeUnit.SECONDS));
+
+        // Les plus anciens perdus, les quatre derniers reçus dans l'ordre
+        assertEquals(List.of("6", "7", "8", "9"), slow.items.subList(slow.items.size() - 4, slow.items.size()));
+        // Rien de perdu en fusionnant
+        String all = String.join("", coalesced.items);
+        assertTrue(all.endsWith("0123456789".repeat(100)));
+        assertEquals(0, publisher.getSubscriberCount());
+    }
+
+    @Test
+    void testRejectedDeliveryCancelsSubscription() throws InterruptedException {
+        ExecutorService single = Executors.newSingleThreadExecutor();
+        EventPublisher<String> publisher = new EventPublisher<>(single, 2);
+        Recorder recorder = new Recorder(new CountDownLatch(0));
+        publisher.subscribe(recorder);
+        publisher.submit("a");
+        while (recorder.items.isEmpty()) {
+            Thread.sleep(1);
+        }
+        single.shutdown();
+        assertTrue(single.awaitTermination(5, TimeUnit.SECONDS));
+
+        publisher.submit("b"); // Ne doit pas lever d'exception dans le thread qui publie
+        assertTrue(recorder.error instanceof RejectedExecutionException);
+        assertEquals(0, publisher.getSubscriberCount());
+        assertThrows(RejectedExecutionException.class, () -> publisher.subscribe(new Recorder(new CountDownLatch(0))));
+        assertEquals(0, publisher.getSubscriberCount());
+    }
+
+    @Test
+    void testInvalidRequestSignalsError() throws InterruptedException {
+        EventPublisher<String> publisher = new EventPublisher<>(executor, 2);
+        Recorder recorder = new Recorder(new CountDownLatch(0)) {
+            @Override
+            public void onSubscribe(Flow.Subscription subscription) {
+                subscription.request(0);
+            }
+        };
+        publisher.subscribe(recorder);
+        assertTrue(recorder.done.await(5, TimeUnit.SECONDS));
+        assertTrue(recorder.error instanceof IllegalArgumentException);
+        publisher.submit("ignoré");
+        assertTrue(recorder.items.isEmpty());
+        assertThrows(IllegalArgumentException.class,
+                () -> publisher.subscribe(recorder, EventPublisher.Overflow.COALESCE));
+    }
+}